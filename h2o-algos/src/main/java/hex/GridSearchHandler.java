@@ -28,7 +28,8 @@ public abstract class GridSearchHandler< G extends Grid<MP, G>,
     G gridBuilder = gridSearchSchema.fillImpl(createGrid(parameters.training_frame.key().get()));
     // Start grid search and return the schema back with job key
     Grid.GridSearch gs = gridBuilder.startGridSearch((MP) parameters.createAndFillImpl(),
-                                                      gridSearchSchema.grid_parameters);
+                                                      gridSearchSchema.grid_parameters,
+                                                      gridSearchSchema.criteria());
     // Fill schema with job parameters
     // FIXME: right now we have to remove grid parameters which we sent
     gridSearchSchema.grid_parameters = null;
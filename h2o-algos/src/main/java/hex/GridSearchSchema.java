@@ -42,6 +42,24 @@ public /* FIXME: abstract */ class GridSearchSchema<G extends Grid<MP, G>,
   @API(help="Grid search parameters.")
   public IcedHashMap<String, Object[]> grid_parameters;
 
+  @API(help="Models to build at once; 0 to pick from the cloud's free memory and cores.")
+  public int parallelism;
+
+  @API(help="Build at most this many models, picked at random from the grid; 0 for the whole grid.")
+  public int max_models;
+
+  @API(help="Seed of the random search.")
+  public long search_seed = new Grid.SearchCriteria()._seed;
+
+  @API(help="Stop once this many models in a row did not improve the best error by more than stopping_tolerance; 0 to never stop.")
+  public int stopping_rounds;
+
+  @API(help="Relative improvement of the best error needed to go on searching.")
+  public double stopping_tolerance = new Grid.SearchCriteria()._stopping_tolerance;
+
+  @API(help="Cancel a model half-way built whose error is this many times the best one; 0 to let all models finish.")
+  public double hopeless_ratio;
+
   //
   // Outputs
   //
@@ -59,12 +77,31 @@ public /* FIXME: abstract */ class GridSearchSchema<G extends Grid<MP, G>,
       grid_parameters = parseJsonMap(parameters, new IcedHashMap<String, Object[]>());
       parms.remove("grid_parameters");
     }
+    // Search criteria
+    if (parms.containsKey("parallelism")) parallelism = Integer.parseInt((String) parms.remove("parallelism"));
+    if (parms.containsKey("max_models")) max_models = Integer.parseInt((String) parms.remove("max_models"));
+    if (parms.containsKey("search_seed")) search_seed = Long.parseLong((String) parms.remove("search_seed"));
+    if (parms.containsKey("stopping_rounds")) stopping_rounds = Integer.parseInt((String) parms.remove("stopping_rounds"));
+    if (parms.containsKey("stopping_tolerance")) stopping_tolerance = Double.parseDouble((String) parms.remove("stopping_tolerance"));
+    if (parms.containsKey("hopeless_ratio")) hopeless_ratio = Double.parseDouble((String) parms.remove("hopeless_ratio"));
 
     this.parameters.fillFromParms(parms);
 
     return (S) this;
   }
 
+  /** The search criteria set in this schema */
+  public Grid.SearchCriteria criteria() {
+    Grid.SearchCriteria c = new Grid.SearchCriteria();
+    c._parallelism = parallelism;
+    c._max_models = max_models;
+    c._seed = search_seed;
+    c._stopping_rounds = stopping_rounds;
+    c._stopping_tolerance = stopping_tolerance;
+    c._hopeless_ratio = hopeless_ratio;
+    return c;
+  }
+
   @Override
   public S fillFromImpl(G impl) {
     S s = super.fillFromImpl(impl);
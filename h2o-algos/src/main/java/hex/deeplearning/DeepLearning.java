@@ -51,6 +51,7 @@ public class DeepLearning extends ModelBuilder<DeepLearningModel,DeepLearningPar
   public ModelBuilderSchema schema() { return new DeepLearningV3(); }
   @Override public BuilderVisibility builderVisibility() { return BuilderVisibility.Stable; };
   @Override public boolean isSupervised() { return !_parms._autoencoder; }
+  @Override public boolean supportsWeights() { return true; }
 
   /** Start the DeepLearning training Job on an F/J thread. */
   @Override public Job<DeepLearningModel> trainModel() {
@@ -414,10 +415,9 @@ public class DeepLearning extends ModelBuilder<DeepLearningModel,DeepLearningPar
       }
       if (!_parms._quiet_mode) Log.info("ReBalancing dataset into (at least) " + chunks + " chunks.");
       Key newKey = Key.make(name + ".chunks" + chunks);
-      RebalanceDataSet rb = new RebalanceDataSet(fr, newKey, chunks);
-      H2O.submitTask(rb);
-      rb.join();
-      Frame f = DKV.get(newKey).get();
+      // Lazy views over the training data, which outlives the build: only the
+      // chunks DL keeps iterating over get copied
+      Frame f = RebalanceDataSet.rechunk(fr, newKey, chunks);
       _delete_me.add(f);
       return f;
     }
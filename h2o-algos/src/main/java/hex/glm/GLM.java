@@ -44,6 +44,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
   static final int NUM_LINE_SEARCH_STEPS = 16;
 
   public boolean isSupervised(){return true;}
+  @Override public boolean supportsWeights(){return true;}
   @Override
   public ModelCategory[] can_build() {
     return new ModelCategory[]{
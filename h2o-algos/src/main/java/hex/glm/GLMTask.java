@@ -763,9 +763,12 @@ public abstract class GLMTask  {
       }
       if(_dinfo._intercept)
         _xy[_xy.length-1] += wz;
-      _gram.addRow(r, w);
+      _gram.addRowBlocked(r, w);
     }
 
+    @Override
+    public void chunkDone(){_gram.flushRows();}
+
     @Override
     public void reduce(GLMIterationTask git){
       ArrayUtils.add(_xy, git._xy);
@@ -21,6 +21,14 @@ public final class Gram extends Iced<Gram> {
   final int _denseN;
   int _fullN;
   final static int MIN_TSKSZ=10000;
+  // blocked accumulation of the dense block, see addRowBlocked/flushRows
+  final static int TILE_ROWS=32;        // rows buffered per rank-k update
+  final static int PANEL_SZ=128;        // panel of the lower triangle updated at once (fits L2)
+  final static int MIN_BLOCKED_DENSE=64; // below this, row-at-a-time update is just as fast
+  final static int MIN_PAR_ADD=1 << 18; // number of elements of the gram above which add() runs in parallel
+  private transient double [][] _tile;  // buffered dense rows, not serialized (always flushed before reduce)
+  private transient double [] _tileW;
+  private transient int _tileN;
 
   public Gram() {_diagN = _denseN = _fullN = 0; _hasIntercept = false; }
 
@@ -336,10 +344,32 @@ public final class Gram extends Iced<Gram> {
 
 
   public void add(Gram grm) {
-    ArrayUtils.add(_xx,grm._xx);
+    assert _tileN == 0 && grm._tileN == 0:"unflushed rows in gram";
+    if(_xx.length == 0 || (long)_xx.length*_xx[_xx.length-1].length < MIN_PAR_ADD)
+      ArrayUtils.add(_xx,grm._xx);
+    else
+      new AddTask(_xx,grm._xx,0,_xx.length).invoke();
     ArrayUtils.add(_diag,grm._diag);
   }
 
+  /**
+   * Adds rows [from,to) of the lower triangle of one gram to another.
+   * Splits in halves (tree-wise) until the number of elements is small enough, so that merging two large grams
+   * in MRTask reduce runs on all cores rather than on the single reducing thread.
+   */
+  private static class AddTask extends RecursiveAction {
+    final double [][] _xs, _ys;
+    final int _from, _to;
+    AddTask(double [][] xs, double [][] ys, int from, int to){_xs = xs; _ys = ys; _from = from; _to = to;}
+    @Override protected void compute() {
+      if((long)(_to - _from)*_xs[_to-1].length > MIN_PAR_ADD && _to - _from > 1) {
+        int mid = (_from + _to) >>> 1;
+        invokeAll(new AddTask(_xs,_ys,_from,mid), new AddTask(_xs,_ys,mid,_to));
+      } else for(int i = _from; i < _to; ++i)
+        ArrayUtils.add(_xs[i],_ys[i]);
+    }
+  }
+
   public final boolean hasNaNsOrInfs() {
     for( int i = 0; i < _xx.length; ++i )
       for( int j = 0; j < _xx[i].length; ++j )
@@ -775,7 +805,68 @@ public final class Gram extends Iced<Gram> {
     else
       addRowSparse(row, w);
   }
-  public final void addRowDense(DataInfo.Row row, double w) {
+  public final void addRowDense(DataInfo.Row row, double w) {addRowDense(row,w,true);}
+
+  /**
+   * Same as {@link #addRow(DataInfo.Row, double)}, except the dense numeric x numeric part of dense rows is
+   * not added right away. The row is buffered in a tile of up to TILE_ROWS rows and the whole tile is then added
+   * as one rank-k (SYRK) update, see {@link #flushRows()}. Categoricals, intercept and sparse rows are still
+   * added row by row, they stay in the existing diagonal/sparse layout.
+   *
+   * {@link #flushRows()} must be called before the gram is used (or reduced).
+   */
+  public final void addRowBlocked(DataInfo.Row row, double w) {
+    if(row.numIds != null || _denseN < MIN_BLOCKED_DENSE) {
+      addRow(row,w);
+      return;
+    }
+    if(_tile == null) {
+      _tile = new double[TILE_ROWS][];
+      for(int i = 0; i < TILE_ROWS; ++i)
+        _tile[i] = MemoryManager.malloc8d(_denseN);
+      _tileW = MemoryManager.malloc8d(TILE_ROWS);
+    }
+    addRowDense(row,w,false);
+    System.arraycopy(row.numVals,0,_tile[_tileN],0,_denseN);
+    _tileW[_tileN] = w;
+    if(++_tileN == TILE_ROWS)
+      flushRows();
+  }
+
+  /**
+   * Add buffered rows to the dense numeric block of the gram.
+   * The lower triangle is processed in PANEL_SZ x PANEL_SZ panels, all buffered rows are added to a panel before
+   * moving to the next one, so that the panel and the matching columns of the tile stay in cache instead of
+   * streaming the whole triangle through the cache once per row.
+   */
+  public final void flushRows() {
+    final int n = _tileN;
+    if(n == 0) return;
+    final int intercept = _hasIntercept?1:0;
+    final int denseRowStart = _fullN - _denseN - _diagN - intercept;
+    final int denseColStart = _fullN - _denseN - intercept;
+    final double [][] tile = _tile;
+    final double [] tileW = _tileW;
+    for(int i0 = 0; i0 < _denseN; i0 += PANEL_SZ) {
+      final int i1 = Math.min(_denseN, i0 + PANEL_SZ);
+      for(int j0 = 0; j0 < i1; j0 += PANEL_SZ) {
+        for(int i = i0; i < i1; ++i) {
+          final double [] mrow = _xx[i + denseRowStart];
+          final int j1 = Math.min(i + 1, j0 + PANEL_SZ);
+          for(int k = 0; k < n; ++k) {
+            final double [] x = tile[k];
+            final double d = tileW[k]*x[i];
+            if(d == 0) continue;
+            for(int j = j0; j < j1; ++j)
+              mrow[j + denseColStart] += d*x[j];
+          }
+        }
+      }
+    }
+    _tileN = 0;
+  }
+
+  private void addRowDense(DataInfo.Row row, double w, boolean numsXnums) {
     final int intercept = _hasIntercept?1:0;
     final int denseRowStart = _fullN - _denseN - _diagN - intercept; // we keep dense numbers at the right bottom of the matrix, -1 is for intercept
     final int denseColStart = _fullN - _denseN - intercept;
@@ -786,8 +877,9 @@ public final class Gram extends Iced<Gram> {
     for(int i = 0; i < _denseN; ++i) if(row.numVals[i] != 0) {
       final double [] mrow = _xx[i+denseRowStart];
       final double d = w* row.numVals[i];
-      for(int j = 0; j <= i; ++j)if(row.numVals[j] != 0)
-        mrow[j+denseColStart] += d* row.numVals[j];
+      if(numsXnums)
+        for(int j = 0; j <= i; ++j)if(row.numVals[j] != 0)
+          mrow[j+denseColStart] += d* row.numVals[j];
       if(_hasIntercept)
         interceptRow[i+denseColStart] += d; // intercept*x[i]
       // nums * cats
@@ -19,16 +19,7 @@ public abstract class DTreeScorer<T extends DTreeScorer<T>> extends MRTask<T> {
   protected int ntrees() { return _trees.length; }
 
   @Override protected final void setupLocal() {
-    int ntrees = _treeKeys.length;
-    _trees = new CompressedTree[ntrees][];
-    for (int t=0; t<ntrees; t++) {
-      Key[] treek = _treeKeys[t];
-      _trees[t] = new CompressedTree[treek.length];
-      // FIXME remove get by introducing fetch class for all trees
-      for (int i=0; i<treek.length; i++)
-        if (treek[i]!=null)
-          _trees[t][i] = DKV.get(treek[i]).get();
-    }
+    _trees = SharedTreeModel.fetchTrees(_treeKeys);
   }
 
   public final Chunk chk_oobt(Chunk chks[]) { return chks[_ncols+1+_nclass+_nclass+_nclass+_skip]; }
@@ -40,6 +40,7 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
   private transient float[/*nfeatures*/] _improvPerVar;
 
   public boolean isSupervised(){return true;}
+  @Override public boolean supportsWeights(){return true;}
 
   Key _response_key;
   Key _vresponse_key;
@@ -222,7 +223,13 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
         _parms.read_unlock_frames(SharedTree.this);
         if( _model==null ) Scope.exit();
         else {
-          Scope.exit(_model._key, ModelMetrics.buildKey(_model,_parms.train()), ModelMetrics.buildKey(_model,_parms.valid()));
+          Key[] keep = new Key[]{_model._key, ModelMetrics.buildKey(_model,_parms.train()), ModelMetrics.buildKey(_model,_parms.valid())};
+          Frame preds = _model._output._tree_preds_key == null ? null : _model._output._tree_preds_key.get();
+          if( preds != null ) { // Kept forest predictions outlive the build
+            keep = ArrayUtils.append(keep, preds._key);
+            for( Vec v : preds.vecs() ) keep = ArrayUtils.append(keep, v._key);
+          }
+          Scope.exit(keep);
         }
       }
       tryComplete();
@@ -2,6 +2,7 @@ package hex.tree;
 
 import hex.*;
 import water.*;
+import water.fvec.Frame;
 import water.util.*;
 
 import java.util.ArrayList;
@@ -27,6 +28,7 @@ public abstract class SharedTreeModel<M extends SharedTreeModel<M,P,O>, P extend
     public double _r2_stopping = 0.999999; // Stop when the r^2 metric equals or exceeds this value
 
     public long _seed = RandomUtils.getRNG(System.nanoTime()).nextLong();
+    @Override public long getSeed() { return _seed; }
 
     // TRUE: Continue extending an existing checkpointed model
     // FALSE: Overwrite any prior model
@@ -35,6 +37,11 @@ public abstract class SharedTreeModel<M extends SharedTreeModel<M,P,O>, P extend
     public int _nbins_top_level = 1<<10; //hardcoded minimum top-level number of bins for real-valued columns (not currently user-facing)
 
     public boolean _build_tree_one_node = false;
+
+    // TRUE: Keep the per-row forest predictions on the training frame with the
+    // model, so a checkpoint continuation on the same training rows (with new
+    // rows appended at the end) only has to score the prior trees on the new rows
+    public boolean _keep_tree_preds;
   }
 
   final public VarImp varImp() { return _output._varimp; }
@@ -70,6 +77,12 @@ public abstract class SharedTreeModel<M extends SharedTreeModel<M,P,O>, P extend
     /** Trees get big, so store each one seperately in the DKV. */
     public Key<CompressedTree>[/*_ntrees*/][/*_nclass*/] _treeKeys;
 
+    /** Per-row forest predictions (one Vec per class) on the training frame,
+     *  only kept when asked for; used to restart from a checkpoint. */
+    public Key<Frame> _tree_preds_key;
+    /** Checksum of the training rows the kept predictions were made on */
+    public long _tree_preds_checksum;
+
     public ScoreKeeper _scored_train[/*ntrees+1*/];
     public ScoreKeeper _scored_valid[/*ntrees+1*/];
 
@@ -125,30 +138,144 @@ public abstract class SharedTreeModel<M extends SharedTreeModel<M,P,O>, P extend
   }
   @Override
   protected double[] score0(double[] data, double[] preds, double weight, double offset) {
-    // Prefetch trees into the local cache if it is necessary
+    // Trees come from the local cache, all fetched on first use
+    final CompressedTree[][] trees = trees();
     // Invoke scoring
     Arrays.fill(preds,0);
-    for( int tidx=0; tidx<_output._treeKeys.length; tidx++ )
-      score0(data, preds, tidx, weight, offset);
+    for( CompressedTree[] ts : trees )
+      score0(data, preds, ts, weight, offset);
     return preds;
   }
+
+  /** All the trees, by tree and class; null where there is no key.  The
+   *  remote trees are all requested before waiting on any of them, so the
+   *  trees come in about one round trip rather than one per tree. */
+  public static CompressedTree[][] fetchTrees( Key[][] treeKeys ) {
+    for( Key[] ks : treeKeys )
+      for( Key k : ks )
+        if( k != null ) DKV.prefetch(k);
+    CompressedTree[][] trees = new CompressedTree[treeKeys.length][];
+    for( int t=0; t<treeKeys.length; t++ ) {
+      Key[] ks = treeKeys[t];
+      trees[t] = new CompressedTree[ks.length];
+      for( int c=0; c<ks.length; c++ )
+        if( ks[c] != null ) trees[t][c] = DKV.get(ks[c]).get();
+    }
+    return trees;
+  }
+
+  // Trees of this model, fetched together and kept for scoring; refetched as trees are added
+  private transient volatile CompressedTree[][] _trees;
+  /** The trees of this model, by tree and class, as {@link #fetchTrees}
+   *  returns them: fetched on first use - once, however many threads score
+   *  at the same time - and then kept. */
+  public CompressedTree[][] trees() {
+    final Key[][] keys = _output._treeKeys;
+    CompressedTree[][] trees = _trees;
+    if( trees != null && trees.length == keys.length ) return trees;
+    synchronized( this ) {
+      trees = _trees;
+      if( trees != null && trees.length == keys.length ) return trees;
+      return _trees = fetchTrees(keys);
+    }
+  }
+
+  /** Fetch all the trees, so the first rows score as fast as the rest. */
+  @Override public void warmUp() { trees(); }
+  /** Turn the per-class sums of the tree predictions into the final
+   *  prediction, class distribution and label; the in-cluster counterpart of
+   *  toJavaUnifyPreds. */
+  abstract protected double[] unifyPreds(double data[], double preds[]);
+
+  // --------------------------------------------------------------------------
+  // Label-only scoring.  A binomial model with one tree per iteration decides
+  // its label by comparing the sum of the trees with a cutoff.  Each tree adds
+  // one of its leaf values, so once the trees scored so far put the sum
+  // further from the cutoff than the remaining trees could move it, the label
+  // is known and the remaining trees are skipped.  Trees are scored in model
+  // order: GBM trees shrink as boosting proceeds, so the large moves come
+  // first, and a row which is not decided early gets the very same sum (and
+  // label) as full scoring.
+
+  /** Cutoff on the summed class-0 tree predictions of a binomial model:
+   *  sums above it predict class {@link #labelAbove()}, sums below it the
+   *  other class.  NaN if label-only scoring cannot stop early. */
+  protected double labelCutoff() { return Double.NaN; }
+  /** Class predicted for sums above {@link #labelCutoff()}. */
+  protected int labelAbove() { return 1; }
+
+  /** Trees of a binomial model with the bounds of the sum of their remaining
+   *  leaf values: after scoring trees [0,t) the other trees add at least
+   *  _remMin[t] and at most _remMax[t]. */
+  private static final class LeafBounds {
+    final CompressedTree[] _trees;
+    final double[] _remMin, _remMax;
+    LeafBounds( CompressedTree[] trees ) {
+      _trees = trees;
+      _remMin = new double[trees.length+1];
+      _remMax = new double[trees.length+1];
+      for( int t=trees.length-1; t>=0; t-- ) {
+        final double[] mm = new double[]{Double.POSITIVE_INFINITY,Double.NEGATIVE_INFINITY};
+        new TreeVisitor<RuntimeException>(trees[t]) {
+          @Override protected void leaf( float pred ) { mm[0] = Math.min(mm[0],pred); mm[1] = Math.max(mm[1],pred); }
+        }.visit();
+        _remMin[t] = _remMin[t+1] + mm[0];
+        _remMax[t] = _remMax[t+1] + mm[1];
+      }
+    }
+  }
+  private transient volatile LeafBounds _leafBounds;
+
+  // Null if this model does not use a single class-0 tree per iteration
+  private LeafBounds leafBounds() {
+    final Key[][] keys = _output._treeKeys;
+    LeafBounds lb = _leafBounds;
+    if( lb != null && lb._trees.length == keys.length ) return lb;
+    for( Key[] ks : keys )
+      if( ks.length != 2 || ks[0] == null || ks[1] != null ) return null;
+    CompressedTree[][] all = trees();
+    CompressedTree[] trees = new CompressedTree[all.length];
+    for( int t=0; t<all.length; t++ )
+      trees[t] = all[t][0];
+    return _leafBounds = new LeafBounds(trees);
+  }
+
+  @Override protected double scoreLabel0(double data[], double preds[], double offset) {
+    final double cutoff = labelCutoff();
+    final LeafBounds lb;
+    if( Double.isNaN(cutoff) || Double.isInfinite(cutoff) || offset != 0 || (lb = leafBounds()) == null )
+      return super.scoreLabel0(data, preds, offset);
+    // Only stop when clearly past the cutoff; rounding of the sum must not flip a label
+    final double slack = 1e-6*(1+Math.abs(cutoff));
+    final CompressedTree[] trees = lb._trees;
+    double sum = 0;
+    for( int t=0; t<trees.length; t++ ) {
+      sum += trees[t].score(data);
+      if( sum + lb._remMin[t+1] > cutoff + slack ) return labelAbove();
+      if( sum + lb._remMax[t+1] < cutoff - slack ) return 1-labelAbove();
+    }
+    Arrays.fill(preds,0);
+    preds[1] = sum;
+    return unifyPreds(data, preds)[0];
+  }
+
   // Score per line per tree
-  private void score0(double data[], double preds[], int treeIdx, double weight, double offset) {
-    Key[] keys = _output._treeKeys[treeIdx];
-    for( int c=0; c<keys.length; c++ ) {
-      if (keys[c] != null) {
-        double pred = DKV.get(keys[c]).<CompressedTree>get().score(data);
+  private void score0(double data[], double preds[], CompressedTree[] ts, double weight, double offset) {
+    for( int c=0; c<ts.length; c++ ) {
+      if (ts[c] != null) {
+        double pred = ts[c].score(data);
         assert (!Double.isInfinite(pred));
-        preds[keys.length == 1 ? 0 : c + 1] += pred;
+        preds[ts.length == 1 ? 0 : c + 1] += pred;
       }
     }
-    if (keys.length == 1) preds[0] += offset;
+    if (ts.length == 1) preds[0] += offset;
   }
 
   @Override protected Futures remove_impl( Futures fs ) {
     for( Key ks[] : _output._treeKeys)
       for( Key k : ks )
         if( k != null ) k.remove(fs);
+    if( _output._tree_preds_key != null ) Keyed.remove(_output._tree_preds_key, fs);
     return super.remove_impl(fs);
   }
 
@@ -194,8 +321,32 @@ public abstract class SharedTreeModel<M extends SharedTreeModel<M,P,O>, P extend
       }
     }
     toJavaUnifyPreds(body,file);
+    toJavaPredictLabel(classCtx,file,mname);
   }
   abstract protected void toJavaUnifyPreds( SB body, SB file );
+
+  // Label-only scoring with early stop, with the leaf bounds baked in; see scoreLabel0
+  private void toJavaPredictLabel( SB sb, SB file, String mname ) {
+    final double cutoff = labelCutoff();
+    final LeafBounds lb;
+    if( Double.isNaN(cutoff) || Double.isInfinite(cutoff) || (lb = leafBounds()) == null ) return;
+    final double slack = 1e-6*(1+Math.abs(cutoff));
+    sb.nl();
+    sb.ip("// Predicted label only; stops scoring trees once the others cannot change it").nl();
+    sb.ip("@Override public final double predictLabel( double[] data, double[] preds ) {").nl().ii(1);
+    sb.ip("double[] fdata = hex.genmodel.GenModel.SharedTree_clean(data);").nl();
+    sb.ip("double sum = 0;").nl();
+    for( int t=0; t<lb._trees.length; t++ ) {
+      toJavaTreeName(sb.ip("sum += "),mname,t,0).p(".score0(fdata);").nl();
+      sb.ip("if( sum > ").p(cutoff + slack - lb._remMin[t+1]).p(" ) return ").p(labelAbove()).p(";").nl();
+      sb.ip("if( sum < ").p(cutoff - slack - lb._remMax[t+1]).p(" ) return ").p(1-labelAbove()).p(";").nl();
+    }
+    sb.ip("java.util.Arrays.fill(preds,0);").nl();
+    sb.ip("preds[1] = sum;").nl();
+    toJavaUnifyPreds(sb,file);
+    sb.ip("return preds[0];").nl();
+    sb.di(1).ip("}").nl();
+  }
   protected SB toJavaTreeName( final SB sb, String mname, int t, int c ) { return sb.p(mname).p("_Tree_").p(t).p("_class_").p(c); }
   protected SB toJavaForestName( final SB sb, String mname, int t ) { return sb.p(mname).p("_Forest_").p(t); }
 
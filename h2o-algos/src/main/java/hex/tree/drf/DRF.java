@@ -50,7 +50,7 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
 
   /** Start the DRF training Job on an F/J thread. */
   @Override public Job<hex.tree.drf.DRFModel> trainModel() {
-    return start(new DRFDriver(), _parms._ntrees/*work for progress bar*/);
+    return start(new DRFDriver(), _ntrees/*work for progress bar*/);
   }
 
 
@@ -186,7 +186,7 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
       DTree[] ktrees = null;
       // Prepare tree statistics
       // Build trees until we hit the limit
-      for( tid=0; tid<_parms._ntrees; tid++) { // Building tid-tree
+      for( tid=0; tid<_ntrees; tid++) { // Building tid-tree
         if (tid!=0 || !_parms._checkpoint) { // do not make initial scoring if model already exist
           double training_r2 = doScoringAndSaveModel(false, true, _parms._build_tree_one_node);
           if( training_r2 >= _parms._r2_stopping )
@@ -36,6 +36,11 @@ public class DRFModel extends SharedTreeModel<DRFModel,DRFModel.DRFParameters,DR
    *  subclass scoring logic. */
   @Override protected double[] score0(double data[], double preds[], double weight, double offset) {
     super.score0(data, preds, weight, offset);
+    return unifyPreds(data, preds);
+  }
+
+  // Average the votes (or probabilities) of all trees
+  @Override protected double[] unifyPreds(double data[], double preds[]) {
     int N = _parms._ntrees;
     if (_output.nclasses() == 1) { // regression - compute avg over all trees
       preds[0] /= N;
@@ -56,6 +61,14 @@ public class DRFModel extends SharedTreeModel<DRFModel,DRFModel.DRFParameters,DR
     return preds;
   }
 
+  // Binomial with single trees: the sum of the trees is N times the class-0
+  // probability, so class 1 iff sum <= N*(1-threshold)
+  @Override protected double labelCutoff() {
+    if( _output.nclasses() != 2 || _parms._binomial_double_trees || _parms._balance_classes ) return Double.NaN;
+    return _parms._ntrees*(1.0-defaultThreshold());
+  }
+  @Override protected int labelAbove() { return 0; }
+
   @Override protected void toJavaUnifyPreds(SB body, SB file) {
     if (_output.nclasses() == 1) { // Regression
       body.ip("preds[0] /= " + _output._ntrees + ";").nl();
@@ -9,11 +9,15 @@ import hex.tree.DTree.UndecidedNode;
 import water.*;
 import water.exceptions.H2OModelBuilderIllegalArgumentException;
 import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.Vec;
 import water.util.FrameUtils;
 import water.util.Log;
 import water.util.Timer;
 import water.util.ArrayUtils;
 
+import java.util.Arrays;
+
 /** Gradient Boosted Trees
  *
  *  Based on "Elements of Statistical Learning, Second Edition, page 387"
@@ -36,7 +40,7 @@ public class GBM extends SharedTree<GBMModel,GBMModel.GBMParameters,GBMModel.GBM
 
   /** Start the GBM training Job on an F/J thread. */
   @Override public Job<GBMModel> trainModel() {
-    return start(new GBMDriver(), _parms._ntrees/*work for progress bar*/);
+    return start(new GBMDriver(), _ntrees/*work for progress bar*/);
   }
 
   /** Initialize the ModelBuilder, validating all arguments and preparing the
@@ -119,33 +123,39 @@ public class GBM extends SharedTree<GBMModel,GBMModel.GBMParameters,GBMModel.GBM
     
     if( !(0. < _parms._learn_rate && _parms._learn_rate <= 1.0) )
       error("_learn_rate", "learn_rate must be between 0 and 1");
+    if( _parms._keep_tree_preds && _parms._balance_classes )
+      error("_keep_tree_preds", "Tree predictions cannot be kept for a class-balanced (resampled) training frame");
   }
 
   // ----------------------
   private class GBMDriver extends Driver {
 
     @Override protected void buildModel() {
-      final double init = _initialPrediction;
+      final double init = _model._output._init_f; // From the checkpoint, if continuing one
       if( init != 0.0 )       // Only non-zero for regression or bernoulli
         new MRTask() {
           @Override public void map(Chunk tree) { for( int i=0; i<tree._len; i++ ) tree.set(i, init); }
         }.doAll(vec_tree(_train,0), _parms._build_tree_one_node); // Only setting tree-column 0
 
       // Reconstruct the working tree state from the checkpoint
-      if( _parms._checkpoint ) {
+      if( _parms._checkpoint && _model._output._ntrees > 0 ) {
         Timer t = new Timer();
-        new ResidualsCollector(_ncols, _nclass, (hasOffset()?1:0)+(hasWeights()?1:0),_model._output._treeKeys).doAll(_train, _parms._build_tree_one_node);
-        Log.info("Reconstructing tree residuals stats from checkpointed model took " + t);
+        long startRow = restoreTreePreds();
+        new ResidualsCollector(_ncols, _nclass, (hasOffset()?1:0)+(hasWeights()?1:0),_model._output._treeKeys,startRow).doAll(_train, _parms._build_tree_one_node);
+        Log.info("Reconstructing tree residuals stats from checkpointed model took " + t
+                 + (startRow > 0 ? " (reused kept predictions for the first " + startRow + " rows)" : ""));
       }
 
       // Loop over the K trees
-      for( int tid=0; tid<_parms._ntrees; tid++) {
+      for( int tid=0; tid<_ntrees; tid++) {
         // During first iteration model contains 0 trees, then 1-tree, ...
         // No need to score a checkpoint with no extra trees added
         if( tid!=0 || !_parms._checkpoint ) { // do not make initial scoring if model already exist
           double training_r2 = doScoringAndSaveModel(false, false, _parms._build_tree_one_node);
-          if( training_r2 >= _parms._r2_stopping )
+          if( training_r2 >= _parms._r2_stopping ) {
+            if( keepTreePreds() ) _model.update(_key);
             return;             // Stop when approaching round-off error
+          }
         }
 
         // ESL2, page 387
@@ -166,9 +176,102 @@ public class GBM extends SharedTree<GBMModel,GBMModel.GBMParameters,GBMModel.GBM
         if( !isRunning() ) return; // If canceled during building, do not bulkscore
       }
       // Final scoring (skip if job was cancelled)
+      keepTreePreds();
       doScoringAndSaveModel(true, false, _parms._build_tree_one_node);
     }
 
+    // --------------------------------------------------------------------------
+    // Kept forest predictions.  The Tree columns hold the sum of all the trees
+    // (plus the initial guess) for every training row.  Keeping a copy with the
+    // model lets a later checkpoint restart on the same rows (plus new rows
+    // appended at the end, e.g. a daily retrain) skip re-scoring every prior
+    // tree on every old row - only the new rows are scored.
+
+    // Copy the Tree columns aside and record them in the model.  Returns true
+    // if the model output changed.
+    private boolean keepTreePreds() {
+      if( !_parms._keep_tree_preds ) return false;
+      Frame old = _model._output._tree_preds_key == null ? null : _model._output._tree_preds_key.get();
+      if( old != null ) old.delete();
+      Vec[] vecs = new Vec[_nclass];
+      String[] names = new String[_nclass];
+      for( int k=0; k<_nclass; k++ ) {
+        vecs[k] = vec_tree(_train,k).makeCopy(null);
+        names[k] = _train._names[idx_tree(k)];
+      }
+      Frame preds = new Frame(Key.make(_model._key+"_tree_preds"), names, vecs);
+      DKV.put(preds);
+      _model._output._tree_preds_key = preds._key;
+      _model._output._tree_preds_checksum = rowsChecksum(preds.numRows());
+      return true;
+    }
+
+    // Checksum of the training values (all the columns before the Tree ones)
+    // of the first nrows rows, in order: tells whether kept predictions were
+    // made on the rows a checkpoint restarts on.
+    private long rowsChecksum(long nrows) {
+      Frame data = new Frame(Arrays.copyOf(_train.vecs(), idx_tree(0)));
+      return new RowsChecksum(nrows).doAll(data, _parms._build_tree_one_node)._checksum;
+    }
+
+    // Restore the Tree columns of the leading rows from predictions kept by the
+    // checkpointed model.  Returns the number of restored rows, which the prior
+    // trees do not need to score again; 0 if nothing could be reused.
+    private long restoreTreePreds() {
+      Frame preds = _model._output._tree_preds_key == null ? null : _model._output._tree_preds_key.get();
+      if( preds == null ) return 0;
+      final long nrows = preds.numRows();
+      if( preds.numCols() != _nclass || nrows > _train.numRows() ) {
+        Log.warn("Kept tree predictions do not match the training frame (" + preds.numCols() + " cols x " + nrows
+                 + " rows); re-scoring all rows with the checkpointed trees.");
+        return 0;
+      }
+      if( rowsChecksum(nrows) != _model._output._tree_preds_checksum ) {
+        Log.warn("Kept tree predictions were made on other rows than the first " + nrows
+                 + " of the training frame; re-scoring all rows with the checkpointed trees.");
+        return 0;
+      }
+      final Vec[] pvecs = preds.vecs();
+      Vec[] tvecs = new Vec[_nclass];
+      for( int k=0; k<_nclass; k++ ) tvecs[k] = vec_tree(_train,k);
+      new MRTask() {
+        @Override public void map(Chunk[] trees) {
+          final long start = trees[0].start();
+          final int len = (int)Math.max(0, Math.min(trees[0]._len, nrows - start));
+          for( int k=0; k<trees.length; k++ ) {
+            Chunk p = null;
+            for( int i=0; i<len; i++ ) {
+              long row = start+i;
+              if( p == null || row >= p.start()+p._len ) p = pvecs[k].chunkForRow(row);
+              trees[k].set(i, p.atd((int)(row-p.start())));
+            }
+          }
+        }
+      }.doAll(new Frame(tvecs), _parms._build_tree_one_node);
+      return nrows;
+    }
+
+    // Order-sensitive sum of the hashed values of the first _nrows rows
+    private class RowsChecksum extends MRTask<RowsChecksum> {
+      final long _nrows;
+      long _checksum;
+      RowsChecksum( long nrows ) { _nrows = nrows; }
+      @Override public void map( Chunk chks[] ) {
+        final long start = chks[0].start();
+        final int len = (int)Math.max(0, Math.min(chks[0]._len, _nrows - start));
+        long sum = 0;
+        for( int c=0; c<chks.length; c++ )
+          for( int i=0; i<len; i++ ) {
+            long h = (Double.doubleToLongBits(chks[c].atd(i)) + (start+i)*0x9E3779B97F4A7C15L) * 31 + c;
+            h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+            h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+            sum += h ^ (h >>> 31);
+          }
+        _checksum = sum;
+      }
+      @Override public void reduce( RowsChecksum rc ) { _checksum += rc._checksum; }
+    }
+
     // --------------------------------------------------------------------------
     // Compute Prediction from prior tree results.
     // Classification (multinomial): Probability Distribution of loglikelyhoods
@@ -33,6 +33,12 @@ public class GBMModel extends SharedTreeModel<GBMModel,GBMModel.GBMParameters,GB
    *  subclass scoring logic. */
   @Override protected double[] score0(double data[/*ncols*/], double preds[/*nclasses+1*/], double weight, double offset) {
     super.score0(data, preds, weight, offset);    // These are f_k(x) in Algorithm 10.4
+    return unifyPreds(data, preds);
+  }
+
+  // Preds are filled in from the trees, but need to be adjusted according to
+  // the loss function.
+  @Override protected double[] unifyPreds(double data[], double preds[]) {
     if( _parms._distribution == GBMParameters.Family.bernoulli ) {
       double fx = preds[1] + _output._init_f;
       preds[2] = 1.0/(1.0+Math.exp(-fx));
@@ -58,6 +64,13 @@ public class GBMModel extends SharedTreeModel<GBMModel,GBMModel.GBMParameters,GB
     return preds;
   }
 
+  // Bernoulli: class 1 iff 1/(1+exp(-(f+init_f))) >= threshold
+  @Override protected double labelCutoff() {
+    if( _parms._distribution != GBMParameters.Family.bernoulli || _parms._balance_classes ) return Double.NaN;
+    double threshold = defaultThreshold();
+    return Math.log(threshold/(1.0-threshold)) - _output._init_f;
+  }
+
   @Override protected void toJavaUnifyPreds(SB body, SB file) {
     // Preds are filled in from the trees, but need to be adjusted according to
     // the loss function.
@@ -8,8 +8,16 @@ import water.fvec.Chunk;
 
 public class ResidualsCollector extends DTreeScorer<ResidualsCollector> {
 
+  /** Rows before this one already hold the prior trees' predictions */
+  private final long _startRow;
+
   public ResidualsCollector(int ncols, int nclass, int skip, Key[][] treeKeys) {
+    this(ncols, nclass, skip, treeKeys, 0);
+  }
+
+  public ResidualsCollector(int ncols, int nclass, int skip, Key[][] treeKeys, long startRow) {
     super(ncols, nclass, skip, treeKeys);
+    _startRow = startRow;
   }
 
   @Override public void map(Chunk[] chks) {
@@ -17,8 +25,10 @@ public class ResidualsCollector extends DTreeScorer<ResidualsCollector> {
     double [] preds = new double[_nclass+1];
     int ntrees = ntrees();
     Chunk cys   = chk_resp(chks);
+    int row0 = (int)Math.min(cys._len, Math.max(0, _startRow - cys.start()));
+    if( row0 == cys._len ) return;
     for( int tidx=0; tidx<ntrees; tidx++) { // tree
-      for (int row=0; row<cys._len; row++) {
+      for (int row=row0; row<cys._len; row++) {
         // Make a prediction
         for (int i=0;i<_ncols;i++) data[i] = chks[i].atd(row);
         Arrays.fill(preds, 0);
@@ -0,0 +1,89 @@
+package hex.word2vec;
+
+import water.Key;
+import water.fvec.Vec;
+import water.parser.ValueString;
+import water.util.Log;
+
+/**
+ * Read-only lookup from words to their row in the vocabulary frame.
+ * <p>
+ * Words are stored as 64-bit fingerprints of their UTF-8 bytes in a primitive
+ * open addressing table, rather than as one ValueString key plus one Integer
+ * value per word in a NonBlockingHashMap.  Lookups hash the bytes in place
+ * (e.g. a ValueString pointing into a CStrChunk), so no object is created per
+ * word of the training text. </p>
+ * <p>
+ * Built once per node and shared by all training threads (and epochs) working
+ * with the same vocabulary. </p>
+ */
+final class VocabHash {
+  private static final long EMPTY = 0;
+  final Key _vocabKey;
+  private final long[] _fps;
+  private final int[] _rows;
+  private final int _mask;
+
+  VocabHash(Key vocabKey, Vec words) {
+    _vocabKey = vocabKey;
+    final long n = words.length();
+    int cap = Integer.highestOneBit((int)Math.max(2, n) * 2 - 1) << 1; // load factor <= .5
+    _fps = new long[cap];
+    _rows = new int[cap];
+    _mask = cap - 1;
+    ValueString tmp = new ValueString();
+    int collisions = 0;
+    for (int i = 0; i < n; i++) {
+      ValueString word = words.atStr(tmp, i);
+      if (word != null && !put(fingerprint(word), i)) collisions++;
+    }
+    if (collisions > 0)
+      Log.warn("Word2Vec: " + collisions + " word(s) share a fingerprint with another vocabulary word and will be ignored.");
+  }
+
+  /**
+   * @return row of the word in the vocabulary frame, -1 if not in the vocabulary (or NA)
+   */
+  int get(ValueString word) {
+    if (word == null) return -1;
+    final long fp = fingerprint(word);
+    for (int i = mix(fp) & _mask; ; i = (i + 1) & _mask) {
+      long k = _fps[i];
+      if (k == fp) return _rows[i];
+      if (k == EMPTY) return -1;
+    }
+  }
+
+  private boolean put(long fp, int row) {
+    for (int i = mix(fp) & _mask; ; i = (i + 1) & _mask) {
+      long k = _fps[i];
+      if (k == fp) return false;
+      if (k == EMPTY) {
+        _fps[i] = fp;
+        _rows[i] = row;
+        return true;
+      }
+    }
+  }
+
+  /**
+   * 64-bit FNV-1a over the bytes of the word, never returns 0 (reserved for empty slots).
+   */
+  static long fingerprint(ValueString word) {
+    final byte[] buf = word.getBuffer();
+    final int end = word.getOffset() + word.length();
+    long h = 0xcbf29ce484222325L;
+    for (int i = word.getOffset(); i < end; i++) {
+      h ^= buf[i] & 0xFF;
+      h *= 0x100000001b3L;
+    }
+    return h == EMPTY ? 1 : h;
+  }
+
+  private static int mix(long fp) {
+    fp ^= fp >>> 33;
+    fp *= 0xff51afd7ed558ccdL;
+    fp ^= fp >>> 33;
+    return (int) fp;
+  }
+}
@@ -101,6 +101,8 @@ public class Word2Vec extends ModelBuilder<Word2VecModel,Word2VecModel.Word2VecP
       } finally {
         if( model != null ) model.unlock(_key);
         _parms.read_unlock_frames(Word2Vec.this);
+        if( model != null && model.getModelInfo() != null )
+          WordVectorTrainer.releaseVocabHash(model.getModelInfo().getParams()._vocabKey);
       }
       tryComplete();
     }
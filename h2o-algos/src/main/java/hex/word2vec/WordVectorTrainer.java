@@ -1,18 +1,28 @@
 package hex.word2vec;
 
 import water.H2O;
+import water.Iced;
+import water.Key;
 import water.MRTask;
 import water.fvec.CStrChunk;
 import water.fvec.Vec;
 import water.fvec.Chunk;
 import water.fvec.Frame;
-import water.nbhm.NonBlockingHashMap;
 import water.parser.ValueString;
 import water.util.Log;
 import hex.word2vec.Word2VecModel.*;
 import hex.word2vec.Word2Vec.*;
 import java.util.Random;
 
+/**
+ * One training epoch of Word2Vec.
+ * <p>
+ * All fork/join workers of a node update the same (node-shared) embedding
+ * tables without locking, and mark the rows they touched.  Instead of sending
+ * whole copies of the tables back to be averaged, each node only returns the
+ * rows it touched; the caller sets every touched row to the mean of the values
+ * computed by the nodes which updated it. </p>
+ */
 public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
   static final int MAX_SENTENCE_LEN = 1000;
   static final int MIN_SENTENCE_LEN = 10;
@@ -20,17 +30,20 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
   static final int MAX_EXP = 6;
 
   private Word2VecModelInfo _input;
-  Word2VecModelInfo _output;
+  transient Word2VecModelInfo _output;
   Frame _vocab;
-  static NonBlockingHashMap<ValueString,Integer> _vocabHM;
+  static VocabHash _vocabHash;
   final WordModel _wordModel; final NormModel _normModel;
   final int _vocabSize, _wordVecSize, _windowSize, _epochs, _negExCnt;
   final float _initLearningRate, _sentSampleRate;
   static float[] _syn0, _syn1, _expTable;
+  static byte[] _touched0, _touched1; // rows of _syn0/_syn1 updated on this node, racy writes of 1 are fine
   final int[]_unigramTable;
   final int[][] _HBWTCode;
   final int[][] _HBWTPoint;
-  int _chunkNodeCount = 1;
+  int _chunkNodeCount;
+  long _wordsProcessed;
+  TouchedRows _syn0Rows, _syn1Rows; // rows updated by the nodes reduced so far
   transient float _curLearningRate;
   transient int _chkIdx =0;
   transient Random _rand;
@@ -70,20 +83,34 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
   @Override
   protected void setupLocal() {
     _syn0 = _input._syn0;  _syn1 = _input._syn1;
+    _touched0 = new byte[_syn0.length / _wordVecSize];
+    _touched1 = new byte[_syn1.length / _wordVecSize];
     _output = _input; //faster, good enough in this case (since the input was freshly deserialized by the Weaver)
     _input = null;
     _rand = new Random();
     initExpTable();
-    buildVocabHashMap();
+    buildVocabHash();
     _curLearningRate = _output._curLearningRate;
     _output.setLocallyProcessed(0);
   }
 
 
-  private void buildVocabHashMap() {
-    Vec word = _vocab.vec(0);
-    _vocabHM = new NonBlockingHashMap<>((int)_vocab.numRows());
-    for(int i=0; i < _vocab.numRows(); i++) _vocabHM.put(word.atStr(new ValueString(),i),i);
+  // Built once per node and vocabulary, reused by subsequent epochs
+  private void buildVocabHash() {
+    Key vocabKey = _vocab._key;
+    if (_vocabHash == null || !vocabKey.equals(_vocabHash._vocabKey))
+      _vocabHash = new VocabHash(vocabKey, _vocab.vec(0));
+  }
+
+  /** Drop the vocabulary hash of the given vocabulary on all nodes, once
+   *  the model is built. */
+  static void releaseVocabHash(final Key vocabKey) {
+    new MRTask() {
+      @Override protected void setupLocal() {
+        VocabHash vh = _vocabHash;
+        if (vh != null && vh._vocabKey.equals(vocabKey)) _vocabHash = null;
+      }
+    }.doAllNodes();
   }
 
   private void updateAlpha(int localWordCnt) {
@@ -105,9 +132,8 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
     else if (sentLen < MIN_SENTENCE_LEN) return 0;
 
     for (; _chkIdx < cs._len; _chkIdx++) {
-      cs.atStr(tmp, _chkIdx);
-      if (!_vocabHM.containsKey(tmp)) continue; //not in vocab, skip
-      wIdx = _vocabHM.get(tmp);
+      wIdx = _vocabHash.get(cs.atStr(tmp, _chkIdx));
+      if (wIdx < 0) continue; //not in vocab, skip
       if (_sentSampleRate > 0) {  // subsampling while creating a "_sentence"
         // paper says: float ran = 1 - sqrt(sample / (vocab[word].cn / (float)trainWords));
         ran = ((float) Math.sqrt(count.at8(wIdx) / (_sentSampleRate * _output._trainFrameSize)) + 1) * (_sentSampleRate * _output._trainFrameSize) / (float) count.at8(wIdx);
@@ -176,25 +202,34 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
     _output.addLocallyProcessed(wrdCnt);
   }
 
+  /**
+   * Tasks on the same node share the embedding tables and have nothing to reduce,
+   * tasks coming from other nodes bring the rows touched on those nodes.
+   */
   @Override public void reduce (WordVectorTrainer other) {
-    if (other._output.getLocallyProcessed() > 0 //other task was active (its syn0 should be used for averaging)
-            && other._output != _output) //other task worked on a different syn0
-    {
-      // avoid adding remote model info to unprocessed local data
-      // (can happen if master node has no chunks)
-      if (_output.getLocallyProcessed() == 0) {
-        _output = other._output;
-        _chunkNodeCount = other._chunkNodeCount;
-      } else {
-        _output.add(other._output);
-        _chunkNodeCount += other._chunkNodeCount;
-      }
-    }
+    _syn0Rows = TouchedRows.merge(_syn0Rows, other._syn0Rows, _wordVecSize);
+    _syn1Rows = TouchedRows.merge(_syn1Rows, other._syn1Rows, _wordVecSize);
+    _chunkNodeCount += other._chunkNodeCount;
+    _wordsProcessed += other._wordsProcessed;
   }
 
+  /**
+   * Called once per node after all local work (and reduction of the results of the
+   * nodes below this one) is done.  Adds the rows touched on this node.
+   */
   @Override
   protected void closeLocal() {
     _vocab = null;
+    long localCnt = _output.getLocallyProcessed();
+    if (localCnt > 0) {
+      _chunkNodeCount++;
+      _wordsProcessed += localCnt;
+      if (H2O.CLOUD.size() > 1) { // single node trains the tables in place, nothing to exchange
+        _syn0Rows = TouchedRows.merge(_syn0Rows, TouchedRows.collect(_syn0, _touched0, _wordVecSize), _wordVecSize);
+        _syn1Rows = TouchedRows.merge(_syn1Rows, TouchedRows.collect(_syn1, _touched1, _wordVecSize), _wordVecSize);
+      }
+    }
+    _touched0 = _touched1 = null;
   }
 
   static long _lastWarn, _warnCount;
@@ -208,9 +243,11 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
         _warnCount++;
       }
     }
-    _output.div(_chunkNodeCount);
-    _output.addGloballyProcessed(_output.getLocallyProcessed());
+    if (_syn0Rows != null) _syn0Rows.setMean(_output._syn0, _wordVecSize);
+    if (_syn1Rows != null) _syn1Rows.setMean(_output._syn1, _wordVecSize);
+    _syn0Rows = _syn1Rows = null;
     _output.setLocallyProcessed(0);
+    _output.addGloballyProcessed(_wordsProcessed);
 
     assert(_input == null);
   }
@@ -227,6 +264,7 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
 
     // Learned weights input -> hidden
     for (int i = 0; i < vecSize; i++) _syn0[i + l1] += neu1e[i];
+    _touched0[winWord] = 1;
   }
 
   private void CBOW(int curWord, int[] sentence, int sentIdx, int sentLen, int winSizeMod, int bagSize, float[] neu1, float[] neu1e) {
@@ -247,6 +285,7 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
         if (winWordSentIdx < 0 || winWordSentIdx >= sentLen) continue;
         winWord = sentence[winWordSentIdx];
         for (int i = 0; i < vecSize; i++) _syn0[i + winWord * vecSize] += neu1e[i];
+        _touched0[winWord] = 1;
       }
     }
   }
@@ -267,6 +306,7 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
 
     for (int i = 0; i < vecSize; i++) neu1e[i] += gradient * _syn1[i + l2];
     for (int i = 0; i < vecSize; i++) _syn1[i + l2] += gradient * neu1[i];
+    _touched1[curWord] = 1;
 
     //pick a negative samples from unigram table
     for (int i = 1; i < negExCnt + 1; i++) {
@@ -283,6 +323,7 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
 
       for (int j = 0; j < vecSize; j++)  neu1e[j] += gradient * _syn1[j + l2];
       for (int j = 0; j < vecSize; j++)  _syn1[j + l2] += gradient * neu1[j];
+      _touched1[targetWord] = 1;
     }
   }
 
@@ -301,6 +342,7 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
 
     for (int i = 0; i < vecSize; i++) neu1e[i] += gradient * _syn1[i + l2];
     for (int i = 0; i < vecSize; i++) _syn1[i + l2] += gradient * _syn0[i + l1];
+    _touched1[curWord] = 1;
 
     //pick a negative samples from unigram table
     for (int i = 1; i < negExCnt + 1; i++) {
@@ -316,6 +358,7 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
 
       for (int j = 0; j < vecSize; j++) neu1e[j] += gradient * _syn1[j + l2];
       for (int j = 0; j < vecSize; j++) _syn1[j + l2] += gradient * _syn0[j + l1];
+      _touched1[targetWord] = 1;
     }
   }
 
@@ -354,6 +397,7 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
       for (int j = 0; j < vecSize; j++) neu1e[j] += gradient * _syn1[j + l2];
       // Learn weights hidden -> output
       for (int j = 0; j < vecSize; j++) _syn1[j + l2] += gradient * neu1[j];
+      _touched1[_HBWTPoint[targetWord][i]] = 1;
     }
   }
   private void hierarchicalSoftmaxSG(final int targetWord, final int l1, float[] neu1e) {
@@ -377,6 +421,74 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
       for (int j = 0; j < vecSize; j++) neu1e[j] += gradient * _syn1[j + l2];
       // Learn weights hidden -> output
       for (int j = 0; j < vecSize; j++) _syn1[j + l2] += gradient * _syn0[j + l1];
+      _touched1[_HBWTPoint[targetWord][i]] = 1;
+    }
+  }
+
+  /**
+   * Rows of an embedding table updated by one or more nodes: the sum of their
+   * values over those nodes and the number of nodes which updated each row.
+   */
+  public static final class TouchedRows extends Iced {
+    int[] _rows;   // sorted row ids
+    int[] _cnts;   // number of nodes which updated the row
+    float[] _vals; // sum of the row values, _rows.length * vecSize
+
+    static TouchedRows collect(float[] syn, byte[] touched, int vecSize) {
+      int n = 0;
+      for (byte b : touched) if (b != 0) n++;
+      if (n == 0) return null;
+      TouchedRows res = new TouchedRows();
+      res._rows = new int[n];
+      res._cnts = new int[n];
+      res._vals = new float[n * vecSize];
+      for (int r = 0, i = 0; r < touched.length; r++) if (touched[r] != 0) {
+        res._rows[i] = r;
+        res._cnts[i] = 1;
+        System.arraycopy(syn, r * vecSize, res._vals, i * vecSize, vecSize);
+        i++;
+      }
+      return res;
+    }
+
+    static TouchedRows merge(TouchedRows a, TouchedRows b, int vecSize) {
+      if (a == null) return b;
+      if (b == null) return a;
+      int n = 0;
+      for (int i = 0, j = 0; i < a._rows.length || j < b._rows.length; n++) {
+        if (j == b._rows.length || (i < a._rows.length && a._rows[i] < b._rows[j])) i++;
+        else if (i == a._rows.length || b._rows[j] < a._rows[i]) j++;
+        else { i++; j++; }
+      }
+      TouchedRows res = new TouchedRows();
+      res._rows = new int[n];
+      res._cnts = new int[n];
+      res._vals = new float[n * vecSize];
+      for (int i = 0, j = 0, k = 0; k < n; k++) {
+        boolean fromA = j == b._rows.length || (i < a._rows.length && a._rows[i] <= b._rows[j]);
+        boolean fromB = i == a._rows.length || (j < b._rows.length && b._rows[j] <= a._rows[i]);
+        if (fromA) {
+          res._rows[k] = a._rows[i];
+          res._cnts[k] += a._cnts[i];
+          System.arraycopy(a._vals, i * vecSize, res._vals, k * vecSize, vecSize);
+        }
+        if (fromB) {
+          res._rows[k] = b._rows[j];
+          res._cnts[k] += b._cnts[j];
+          for (int l = 0; l < vecSize; l++) res._vals[k * vecSize + l] += b._vals[j * vecSize + l];
+        }
+        if (fromA) i++;
+        if (fromB) j++;
+      }
+      return res;
+    }
+
+    void setMean(float[] syn, int vecSize) {
+      for (int i = 0; i < _rows.length; i++) {
+        final float c = _cnts[i];
+        final int off = _rows[i] * vecSize;
+        for (int j = 0; j < vecSize; j++) syn[off + j] = _vals[i * vecSize + j] / c;
+      }
     }
   }
 }
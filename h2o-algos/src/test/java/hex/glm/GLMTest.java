@@ -11,6 +11,7 @@ import hex.glm.GLMTask.GLMIterationTask;
 import hex.glm.GLMTask.GLMGradientTask;
 import hex.glm.GLMTask.GLMLineSearchTask;
 import hex.glm.GLMTask.LBFGS_LogisticGradientTask;
+import hex.gram.Gram;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -629,6 +630,49 @@ public class GLMTest  extends TestUtil {
   }
 
 
+  // blocked (tiled rank-k) gram accumulation must give the same result as the row-by-row update;
+  // wide enough (over Gram.MIN_PAR_ADD elements) for add() to merge in parallel
+  @Test
+  public void testBlockedGram() {
+    final int ncols = 600, nrows = 200;
+    Random rnd = new Random(0xCAFE);
+    double [][] rows = new double[nrows][ncols];
+    Vec [] vecs = new Vec[ncols+1];
+    for(int c = 0; c <= ncols; ++c) {
+      double [] col = new double[nrows];
+      for (int r = 0; r < nrows; ++r)
+        col[r] = rnd.nextInt(10) == 0 ? 0 : rnd.nextGaussian();
+      if(c < ncols) for(int r = 0; r < nrows; ++r)
+        rows[r][c] = col[r];
+      vecs[c] = Vec.makeVec(col, Vec.newKey());
+    }
+    Frame f = new Frame(vecs);
+    DataInfo dinfo = null;
+    try {
+      dinfo = new DataInfo(Key.make(), f, null, 1, true, TransformType.NONE, TransformType.NONE, true, false, false, false);
+      Gram g1 = new Gram(dinfo.fullN(), dinfo.largestCat(), dinfo._nums, dinfo._cats, true);
+      Gram g2 = new Gram(g1);
+      for (int r = 0; r < nrows; ++r) {
+        double w = rnd.nextDouble();
+        g1.addRow(dinfo.newDenseRow(rows[r]), w);
+        g2.addRowBlocked(dinfo.newDenseRow(rows[r]), w);
+      }
+      g2.flushRows();
+      for (int i = 0; i < g1.fullN(); ++i)
+        for (int j = 0; j <= i; ++j)
+          assertEquals(g1.get(i, j), g2.get(i, j), 1e-10);
+      // merge
+      Gram g3 = new Gram(g1);
+      g3.add(g2);
+      for (int i = 0; i < g1.fullN(); ++i)
+        for (int j = 0; j <= i; ++j)
+          assertEquals(2 * g1.get(i, j), g3.get(i, j), 1e-10);
+    } finally {
+      if(dinfo != null) dinfo.remove();
+      f.delete();
+    }
+  }
+
 //  // test categorical autoexpansions, run on airlines which has several categorical columns,
 //  // once on explicitly expanded data, once on h2o autoexpanded and compare the results
 //  @Test public void testSparseCategoricals() {
@@ -57,4 +57,31 @@ public class KMeansGridTest extends TestUtil {
     }
   }
 
+  @Test public void testIrisRandomConcurrent() {
+    KMeansGrid kmg = null;
+    Frame fr = null;
+    try {
+      fr = parse_test_file("smalldata/iris/iris_wheader.csv");
+      kmg = KMeansGrid.get(fr);
+      HashMap<String,Object[]> hyperParms = new HashMap<>();
+      hyperParms.put("_k",new Integer[]{1,2,3,4,5,6});
+      hyperParms.put("_seed",new Long[]{0L,1L,123456789L,987654321L});
+      KMeansModel.KMeansParameters params = new KMeansModel.KMeansParameters();
+      params._train = fr._key;
+
+      // 5 random picks out of 24, 3 at a time
+      Grid.SearchCriteria criteria = new Grid.SearchCriteria();
+      criteria._parallelism = 3;
+      criteria._max_models = 5;
+      Grid.GridSearch gs = kmg.startGridSearch(params, hyperParms, criteria);
+      gs.get();
+      Model[] ms = gs.models();
+      Assert.assertEquals(5, ms.length);
+      for( Model m : ms ) Assert.assertNotNull(m);
+    } finally {
+      if( fr  != null ) fr .remove();
+      if( kmg != null ) kmg.remove();
+    }
+  }
+
 }
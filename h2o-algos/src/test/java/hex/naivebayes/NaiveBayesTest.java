@@ -184,4 +184,31 @@ public class NaiveBayesTest extends TestUtil {
       Scope.exit();
     }
   }
+
+  // Naive Bayes ignores row weights, so its fold models would train on the
+  // rows they hold out: cross-validation must be refused, not leak
+  @Test public void testCrossValidationRefused() {
+    Frame train = null;
+    NaiveBayes job = null;
+    try {
+      train = parse_test_file(Key.make("iris_wheader.hex"), "smalldata/iris/iris_wheader.csv");
+      NaiveBayesParameters parms = new NaiveBayesParameters();
+      parms._train = train._key;
+      parms._response_column = train._names[4];
+      parms._nfolds = 3;
+      job = new NaiveBayes(parms);
+      Assert.assertTrue(job.error_count() > 0);
+      Assert.assertTrue(job.validationErrors().contains("Cross-validation is not supported"));
+      job.remove();
+
+      parms._nfolds = 0;
+      parms._fold_column = train._names[0];
+      job = new NaiveBayes(parms);
+      Assert.assertTrue(job.error_count() > 0);
+      Assert.assertTrue(job.validationErrors().contains("Cross-validation is not supported"));
+    } finally {
+      if (job != null) job.remove();
+      if (train != null) train.delete();
+    }
+  }
 }
@@ -189,6 +189,14 @@ public class GBMTest extends TestUtil {
       // Build a POJO, validate same results
       Assert.assertTrue(gbm.testJavaScoring(fr,fr2,1e-15));
 
+      // Label-only scoring (early exit for bernoulli) predicts the same labels
+      Frame labels = gbm.scoreLabels(fr, null);
+      try {
+        assertVecEquals(fr2.vecs()[0], labels.vecs()[0], 0);
+      } finally {
+        labels.remove();
+      }
+
       Assert.assertTrue(job._state == water.Job.JobState.DONE); //HEX-1817
       //Assert.assertTrue(gbm._output._state == Job.JobState.DONE); //HEX-1817
       return gbm._output;
@@ -971,4 +979,119 @@ public class GBMTest extends TestUtil {
       Scope.exit();
     }
   }
+
+  // A checkpoint resumed on more rows (appended at the end) than the model
+  // was built on: the kept predictions of the leading rows plus the prior
+  // trees scored on the new rows match re-scoring every row from scratch.
+  @Test public void testCheckpointKeepTreePreds() {
+    Frame fr = null, head = null;
+    GBMModel kept = null, rescored = null;
+    try {
+      fr = parse_test_file("smalldata/logreg/prostate.csv");
+      long[] rows = new long[(int)fr.numRows()*3/4];
+      for( int i=0; i<rows.length; i++ ) rows[i] = i;
+      head = new Frame(Key.make("prostate_head.hex"), fr.names(), fr.deepSlice(rows, null).vecs());
+      DKV.put(head);
+      double[] mse = new double[2];
+      for( int i=0; i<2; i++ ) {
+        GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+        parms._train = head._key;
+        parms._response_column = "AGE";
+        parms._ignored_columns = new String[]{"ID"};
+        parms._model_id = Key.make("GBM_checkpoint_" + i);
+        parms._seed = 0xdecaf;
+        parms._ntrees = 3;
+        parms._keep_tree_preds = i==0;
+        GBMModel gbm = new GBM(parms).trainModel().get();
+        assertTrue(i==0 ? gbm._output._tree_preds_key != null : gbm._output._tree_preds_key == null);
+        if( i==0 ) assertEquals(head.numRows(), gbm._output._tree_preds_key.get().numRows());
+
+        GBMModel.GBMParameters parms2 = (GBMModel.GBMParameters)parms.clone();
+        parms2._train = fr._key;
+        parms2._checkpoint = true;
+        parms2._ntrees = 6;
+        gbm = new GBM(parms2).trainModel().get();
+        assertEquals(6, gbm._output._ntrees);
+        if( i==0 ) assertEquals(fr.numRows(), gbm._output._tree_preds_key.get().numRows());
+        mse[i] = gbm._output._training_metrics.mse();
+        if( i==0 ) kept = gbm; else rescored = gbm;
+      }
+      assertEquals(mse[1], mse[0], 1e-4*mse[1]);
+    } finally {
+      if( fr != null ) fr.remove();
+      if( head != null ) head.remove();
+      if( kept != null ) kept.delete();
+      if( rescored != null ) rescored.delete();
+    }
+  }
+
+  // A checkpoint resumed on as many rows, but other ones (here reversed), must
+  // not reuse the kept predictions: it matches re-scoring every row.
+  @Test public void testCheckpointKeepTreePredsOtherRows() {
+    Frame fr = null, rev = null;
+    GBMModel kept = null, rescored = null;
+    try {
+      fr = parse_test_file("smalldata/logreg/prostate.csv");
+      long[] rows = new long[(int)fr.numRows()];
+      for( int i=0; i<rows.length; i++ ) rows[i] = rows.length-1-i;
+      rev = new Frame(Key.make("prostate_rev.hex"), fr.names(), fr.deepSlice(rows, null).vecs());
+      DKV.put(rev);
+      double[] mse = new double[2];
+      for( int i=0; i<2; i++ ) {
+        GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+        parms._train = fr._key;
+        parms._response_column = "AGE";
+        parms._ignored_columns = new String[]{"ID"};
+        parms._model_id = Key.make("GBM_checkpoint_rev_" + i);
+        parms._seed = 0xdecaf;
+        parms._ntrees = 3;
+        parms._keep_tree_preds = i==0;
+        new GBM(parms).trainModel().get();
+
+        GBMModel.GBMParameters parms2 = (GBMModel.GBMParameters)parms.clone();
+        parms2._train = rev._key;
+        parms2._checkpoint = true;
+        parms2._ntrees = 6;
+        GBMModel gbm = new GBM(parms2).trainModel().get();
+        assertEquals(6, gbm._output._ntrees);
+        mse[i] = gbm._output._training_metrics.mse();
+        if( i==0 ) kept = gbm; else rescored = gbm;
+      }
+      assertEquals(mse[1], mse[0], 1e-4*mse[1]);
+    } finally {
+      if( fr != null ) fr.remove();
+      if( rev != null ) rev.remove();
+      if( kept != null ) kept.delete();
+      if( rescored != null ) rescored.delete();
+    }
+  }
+
+  @Test public void testCrossValidation() {
+    Frame fr = null;
+    GBMModel gbm = null;
+    try {
+      fr = parse_test_file("smalldata/logreg/prostate.csv");
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = fr._key;
+      parms._response_column = "AGE";
+      parms._ignored_columns = new String[]{"ID"};
+      parms._seed = 0xdecaf;
+      parms._ntrees = 5;
+      parms._nfolds = 3;
+      gbm = new GBM(parms).trainModelCV().get();
+      assertEquals(3, gbm._output._cross_validation_models.length);
+      for( Key k : gbm._output._cross_validation_models ) assertTrue(DKV.get(k) != null);
+      Frame preds = gbm._output._cross_validation_predictions.get();
+      assertEquals(fr.numRows(), preds.numRows());
+      // Holdout predictions do worse than the training ones
+      assertTrue(gbm._output._cross_validation_metrics.mse() > gbm._output._training_metrics.mse());
+      Key[] cvs = gbm._output._cross_validation_models;
+      gbm.delete();
+      gbm = null;
+      for( Key k : cvs ) assertTrue(DKV.get(k) == null);
+    } finally {
+      if( fr != null ) fr.remove();
+      if( gbm != null ) gbm.delete();
+    }
+  }
 }
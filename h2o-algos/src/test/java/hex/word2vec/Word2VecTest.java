@@ -163,6 +163,32 @@ public class Word2VecTest extends TestUtil {
     }
   }
 
+  // Rows touched by several nodes are set to the mean of their values over
+  // those nodes, whatever the order of the reductions; other rows are kept.
+  @Test public void testTouchedRowsMean() {
+    final int vecSize = 2;
+    float[] node0 = new float[]{1, 1,  2, 2,  3, 3,  4, 4};
+    float[] node1 = new float[]{9, 9,  4, 6,  9, 9,  8, 0};
+    float[] node2 = new float[]{9, 9,  6, 4,  9, 9,  9, 9};
+    WordVectorTrainer.TouchedRows r0 = WordVectorTrainer.TouchedRows.collect(node0, new byte[]{0, 1, 0, 1}, vecSize);
+    WordVectorTrainer.TouchedRows r1 = WordVectorTrainer.TouchedRows.collect(node1, new byte[]{0, 1, 0, 1}, vecSize);
+    WordVectorTrainer.TouchedRows r2 = WordVectorTrainer.TouchedRows.collect(node2, new byte[]{0, 1, 0, 0}, vecSize);
+    Assert.assertNull(WordVectorTrainer.TouchedRows.collect(node2, new byte[4], vecSize));
+    float[] expected = new float[]{1, 1,  4, 4,  3, 3,  6, 2};
+    WordVectorTrainer.TouchedRows[] merged = new WordVectorTrainer.TouchedRows[]{
+      WordVectorTrainer.TouchedRows.merge(WordVectorTrainer.TouchedRows.merge(r0, r1, vecSize), r2, vecSize),
+      WordVectorTrainer.TouchedRows.merge(r2, WordVectorTrainer.TouchedRows.merge(r1, r0, vecSize), vecSize),
+      WordVectorTrainer.TouchedRows.merge(WordVectorTrainer.TouchedRows.merge(null, r2, vecSize), WordVectorTrainer.TouchedRows.merge(r0, r1, vecSize), vecSize),
+    };
+    for (WordVectorTrainer.TouchedRows m : merged) {
+      Assert.assertArrayEquals(new int[]{1, 3}, m._rows);
+      Assert.assertArrayEquals(new int[]{3, 2}, m._cnts);
+      float[] syn = new float[]{1, 1,  0, 0,  3, 3,  0, 0};
+      m.setMean(syn, vecSize);
+      Assert.assertArrayEquals(expected, syn, 0);
+    }
+  }
+
   @Test public void testWordCount() {
     Key wca = null;
     Frame fr = null;
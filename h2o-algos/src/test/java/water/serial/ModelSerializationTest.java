@@ -130,6 +130,60 @@ public class ModelSerializationTest extends TestUtil {
     }
   }
 
+  @Test
+  public void testGBMModelBundle() throws IOException {
+    GBMModel model = null, loadedModel = null;
+    try {
+      model = prepareGBMModel("smalldata/iris/iris.csv", ESA, "C5", true, 5);
+      CompressedTree[][] trees = getTrees(model);
+      File file = saveBundle(model);
+      try {
+        model.delete();
+        List<Key> loadedKeys = new BundleBinarySerializer().load(file.toURI());
+        loadedModel = (GBMModel) loadedKeys.get(0).get();
+      } finally {
+        FileUtils.delete(file);
+      }
+      // And compare
+      assertModelBinaryEquals(model, loadedModel);
+      assertTreeEquals("Trees have to be binary same", trees, getTrees(loadedModel));
+      assertTreeEquals("Fetched trees have to be binary same", trees, loadedModel.trees());
+    } finally {
+      if (loadedModel!=null) loadedModel.delete();
+    }
+  }
+
+  @Test
+  public void testModelCache() throws IOException {
+    GBMModel gbm = null;
+    DRFModel drf = null;
+    File gbmFile = null, drfFile = null;
+    ModelCache cache = new ModelCache(1);
+    try {
+      gbm = prepareGBMModel("smalldata/logreg/prostate.csv", ar("ID"), "CAPSULE", true, 5);
+      drf = prepareDRFModel("smalldata/logreg/prostate.csv", ar("ID"), "CAPSULE", true, 5);
+      gbmFile = saveBundle(gbm);
+      drfFile = saveBundle(drf);
+      gbm.delete();
+      drf.delete();
+      Model m = cache.get(gbmFile.getAbsolutePath());
+      assertModelBinaryEquals(gbm, m);
+      Assert.assertSame("Cached model is loaded once", m, cache.get(gbmFile.getAbsolutePath()));
+      Assert.assertSame("Cached by location", m, cache.get(gbmFile.toURI().toString()));
+      Assert.assertSame("Cached by location", m, cache.get(gbmFile.getParent() + "/./" + gbmFile.getName()));
+      // Loading another model evicts the least recently used one
+      assertModelBinaryEquals(drf, cache.get(drfFile.getAbsolutePath()));
+      Assert.assertEquals(1, cache.size());
+      Assert.assertNull("Evicted model is removed", DKV.get(gbm._key));
+      cache.clear();
+      Assert.assertNull("Evicted model is removed", DKV.get(drf._key));
+    } finally {
+      cache.clear();
+      if (gbmFile != null) FileUtils.delete(gbmFile);
+      if (drfFile != null) FileUtils.delete(drfFile);
+    }
+  }
+
   private GBMModel prepareGBMModel(String dataset, String[] ignoredColumns, String response, boolean classification, int ntrees) {
     Frame f = parse_test_file(dataset);
     try {
@@ -250,6 +304,15 @@ public class ModelSerializationTest extends TestUtil {
     }
   }
 
+  private File saveBundle(Model model) throws IOException {
+    File file = File.createTempFile("H2O_ModelSerializationTest", ".bundle");
+    List<Key> modelKeys = new LinkedList<>();
+    modelKeys.add(model._key);
+    modelKeys.addAll(model.getPublishedKeys());
+    new BundleBinarySerializer().save(modelKeys, file.toURI());
+    return file;
+  }
+
   public static void assertModelBinaryEquals(Model a, Model b) {
     assertArrayEquals("The serialized models are not binary same!", a.write(new AutoBuffer()).buf(), b.write(new AutoBuffer()).buf());
   }
@@ -1,6 +1,7 @@
 package hex;
 
 import java.util.Arrays;
+import water.H2O;
 import water.Iced;
 import water.MRTask;
 import water.fvec.Chunk;
@@ -14,6 +15,9 @@ import water.fvec.Vec;
  *  and false-positive counts for the histogramed thresholds.  With these in
  *  hand, we can compute the TPR (True Positive Rate) and the FPR for the given
  *  thresholds; these define the (X,Y) coordinates of the AUC.
+ *
+ *  The {@link SketchBuilder} is the exact alternative: it keeps every distinct
+ *  probability, up to a bound, and bounds the error past that.
  */
 public class AUC2 extends Iced {
   public final int _nBins; // Max number of bins; can be less if there are fewer points
@@ -23,12 +27,20 @@ public class AUC2 extends Iced {
   public final double _p, _n;     // Actual trues, falses
   public final double _auc, _gini; // Actual AUC value
   public final int _max_idx;    // Threshold that maximizes the default criterion
+  public final double _pr_auc;  // Area under the Precision-Recall curve (average precision)
+  public final double _auc_err; // Bound on the error of the AUC, from the ordering lost inside bins
 
   public static final ThresholdCriterion DEFAULT_CM = ThresholdCriterion.f1;
   // Default bins, good answers on a highly unbalanced sorted (and reverse
   // sorted) datasets
   public static final int NBINS = 400;
 
+  /** The builder for scoring: the exact sketch if asked for with -auc_bins,
+   *  else the approximate histogram on NBINS. */
+  public static AUCBuilder builder() {
+    return H2O.ARGS.auc_bins > 0 ? new SketchBuilder(H2O.ARGS.auc_bins) : new AUCBuilder(NBINS);
+  }
+
   /** Criteria for 2-class Confusion Matrices
    *
    *  This is an Enum class, with an exec() function to compute the criteria
@@ -116,9 +128,14 @@ public class AUC2 extends Iced {
 
   /** User-specified bin limits.  Time taken is product of nBins and rows;
    *  large nBins can be very slow. */
-  AUC2( int nBins, Vec probs, Vec actls ) { this(new AUC_Impl(nBins).doAll(probs,actls)._bldr); }
+  AUC2( int nBins, Vec probs, Vec actls ) { this(new AUC_Impl(nBins,false).doAll(probs,actls)._bldr); }
+
+  /** Exact AUC (and ROC), as long as there are at most nBins distinct
+   *  probabilities; past that, off by at most {@link #_auc_err}. */
+  public static AUC2 exact( int nBins, Vec probs, Vec actls ) { return new AUC2(new AUC_Impl(nBins,true).doAll(probs,actls)._bldr); }
 
   public AUC2( AUCBuilder bldr ) { 
+    bldr.flush();
     // Copy result arrays into base object, shrinking to match actual bins
     _nBins = bldr._n;
     _ths = Arrays.copyOf(bldr._ths,_nBins);
@@ -142,6 +159,10 @@ public class AUC2 extends Iced {
     _auc = compute_auc();
     _gini = 2*_auc-1;
     _max_idx = DEFAULT_CM.max_criterion_idx(this);
+    _pr_auc = compute_pr_auc();
+    // Every (positive,negative) pair sharing a bin counts as half-ordered; the
+    // truth is anywhere from unordered to ordered.
+    _auc_err = _p == 0 || _n == 0 ? 0 : bldr.mispairs()/(2*_p*_n);
   }
 
   // Compute the Area Under the Curve, where the curve is defined by (TPR,FPR)
@@ -162,6 +183,33 @@ public class AUC2 extends Iced {
     return area/_p/_n;
   }
 
+  // Area under the Precision-Recall curve, as the average precision: the
+  // precision at each threshold, weighted by the recall gained there.
+  private double compute_pr_auc() {
+    if( _nBins == 0 || _p == 0 ) return Double.NaN;
+    double tp0 = 0, area = 0;
+    for( int i=0; i<_nBins; i++ ) {
+      area += (_tps[i]-tp0)*_tps[i]/(_tps[i]+_fps[i]);
+      tp0 = _tps[i];
+    }
+    return area/_p;
+  }
+
+  /** Precision among the k (weighted) rows with the highest probabilities.
+   *  Rows of the bin holding the k-th row are taken pro-rata, so this is
+   *  exact when that bin is a single probability (ties are taken pro-rata).
+   *  @return precision at k, or NaN if k is not positive */
+  public double precisionAtK( double k ) {
+    if( !(k > 0) || _nBins == 0 ) return Double.NaN;
+    double tp0 = 0, k0 = 0;
+    for( int i=0; i<_nBins; i++ ) {
+      double k1 = _tps[i]+_fps[i];
+      if( k1 >= k ) return (tp0 + (_tps[i]-tp0)*(k-k0)/(k1-k0))/k;
+      tp0 = _tps[i];  k0 = k1;
+    }
+    return tp0/k0;              // Fewer than k rows: all of them
+  }
+
   // Build a CM for a threshold index. - typed as doubles because of double observation weights
   public double[/*actual*/][/*predicted*/] buildCM( int idx ) {
     //  \ predicted:  0   1
@@ -183,10 +231,11 @@ public class AUC2 extends Iced {
   // true positive and false positive totals in each histogram bin.
   private static class AUC_Impl extends MRTask<AUC_Impl> {
     final int _nBins;
+    final boolean _exact;
     AUCBuilder _bldr;
-    AUC_Impl( int nBins ) { _nBins = nBins; }
+    AUC_Impl( int nBins, boolean exact ) { _nBins = nBins; _exact = exact; }
     @Override public void map( Chunk ps, Chunk as ) {
-      AUCBuilder bldr = _bldr = new AUCBuilder(_nBins);
+      AUCBuilder bldr = _bldr = _exact ? new SketchBuilder(_nBins) : new AUCBuilder(_nBins);
       for( int row = 0; row < ps._len; row++ )
         if( !ps.isNA(row) && !as.isNA(row) )
           bldr.perRow(ps.atd(row),(int)as.at8(row),1);
@@ -197,20 +246,33 @@ public class AUC2 extends Iced {
   public static class AUCBuilder extends Iced {
     final int _nBins;
     int _n;                     // Current number of bins
-    final double _ths[];        // Histogram bins, center
-    final double _sqe[];        // Histogram bins, squared error
-    final double _tps[];        // Histogram bins, true  positives
-    final double _fps[];        // Histogram bins, false positives
+    double _ths[];              // Histogram bins, center
+    double _sqe[];              // Histogram bins, squared error
+    double _tps[];              // Histogram bins, true  positives
+    double _fps[];              // Histogram bins, false positives
     // Merging this bin with the next gives the least increase in squared
     // error, or -1 if not known.  Requires a linear scan to find.
     int    _ssx;
-    public AUCBuilder(int nBins) {
+    public AUCBuilder(int nBins) { this(nBins,nBins<<1); }
+    AUCBuilder(int nBins, int len) {
       _nBins = nBins;
-      _ths = new double[nBins<<1]; // Threshold; also the mean for this bin
-      _sqe = new double[nBins<<1]; // Squared error (variance) in this bin
-      _tps = new double[nBins<<1]; // True  positives
-      _fps = new double[nBins<<1]; // False positives
-      _ssx = -1;                   // Unknown best merge bin
+      _ths = new double[len];   // Threshold; also the mean for this bin
+      _sqe = new double[len];   // Squared error (variance) in this bin
+      _tps = new double[len];   // True  positives
+      _fps = new double[len];   // False positives
+      _ssx = -1;                // Unknown best merge bin
+    }
+
+    // Bring the bins up to date with all rows seen so far
+    void flush() { }
+
+    // Weight of the (positive,negative) pairs sharing a bin, whose ordering
+    // is lost.  The histogram does not know the probabilities merged into a
+    // bin, so all of its pairs count.
+    double mispairs() {
+      double sum = 0;
+      for( int i=0; i<_n; i++ ) sum += _tps[i]*_fps[i];
+      return sum;
     }
 
     public void perRow(double pred, int act, double w ) {
@@ -268,7 +330,17 @@ public class AUC2 extends Iced {
         mergeOneBin();          // Merge best pair of bins
     }
 
+    // Nodes pick the builder from their own -auc_bins: a cloud started with
+    // different ones cannot merge their AUCs
+    final void checkSameKind( AUCBuilder bldr ) {
+      if( bldr.getClass() != getClass() || bldr._nBins != _nBins )
+        throw new IllegalStateException("Cannot merge AUCs of "+getClass().getSimpleName()+"("+_nBins+" bins) and "
+                                        +bldr.getClass().getSimpleName()+"("+bldr._nBins+" bins): "
+                                        +"start all the nodes of the cloud with the same -auc_bins");
+    }
+
     public void reduce( AUCBuilder bldr ) {
+      checkSameKind(bldr);
       // Merge sort the 2 sorted lists into the double-sized arrays.  The tail
       // half of the double-sized array is unused, but the front half is
       // probably a source.  Merge into the back.
@@ -378,6 +450,216 @@ public class AUC2 extends Iced {
     //}
   }
 
+  /** Exact, mergeable alternative to the approximate histogram, used the
+   *  same way (and in the same places) as an AUCBuilder.
+   *
+   *  Rows are buffered; a full buffer is sorted and merged into a sorted run
+   *  of bins, one per distinct probability, with its true and false positive
+   *  weights.  While there are no more distinct probabilities than nBins, the
+   *  ROC - hence the AUC, the AUCPR, precision@k and every CM - is exact.
+   *
+   *  Past nBins, bins are merged as in a q-digest: a bin covers a dyadic range
+   *  of the (order-preserving) bits of the probabilities, and only merges up
+   *  into the smallest dyadic range holding its neighbor.  So the bins of any
+   *  two builders are either nested or disjoint, and builders of different
+   *  chunks merge without smearing each other.  Small ranges merge first, and
+   *  among those the cheapest: the cost of a merge is the weight of the
+   *  (positive,negative) pairs it leaves unordered, so runs of a single class
+   *  merge for free, and the sparse top of the ranking on highly unbalanced
+   *  data keeps its resolution.  A bin
+   *  keeps the lowest probability in it as its threshold, so the CM at every
+   *  threshold is still exact; the AUC is off by at most {@link
+   *  AUC2#_auc_err}.  Memory is bounded by 2*nBins bins, plus the buffer.
+   */
+  public static class SketchBuilder extends AUCBuilder {
+    static final int MAX_BUF = 1<<16; // Max buffered rows
+    // Merges into ranges up to 2^LEVELS times apart in size compete on cost.
+    // A big range merged for free now swallows every row landing in it
+    // later, so smaller ranges go first.
+    static final int LEVELS = 4;
+    long _los[];                // Bins: lowest key of the range
+    byte _lvs[];                // Bins: log2 of the size of the range; 0 for a single probability
+    double _mispairs;           // Weight of the pairs left unordered by merges
+    long _bks[];                // Buffered rows: key of the probability
+    double _bws[];              // Buffered rows: weight, negated for actual 0
+    int _nb;                    // Number of buffered rows
+    public SketchBuilder(int nBins) {
+      super(nBins,0);
+      if( nBins < 1 ) throw new IllegalArgumentException("Need at least 1 bin, got "+nBins);
+      _los = new long[0];
+      _lvs = new byte[0];
+    }
+
+    // Probabilities to longs in the same (signed) order, and back
+    static long key( double d ) { long b = Double.doubleToLongBits(d); return b ^ ((b>>63) & Long.MAX_VALUE); }
+    static double prob( long k ) { return Double.longBitsToDouble(k ^ ((k>>63) & Long.MAX_VALUE)); }
+    // Ranges: the one at level lv holding key k, its highest key, and the
+    // level of the smallest one holding two keys
+    static long lo( long k, int lv ) { return lv >= 64 ? Long.MIN_VALUE : k>>lv<<lv; }
+    static long hi( long lo, int lv ) { return lv >= 64 ? Long.MAX_VALUE : lo | ((1L<<lv)-1); }
+    static int level( long k0, long k1 ) { return 64-Long.numberOfLeadingZeros(k0^k1); }
+
+    @Override public void perRow(double pred, int act, double w ) {
+      assert !Double.isNaN(pred);
+      assert act==0 || act==1;  // Actual better be 0 or 1
+      if( _bks == null ) { _bks = new long[256]; _bws = new double[256]; }
+      else if( _nb == _bks.length ) {
+        if( _nb >= Math.min(_nBins,MAX_BUF) ) flush();
+        else { _bks = Arrays.copyOf(_bks,_nb<<1); _bws = Arrays.copyOf(_bws,_nb<<1); }
+      }
+      _bks[_nb] = key(pred);
+      _bws[_nb++] = act==0 ? -w : w;
+    }
+
+    @Override public void reduce( AUCBuilder bldr ) {
+      checkSameKind(bldr);
+      SketchBuilder sb = (SketchBuilder)bldr;
+      flush();
+      sb.flush();
+      merge(sb._los,sb._lvs,sb._ths,sb._tps,sb._fps,sb._n);
+      _mispairs += sb._mispairs;
+      compact();
+    }
+
+    @Override void flush() {
+      if( _nb == 0 ) return;
+      sort(_bks,_bws,0,_nb-1);
+      // Collapse the sorted rows into bins, one per distinct probability
+      long los[] = new long[_nb];
+      double ths[] = new double[_nb], tps[] = new double[_nb], fps[] = new double[_nb];
+      int n = 0;
+      for( int i=0; i<_nb; i++ ) {
+        if( n == 0 || los[n-1] != _bks[i] ) { los[n] = _bks[i]; ths[n++] = prob(_bks[i]); }
+        if( _bws[i] < 0 ) fps[n-1] -= _bws[i]; else tps[n-1] += _bws[i];
+      }
+      _nb = 0;
+      merge(los,new byte[n],ths,tps,fps,n);
+      compact();
+    }
+
+    @Override double mispairs() { return _mispairs; }
+
+    // Merge sort the given bins into ours.  Bins are nested or disjoint; a
+    // nested bin folds into its container, which loses the ordering of their
+    // cross pairs - unless both are the same probability (real ties).
+    private void merge( long[] los1, byte[] lvs1, double[] ths1, double[] tps1, double[] fps1, int n1 ) {
+      int len = _n+n1;
+      long los[] = new long[len];
+      byte lvs[] = new byte[len];
+      double ths[] = new double[len], tps[] = new double[len], fps[] = new double[len];
+      int x = 0, y = 0, n = 0;
+      while( x < _n || y < n1 ) {
+        // By lowest key, containers first
+        boolean self = y == n1 || (x < _n && (_los[x] < los1[y] || (_los[x] == los1[y] && _lvs[x] >= lvs1[y])));
+        long lo = self ? _los[x] : los1[y];
+        byte lv = self ? _lvs[x] : lvs1[y];
+        double th = self ? _ths[x] : ths1[y];
+        double tp = self ? _tps[x] : tps1[y];
+        double fp = self ? _fps[x] : fps1[y];
+        if( self ) x++; else y++;
+        if( n > 0 && lo <= hi(los[n-1],lvs[n-1]) ) { // Nested in the last bin
+          if( lv != 0 || lvs[n-1] != 0 )
+            _mispairs += tps[n-1]*fp + tp*fps[n-1];
+          ths[n-1] = Math.min(ths[n-1],th);
+          tps[n-1] += tp;
+          fps[n-1] += fp;
+        } else {
+          los[n] = lo;  lvs[n] = lv;  ths[n] = th;  tps[n] = tp;  fps[n] = fp;
+          n++;
+        }
+      }
+      _los = los;  _lvs = lvs;  _ths = ths;  _tps = tps;  _fps = fps;  _n = n;
+    }
+
+    // Merge bins up into dyadic ranges, smallest and least unordered weight
+    // first, until we are down to nBins.  The range holding bins i and i+1 also holds
+    // every neighbor of theirs within that range - a run of bins - and costs
+    // the cross pairs of the run.  Each round merges disjoint runs.
+    private void compact() {
+      while( _n > _nBins ) {
+        final int n = _n;
+        // Running sums, for the weights of runs
+        double stp[] = new double[n+1], sfp[] = new double[n+1], stpfp[] = new double[n+1];
+        for( int i=0; i<n; i++ ) {
+          stp[i+1] = stp[i]+_tps[i];
+          sfp[i+1] = sfp[i]+_fps[i];
+          stpfp[i+1] = stpfp[i]+_tps[i]*_fps[i];
+        }
+        final int lvs[] = new int[n-1]; // Level of the range holding bins i and i+1
+        for( int i=0; i<n-1; i++ ) lvs[i] = level(_los[i],_los[i+1]);
+        final int as[] = new int[n-1], bs[] = new int[n-1]; // Runs: first and last bin
+        final double costs[] = new double[n-1];
+        Integer ord[] = new Integer[n-1];
+        for( int i=0; i<n-1; i++ ) {
+          int a = i, b = i+1;
+          while( a > 0 && lvs[a-1] <= lvs[i] ) a--;
+          while( b < n-1 && lvs[b] <= lvs[i] ) b++;
+          as[i] = a;  bs[i] = b;
+          double tp = stp[b+1]-stp[a], fp = sfp[b+1]-sfp[a];
+          costs[i] = tp*fp - (stpfp[b+1]-stpfp[a]);
+          ord[i] = i;
+        }
+        Arrays.sort(ord,new java.util.Comparator<Integer>() {
+            @Override public int compare( Integer i, Integer j ) {
+              int c = lvs[i]/LEVELS - lvs[j]/LEVELS;
+              if( c == 0 ) c = Double.compare(costs[i],costs[j]);
+              return c != 0 ? c : (bs[i]-as[i]) - (bs[j]-as[j]);
+            }
+          });
+        // Pick disjoint runs, cheapest first, until enough bins are gone.
+        // Runs taking off more bins than needed only go if nothing else did.
+        int want = n-_nBins;
+        int ends[] = new int[n];  // Last bin of the run starting at a bin, or -1
+        Arrays.fill(ends,-1);
+        boolean taken[] = new boolean[n];
+        for( int k=0; k<n-1 && want > 0; k++ ) {
+          int i = ord[k], a = as[i], b = bs[i];
+          if( b-a > want && want < n-_nBins ) continue;
+          boolean free = true;
+          for( int j=a; j<=b && free; j++ ) free = !taken[j];
+          if( !free ) continue;
+          for( int j=a; j<=b; j++ ) taken[j] = true;
+          ends[a] = b;
+          _lvs[a] = (byte)lvs[i];
+          _mispairs += costs[i];
+          want -= b-a;
+        }
+        // Merge the picked runs, sliding the bins down
+        int m = 0;
+        for( int i=0; i<n; i++, m++ ) {
+          int b = ends[i];
+          _los[m] = b == -1 ? _los[i] : lo(_los[i],_lvs[i]);
+          _lvs[m] = _lvs[i];  _ths[m] = _ths[i];  _tps[m] = _tps[i];  _fps[m] = _fps[i];
+          for( ; i<b; i++ ) { _tps[m] += _tps[i+1];  _fps[m] += _fps[i+1]; }
+        }
+        _n = m;
+      }
+    }
+
+    // Sort the buffered rows by key: quicksort, finishing small ranges with
+    // an insertion sort
+    private static void sort( long[] ks, double[] ws, int lo, int hi ) {
+      while( hi-lo > 16 ) {
+        long pivot = ks[(lo+hi)>>>1];
+        int i = lo, j = hi;
+        while( i <= j ) {
+          while( ks[i] < pivot ) i++;
+          while( ks[j] > pivot ) j--;
+          if( i <= j ) swap(ks,ws,i++,j--);
+        }
+        if( j-lo < hi-i ) { sort(ks,ws,lo,j); lo = i; } // Recurse on the smaller side
+        else              { sort(ks,ws,i,hi); hi = j; }
+      }
+      for( int i=lo+1; i<=hi; i++ )
+        for( int j=i; j>lo && ks[j-1] > ks[j]; j-- )
+          swap(ks,ws,j-1,j);
+    }
+    private static void swap( long[] ks, double[] ws, int i, int j ) {
+      long k = ks[i]; ks[i] = ks[j]; ks[j] = k;
+      double w = ws[i]; ws[i] = ws[j]; ws[j] = w;
+    }
+  }
+
 
   // ==========
   // Given the probabilities of a 1, and the actuals (0/1) report the perfect
@@ -28,6 +28,10 @@ import water.fvec.*;
  *
  * <p>NOTE: the implementation is data-transfer expensive and in some cases it would be beneficial to use original
  * implementation from <a href="https://github.com/0xdata/h2o/commits/9af3f4e">9af3f4e</a>.</p>.
+ *
+ * <p>In <code>lazy</code> mode no rows are copied: each output frame is made of {@link RechunkedVec} views over its
+ * row range of the source dataset, with the same chunk boundaries, so all the splits share the source chunks.
+ * The views pin the source dataset: it cannot be deleted until all of them are.</p>
  */
 public class FrameSplitter extends H2OCountedCompleter<FrameSplitter> {
   /** Dataset to split */
@@ -38,6 +42,8 @@ public class FrameSplitter extends H2OCountedCompleter<FrameSplitter> {
   final Key[]   destKeys;
   /** Optional job key */
   final Key     jobKey;
+  /** Make row-range views instead of copies */
+  final boolean lazy;
 
   /** Output frames for each output split part */
   private Frame[] splits;
@@ -48,6 +54,9 @@ public class FrameSplitter extends H2OCountedCompleter<FrameSplitter> {
     this(null, dataset, ratios,destKeys,jobKey);
   }
   public FrameSplitter(H2OCountedCompleter cc, Frame dataset, double[] ratios, Key[] destKeys, Key jobKey) {
+    this(cc, dataset, ratios, destKeys, jobKey, false);
+  }
+  public FrameSplitter(H2OCountedCompleter cc, Frame dataset, double[] ratios, Key[] destKeys, Key jobKey, boolean lazy) {
     super(cc);
     assert ratios.length > 0 : "No ratio specified!";
     assert ratios.length < 100 : "Too many frame splits demanded!";
@@ -57,12 +66,18 @@ public class FrameSplitter extends H2OCountedCompleter<FrameSplitter> {
     this.ratios   = ratios;
     this.jobKey   = jobKey;
     this.destKeys = destKeys;
+    this.lazy     = lazy;
   }
 
   @Override public void compute2() {
     // Lock all possible data
     dataset.read_lock(jobKey);
 
+    if (lazy) { // Views only, nothing to copy
+      splits = makeViews(dataset, ratios);
+      tryComplete();
+      return;
+    }
     // Create a template vector for each segment
     final Vec[][] templates = makeTemplates(dataset, ratios);
 
@@ -147,6 +162,30 @@ public class FrameSplitter extends H2OCountedCompleter<FrameSplitter> {
     return t;
   }
 
+  // Make row-range views of the dataset for all output frames
+  private Frame[] makeViews(Frame dataset, double[] ratios) {
+    Vec anyVec = dataset.anyVec();
+    final long[][] espcPerSplit = computeEspcPerSplit(anyVec._espc, anyVec.length(), ratios);
+    final Vec[] datasetVecs = dataset.vecs();
+    final int nsplits = espcPerSplit.length;
+    Vec[][] vecs = new Vec[nsplits][datasetVecs.length];
+    Futures fs = new Futures();
+    long offset = 0; // first row of the split in the dataset
+    for (int s=0; s<nsplits; s++) {
+      Key[] keys = new Vec.VectorGroup().addVecs(datasetVecs.length);
+      for (int i=0; i<datasetVecs.length; i++)
+        DKV.put(vecs[s][i] = new RechunkedVec(keys[i], espcPerSplit[s], datasetVecs[i], offset).pin(dataset), fs);
+      offset += espcPerSplit[s][espcPerSplit[s].length-1];
+    }
+    fs.blockForPending();
+    Frame[] views = new Frame[nsplits];
+    for (int s=0; s<nsplits; s++) {
+      views[s] = new Frame(destKeys[s], dataset.names(), vecs[s]);
+      views[s].delete_and_lock(jobKey);
+    }
+    return views;
+  }
+
   // The task computes ESPC per split
   static long[/*nsplits*/][/*nchunks*/] computeEspcPerSplit(long[] espc, long len, double[] ratios) {
     assert espc.length>0 && espc[0] == 0;
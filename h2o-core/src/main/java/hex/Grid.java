@@ -1,6 +1,6 @@
 package hex;
 
-import java.util.Map;
+import java.util.*;
 
 import water.*;
 import water.H2O.H2OCountedCompleter;
@@ -68,6 +68,11 @@ public /*abstract*/ class Grid<MP extends Model.Parameters, G extends Grid<MP, G
    *  @return Suggested next value for hyperparameter h or NaN if no next value */
   protected /*abstract*/ double suggestedNextHyperValue( int h, Model m, double[] hyperLimits ) { throw H2O.fail(); };
 
+  /** Estimated working memory of one model build, used to decide how many
+   *  models to build at once.  By default the size of the training frame,
+   *  which covers the usual work columns, predictions and expanded data. */
+  protected long modelBytesEstimate() { return _fr.byteSize(); }
+
   /** @return The data frame used to train all these models.  All models are
    *  trained on the same data frame, but might be validated on multiple
    *  different frames. */
@@ -166,18 +171,6 @@ public /*abstract*/ class Grid<MP extends Model.Parameters, G extends Grid<MP, G
     return mb;
   }
   
-  /** @param hypers A set of hyper parameter values
-   *  @return A model run with these parameters, typically built on demand and
-   *  cached - expected to be an expensive operation.  If the model in question
-   *  is "in progress", a 2nd build will NOT be kicked off.  This is a blocking call. */
-  private Model buildModel(MP params, double[] hypers ) {
-    Key<Model> key = model(hypers);
-    if( key != null ) return key.get();
-    Model m = (Model)(startBuildModel(params, hypers).get());
-    _cache.put(new Group(hypers.clone()), m._key);
-    return m;
-  }
-  
   /**
    *  @param params  Default parameters for grid search builder
    *  @param hyperSearch A set of arrays of hyper parameter values, used to
@@ -187,7 +180,40 @@ public /*abstract*/ class Grid<MP extends Model.Parameters, G extends Grid<MP, G
    *  question are "in progress", a 2nd build will NOT be kicked off.  This is
    *  a non-blocking call. */
   public GridSearch startGridSearch( final MP params, final Map<String,Object[]> hyperSearch ) {
-    return new GridSearch(_key, params, hyperSearch).start();
+    return startGridSearch(params, hyperSearch, new SearchCriteria());
+  }
+
+  /** As {@link #startGridSearch(Model.Parameters, Map)}, but searching as
+   *  directed by the criteria: concurrency, random search and early stopping. */
+  public GridSearch startGridSearch( final MP params, final Map<String,Object[]> hyperSearch, SearchCriteria criteria ) {
+    return new GridSearch(_key, params, hyperSearch, criteria).start();
+  }
+
+  /** How to walk the hyperparameter space. */
+  public static class SearchCriteria extends Iced {
+    /** Models built at once; 0 to pick from the free memory and cores of the
+     *  cloud, and the size of the training frame. */
+    public int _parallelism = 0;
+    /** Build at most this many models, picked at random; 0 for the whole
+     *  grid, in order. */
+    public int _max_models = 0;
+    /** Seed of the random search */
+    public long _seed = 0xDECAFL;
+    /** Stop the search once this many models in a row failed to improve the
+     *  best error by more than {@link #_stopping_tolerance}; 0 to never stop. */
+    public int _stopping_rounds = 0;
+    public double _stopping_tolerance = 1e-3;
+    /** Cancel a build half-way done whose error is above this many times the
+     *  best one; 0 to let all builds finish. */
+    public double _hopeless_ratio = 0;
+  }
+
+  /** @return The error of the model used to compare models in a search:
+   *  validation MSE if any, else training MSE, else NaN. */
+  static double error( Model m ) {
+    if( m == null || m._output == null ) return Double.NaN;
+    ModelMetrics mm = m._output._validation_metrics != null ? m._output._validation_metrics : m._output._training_metrics;
+    return mm == null ? Double.NaN : mm._MSE;
   }
 
   // Cleanup models and grid
@@ -198,21 +224,26 @@ public /*abstract*/ class Grid<MP extends Model.Parameters, G extends Grid<MP, G
     return fs;
   }
 
+  /** Msecs between checks on the models being built */
+  static final int POLL_MSEC = 100;
+
   // A search over a hyperparameter space
   public final class GridSearch extends Job<Grid> {
     double[][] _hyperSearch;
     final int _total_models;
     final MP   _params;
-    GridSearch( Key gkey, MP params, Map<String,Object[]> hyperSearch ) {
+    final SearchCriteria _criteria;
+    GridSearch( Key gkey, MP params, Map<String,Object[]> hyperSearch, SearchCriteria criteria ) {
       super(Key.make("GridSearch_" + modelName() + Key.rand()), gkey, modelName() + " Grid Search");
       _params = params;
       _hyperSearch = hyper2doubles(hyperSearch);
+      _criteria = criteria;
 
       // Count of models in this search
       int work = 1;
       for( double hparms[] : _hyperSearch )
         work *= hparms.length;
-      _total_models = work;
+      _total_models = criteria._max_models > 0 ? Math.min(work, criteria._max_models) : work;
 
       // Check all parameter combos for validity
       double[] hypers = new double[_hyperSearch.length];
@@ -231,26 +262,131 @@ public /*abstract*/ class Grid<MP extends Model.Parameters, G extends Grid<MP, G
     }
 
     /** @return the set of models covered by this grid search, some may be null
-     *  if the search is in progress or otherwise incomplete. */
+     *  if the search is in progress or otherwise incomplete, was stopped early,
+     *  or (random search) did not pick them. */
     public Model[] models() {
-      Model[] ms = new Model[_total_models];
-      int mcnt = 0;
+      ArrayList<Model> ms = new ArrayList<>();
       double[] hypers = new double[_hyperSearch.length];
-      for( int[] hidx = new int[_hyperSearch.length]; hidx != null; hidx = nextModel(hidx) )
-        ms[mcnt++] = model(hypers(hidx,hypers)).get();
-      return ms;
+      for( int[] hidx = new int[_hyperSearch.length]; hidx != null; hidx = nextModel(hidx) ) {
+        Key<Model> k = model(hypers(hidx,hypers));
+        if( k != null || _criteria._max_models == 0 ) ms.add(k == null ? null : k.get());
+      }
+      return ms.toArray(new Model[ms.size()]);
     }
 
-    // Classic grid search over hyper-parameter space
+    /** @return Models to build at once: as set in the criteria, or as many as
+     *  fit in half the free memory of the cloud, and as keep all its cores
+     *  busy - a build running about one task per chunk of the frame. */
+    int parallelism() {
+      if( _criteria._parallelism > 0 ) return _criteria._parallelism;
+      return ModelBuilder.parallelBuilds(_fr, modelBytesEstimate(), _total_models);
+    }
+
+    // A model being built
+    private final class Build {
+      final double[] _hypers;
+      final ModelBuilder _mb;
+      boolean _hopeless;
+      Build( double[] hypers, ModelBuilder mb ) { _hypers = hypers; _mb = mb; }
+    }
+
+    // Grid search over hyper-parameter space: whole grid in order, or random
+    // picks; a few models at once, stopping early if so told.
     private void gridSearch(MP params) {
-      double[] hypers = new double[_hyperSearch.length];
-      for( int[] hidx = new int[_hyperSearch.length]; hidx != null; hidx = nextModel(hidx) ) {
-        if( !isRunning() ) { cancel(); return; }
-        buildModel(params, hypers(hidx,hypers));
+      final int par = parallelism();
+      Log.info("Grid search building " + par + " models at once");
+      Iterator<double[]> todo = _criteria._max_models > 0 ? randomHypers() : allHypers();
+      ArrayDeque<Build> running = new ArrayDeque<>();
+      double best = Double.POSITIVE_INFINITY;
+      int stale = 0;            // Models in a row not improving on the best
+      boolean stop = false;
+      while( true ) {
+        if( !isRunning() ) {
+          for( Build b : running ) b._mb.cancel();
+          for( Build b : running ) finish(b);
+          cancel();
+          return;
+        }
+        // Reap finished builds; cancel hopeless ones
+        for( Iterator<Build> it = running.iterator(); it.hasNext(); ) {
+          Build b = it.next();
+          if( b._mb.isStopped() ) {
+            it.remove();
+            double err = error(finish(b));
+            if( !Double.isNaN(err) && err < best * (1 - _criteria._stopping_tolerance) ) stale = 0;
+            else stale++;
+            if( !Double.isNaN(err) && err < best ) best = err;
+            if( _criteria._stopping_rounds > 0 && stale >= _criteria._stopping_rounds && !stop ) {
+              Log.info("Grid search stopped: " + stale + " models in a row did not improve on the best error " + best);
+              stop = true;
+            }
+          } else if( _criteria._hopeless_ratio > 0 && !b._hopeless && b._mb.progress() >= 0.5 ) {
+            double err = error((Model)b._mb.dest().get());
+            if( err > best * _criteria._hopeless_ratio ) {
+              Log.info("Grid search cancelling hopeless model " + b._mb.dest() + ": error " + err + " vs best " + best);
+              b._hopeless = true;
+              b._mb.cancel();
+            }
+          }
+        }
+        if( !stop && running.size() < par && todo.hasNext() ) {
+          double[] hypers = todo.next();
+          ModelBuilder mb = startBuildModel(params, hypers);
+          if( mb != null ) running.add(new Build(hypers, mb));
+          continue;
+        }
+        if( running.isEmpty() ) break;
+        try { Thread.sleep(POLL_MSEC); } catch( InterruptedException ignore ) { }
       }
       done();
     }
 
+    // Wait for the (stopped) build; cache its model if it completed, remove
+    // it if not.  Returns the completed model, or null.
+    private Model finish( Build b ) {
+      Model m;
+      try { m = (Model)b._mb.get(); }
+      catch( Throwable t ) { Log.warn("Grid search model " + b._mb.dest() + " failed: " + t); m = null; }
+      if( b._mb.isDone() && m != null ) {
+        _cache.put(new Group(b._hypers), m._key);
+        update(1);
+        return m;
+      }
+      if( m != null ) m.delete();
+      return null;
+    }
+
+    private Iterator<double[]> allHypers() {
+      return new Iterator<double[]>() {
+        int[] _hidx = new int[_hyperSearch.length];
+        @Override public boolean hasNext() { return _hidx != null; }
+        @Override public double[] next() {
+          double[] hypers = hypers(_hidx, new double[_hidx.length]);
+          _hidx = nextModel(_hidx);
+          return hypers;
+        }
+        @Override public void remove() { throw new UnsupportedOperationException(); }
+      };
+    }
+
+    // Distinct random points of the grid, _max_models of them at most
+    private Iterator<double[]> randomHypers() {
+      return new Iterator<double[]>() {
+        final Random _rng = new Random(_criteria._seed);
+        final HashSet<Long> _seen = new HashSet<>();
+        @Override public boolean hasNext() { return _seen.size() < _total_models; }
+        @Override public double[] next() {
+          int[] hidx = new int[_hyperSearch.length];
+          while( true ) {
+            long idx = 0;
+            for( int i = 0; i < hidx.length; i++ ) idx = idx * _hyperSearch[i].length + (hidx[i] = _rng.nextInt(_hyperSearch[i].length));
+            if( _seen.add(idx) ) return hypers(hidx, new double[hidx.length]);
+          }
+        }
+        @Override public void remove() { throw new UnsupportedOperationException(); }
+      };
+    }
+
     // Dumb iteration over the hyper-parameter space.
     // Return NULL at end
     private int[] nextModel( int[] hidx ) {
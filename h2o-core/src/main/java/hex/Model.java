@@ -63,6 +63,18 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
     public boolean _ignore_const_cols;    // True if dropping constant cols
     public String _weights_column;
     public String _offset_column;
+
+    /** Number of folds of an n-fold cross-validation; 0 for none.  The rows
+     *  are assigned to folds at random, unless a fold column is given. */
+    public int _nfolds;
+    /** Column assigning each row to a cross-validation fold: one fold per
+     *  level (or integer value); overrides {@link #_nfolds}. */
+    public String _fold_column;
+
+    /** Seed of the random fold assignment of {@link #_nfolds}: the seed of
+     *  the algorithm, for those which have one. */
+    public long getSeed() { return 0xDECAFL; }
+
     // Scoring a model on a dataset is not free; sometimes it is THE limiting
     // factor to model building.  By default, partially built models are only
     // scored every so many major model iterations - throttled to limit scoring
@@ -278,6 +290,14 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
      */
     public ModelMetrics _validation_metrics;
 
+    /**
+     * Cross-validation: the models built on each fold, the holdout predictions (each row scored by the model which
+     * did not train on it), and their metrics; null if the model was not cross-validated
+     */
+    public Key[] _cross_validation_models;
+    public Key<Frame> _cross_validation_predictions;
+    public ModelMetrics _cross_validation_metrics;
+
     /**
      * User-facing model summary - Display model type, complexity, size and other useful stats
      */
@@ -578,6 +598,25 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
     return output;
   }
 
+  /** Bulk score the frame {@code fr} for the predicted class (or value, for
+   *  regression) only, skipping the class distribution and the metrics.
+   *  Models able to decide the label from a partial score (e.g. tree
+   *  ensembles) stop scoring early.  The result is in the DKV; caller is
+   *  responsible for deleting.
+   *
+   * @param fr frame which should be scored
+   * @return A new frame with a single column of predicted labels (values)
+   */
+  public Frame scoreLabels(Frame fr, String destination_key) throws IllegalArgumentException {
+    Frame adaptFr = new Frame(fr);
+    adaptTestForTrain(adaptFr,true,false);   // Adapt
+    String[][] domains = new String[][]{ _output.nclasses()==1 ? null : _output._domains[_output._domains.length-1] };
+    BigScore bs = new BigScore(domains[0],1,adaptFr.means(),false,false,true).doAll(1,adaptFr);
+    Frame output = bs.outputFrame((null == destination_key ? Key.make() : Key.make(destination_key)), new String[]{"predict"}, domains);
+    cleanup_adapt(adaptFr, fr);
+    return output;
+  }
+
     // Remove temp keys.  TODO: Really should use Scope but Scope does not
     // currently allow nested-key-keepers.
   static protected void cleanup_adapt( Frame adaptFr, Frame fr ) {
@@ -602,8 +641,21 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
     // Build up the names & domains.
     final int nc = _output.nclasses();
     final int ncols = nc==1?1:nc+1; // Regression has 1 predict col; classification also has class distribution
-    String[] names = new String[ncols];
+    String[] names = predictionNames();
     String[][] domains = new String[ncols][];
+    domains[0] = nc==1 ? null : !computeMetrics ? _output._domains[_output._domains.length-1] : adaptFrm.lastVec().domain();
+    // Score the dataset, building the class distribution & predictions
+    BigScore bs = new BigScore(domains[0],ncols,adaptFrm.means(),_output.hasWeights() && adaptFrm.find(_output.weightsName()) >= 0,computeMetrics,false).doAll(ncols,adaptFrm);
+    if (computeMetrics)
+      bs._mb.makeModelMetrics(this, fr);
+    return bs.outputFrame((null == destination_key ? Key.make() : Key.make(destination_key)), names, domains);
+  }
+
+  /** Names of the columns of bulk predictions: "predict", then for
+   *  classifiers the class distribution, one column per class. */
+  public String[] predictionNames() {
+    final int nc = _output.nclasses();
+    String[] names = new String[nc==1?1:nc+1];
     names[0] = "predict";
     for(int i = 1; i < names.length; ++i) {
       names[i] = _output.classNames()[i - 1];
@@ -615,12 +667,7 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
         // do nothing, non-integer names are fine already
       }
     }
-    domains[0] = nc==1 ? null : !computeMetrics ? _output._domains[_output._domains.length-1] : adaptFrm.lastVec().domain();
-    // Score the dataset, building the class distribution & predictions
-    BigScore bs = new BigScore(domains[0],ncols,adaptFrm.means(),_output.hasWeights() && adaptFrm.find(_output.weightsName()) >= 0,computeMetrics).doAll(ncols,adaptFrm);
-    if (computeMetrics)
-      bs._mb.makeModelMetrics(this, fr);
-    return bs.outputFrame((null == destination_key ? Key.make() : Key.make(destination_key)), names, domains);
+    return names;
   }
 
   private class BigScore extends MRTask<BigScore> {
@@ -630,9 +677,10 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
     final double[] _mean;  // Column means of test frame
     final boolean _computeMetrics;  // Column means of test frame
     final boolean _hasWeights;
+    final boolean _labelsOnly;      // Only the predicted class, no distribution nor metrics
 
-    BigScore( String[] domain, int ncols, double[] mean, boolean testHasWeights, boolean computeMetrics ) {
-      _domain = domain; _npredcols = ncols; _mean = mean; _computeMetrics = computeMetrics;
+    BigScore( String[] domain, int ncols, double[] mean, boolean testHasWeights, boolean computeMetrics, boolean labelsOnly ) {
+      _domain = domain; _npredcols = ncols; _mean = mean; _computeMetrics = computeMetrics; _labelsOnly = labelsOnly;
       if(_output._hasWeights && _computeMetrics && !testHasWeights)
         throw new IllegalArgumentException("Missing weights when computing validation metrics.");
       _hasWeights = testHasWeights;
@@ -658,6 +706,11 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
         double weight = weightsChunk.atd(row);
         if (weight == 0) continue;
         double offset = offsetChunk.atd(row);
+        if (_labelsOnly) {
+          for (int i = 0; i < tmp.length; i++) tmp[i] = chks[i].atd(row);
+          cpreds[0].addNum(scoreLabel0(tmp, preds, offset));
+          continue;
+        }
         double [] p = score0(chks, weight, offset, row, tmp, preds);
         if (_computeMetrics) {
           if(isSupervised()) {
@@ -712,14 +765,38 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
     assert (weight == 1 && offset == 0) : "Override this method for non-trivial weight/offset!";
     return score0(data, preds);
   }
+  /** Score for the predicted class (or value, for regression) only; preds is
+   *  a re-usable temp array.  The default computes the full distribution and
+   *  labels it the same way as bulk scoring does; models which can tell the
+   *  label from a partial score override this.  */
+  protected double scoreLabel0(double data[/*ncols*/], double preds[/*nclasses+1*/], double offset) {
+    double[] scored = score0(data, preds, 1, offset);
+    if( isSupervised() && _output.isClassifier() ) {
+      if (_parms._balance_classes)
+        GenModel.correctProbabilities(scored, _output._priorClassDist, _output._modelClassDist);
+      return hex.genmodel.GenModel.getPrediction(scored, data, defaultThreshold());
+    }
+    return scored[0];
+  }
+
   // Version where the user has just ponied-up an array of data to be scored.
   // Data must be in proper order.  Handy for JUnit tests.
   public double score(double[] data){ return ArrayUtils.maxIndex(score0(data, new double[_output.nclasses()]));  }
 
+  /** Get ready to score, e.g. fetch the parts scoring reads, so that the
+   *  first rows score as fast as the rest.  Called by {@link ModelCache} on
+   *  the models it loads; nothing to do by default. */
+  public void warmUp() { }
+
   @Override protected Futures remove_impl( Futures fs ) {
     if (_output._model_metrics != null)
       for( Key k : _output._model_metrics )
         k.remove(fs);
+    if (_output._cross_validation_models != null)
+      for( Key k : _output._cross_validation_models )
+        if( k != null ) k.remove(fs);
+    if (_output._cross_validation_predictions != null)
+      _output._cross_validation_predictions.remove(fs);
     return fs;
   }
 
@@ -939,6 +1016,13 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
               System.err.println("Predictions mismatch, row "+row+", col "+model_predictions._names[col]+", internal prediction="+d+", POJO prediction="+predictions[col]);
           }
         }
+        double label = genmodel.predictLabel(features,predictions); // POJO label-only scoring
+        double d = pvecs[0].at(row);
+        if( omap != null ) d = omap[(int)d];
+        if( !MathUtils.compare(label,d,1e-15,rel_epsilon) ) {
+          if (miss++ < 10)
+            System.err.println("Label mismatch, row "+row+", internal prediction="+d+", POJO label="+label);
+        }
       }
       if (miss != 0) System.err.println("Number of mismatches: " + miss);
       return miss==0;
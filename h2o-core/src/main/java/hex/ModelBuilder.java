@@ -4,19 +4,14 @@ import hex.schemas.ModelBuilderSchema;
 import water.*;
 import water.exceptions.H2OIllegalArgumentException;
 import water.exceptions.H2OKeyNotFoundArgumentException;
-import water.fvec.C0DChunk;
-import water.fvec.Frame;
-import water.fvec.Vec;
-import water.util.Log;
-import water.util.MRUtils;
-import water.util.ReflectionUtils;
+import water.H2O.H2OCountedCompleter;
+import water.fvec.*;
+import water.util.*;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 /**
  *  Model builder parent class.  Contains the common interfaces and fields across all model builders.
@@ -173,6 +168,300 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
   /** Method to launch training of a Model, based on its parameters. */
   abstract public Job<M> trainModel();
 
+  // ==========================================================================
+  // Cross-validation
+
+  /** Most folds of a cross-validation */
+  public static final int MAX_FOLDS = 1000;
+  /** Name of the weights column of the fold models: zero on the rows of the
+   *  fold, else the row weight. */
+  public static final String CV_WEIGHTS = "__cv_weights";
+
+  /** Is the model cross-validated: see {@link Model.Parameters#_nfolds} and
+   *  {@link Model.Parameters#_fold_column}. */
+  public boolean isCrossValidated() { return _parms._fold_column != null || _parms._nfolds > 1; }
+
+  /** Launch training of the Model, cross-validated if so asked: the Model is
+   *  built on all the training data, as by {@link #trainModel()}, plus one
+   *  model per fold, built on the rest of the rows.  Each row is scored by
+   *  the model of its fold; these holdout predictions and their metrics go
+   *  in the Model's output.
+   *  @return the Job to wait on: done when the Model and its cross-validation
+   *  are done */
+  public Job<M> trainModelCV() {
+    return isCrossValidated() ? new CrossValidation().start() : trainModel();
+  }
+
+  /** Models of {@code bytes} each to build at once on this cloud, at most
+   *  {@code max}: as many as fit in half its free memory, and as keep all its
+   *  cores busy - a build running about one task per chunk of {@code fr}. */
+  public static int parallelBuilds( Frame fr, long bytes, int max ) {
+    long free = 0;
+    int cpus = 0;
+    for( H2ONode h : H2O.CLOUD.members() ) {
+      free += Math.max(0, h.get_max_mem() - h._heartbeat.get_mvalsz());
+      cpus += h._heartbeat._cpus_allowed > 0 ? h._heartbeat._cpus_allowed : h._heartbeat._num_cpus;
+    }
+    long mem = Math.max(1, (free>>1) / Math.max(1, bytes));
+    int cpu = Math.max(1, cpus / Math.max(1, fr.anyVec().nChunks()));
+    return (int)Math.max(1, Math.min(Math.min(mem, cpu), max));
+  }
+
+  // A builder of the same class, for other parameters
+  private ModelBuilder<M,P,O> makeBuilder( P parms ) {
+    try {
+      return getClass().getDeclaredConstructor(parms.getClass()).newInstance(parms);
+    } catch( Exception e ) {
+      throw H2O.fail("Exception when trying to instantiate ModelBuilder " + getClass() + ": " + e, e);
+    }
+  }
+
+  /** The cross-validation of the model of this builder.  The folds share the
+   *  training Vecs: a fold model trains on them plus a {@link FoldMaskVec}
+   *  weights column, a lazy view of the fold assignment which is zero on the
+   *  fold's rows.  The fold models and the main model are built a few at once,
+   *  as many as the cloud has room for; then a single pass over the training
+   *  data scores each row by the model of its fold. */
+  private final class CrossValidation extends Job<M> {
+    CrossValidation() { super(ModelBuilder.this._dest, ModelBuilder.this._description + " Cross-Validation"); }
+
+    // Fold column only: its lowest value, and the rows of each value from it
+    private transient long _foldMin;
+    private transient long[] _foldCounts;
+
+    CrossValidation start() {
+      // A model per fold holding rows, then the main one
+      int nmodels = _parms._nfolds;
+      Vec folds = _parms._fold_column == null ? null : _parms.train().vec(_parms._fold_column);
+      if( folds != null && error_count() == 0 ) { // Else the job fails on the errors
+        _foldMin = (long)folds.min();
+        _foldCounts = new FoldCounts(_foldMin, (int)((long)folds.max() - _foldMin + 1)).doAll(folds)._counts;
+        nmodels = 0;
+        for( long c : _foldCounts ) if( c > 0 ) nmodels++;
+      }
+      final int work = nmodels + 1;
+      start(new H2OCountedCompleter() {
+          @Override public void compute2() {
+            try {
+              crossValidate();
+            } catch( Throwable t ) {
+              Job thisJob = DKV.getGet(_key);
+              if( thisJob._state == JobState.CANCELLED ) Log.info("Cross-validation cancelled by user.");
+              else { failed(t); throw t; }
+            }
+            tryComplete();
+          }
+        }, work);
+      return this;
+    }
+
+    private void crossValidate() {
+      final Frame tr = _parms.train();
+      final Vec weights = _parms._weights_column == null ? null : tr.vec(_parms._weights_column);
+      // Fold assignment: the fold column, else random
+      final Vec folds;
+      final long min;
+      final long[] counts;          // Rows of each fold value, from min
+      if( _parms._fold_column != null ) {
+        folds = tr.vec(_parms._fold_column);
+        if( _foldCounts == null ) throw new IllegalArgumentException(validationErrors());
+        min = _foldMin;
+        counts = _foldCounts;
+      } else {
+        folds = tr.anyVec().makeZero();
+        new AssignFolds(_parms._nfolds, _parms.getSeed()).doAll(folds);
+        min = 0;
+        counts = new FoldCounts(min, (int)folds.max() + 1).doAll(folds)._counts;
+      }
+      // The fold values holding any rows, and the model of each value
+      int[] fold2model = new int[counts.length];
+      int nmodels = 0;
+      for( int i = 0; i < counts.length; i++ )
+        fold2model[i] = counts[i] > 0 ? nmodels++ : -1;
+      Frame[] trains = new Frame[nmodels];
+      Vec[] masks = new Vec[nmodels];
+      Key[] keys = new Key[nmodels];
+      Frame adapt = null;
+      boolean ok = false;
+      try {
+        if( nmodels < 2 ) throw new IllegalArgumentException("Cross-validation needs at least 2 folds with rows");
+        ModelBuilder[] builders = new ModelBuilder[nmodels + 1];
+        // Fold models drop the fold column; their weights replace the row weights
+        String[] ignored = _parms._ignored_columns == null ? new String[0] : _parms._ignored_columns;
+        if( _parms._fold_column != null ) ignored = ArrayUtils.append(ignored, _parms._fold_column);
+        if( _parms._weights_column != null ) ignored = ArrayUtils.append(ignored, _parms._weights_column);
+        for( int i = 0; i < counts.length; i++ ) {
+          int m = fold2model[i];
+          if( m < 0 ) continue;
+          masks[m] = new FoldMaskVec(tr.anyVec().group().addVec(), folds, min + i, weights);
+          trains[m] = new Frame(Key.make(_dest + "_cv_" + (m+1) + "_train"), tr.names(), tr.vecs());
+          trains[m].add(CV_WEIGHTS, masks[m]);
+          DKV.put(trains[m]);
+          P p = (P)_parms.clone();
+          p._model_id = keys[m] = Key.make(_dest + "_cv_" + (m+1));
+          p._train = trains[m]._key;
+          p._valid = null;
+          p._nfolds = 0;
+          p._fold_column = null;
+          p._weights_column = CV_WEIGHTS;
+          p._ignored_columns = ignored;
+          builders[m] = makeBuilder(p);
+          if( builders[m].error_count() > 0 )
+            throw new IllegalArgumentException(builders[m].validationErrors());
+        }
+        builders[nmodels] = ModelBuilder.this;
+        if( !buildAll(builders) ) return;
+        Model[] models = new Model[nmodels];
+        for( int m = 0; m < nmodels; m++ ) models[m] = DKV.getGet(keys[m]);
+
+        // Holdout predictions, and their metrics
+        M main = DKV.getGet(_dest);
+        adapt = new Frame(null, tr.names(), tr.vecs());
+        adapt.add(CV_WEIGHTS, masks[0]); // Not read: the weights are below
+        models[0].adaptTestForTrain(adapt, true, true);
+        adapt.add("__cv_folds", folds);
+        if( weights != null ) adapt.add("__cv_row_weights", weights);
+        String[] names = main.predictionNames();
+        String[][] domains = new String[names.length][];
+        String[] domain = main._output.nclasses() == 1 ? null : adapt.vec(main._output.responseName()).domain();
+        domains[0] = domain;
+        CVScore cvs = new CVScore(keys, _dest, min, fold2model, domain, names.length, weights != null).doAll(names.length, adapt);
+        Frame preds = cvs.outputFrame(Key.make(_dest + "_cv_holdout_predictions"), names, domains);
+        main.write_lock(_key);
+        main._output._cross_validation_models = keys;
+        main._output._cross_validation_predictions = preds._key;
+        ModelMetrics mm = cvs._mb.makeModelMetrics(main, preds);
+        mm._description = nmodels + "-fold cross-validation on training data";
+        DKV.put(mm);
+        main._output._cross_validation_metrics = mm;
+        main.update(_key);
+        main.unlock(_key);
+        ok = true;
+        done();
+      } finally {
+        Futures fs = new Futures();
+        if( !ok )               // Fold models built before a failure or cancel
+          for( Key k : keys ) if( k != null ) Keyed.remove(k, fs);
+        if( adapt != null )     // Vecs made by the adaptation
+          for( Vec v : adapt.vecs() )
+            if( tr.find(v) == -1 && v != masks[0] && v != folds ) v.remove(fs);
+        for( Frame f : trains ) if( f != null ) DKV.remove(f._key, fs);
+        for( Vec v : masks ) if( v != null ) v.remove(fs);
+        if( _parms._fold_column == null ) folds.remove(fs);
+        fs.blockForPending();
+      }
+    }
+
+    // Build the models, a few at once.  Returns false if cancelled.
+    private boolean buildAll( ModelBuilder[] builders ) {
+      Frame tr = _parms.train();
+      final int par = parallelBuilds(tr, tr.byteSize(), builders.length);
+      Log.info("Cross-validation building " + par + " of " + builders.length + " models at once");
+      ArrayDeque<ModelBuilder> running = new ArrayDeque<>();
+      int next = 0;
+      try {
+        while( next < builders.length || !running.isEmpty() ) {
+          if( !isRunning() ) return false;
+          for( Iterator<ModelBuilder> it = running.iterator(); it.hasNext(); ) {
+            ModelBuilder b = it.next();
+            if( !b.isStopped() ) continue;
+            it.remove();
+            b.get();
+            Job j = DKV.getGet(b._key);
+            if( j != null && j.isCancelledOrCrashed() )
+              throw new IllegalArgumentException("Cross-validation model " + b._dest + " failed: " + j._exception);
+            update(1);
+          }
+          if( next < builders.length && running.size() < par ) {
+            running.add((ModelBuilder)builders[next++].trainModel());
+            continue;
+          }
+          try { Thread.sleep(Grid.POLL_MSEC); } catch( InterruptedException ignore ) { }
+        }
+        return true;
+      } finally {               // Cancelled or failed: stop the other builds, done with the fold frames
+        for( ModelBuilder b : running ) b.cancel();
+        for( ModelBuilder b : running )
+          try { b.get(); } catch( Throwable ignore ) { }
+      }
+    }
+  }
+
+  // Random fold of each row, 0 to nfolds-1
+  private static class AssignFolds extends MRTask<AssignFolds> {
+    final int _nfolds;
+    final long _seed;
+    AssignFolds( int nfolds, long seed ) { _nfolds = nfolds; _seed = seed; }
+    @Override public void map( Chunk c ) {
+      Random rng = RandomUtils.getRNG(_seed + c.start());
+      for( int row = 0; row < c._len; row++ )
+        c.set(row, rng.nextInt(_nfolds));
+    }
+  }
+
+  // Rows of each fold value
+  private static class FoldCounts extends MRTask<FoldCounts> {
+    final long _min;
+    final int _span;
+    long[] _counts;
+    FoldCounts( long min, int span ) { _min = min; _span = span; }
+    @Override public void map( Chunk c ) {
+      _counts = new long[_span];
+      for( int row = 0; row < c._len; row++ )
+        _counts[(int)(c.at8(row) - _min)]++;
+    }
+    @Override public void reduce( FoldCounts fc ) { ArrayUtils.add(_counts, fc._counts); }
+  }
+
+  // Score each row by the model of its fold: the holdout predictions, and
+  // their metrics (as built by the main model)
+  private static class CVScore extends MRTask<CVScore> {
+    final Key[] _models;        // Fold models
+    final Key _main;            // Main model
+    final long _min;            // Fold value of fold2model[0]
+    final int[] _fold2model;    // Model of each fold value
+    final String[] _domain;     // Prediction domain
+    final int _npredcols;
+    final boolean _hasWeights;  // Row weights are the last column, after the folds
+    ModelMetrics.MetricBuilder _mb;
+    transient Model[] _ms;
+    transient Model _m;
+    CVScore( Key[] models, Key main, long min, int[] fold2model, String[] domain, int npredcols, boolean hasWeights ) {
+      _models = models; _main = main; _min = min; _fold2model = fold2model; _domain = domain; _npredcols = npredcols; _hasWeights = hasWeights;
+    }
+    @Override protected void setupLocal() {
+      _ms = new Model[_models.length];
+      for( int i = 0; i < _ms.length; i++ ) _ms[i] = DKV.getGet(_models[i]);
+      _m = DKV.getGet(_main);
+    }
+    @Override public void map( Chunk chks[], NewChunk cpreds[] ) {
+      Model.Output out = _ms[0]._output;
+      Chunk folds = chks[chks.length - (_hasWeights ? 2 : 1)];
+      Chunk weights = _hasWeights ? chks[chks.length - 1] : null;
+      Chunk offsets = out.hasOffset() ? chks[out.offsetIdx()] : null;
+      Chunk responses = out.isSupervised() ? chks[out.responseIdx()] : null;
+      double[] tmp = new double[out.nfeatures()];
+      float[] actual = new float[out.isSupervised() ? 1 : tmp.length];
+      _mb = _m.makeMetricBuilder(_domain);
+      double[] preds = _mb._work;
+      for( int row = 0; row < chks[0]._len; row++ ) {
+        Model m = _ms[_fold2model[(int)(folds.at8(row) - _min)]];
+        double weight = weights == null ? 1 : weights.atd(row);
+        double offset = offsets == null ? 0 : offsets.atd(row);
+        double[] p = m.score0(chks, weight, offset, row, tmp, preds);
+        if( weight != 0 ) {
+          if( responses != null ) actual[0] = (float)responses.atd(row);
+          else for( int i = 0; i < actual.length; i++ ) actual[i] = (float)tmp[i];
+          _mb.perRow(preds, actual, weight, offset, m);
+        }
+        for( int c = 0; c < _npredcols; c++ )
+          cpreds[c].addNum(p[c]);
+      }
+    }
+    @Override public void reduce( CVScore cvs ) { _mb.reduce(cvs._mb); }
+    @Override protected void postGlobal() { _mb.postGlobal(); }
+  }
+
   /** List containing the categories of models that this builder can
    *  build.  Each ModelBuilder must have one of these. */
   abstract public ModelCategory[] can_build();
@@ -203,6 +492,11 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
 
   public boolean isSupervised(){return false;}
 
+  /** Does this builder train on row weights ({@link Model.Parameters#_weights_column})?
+   *  Cross-validation holds out the rows of each fold by weighing them zero,
+   *  so it needs them. */
+  public boolean supportsWeights(){return false;}
+
   protected transient Vec _response; // Handy response column
   protected transient Vec _vresponse; // Handy response column
   protected transient Vec _offset; // Handy offset column
@@ -341,6 +635,30 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
       if( expensive ) Log.info("Dropping ignored columns: "+Arrays.toString(_parms._ignored_columns));
     }
 
+    // Cross-validation: the fold column only assigns rows to folds
+    if( _parms._fold_column != null ) {
+      Vec f = tr.vec(_parms._fold_column);
+      if( f == null )
+        error("_fold_column", "Fold column '" + _parms._fold_column + "' not found in the training frame");
+      else if( _parms._fold_column.equals(_parms._response_column) || _parms._fold_column.equals(_parms._weights_column) || _parms._fold_column.equals(_parms._offset_column) )
+        error("_fold_column", "Fold column must be different from the response, weights and offset columns");
+      else {
+        _train.remove(_parms._fold_column);
+        if( !f.isEnum() && !f.isInt() )
+          error("_fold_column", "Invalid fold column '" + _parms._fold_column + "', folds must be categorical or integer");
+        else if( f.naCnt() > 0 )
+          error("_fold_column", "Fold column cannot have missing values.");
+        else if( f.max() - f.min() >= MAX_FOLDS )
+          error("_fold_column", "Fold column '" + _parms._fold_column + "' spans more than " + MAX_FOLDS + " folds");
+      }
+    } else if( _parms._nfolds < 0 || _parms._nfolds == 1 || _parms._nfolds > MAX_FOLDS )
+      error("_nfolds", "Number of folds must be 0 (no cross-validation), or from 2 to " + MAX_FOLDS);
+    else if( _parms._nfolds > tr.numRows() )
+      error("_nfolds", "Number of folds cannot be larger than the number of rows");
+    // Fold models would train on the rows they are scored on
+    if( isCrossValidated() && !supportsWeights() )
+      error(_parms._fold_column != null ? "_fold_column" : "_nfolds", "Cross-validation is not supported by " + getClass().getSimpleName() + ", which does not use row weights");
+
     // Drop all non-numeric columns (e.g., String and UUID).  No current algo
     // can use them, and otherwise all algos will then be forced to remove
     // them.  Text algos (grep, word2vec) take raw text columns - which are
@@ -0,0 +1,137 @@
+package hex;
+
+import water.*;
+import water.H2O.H2OCountedCompleter;
+import water.serial.BundleBinarySerializer;
+import water.util.FileUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.*;
+
+/** A bounded cache of models ready to score, loaded from model bundles (see
+ *  {@link BundleBinarySerializer}) and kept by the location of their bundle.
+ *
+ *  <p>A missing model is loaded - once, however many callers ask for it at
+ *  the same time - and warmed up by {@link Model#warmUp}, so a tree model
+ *  holds all its trees.  Once the cache holds more than its maximum of
+ *  models, the least recently used model is evicted: it is removed from DKV,
+ *  along with everything loaded from its bundle.  Callers should thus hold on
+ *  to a model only for the duration of a request, and ask the cache again
+ *  for the next one.
+ *
+ *  <p>{@link #preload} loads many bundles at once, e.g. to get a scoring
+ *  server ready before it takes requests.
+ */
+public class ModelCache {
+  private final int _maxModels;
+  // Least recently used first
+  private final LinkedHashMap<String,Entry> _models = new LinkedHashMap<>(16, 0.75f, true);
+
+  public ModelCache( int maxModels ) {
+    if( maxModels <= 0 ) throw new IllegalArgumentException("Cache must hold at least one model, not "+maxModels);
+    _maxModels = maxModels;
+  }
+
+  // A model with all the keys loaded from its bundle
+  private static final class Entry {
+    final URI _uri;
+    Model _model;               // Null until loaded
+    List<Key> _keys;
+    boolean _evicted;
+    Entry( URI uri ) { _uri = uri; }
+
+    // Null if evicted before it could load
+    synchronized Model load() throws IOException {
+      if( _model == null && !_evicted ) {
+        List<Key> keys = new BundleBinarySerializer().load(_uri);
+        Model model = (Model) keys.get(0).get();
+        model.warmUp();
+        _keys = keys;
+        _model = model;
+      }
+      return _model;
+    }
+
+    synchronized void unload() {
+      _evicted = true;
+      if( _keys == null ) return;
+      Futures fs = new Futures();
+      for( Key k : _keys )
+        if( k != null ) k.remove(fs);
+      fs.blockForPending();
+      _keys = null;
+      _model = null;
+    }
+  }
+
+  // Models are cached by normalized location, so each bundle is loaded once
+  // however it is named (e.g. "./m.bin" and its absolute path)
+  private static URI location( String uri ) { return FileUtils.getURI(uri).normalize(); }
+
+  /** @return the model of the bundle at uri, loaded and warmed up unless it is cached */
+  public Model get( String uri ) throws IOException {
+    final URI loc = location(uri);
+    final String key = loc.toString();
+    while( true ) {
+      Entry e;
+      List<Entry> evicted = new ArrayList<>();
+      synchronized( this ) {
+        e = _models.get(key);
+        if( e == null ) {
+          _models.put(key, e = new Entry(loc));
+          Iterator<Entry> it = _models.values().iterator();
+          while( _models.size() > _maxModels ) {
+            evicted.add(it.next());
+            it.remove();
+          }
+        }
+      }
+      for( Entry ev : evicted ) ev.unload();
+      Model model;
+      try {
+        model = e.load();
+      } catch( IOException | RuntimeException ex ) {
+        synchronized( this ) { if( _models.get(key) == e ) _models.remove(key); }
+        throw ex;
+      }
+      if( model != null ) return model;
+      // Evicted while loading: load it again
+    }
+  }
+
+  /** Load the bundles at the given locations in parallel.  With more of them
+   *  than the cache holds, the first ones loaded are evicted again. */
+  public void preload( String... uris ) {
+    Futures fs = new Futures();
+    for( final String uri : uris )
+      fs.add(H2O.submitTask(new H2OCountedCompleter() {
+        @Override protected void compute2() {
+          try { ModelCache.this.get(uri); }
+          catch( IOException e ) { throw new RuntimeException(e); }
+          tryComplete();
+        }
+      }));
+    fs.blockForPending();
+  }
+
+  /** Evict the model of the bundle at uri, if cached. */
+  public void remove( String uri ) {
+    Entry e;
+    synchronized( this ) { e = _models.remove(location(uri).toString()); }
+    if( e != null ) e.unload();
+  }
+
+  /** Evict all the models. */
+  public void clear() {
+    List<Entry> evicted;
+    synchronized( this ) {
+      evicted = new ArrayList<>(_models.values());
+      _models.clear();
+    }
+    for( Entry e : evicted ) e.unload();
+  }
+
+  /** @return the number of models cached, or being loaded */
+  public synchronized int size() { return _models.size(); }
+}
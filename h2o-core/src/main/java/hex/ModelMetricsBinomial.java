@@ -35,7 +35,7 @@ public class ModelMetricsBinomial extends ModelMetricsSupervised {
     protected double _logloss;
     protected AUC2.AUCBuilder _auc;
 
-    public MetricBuilderBinomial( String[] domain ) { super(2,domain); _auc = new AUC2.AUCBuilder(AUC2.NBINS); }
+    public MetricBuilderBinomial( String[] domain ) { super(2,domain); _auc = AUC2.builder(); }
 
     public double auc() {return new AUC2(_auc)._auc;}
 
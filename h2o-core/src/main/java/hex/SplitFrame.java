@@ -20,6 +20,8 @@ public class SplitFrame extends Transformer<SplitFrame> {
   public double[]  ratios;
   /** Output destination keys. */
   public Key<Frame>[] destination_frames;
+  /** Make views sharing the dataset's chunks instead of copies; the dataset cannot be deleted until they are. */
+  public boolean lazy;
 
   public SplitFrame() { this(Key.make()); }
   public SplitFrame(Key<SplitFrame> dest) { this(dest, "SplitFrame job"); }
@@ -54,7 +56,7 @@ public class SplitFrame extends Transformer<SplitFrame> {
     H2O.H2OCountedCompleter hcc = new H2O.H2OCountedCompleter() {
       @Override
       protected void compute2() {
-        FrameSplitter fs = new FrameSplitter(this, dataset, computedRatios, destination_frames, _key);
+        FrameSplitter fs = new FrameSplitter(this, dataset, computedRatios, destination_frames, _key, lazy);
         H2O.submitTask(fs);
       }
 
@@ -171,6 +171,17 @@ public /* final */ class AutoBuffer {
     _persist = 0;               // No persistance
   }
 
+  /** Read from a fixed ByteBuffer, e.g. a memory-mapped file, from its
+   *  position to its limit; should not be closed. */
+  public AutoBuffer( ByteBuffer bb ) {
+    _bb = bb.slice().order(ByteOrder.nativeOrder());
+    _chan = null;
+    _h2o = null;
+    _read = true;
+    _firstPage = true;
+    _persist = 0;               // No persistance
+  }
+
   /**  Write to an ever-expanding byte[].  Instead of calling {@link #close()},
    *  call {@link #buf()} to retrieve the final byte[].
    */
@@ -551,6 +562,12 @@ public /* final */ class AutoBuffer {
     return _bb;
   }
 
+  /** Writing to a byte[]: hand off the full buffer's bytes, making room,
+   *  rather than growing it, so a large serialization is seen in bounded
+   *  blocks (see {@link WireCompression}).
+   *  @return false (grow the buffer) unless overridden */
+  boolean flushBlock() { return false; }
+
   /** Put as needed to keep from overflowing the ByteBuffer. */
   private ByteBuffer putSp( int sz ) {
     assert !_read;
@@ -563,6 +580,7 @@ public /* final */ class AutoBuffer {
   private ByteBuffer sendPartial() {
     // Writing into an expanding byte[]?
     if( _h2o==null && _chan == null ) {
+      if( flushBlock() ) return _bb; // Or into fixed blocks, handed off as they fill
       // This is a byte[] backed buffer; expand the backing byte[].
       byte[] ary = _bb.array();
       int newlen = ary.length<<1; // New size is 2x old size
@@ -620,6 +638,7 @@ public /* final */ class AutoBuffer {
 
 
   int    get1U(int off) { return _bb.get    (off)&0xFF; }
+  char   get2 (int off) { return _bb.getChar(off); }
   int    get4 (int off) { return _bb.getInt (off); }
   long   get8 (int off) { return _bb.getLong(off); }
 
@@ -720,8 +739,12 @@ public /* final */ class AutoBuffer {
 
 
 
+  // Freezables go with their cloud-local type ids; see AutoBufferWithoutTypeIds
+  boolean typeIds() { return true; }
   public AutoBuffer putA(Freezable[] fs) {
     //_arys++;
+    Class clz = typeIds() ? Columnar.homogeneous(fs) : null; // One type id for all, and columns of plain Iced
+    if( clz != null ) return Columnar.write(putInt(Columnar.MARKER), fs, clz);
     long xy = putZA(fs);
     if( xy == -1 ) return this;
     int x=(int)(xy>>32);
@@ -758,10 +781,10 @@ public /* final */ class AutoBuffer {
   }
   public <T extends Freezable> T[] getA(Class<T> tc) {
     //_arys++;
-    long xy = getZA();
-    if( xy == -1 ) return null;
-    int x=(int)(xy>>32);         // Leading nulls
-    int y=(int)xy;               // Middle non-zeros
+    int x=getInt();              // Leading nulls
+    if( x == -1 ) return null;
+    if( x == Columnar.MARKER ) return Columnar.read(this, tc);
+    int y=getInt();              // Middle non-zeros
     int z = y==0 ? 0 : getInt(); // Trailing nulls
     T[] ts = (T[]) Array.newInstance(tc, x+y+z);
     for( int i = x; i < x+y; ++i ) ts[i] = get();
@@ -1,5 +1,6 @@
 package water;
 
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 
 import water.*;
@@ -15,6 +16,7 @@ public class AutoBufferWithoutTypeIds extends AutoBuffer {
 
     public AutoBufferWithoutTypeIds() { super(); }
     public AutoBufferWithoutTypeIds(byte[] b) { super(b); }
+    public AutoBufferWithoutTypeIds(ByteBuffer bb) { super(bb); }
 
     public AutoBufferWithoutTypeIds(FileChannel fc, boolean read) {
       super(fc,read, (byte) 0);
@@ -30,6 +32,8 @@ public class AutoBufferWithoutTypeIds extends AutoBuffer {
         throw H2O.fail("Cannot instantiate class: " + klazz + " because of " + e.getMessage());
       }
     }
+    // Arrays of Freezables go one by one, each with its class name
+    @Override boolean typeIds() { return false; }
     @Override public AutoBuffer put(Freezable f) {
       if( f == null ) return putStr(NULL);
       putStr(f.getClass().getName());
@@ -1,9 +1,11 @@
 package water;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.*;
+import java.util.concurrent.*;
 import water.fvec.Chunk;
 import water.util.Log;
+import water.util.Metrics;
 
 /** Store Cleaner: User-Mode Swap-To-Disk */
 
@@ -66,134 +68,256 @@ class Cleaner extends Thread {
   }
 
 
+  // ---
+  // Eviction policy: scan-resistant, 2Q-like, over Value._lastAccessedTime.
+  // Values touched again after their first access window (Value._hits > 1)
+  // are "hot"; the rest are on probation, and are evicted first.  A Value
+  // reloaded after being evicted comes back hot (the 2Q ghost hit), so a
+  // chunk which keeps being needed does not keep thrashing.  Within each
+  // class, the least recently used goes first.  Only Chunks are spilled:
+  // other POJOs are written to in place, so cannot be reloaded from disk
+  // without losing changes; of those only the redundant serialized form is
+  // dropped.
+
+  /** Eviction score multiplier for Values on probation (used once). */
+  static volatile int PROBATION_WEIGHT = 4;
+  /** Spill batches of about this many bytes, written by the spill threads. */
+  static final int BATCH_BYTES = 16<<20;
+  // Spill batches queued beyond the running ones; past that the Cleaner
+  // writes the batch itself, which throttles the sweep to the disk speed.
+  private static final int QUEUED_BATCHES = 4;
+
+  private static final ThreadPoolExecutor SPILLERS;
+  static {
+    int n = Math.max(1,Math.min(4,H2O.NUMCPUS>>2));
+    SPILLERS = new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(QUEUED_BATCHES),
+      new ThreadFactory() {
+        @Override public Thread newThread(Runnable r) {
+          Thread t = new Thread(r,"MemSpill");
+          t.setDaemon(true);
+          t.setPriority(MAX_PRIORITY-2);
+          return t;
+        }
+      }, new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+  // Values queued or being written, so no sweep queues them twice
+  private static final Set<Value> SPILLING = Collections.newSetFromMap(new ConcurrentHashMap<Value,Boolean>());
+  private static volatile boolean DISK_FULL;
+
+  // Counters, served by /3/Metrics
+  static final Metrics.Family SWAP_BYTES = Metrics.counter("h2o_swap_bytes_total", "event", "Bytes spilled to disk, evicted from memory and reloaded from disk");
+  static final Metrics.Family SWAP_VALUES = Metrics.counter("h2o_swap_values_total", "event", "Values spilled to disk, evicted from memory and reloaded from disk");
+  static final Metrics.Family SPILL_FAILURES = Metrics.counter("h2o_swap_spill_failures_total", "cause", "Spill batches failed in a forced sweep, by exception class");
+  private static void count( String event, Value val ) {
+    SWAP_VALUES.get(event).add(1);
+    SWAP_BYTES.get(event).add(val._max);
+  }
+
+  /** A Value evicted by the Cleaner was read back from disk: count it, and
+   *  promote it straight to hot. */
+  static void reloaded( Value val ) {
+    val._evicted = false;
+    val._hits = Value.HOT;
+    count("reloaded",val);
+  }
+
+  // Drop both forms of a spilled Chunk from memory
+  private static long evict( Value val ) {
+    if( val.rawMem() == null && val.rawPOJO() == null ) return 0;
+    val._evicted = true;
+    val.freeMem();
+    val.freePOJO();
+    count("evicted",val);
+    return val._max;
+  }
+
+  // Eviction score of a Value: its age, times PROBATION_WEIGHT unless hot
+  static long score( Value val, long now ) {
+    long age = Math.max(1,now-val._lastAccessedTime);
+    return val._hits >= Value.HOT ? age : age*PROBATION_WEIGHT;
+  }
+
+  // Indices of the candidates in eviction order: highest score first
+  static Integer[] evictionOrder( List<Value> cands, long now ) {
+    final long[] scores = new long[cands.size()];
+    Integer[] order = new Integer[scores.length];
+    for( int i=0; i<scores.length; i++ ) {
+      scores[i] = score(cands.get(i),now);
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override public int compare(Integer a, Integer b) { return Long.compare(scores[b],scores[a]); }
+    });
+    return order;
+  }
+
+  // Is the Value still the one its Key maps to?  A Value removed or replaced
+  // while queued must not be written: nothing would ever delete its file.
+  private static boolean isLive( Value val ) { return H2O.STORE.get(val._key) == val; }
+
+  // Write a batch of Chunks to disk; then, if evicting, drop them from memory
+  static final class Spill implements Runnable {
+    final Value[] _vals;
+    final boolean _evict;
+    Spill( Value[] vals, boolean evict ) { _vals = vals; _evict = evict; }
+    @Override public void run() {
+      for( Value val : _vals ) {
+        try {
+          if( !isLive(val) ) continue;
+          if( !val.isPersisted() && !DISK_FULL ) {
+            val.storePersist();
+            // Removed while being written, so its removal found no file to
+            // delete.  Unless a newer Value of the Key owns the file now,
+            // delete it here.
+            if( !isLive(val) ) {
+              Value cur = H2O.STORE.get(val._key);
+              if( cur == null || !cur.isPersisted() ) val.removePersist();
+              continue;
+            }
+            count("spilled",val);
+          }
+          if( _evict && val.isPersisted() ) evict(val);
+        } catch( IOException e ) {
+          DISK_FULL = true; // Do not attempt to write again (will retry next forced run)
+          String s = isDiskFull() ? "Disk full! Disabling swapping to disk. Please free some space in " + H2O.ICE_ROOT + "!" : "Disk swapping failed! " + e.getMessage();
+          if( MemoryManager.canAlloc() ) Log.warn(s);
+          else                           System.err.println(s);
+        } finally {
+          SPILLING.remove(val);
+        }
+      }
+    }
+  }
+
+  /** Swapping Chunks to disk is off unless the node runs with -swap. */
   @Override synchronized public void run() {
-    return;
-
-//    boolean diskFull = false;
-//    while( true ) {
-//      // Sweep the K/V store, writing out Values (cleaning) and free'ing
-//      // - Clean all "old" values (lazily, optimistically)
-//      // - Clean and free old values if above the desired cache level
-//      // Do not let optimistic cleaning get in the way of emergency cleaning.
-//
-//      // Get a recent histogram, computing one as needed
-//      Histo h = _myHisto.histo(false);
-//      long now = System.currentTimeMillis();
-//      long dirty = _dirty; // When things first got dirtied
-//
-//      // Start cleaning if: "dirty" was set a "long" time ago, or we beyond
-//      // the desired cache levels. Inverse: go back to sleep if the cache
-//      // is below desired levels & nothing has been dirty awhile.
-//      if( h._cached < DESIRED && // Cache is low and
-//          (now-dirty < 5000) ) { // not dirty a long time
-//        // Block asleep, waking every 5 secs to check for stuff, or when poked
-//        block_store_cleaner();
-//        continue; // Awoke; loop back and re-check histogram.
-//      }
-//
-//      now = System.currentTimeMillis();
-//      _dirty = Long.MAX_VALUE; // Reset, since we are going write stuff out
-//      MemoryManager.set_goals("preclean",false);
-//
-//      // The age beyond which we need to toss out things to hit the desired
-//      // caching levels. If forced, be exact (toss out the minimal amount).
-//      // If lazy, store-to-disk things down to 1/2 the desired cache level
-//      // and anything older than 5 secs.
-//      final boolean force = (h._cached >= DESIRED); // Forced to clean
-//      if( force && diskFull )
-//        diskFull = isDiskFull();
-//      long clean_to_age = h.clean_to(force ? DESIRED : (DESIRED>>1));
-//      // If not forced cleaning, expand the cleaning age to allows Values
-//      // more than 5sec old
-//      if( !force ) clean_to_age = Math.max(clean_to_age,now-5000);
-//      if( DESIRED == -1 ) clean_to_age = now;  // Test mode: clean all
-//
-//      // No logging if under memory pressure: can deadlock the cleaner thread
-//      String s = h+" DESIRED="+(DESIRED>>20)+"M dirtysince="+(now-dirty)+" force="+force+" clean2age="+(now-clean_to_age);
-//      if( MemoryManager.canAlloc() ) Log.debug(s);
-//      else                           System.err.println(s);
-//      long cleaned = 0;
-//      long freed = 0;
-//
-//      // For faster K/V store walking get the NBHM raw backing array,
-//      // and walk it directly.
-//      Object[] kvs = H2O.STORE.raw_array();
-//
-//      // Start the walk at slot 2, because slots 0,1 hold meta-data
-//      for( int i=2; i<kvs.length; i += 2 ) {
-//        // In the raw backing array, Keys and Values alternate in slots
-//        Object ok = kvs[i], ov = kvs[i+1];
-//        if( !(ok instanceof Key  ) ) continue; // Ignore tombstones and Primes and null's
-//        Key key = (Key )ok;
-//        if( !(ov instanceof Value) ) continue; // Ignore tombstones and Primes and null's
-//        Value val = (Value)ov;
-//        byte[] m = val.rawMem();
-//        Object p = val.rawPOJO();
-//        if( m == null && p == null ) continue; // Nothing to throw out
-//
-//        if( val.isLockable() ) continue; // we do not want to throw out Lockables.
-//        boolean isChunk = p instanceof Chunk;
-//
-//        // Ignore things younger than the required age.  In particular, do
-//        // not spill-to-disk all dirty things we find.
-//        long touched = val._lastAccessedTime;
-//        if( touched > clean_to_age ) { // Too recently touched?
-//          // But can toss out a byte-array if already deserialized & on disk
-//          // (no need for both forms).  Note no savings for Chunks, for which m==p._mem
-//          if( val.isPersisted() && m != null && p != null && !isChunk ) {
-//            val.freeMem();      // Toss serialized form, since can rebuild from POJO
-//            freed += val._max;
-//          }
-//          dirty_store(touched); // But may write it out later
-//          continue;             // Too young
-//        }
-//
-//        // CNC - Memory cleaning turned off, except for Chunks
-//        // Too many POJOs are written to dynamically; cannot spill & reload
-//        // them without losing changes.
-//
-//        // Should I write this value out to disk?
-//        // Should I further force it from memory?
-//        if( isChunk && !val.isPersisted() && !diskFull ) { // && (force || (lazyPersist() && lazy_clean(key)))) {
-//          try {
-//            val.storePersist(); // Write to disk
-//            if( m == null ) m = val.rawMem();
-//            if( m != null ) cleaned += m.length;
-//          } catch(IOException e) {
-//            if( isDiskFull() )
-//              Log.warn("Disk full! Disabling swapping to disk." + (force?" Memory low! Please free some space in " + H2O.ICE_ROOT + "!":""));
-//            else
-//              Log.warn("Disk swapping failed! " + e.getMessage());
-//            // Something is wrong so mark disk as full anyways so we do not
-//            // attempt to write again.  (will retry next run when memory is low)
-//            diskFull = true;
-//          }
-//        }
-//        // And, under pressure, free all
-//        if( isChunk && force && val.isPersisted() ) {
-//          val.freeMem ();  if( m != null ) freed += val._max;  m = null;
-//          val.freePOJO();  if( p != null ) freed += val._max;  p = null;
-//          if( isChunk ) freed -= val._max; // Double-counted freed mem for Chunks since val._pojo._mem & val._mem are the same.
-//        }
-//        // If we have both forms, toss the byte[] form - can be had by
-//        // serializing again.
-//        if( m != null && p != null && !isChunk ) {
-//          val.freeMem();
-//          freed += val._max;
-//        }
-//      }
-//      // For testing thread
-//      _did_sweep = true;
-//      if( DESIRED == -1 ) DESIRED = 0; // Turn off test-mode after 1 sweep
-//      notifyAll();                     // Wake up testing thread
-//
-//      h = _myHisto.histo(true); // Force a new histogram
-//      MemoryManager.set_goals("postclean",false);
-//      // No logging if under memory pressure: can deadlock the cleaner thread
-//      String s2 = h+" cleaned="+(cleaned>>20)+"M, freed="+(freed>>20)+"M, DESIRED="+(DESIRED>>20)+"M";
-//      if( MemoryManager.canAlloc() ) Log.debug(s2);
-//      else                           System.err.println(s2);
-//    }
+    while( true ) {
+      // Sweep the K/V store, writing out Values (cleaning) and free'ing
+      // - Clean all "old" values (lazily, optimistically)
+      // - Clean and free old values if above the desired cache level
+      // Do not let optimistic cleaning get in the way of emergency cleaning.
+
+      // Get a recent histogram, computing one as needed
+      Histo h = _myHisto.histo(false);
+      long now = System.currentTimeMillis();
+      long dirty = _dirty; // When things first got dirtied
+
+      // Start cleaning if: "dirty" was set a "long" time ago, or we beyond
+      // the desired cache levels. Inverse: go back to sleep if the cache
+      // is below desired levels & nothing has been dirty awhile.
+      if( !H2O.ARGS.swap ||
+          (h._cached < DESIRED && // Cache is low and
+           (now-dirty < 5000)) ) { // not dirty a long time
+        // Block asleep, waking every 5 secs to check for stuff, or when poked
+        block_store_cleaner();
+        continue; // Awoke; loop back and re-check histogram.
+      }
+
+      now = System.currentTimeMillis();
+      _dirty = Long.MAX_VALUE; // Reset, since we are going write stuff out
+      MemoryManager.set_goals("preclean",false);
+
+      // Forced: evict down to the desired cache level.  Lazy: write (but
+      // keep) Chunks untouched for 5 secs, down to 1/2 the desired level, so
+      // a later forced clean only has to drop them.
+      final boolean force = (h._cached >= DESIRED); // Forced to clean
+      if( force ) DISK_FULL = false;                 // Retry the disk
+      long target = force ? DESIRED : (DESIRED>>1);
+      if( DESIRED == -1 ) target = 0;  // Test mode: clean all
+      final long lazy_age = now-5000;
+
+      // No logging if under memory pressure: can deadlock the cleaner thread
+      String s = h+" DESIRED="+(DESIRED>>20)+"M dirtysince="+(now-dirty)+" force="+force;
+      if( MemoryManager.canAlloc() ) Log.debug(s);
+      else                           System.err.println(s);
+
+      // Gather the spillable Chunks, scored by age and class.  For faster
+      // K/V store walking get the NBHM raw backing array, and walk it
+      // directly.
+      ArrayList<Value> cands = new ArrayList<>();
+      long freed = 0;
+      Object[] kvs = H2O.STORE.raw_array();
+      // Start the walk at slot 2, because slots 0,1 hold meta-data
+      for( int i=2; i<kvs.length; i += 2 ) {
+        // In the raw backing array, Keys and Values alternate in slots
+        Object ok = kvs[i], ov = kvs[i+1];
+        if( !(ok instanceof Key  ) ) continue; // Ignore tombstones and Primes and null's
+        if( !(ov instanceof Value) ) continue; // Ignore tombstones and Primes and null's
+        Value val = (Value)ov;
+        byte[] m = val.rawMem();
+        Object p = val.rawPOJO();
+        if( m == null && p == null ) continue; // Nothing to throw out
+        if( val.isLockable() ) continue; // we do not want to throw out Lockables.
+        if( !((Key)ok).isChunkKey() ) {
+          // If we have both forms of an old Value, toss the byte[] form - can
+          // be had by serializing again.
+          if( m != null && p != null && (force || val._lastAccessedTime < lazy_age) ) {
+            val.freeMem();
+            freed += val._max;
+          }
+          continue;
+        }
+        if( SPILLING.contains(val) ) continue;
+        if( !force && (val.isPersisted() || val._lastAccessedTime > lazy_age) ) continue;
+        cands.add(val);
+      }
+      Integer[] order = evictionOrder(cands,now);
+
+      // Evict (or write ahead) in score order, down to the target level.
+      // Already-persisted Chunks are dropped right here; the rest go out in
+      // batches to the spill threads.
+      long cached = h._cached - freed;
+      ArrayList<Value> batch = new ArrayList<>();
+      ArrayList<Future> spills = new ArrayList<>();
+      long batchBytes = 0;
+      for( Integer i : order ) {
+        if( cached <= target ) break;
+        Value val = cands.get(i);
+        if( force && val.isPersisted() ) {
+          long x = evict(val);
+          cached -= x;
+          freed += x;
+          continue;
+        }
+        if( DISK_FULL ) continue;
+        SPILLING.add(val);
+        batch.add(val);
+        cached -= val._max;
+        if( (batchBytes += val._max) >= BATCH_BYTES ) {
+          spills.add(SPILLERS.submit(new Spill(batch.toArray(new Value[batch.size()]),force)));
+          batch.clear();
+          batchBytes = 0;
+        }
+      }
+      if( !batch.isEmpty() )
+        spills.add(SPILLERS.submit(new Spill(batch.toArray(new Value[batch.size()]),force)));
+      // Under pressure, wait for the evictions before re-checking the goals
+      int failed = 0;
+      if( force )
+        for( Future f : spills )
+          try { f.get(); }
+          catch( InterruptedException e ) { Thread.currentThread().interrupt(); break; }
+          catch( ExecutionException e ) {
+            failed++;
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            SPILL_FAILURES.get(cause.getClass()).add(1);
+            // No logging if under memory pressure: can deadlock the cleaner thread
+            if( MemoryManager.canAlloc() ) Log.warn("Spill batch failed in a forced sweep: "+cause);
+            else                           System.err.println("Spill batch failed in a forced sweep: "+cause);
+          }
+
+      // For testing thread
+      _did_sweep = true;
+      if( DESIRED == -1 ) DESIRED = 0; // Turn off test-mode after 1 sweep
+      notifyAll();                     // Wake up testing thread
+
+      h = _myHisto.histo(true); // Force a new histogram
+      MemoryManager.set_goals("postclean",false);
+      // No logging if under memory pressure: can deadlock the cleaner thread
+      String s2 = h+" candidates="+cands.size()+" batches="+spills.size()+(failed > 0 ? " failed="+failed : "")+" freed="+(freed>>20)+"M, DESIRED="+(DESIRED>>20)+"M";
+      if( MemoryManager.canAlloc() ) Log.debug(s2);
+      else                           System.err.println(s2);
+    }
   }
 
   // Rules on when to write & free a Key, when not under memory pressure.
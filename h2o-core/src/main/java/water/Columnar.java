@@ -0,0 +1,293 @@
+package water;
+
+import sun.misc.Unsafe;
+import water.nbhm.NonBlockingHashMap;
+import water.nbhm.UtilUnsafe;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/** Columnar serialization of arrays of Freezables, used by
+ *  {@link AutoBuffer#putA(Freezable[])} when all the non-null elements are of
+ *  one class.
+ *
+ *  <p>The type id goes once for the whole array instead of once per element.
+ *  When the elements are plain Iced - only primitive and primitive-array
+ *  fields, and no custom serializer - their fields then go a field at a time:
+ *  one column per field, holding the field of every element.  Integral columns
+ *  go through {@link AutoBuffer#putA8}, which trims zeros and sends small
+ *  ranges as bytes or shorts; primitive-array fields go as a column of
+ *  lengths and the concatenation of their data.  Other elements go a row at
+ *  a time, as {@link AutoBuffer#put(Freezable)} would minus the type id.
+ *
+ *  <p>Format, after the -2 marker: the length of the array, the type id, a
+ *  flag per element telling the non-nulls apart (or nothing if there are no
+ *  nulls), and the mode - {@link #ROWS} or {@link #COLS} - followed by the
+ *  rows or the columns.
+ */
+final class Columnar {
+  private Columnar() {}
+
+  static final int MARKER = -2;  // In place of putZA's count of leading nulls
+  static final int MIN_LEN = 4;  // Fewer elements go the per-element way
+  private static final byte ROWS = 1, COLS = 2;
+
+  private static final Unsafe _unsafe = UtilUnsafe.getUnsafe();
+
+  // Field kinds; arrays of a kind are ARY+kind
+  private static final byte Z = 0, B = 1, C = 2, S = 3, I = 4, J = 5, F = 6, D = 7, ARY = 8;
+
+  // Offsets and kinds of the woven fields of a class
+  private static final class Layout {
+    final long[] _offs;
+    final byte[] _kinds;
+    Layout(long[] offs, byte[] kinds) { _offs = offs; _kinds = kinds; }
+  }
+  private static final Layout NONE = new Layout(null, null); // Classes going a row at a time
+  private static final NonBlockingHashMap<Class, Layout> LAYOUTS = new NonBlockingHashMap<>();
+
+  /** @return the one class of the non-null elements of fs, if there are at
+   *  least {@link #MIN_LEN} of them; else null */
+  static Class homogeneous(Freezable[] fs) {
+    if( fs == null || fs.length < MIN_LEN ) return null;
+    Class clz = null;
+    int n = 0;
+    for( Freezable f : fs ) {
+      if( f == null ) continue;
+      if( clz == null ) clz = f.getClass();
+      else if( clz != f.getClass() ) return null;
+      n++;
+    }
+    return n < MIN_LEN ? null : clz;
+  }
+
+  static AutoBuffer write(AutoBuffer ab, Freezable[] fs, Class clz) {
+    int n = 0;
+    for( Freezable f : fs ) if( f != null ) n++;
+    ab.putInt(fs.length);
+    Freezable[] xs = fs;
+    if( n < fs.length ) {       // Flag the non-nulls, and compact them
+      byte[] flags = new byte[fs.length];
+      xs = new Freezable[n];
+      for( int i = 0, j = 0; i < fs.length; i++ )
+        if( fs[i] != null ) { flags[i] = 1; xs[j++] = fs[i]; }
+      ab.put2((short)xs[0].frozenType()).putA1(flags);
+    } else ab.put2((short)xs[0].frozenType()).putA1(null);
+    Layout l = layout(clz);
+    if( l == NONE ) {
+      ab.put1(ROWS);
+      for( Freezable f : xs ) f.write(ab);
+      return ab;
+    }
+    ab.put1(COLS);
+    for( int c = 0; c < l._offs.length; c++ )
+      writeCol(ab, xs, l._offs[c], l._kinds[c]);
+    return ab;
+  }
+
+  static <T extends Freezable> T[] read(AutoBuffer ab, Class<T> tc) {
+    int len = ab.getInt();
+    short id = (short)ab.get2();
+    byte[] flags = ab.getA1();
+    T[] ts = (T[])Array.newInstance(tc, len);
+    int n = 0;
+    if( flags == null ) n = len;
+    else for( byte b : flags ) n += b;
+    Freezable[] xs = new Freezable[n];
+    for( int i = 0; i < n; i++ ) xs[i] = TypeMap.newFreezable(id);
+    if( ab.get1() == ROWS ) {
+      for( int i = 0; i < n; i++ ) xs[i] = xs[i].read(ab);
+    } else {
+      Layout l = layout(xs[0].getClass());
+      assert l != NONE : "Columns of "+xs[0].getClass()+" which has no layout";
+      for( int c = 0; c < l._offs.length; c++ )
+        readCol(ab, xs, l._offs[c], l._kinds[c]);
+    }
+    for( int i = 0, j = 0; i < len; i++ )
+      if( flags == null || flags[i] != 0 ) ts[i] = (T)xs[j++];
+    return ts;
+  }
+
+  // The columns of a plain Iced class, in woven order; NONE if the class has
+  // a custom serializer or any field which is not a primitive or an array of
+  // primitives.  Computed once per class.
+  private static Layout layout(Class clz) {
+    Layout l = LAYOUTS.get(clz);
+    if( l != null ) return l;
+    l = makeLayout(clz);
+    LAYOUTS.putIfAbsent(clz, l);
+    return l;
+  }
+  private static Layout makeLayout(Class clz) {
+    if( !Iced.class.isAssignableFrom(clz) || Modifier.isAbstract(clz.getModifiers()) ) return NONE;
+    for( Class c = clz; c != Iced.class; c = c.getSuperclass() )
+      for( java.lang.reflect.Method m : c.getDeclaredMethods() )
+        if( (m.getName().equals("write_impl") || m.getName().equals("read_impl")) &&
+            m.getParameterTypes().length == 1 && m.getParameterTypes()[0] == AutoBuffer.class )
+          return NONE;
+    Field[] flds = Weaver.getWovenFields(clz);
+    long[] offs = new long[flds.length];
+    byte[] kinds = new byte[flds.length];
+    for( int i = 0; i < flds.length; i++ ) {
+      Field f = flds[i];
+      if( f.getAnnotations().length > 0 ) return NONE; // Leave annotated fields to the Icers
+      Class t = f.getType();
+      byte k = kind(t.isArray() ? t.getComponentType() : t);
+      if( k < 0 ) return NONE;
+      kinds[i] = t.isArray() ? (byte)(ARY+k) : k;
+      offs[i] = _unsafe.objectFieldOffset(f);
+    }
+    return new Layout(offs, kinds);
+  }
+  private static byte kind(Class t) {
+    if( t == boolean.class ) return Z;
+    if( t == byte   .class ) return B;
+    if( t == char   .class ) return C;
+    if( t == short  .class ) return S;
+    if( t == int    .class ) return I;
+    if( t == long   .class ) return J;
+    if( t == float  .class ) return F;
+    if( t == double .class ) return D;
+    return -1;
+  }
+
+  // One field of all the elements
+  private static void writeCol(AutoBuffer ab, Freezable[] xs, long off, byte kind) {
+    int n = xs.length;
+    switch( kind ) {
+    case F: { float [] fs = new float [n]; for( int i = 0; i < n; i++ ) fs[i] = _unsafe.getFloat (xs[i], off); ab.putA4f(fs); return; }
+    case D: { double[] ds = new double[n]; for( int i = 0; i < n; i++ ) ds[i] = _unsafe.getDouble(xs[i], off); ab.putA8d(ds); return; }
+    }
+    if( kind < ARY ) {
+      long[] ls = new long[n];
+      for( int i = 0; i < n; i++ ) ls[i] = getBits(xs[i], off, kind);
+      ab.putA8(ls);
+      return;
+    }
+    // Arrays: their lengths (-1 for nulls), then all their data
+    long[] lens = new long[n];
+    int tot = 0;
+    for( int i = 0; i < n; i++ ) {
+      Object a = _unsafe.getObject(xs[i], off);
+      lens[i] = a == null ? -1 : Array.getLength(a);
+      if( a != null ) tot += lens[i];
+    }
+    ab.putA8(lens);
+    int k = kind-ARY, j = 0;
+    if( k == F ) {
+      float[] fs = new float[tot];
+      for( int i = 0; i < n; i++ ) if( lens[i] > 0 ) { float[] a = (float[])_unsafe.getObject(xs[i], off); System.arraycopy(a, 0, fs, j, a.length); j += a.length; }
+      ab.putA4f(fs);
+    } else if( k == D ) {
+      double[] ds = new double[tot];
+      for( int i = 0; i < n; i++ ) if( lens[i] > 0 ) { double[] a = (double[])_unsafe.getObject(xs[i], off); System.arraycopy(a, 0, ds, j, a.length); j += a.length; }
+      ab.putA8d(ds);
+    } else {
+      long[] ls = new long[tot];
+      for( int i = 0; i < n; i++ ) {
+        Object a = _unsafe.getObject(xs[i], off);
+        for( int e = 0; e < lens[i]; e++ ) ls[j++] = getElem(a, e, k);
+      }
+      ab.putA8(ls);
+    }
+  }
+
+  private static void readCol(AutoBuffer ab, Freezable[] xs, long off, byte kind) {
+    int n = xs.length;
+    switch( kind ) {
+    case F: { float [] fs = ab.getA4f(); for( int i = 0; i < n; i++ ) _unsafe.putFloat (xs[i], off, fs[i]); return; }
+    case D: { double[] ds = ab.getA8d(); for( int i = 0; i < n; i++ ) _unsafe.putDouble(xs[i], off, ds[i]); return; }
+    }
+    if( kind < ARY ) {
+      long[] ls = ab.getA8();
+      for( int i = 0; i < n; i++ ) putBits(xs[i], off, kind, ls[i]);
+      return;
+    }
+    long[] lens = ab.getA8();
+    int k = kind-ARY, j = 0;
+    if( k == F ) {
+      float[] fs = ab.getA4f();
+      for( int i = 0; i < n; i++ ) {
+        if( lens[i] < 0 ) continue;
+        float[] a = new float[(int)lens[i]];
+        System.arraycopy(fs, j, a, 0, a.length); j += a.length;
+        _unsafe.putObject(xs[i], off, a);
+      }
+    } else if( k == D ) {
+      double[] ds = ab.getA8d();
+      for( int i = 0; i < n; i++ ) {
+        if( lens[i] < 0 ) continue;
+        double[] a = new double[(int)lens[i]];
+        System.arraycopy(ds, j, a, 0, a.length); j += a.length;
+        _unsafe.putObject(xs[i], off, a);
+      }
+    } else {
+      long[] ls = ab.getA8();
+      for( int i = 0; i < n; i++ ) {
+        if( lens[i] < 0 ) continue;
+        Object a = newArray(k, (int)lens[i]);
+        for( int e = 0; e < lens[i]; e++ ) setElem(a, e, k, ls[j++]);
+        _unsafe.putObject(xs[i], off, a);
+      }
+    }
+  }
+
+  // Integral fields, as longs
+  private static long getBits(Object o, long off, byte kind) {
+    switch( kind ) {
+    case Z: return _unsafe.getBoolean(o, off) ? 1 : 0;
+    case B: return _unsafe.getByte (o, off);
+    case C: return _unsafe.getChar (o, off);
+    case S: return _unsafe.getShort(o, off);
+    case I: return _unsafe.getInt  (o, off);
+    case J: return _unsafe.getLong (o, off);
+    default: throw H2O.fail("Not an integral kind: "+kind);
+    }
+  }
+  private static void putBits(Object o, long off, byte kind, long x) {
+    switch( kind ) {
+    case Z: _unsafe.putBoolean(o, off, x != 0); return;
+    case B: _unsafe.putByte (o, off, (byte) x); return;
+    case C: _unsafe.putChar (o, off, (char) x); return;
+    case S: _unsafe.putShort(o, off, (short)x); return;
+    case I: _unsafe.putInt  (o, off, (int)  x); return;
+    case J: _unsafe.putLong (o, off,        x); return;
+    default: throw H2O.fail("Not an integral kind: "+kind);
+    }
+  }
+  // Elements of integral arrays, as longs
+  private static long getElem(Object a, int e, int kind) {
+    switch( kind ) {
+    case Z: return ((boolean[])a)[e] ? 1 : 0;
+    case B: return ((byte [])a)[e];
+    case C: return ((char [])a)[e];
+    case S: return ((short[])a)[e];
+    case I: return ((int  [])a)[e];
+    case J: return ((long [])a)[e];
+    default: throw H2O.fail("Not an integral kind: "+kind);
+    }
+  }
+  private static void setElem(Object a, int e, int kind, long x) {
+    switch( kind ) {
+    case Z: ((boolean[])a)[e] = x != 0; return;
+    case B: ((byte [])a)[e] = (byte) x; return;
+    case C: ((char [])a)[e] = (char) x; return;
+    case S: ((short[])a)[e] = (short)x; return;
+    case I: ((int  [])a)[e] = (int)  x; return;
+    case J: ((long [])a)[e] =        x; return;
+    default: throw H2O.fail("Not an integral kind: "+kind);
+    }
+  }
+  private static Object newArray(int kind, int len) {
+    switch( kind ) {
+    case Z: return new boolean[len];
+    case B: return new byte [len];
+    case C: return new char [len];
+    case S: return new short[len];
+    case I: return new int  [len];
+    case J: return new long [len];
+    default: throw H2O.fail("Not an integral kind: "+kind);
+    }
+  }
+}
@@ -96,6 +96,30 @@ final public class H2O {
             "          The directory where H2O stores saved flows.\n" +
             defaultFlowDirMessage +
             "\n" +
+            "    -swap\n" +
+            "          Spill data to ice_root when memory runs low.\n" +
+            "\n" +
+            "    -auc_bins <#bins>\n" +
+            "          Score binomial models on up to this many exact thresholds,\n" +
+            "          for exact (or error-bounded) AUC, AUCPR and precision@k.\n" +
+            "          (The default is 0: a 400-bin approximate histogram.)\n" +
+            "\n" +
+            "    -wire_compress <bytes>\n" +
+            "          Compress remote calls and their answers of at least this\n" +
+            "          many bytes (LZ4), unless they do not compress well.\n" +
+            "          (The default is 262144; 0 turns compression off.)\n" +
+            "\n" +
+            "    -max_jobs <#jobs>\n" +
+            "          Most jobs running at once on this node; more started from the\n" +
+            "          REST API wait in a queue, and start by fair share of owners.\n" +
+            "          (The default is 0: no limit.)\n" +
+            "\n" +
+            "    -max_jobs_per_owner <#jobs>\n" +
+            "          Most jobs of one owner running at once on this node.  The owner\n" +
+            "          of a request is its X-H2O-Owner header, or else its\n" +
+            "          X-H2O-Session header.\n" +
+            "          (The default is 0: no limit.)\n" +
+            "\n" +
             "    -nthreads <#threads>\n" +
             "          Maximum number of threads in the low priority batch-work queue.\n" +
             "          (The default is 99.)\n" +
@@ -180,6 +204,21 @@ final public class H2O {
     /** -flow_dir=/path/to/dir; directory to save flows in */
     public String flow_dir;
 
+    /** -swap; let the Cleaner spill Chunks to ice_root when memory runs low */
+    public boolean swap = false;
+
+    /** -auc_bins=auc_bins; Max thresholds of the exact AUC sketch; 0 for the default approximate AUC */
+    public int auc_bins = 0;
+
+    /** -wire_compress=wire_compress; Smallest remote call, in bytes, sent compressed; 0 to never compress */
+    public int wire_compress = 1<<18;
+
+    /** -max_jobs=max_jobs; Most Jobs running at once on this node; 0 for no limit */
+    public int max_jobs = 0;
+
+    /** -max_jobs_per_owner=max_jobs_per_owner; Most Jobs of one owner running at once on this node; 0 for no limit */
+    public int max_jobs_per_owner = 0;
+
     //-----------------------------------------------------------------------------------
     // HDFS & AWS
     //-----------------------------------------------------------------------------------
@@ -354,6 +393,25 @@ final public class H2O {
         i = s.incrementAndCheck(i, args);
         ARGS.flow_dir = args[i];
       }
+      else if (s.matches("swap")) {
+        ARGS.swap = true;
+      }
+      else if (s.matches("auc_bins")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.auc_bins = s.parseInt(args[i]);
+      }
+      else if (s.matches("wire_compress")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.wire_compress = s.parseInt(args[i]);
+      }
+      else if (s.matches("max_jobs")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.max_jobs = s.parseInt(args[i]);
+      }
+      else if (s.matches("max_jobs_per_owner")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.max_jobs_per_owner = s.parseInt(args[i]);
+      }
       else if (s.matches("nthreads")) {
         i = s.incrementAndCheck(i, args);
         ARGS.nthreads = s.parseInt(args[i]);
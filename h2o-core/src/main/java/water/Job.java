@@ -58,6 +58,13 @@ public class Job<T extends Keyed> extends Keyed {
 
   /** User description */
   public String _description;
+
+  /** Owner, for fair sharing of the node among owners: by default the owner
+   *  of the request creating the Job; see {@link JobScheduler} */
+  public String _owner = JobScheduler.requestOwner();
+  /** Relative share of this Job against the other Jobs queued: by default the
+   *  weight of the request creating the Job; see {@link JobScheduler} */
+  public double _weight = JobScheduler.requestWeight();
   /** Job start_time using Sys.CTM */
   public long _start_time;     // Job started
   /** Job end_time using Sys.CTM, or 0 if not ended */
@@ -146,9 +153,12 @@ public class Job<T extends Keyed> extends Keyed {
     // empty task starts - providing a simple barrier.  Threads blocking on the
     // job will block on the "barrier" task, which will block until the fjtask
     // runs the onCompletion or onExceptionCompletion code.
+    final Job job = this;
     _barrier = new H2OCountedCompleter() {
         @Override public void compute2() { }
+        @Override public void onCompletion(CountedCompleter caller) { JobScheduler.finished(job); }
         @Override public boolean onExceptionalCompletion(Throwable ex, CountedCompleter caller) {
+          JobScheduler.finished(job);
           if( getCompleter() == null ) { // nobody else to handle this exception, so print it out
             System.err.println("barrier onExCompletion for "+fjtask);
             ex.printStackTrace();
@@ -172,7 +182,7 @@ public class Job<T extends Keyed> extends Keyed {
         return old;
       }
     }.invoke(LIST);
-    H2O.submitTask(fjtask);
+    JobScheduler.submit(this, fjtask); // Now, or when there is room for it
     return this;
   }
 
@@ -252,6 +262,8 @@ public class Job<T extends Keyed> extends Keyed {
       _end_time = done;
       _finalProgress = finalProgress;
     }
+    // A queued job is started, to notice it was cancelled
+    if( resultingState != JobState.DONE ) JobScheduler.cancelled(this);
     // Remove on cancel/fail/done, only used whilst Job is Running
     if (deleteProgressKey())
       DKV.remove(_progressKey);
@@ -283,6 +295,7 @@ public class Job<T extends Keyed> extends Keyed {
   /** Returns last progress message. */
   public String progress_msg() { return isStopped() ? _state.toString() : progress_msg_impl(); }
   private String progress_msg_impl() {
+    if( JobScheduler.isQueued(_key) ) return "Queued";
     Progress p = getProgress();
     return p==null ? "" : p.progress_msg();
   }
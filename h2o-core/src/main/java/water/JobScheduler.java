@@ -0,0 +1,207 @@
+package water;
+
+import water.H2O.H2OCountedCompleter;
+import water.util.Log;
+
+import java.util.*;
+
+/** Fair-share admission of {@link Job}s started on this node.
+ *  <p>
+ *  F/J tasks do not know which Job they work for, so the scheduler does not
+ *  reorder F/J work (and leaves the high-priority RPC pools alone); instead it
+ *  decides when each Job's top-level task is submitted.  Running Jobs are
+ *  charged their share of the node's time - elapsed time split evenly among
+ *  the Jobs running - which is summed per owner and decays with a half-life of
+ *  {@link #HALF_LIFE_MSEC}.  When a slot frees up, the queued Job whose owner
+ *  has the least charge (divided by the Job's weight) starts next.
+ *  <p>
+ *  Both caps are off (0) unless set by {@code -max_jobs} and
+ *  {@code -max_jobs_per_owner}.  Jobs started from F/J threads - i.e. from
+ *  inside other Jobs, which may block on them - are never queued, so a nested
+ *  Job cannot deadlock waiting on its parent's slot.
+ *  <p>
+ *  A Job belongs to the owner of the REST request which created it: the
+ *  {@link #OWNER_HEADER} of the request, or else its {@link #SESSION_HEADER}
+ *  (the session key issued by /3/InitID).  The {@link #WEIGHT_HEADER} sets
+ *  its weight.
+ */
+public final class JobScheduler {
+  /** Most Jobs running at once on this node; 0 for no limit. */
+  public static volatile int MAX_RUNNING = H2O.ARGS.max_jobs;
+  /** Most Jobs of one owner running at once on this node; 0 for no limit. */
+  public static volatile int MAX_RUNNING_PER_OWNER = H2O.ARGS.max_jobs_per_owner;
+  /** Half-life of the owners' charges, so past use is forgiven over time. */
+  public static volatile long HALF_LIFE_MSEC = 10*60*1000;
+
+  /** Request header naming the owner of the Jobs the request creates. */
+  public static final String OWNER_HEADER = "x-h2o-owner";
+  /** Request header holding the client's session key, the default owner. */
+  public static final String SESSION_HEADER = "x-h2o-session";
+  /** Request header holding the weight of the Jobs the request creates. */
+  public static final String WEIGHT_HEADER = "x-h2o-job-weight";
+
+  // Owner and weight of the request served by the current thread
+  private static final ThreadLocal<String> OWNER = new ThreadLocal<>();
+  private static final ThreadLocal<Double> WEIGHT = new ThreadLocal<>();
+
+  private static final class Entry {
+    final Job _job;
+    final H2OCountedCompleter _task;
+    double _charged;            // Share of the node's time, msec
+    Entry( Job job, H2OCountedCompleter task ) { _job = job; _task = task; }
+    String owner() { return _job._owner == null ? "" : _job._owner; }
+  }
+
+  private static final ArrayList<Entry> QUEUE = new ArrayList<>(); // In arrival order
+  private static final HashMap<Key,Entry> RUNNING = new HashMap<>();
+  private static final HashMap<String,double[]> CHARGES = new HashMap<>(); // Per owner
+  private static long LAST = System.currentTimeMillis();
+
+  private JobScheduler() {}
+
+  /** Jobs created by the current thread belong to the owner, and get the
+   *  weight, named by the headers of the request it serves; until
+   *  {@link #clearRequest}.  Header names are lowercase. */
+  public static void setRequest( Properties header ) {
+    String owner = header.getProperty(OWNER_HEADER);
+    if( owner == null ) owner = header.getProperty(SESSION_HEADER);
+    String w = header.getProperty(WEIGHT_HEADER);
+    Double weight = null;
+    if( w != null ) {
+      weight = Double.valueOf(w);
+      if( !(weight > 0) || Double.isInfinite(weight) )
+        throw new IllegalArgumentException("Job weight must be positive, not " + w);
+    }
+    OWNER.set(owner);
+    WEIGHT.set(weight);
+  }
+
+  /** The current thread is done serving its request. */
+  public static void clearRequest() {
+    OWNER.remove();
+    WEIGHT.remove();
+  }
+
+  /** Owner of the Jobs created by the current thread; "" unless set by {@link #setRequest}. */
+  static String requestOwner() {
+    String owner = OWNER.get();
+    return owner == null ? "" : owner;
+  }
+
+  /** Weight of the Jobs created by the current thread; 1 unless set by {@link #setRequest}. */
+  static double requestWeight() {
+    Double weight = WEIGHT.get();
+    return weight == null ? 1 : weight;
+  }
+
+  /** Submit the top-level task of the Job now, or once there is room for it. */
+  static synchronized void submit( Job job, H2OCountedCompleter task ) {
+    charge(System.currentTimeMillis());
+    Entry e = new Entry(job, task);
+    if( Thread.currentThread() instanceof H2O.FJWThr || admissible(e.owner()) ) start(e);
+    else {
+      QUEUE.add(e);
+      Log.info("Queued job " + job._key + " (" + job._description + ") of owner '" + e.owner() + "', " + QUEUE.size() + " queued");
+    }
+  }
+
+  /** The Job's task completed (normally or not); start whatever fits now. */
+  static synchronized void finished( Job job ) {
+    charge(System.currentTimeMillis());
+    if( RUNNING.remove(job._key) != null ) dispatch();
+  }
+
+  /** A cancelled Job leaves the queue and starts right away, so its task can
+   *  notice the cancellation and complete (releasing anybody blocked on it). */
+  static synchronized void cancelled( Job job ) {
+    for( Iterator<Entry> it = QUEUE.iterator(); it.hasNext(); ) {
+      Entry e = it.next();
+      if( e._job._key.equals(job._key) ) { it.remove(); start(e); return; }
+    }
+  }
+
+  /** True if the Job is waiting for a slot. */
+  public static synchronized boolean isQueued( Key job ) {
+    for( Entry e : QUEUE ) if( e._job._key.equals(job) ) return true;
+    return false;
+  }
+
+  /** Per owner: queued Jobs, running Jobs, and current charge (msec). */
+  public static synchronized TreeMap<String,double[]> depths() {
+    charge(System.currentTimeMillis());
+    TreeMap<String,double[]> res = new TreeMap<>();
+    for( Map.Entry<String,double[]> c : CHARGES.entrySet() ) res.put(c.getKey(), new double[]{0, 0, c.getValue()[0]});
+    for( Entry e : QUEUE ) row(res, e.owner())[0]++;
+    for( Entry e : RUNNING.values() ) row(res, e.owner())[1]++;
+    return res;
+  }
+  private static double[] row( TreeMap<String,double[]> res, String owner ) {
+    double[] r = res.get(owner);
+    if( r == null ) res.put(owner, r = new double[3]);
+    return r;
+  }
+
+  /** The running Job's share of the node's time so far (msec), or 0. */
+  public static synchronized double charged( Key job ) {
+    charge(System.currentTimeMillis());
+    Entry e = RUNNING.get(job);
+    return e == null ? 0 : e._charged;
+  }
+
+  public static synchronized int queued () { return QUEUE.size(); }
+  public static synchronized int running() { return RUNNING.size(); }
+
+  // Split the time since the last call among the running Jobs, after
+  // decaying the owners' charges.
+  private static void charge( long now ) {
+    long elapsed = now - LAST;
+    LAST = now;
+    if( elapsed <= 0 ) return;
+    double decay = Math.pow(0.5, (double)elapsed / HALF_LIFE_MSEC);
+    for( Iterator<double[]> it = CHARGES.values().iterator(); it.hasNext(); ) {
+      double[] c = it.next();
+      if( (c[0] *= decay) < 1 ) it.remove(); // Forgotten
+    }
+    if( RUNNING.isEmpty() ) return;
+    double share = (double)elapsed / RUNNING.size();
+    for( Entry e : RUNNING.values() ) {
+      e._charged += share;
+      double[] c = CHARGES.get(e.owner());
+      if( c == null ) CHARGES.put(e.owner(), c = new double[1]);
+      c[0] += share;
+    }
+  }
+
+  private static boolean admissible( String owner ) {
+    if( MAX_RUNNING > 0 && RUNNING.size() >= MAX_RUNNING ) return false;
+    if( MAX_RUNNING_PER_OWNER > 0 ) {
+      int n = 0;
+      for( Entry e : RUNNING.values() ) if( e.owner().equals(owner) ) n++;
+      if( n >= MAX_RUNNING_PER_OWNER ) return false;
+    }
+    return true;
+  }
+
+  // Start queued Jobs while any fits, least weighted charge first (FIFO on ties)
+  private static void dispatch() {
+    while( !QUEUE.isEmpty() ) {
+      int best = -1;
+      double bestCharge = Double.MAX_VALUE;
+      for( int i = 0; i < QUEUE.size(); ++i ) {
+        Entry e = QUEUE.get(i);
+        if( !admissible(e.owner()) ) continue;
+        double[] c = CHARGES.get(e.owner());
+        double w = e._job._weight > 0 ? e._job._weight : 1;
+        double charge = (c == null ? 0 : c[0]) / w;
+        if( charge < bestCharge ) { best = i; bestCharge = charge; }
+      }
+      if( best == -1 ) return;
+      start(QUEUE.remove(best));
+    }
+  }
+
+  private static void start( Entry e ) {
+    RUNNING.put(e._job._key, e);
+    H2O.submitTask(e._task);
+  }
+}
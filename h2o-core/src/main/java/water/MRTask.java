@@ -4,6 +4,7 @@ import jsr166y.CountedCompleter;
 import jsr166y.ForkJoinPool;
 import water.fvec.*;
 import water.util.PrettyPrint;
+import water.util.Metrics;
 import water.fvec.Vec.VectorGroup;
 
 /**
@@ -605,7 +606,9 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
       if( _keys == null ||     // Once-per-node mode
           _hi > _lo && _keys[_lo].home() ) {
         if(_doProfile) _profile._userstart = System.currentTimeMillis();
+        long t0 = System.nanoTime();
         if( _keys != null ) map(_keys[_lo]);
+        Metrics.MAP_SECONDS.get(getClass()).record(System.nanoTime()-t0);
         _res = self();        // Save results since called map() at least once!
         if(_doProfile) _profile._closestart = System.currentTimeMillis();
       }
@@ -635,6 +638,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
         // Call all the various map() calls that apply
         if(_doProfile)
           _profile._userstart = System.currentTimeMillis();
+        long t0 = System.nanoTime();
         if( _fr.vecs().length == 1 ) map(bvs[0]);
         if( _fr.vecs().length == 2 ) map(bvs[0], bvs[1]);
         if( _fr.vecs().length == 3 ) map(bvs[0], bvs[1], bvs[2]);
@@ -654,6 +658,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
           if( true                  )  map(bvs,    appendableChunks[0],appendableChunks[1]);
         }
         map(bvs,appendableChunks);
+        Metrics.MAP_SECONDS.get(getClass()).record(System.nanoTime()-t0);
         _res = self();          // Save results since called map() at least once!
         // Further D/K/V put any new vec results.
         if(_doProfile)
@@ -758,7 +763,9 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
         _appendables[i].reduce(mrt._appendables[i]);
     if( _ex == null ) _ex = mrt._ex;
     // User's reduction
+    long t0 = System.nanoTime();
     reduce(mrt);
+    Metrics.REDUCE_SECONDS.get(getClass()).record(System.nanoTime()-t0);
   }
 
   // Full local work-tree cancellation
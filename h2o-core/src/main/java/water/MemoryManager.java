@@ -8,6 +8,7 @@ import javax.management.NotificationEmitter;
 import jsr166y.ForkJoinPool.ManagedBlocker;
 import jsr166y.ForkJoinPool;
 import water.util.Log;
+import water.util.Metrics;
 import water.util.PrettyPrint;
 
 /**
@@ -232,9 +233,11 @@ abstract public class MemoryManager {
           // case.  This is probably an allocation for logging (ouch! shades of
           // logging-induced deadlock!) which will probably be recycled quickly.
           !(Thread.currentThread() instanceof Cleaner) ) {
+        long t0 = System.nanoTime();
         synchronized(_lock) {
           try { _lock.wait(3*1000); } catch (InterruptedException ex) { }
         }
+        Metrics.ALLOC_STALL_SECONDS.get("malloc").record(System.nanoTime()-t0);
       }
       MEM_ALLOC.addAndGet(bytes);
       try {
@@ -314,6 +317,8 @@ abstract public class MemoryManager {
   private static Object _taskMemLock = new Object();
   static void reserveTaskMem(long m){
     final long bytes = m;
+    if( tryReserveTaskMem(bytes) ) return;
+    long t0 = System.nanoTime();
     while(!tryReserveTaskMem(bytes)){
       try {
         ForkJoinPool.managedBlock(new ManagedBlocker() {
@@ -327,6 +332,7 @@ abstract public class MemoryManager {
         });
       } catch (InterruptedException e){ Log.throwErr(e); }
     }
+    Metrics.ALLOC_STALL_SECONDS.get("task_mem").record(System.nanoTime()-t0);
   }
 
   /**
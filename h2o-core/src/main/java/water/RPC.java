@@ -5,6 +5,7 @@ import jsr166y.ForkJoinPool;
 import water.H2O.FJWThr;
 import water.H2O.H2OCountedCompleter;
 import water.util.Log;
+import water.util.Metrics;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -65,6 +66,7 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
 
   // Time we started this sucker up.  Controls re-send behavior.
   final long _started;
+  private final long _startNanos; // For the round trip time metric
   long _retry;                  // When we should attempt a retry
 
   int _resendsCnt;
@@ -90,8 +92,10 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
   static final byte SERVER_TCP_SEND = 11;
   static final byte CLIENT_UDP_SEND = 12;
   static final byte CLIENT_TCP_SEND = 13;
+  static final byte SERVER_ZIP_SEND = 14; // Compressed; see WireCompression
+  static final byte CLIENT_ZIP_SEND = 15;
   static final private String[] COOKIES = new String[] {
-    "SERVER_UDP","SERVER_TCP","CLIENT_UDP","CLIENT_TCP" };
+    "SERVER_UDP","SERVER_TCP","CLIENT_UDP","CLIENT_TCP","SERVER_ZIP","CLIENT_ZIP" };
 
 
   final static int MAX_TIMEOUT = 5000; // 5 sec max timeout cap on exponential decay of retries
@@ -114,6 +118,7 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
     _target = target;
     _dt = dtask;
     _started = System.currentTimeMillis();
+    _startNanos = System.nanoTime();
     _retry = RETRY_MS;
   }
   RPC<V> setTaskNum() {
@@ -200,7 +205,7 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
               t = ab.putA1(_bits,_bits.length).hasTCP();
             } else {
               int offset = ab.position();
-              ab.putTask(UDP.udp.exec, _tasknum).put1(CLIENT_UDP_SEND).put(_dt);
+              WireCompression.put(ab.putTask(UDP.udp.exec, _tasknum), CLIENT_UDP_SEND, CLIENT_ZIP_SEND, _dt, true);
               t = ab.hasTCP();
               if(_dt._modifiesInputs && !t)
                 _bits = ab.copyRawBits(offset);
@@ -304,6 +309,7 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
     // Pretty-print bytes 1-15; byte 0 is the udp_type enum
     @Override String print16( AutoBuffer ab ) {
       int flag = ab.getFlag();
+      if( flag == CLIENT_ZIP_SEND ) return "task# "+ab.getTask()+" "+WireCompression.print16(ab)+" "+COOKIES[flag-SERVER_UDP_SEND];
       String clazz = (flag == CLIENT_UDP_SEND) ? TypeMap.className(ab.get2()) : "";
       return "task# "+ab.getTask()+" "+ clazz+" "+COOKIES[flag-SERVER_UDP_SEND];
     }
@@ -373,8 +379,8 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
           // The receiver thread then knows to handle the mapping at the higher
           // priority.
           UDP.udp udp = dt.priority()==H2O.FETCH_ACK_PRIORITY ? UDP.udp.fetchack : UDP.udp.ack;
-          ab = new AutoBuffer(_client).putTask(udp,_tsknum).put1(SERVER_UDP_SEND);
-          dt.write(ab);         // Write the DTask - could be very large write
+          ab = new AutoBuffer(_client).putTask(udp,_tsknum);
+          WireCompression.put(ab, SERVER_UDP_SEND, SERVER_ZIP_SEND, dt, false); // Write the DTask - could be very large write
           dt._repliedTcp = ab.hasTCP(); // Resends do not need to repeat TCP result
           ab.close();                   // Then close; send final byte
           _computedAndReplied = true;   // After the final handshake, set computed+replied bit
@@ -410,7 +416,7 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
       AutoBuffer rab = new AutoBuffer(_client).putTask(udp,_tsknum);
       boolean wasTCP = dt._repliedTcp;
       if( wasTCP )  rab.put1(RPC.SERVER_TCP_SEND) ; // Original reply sent via TCP
-      else dt.write(rab.put1(RPC.SERVER_UDP_SEND)); // Original reply sent via UDP
+      else WireCompression.put(rab, SERVER_UDP_SEND, SERVER_ZIP_SEND, dt, false); // Original reply sent via UDP
       assert sz_check(rab) : "Resend of "+_dt.getClass()+" changes size from "+_size+" to "+rab.size();
       assert dt._repliedTcp==wasTCP;
       rab.close();
@@ -452,7 +458,7 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
     long lo = ab.get8(0), hi = ab.get8(8); // for dbg
     final int task = ab.getTask();
     final int flag = ab.getFlag();
-    assert flag==CLIENT_UDP_SEND || flag==CLIENT_TCP_SEND; // Client-side send
+    assert flag==CLIENT_UDP_SEND || flag==CLIENT_TCP_SEND || flag==CLIENT_ZIP_SEND; // Client-side send
     // Atomically record an instance of this task, one-time-only replacing a
     // null with an RPCCall, a placeholder while we work on a proper response -
     // and it serves to let us discard dup UDP requests.
@@ -468,7 +474,8 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
       try {
         // Read the DTask Right Now.  If we are the TCPReceiver thread, then we
         // are reading in that thread... and thus TCP reads are single-threaded.
-        rpc = new RPCCall(ab.get(water.DTask.class),ab._h2o,task);
+        AutoBuffer dab = flag == CLIENT_ZIP_SEND ? WireCompression.get(ab) : ab;
+        rpc = new RPCCall(dab.get(water.DTask.class),ab._h2o,task);
       } catch( AutoBuffer.AutoBufferException e ) {
         // Here we assume it's a TCP fail on read - and ignore the remote_exec
         // request.  The caller will send it again.  NOTE: this case is
@@ -561,16 +568,17 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
     if( _done ) return ackack(ab, _tasknum); // Ignore duplicate response packet
     int flag = ab.getFlag();       // Must read flag also, to advance ab
     if( flag == SERVER_TCP_SEND ) return ackack(ab, _tasknum); // Ignore UDP packet for a TCP reply
-    assert flag == SERVER_UDP_SEND;
+    assert flag == SERVER_UDP_SEND || flag == SERVER_ZIP_SEND;
     synchronized(this) {             // Install the answer under lock
       if( _done ) return ackack(ab, _tasknum); // Ignore duplicate response packet
       UDPTimeOutThread.PENDING.remove(this);
-      _dt.read(ab);             // Read the answer (under lock?)
+      _dt.read(flag == SERVER_ZIP_SEND ? WireCompression.get(ab) : ab); // Read the answer (under lock?)
       _size_rez = ab.size();    // Record received size
       ab.close();               // Also finish the read (under lock?  even if canceled, since need to drain TCP)
       if( !isCancelled() )      // Can be canceled already (locally by MRTask while recieving remote answer)
         _dt.onAck();            // One time only execute (before sending ACKACK)
       _done = true;             // Only read one (of many) response packets
+      Metrics.RPC_SECONDS.get(_dt.getClass()).record(System.nanoTime() - _startNanos);
       ab._h2o.taskRemove(_tasknum); // Flag as task-completed, even if the result is null
       notifyAll();              // And notify in any case
     }
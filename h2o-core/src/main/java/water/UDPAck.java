@@ -18,6 +18,8 @@ class UDPAck extends UDP {
   }
 
   // Pretty-print bytes 1-15; byte 0 is the udp_type enum
-  String print16( AutoBuffer b ) { return "task# "+b.getTask(); }
+  String print16( AutoBuffer b ) {
+    return "task# "+b.getTask()+(b.getFlag()==RPC.SERVER_ZIP_SEND ? " "+WireCompression.print16(b) : "");
+  }
 }
 
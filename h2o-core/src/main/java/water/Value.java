@@ -161,7 +161,18 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
   // ---
   // Time of last access to this value.
   transient long _lastAccessedTime = System.currentTimeMillis();
-  private void touch() {_lastAccessedTime = System.currentTimeMillis();}
+  // Access windows seen, saturating at HOT: a touch more than HOT_WINDOW
+  // msec after the last one opens a new window.  See the Cleaner policy.
+  transient byte _hits;
+  static final byte HOT = 2;
+  static final long HOT_WINDOW = 1000;
+  // Evicted by the Cleaner, and not loaded back yet
+  transient volatile boolean _evicted;
+  private void touch() {
+    long now = System.currentTimeMillis();
+    if( _hits < HOT && now - _lastAccessedTime > HOT_WINDOW ) _hits++;
+    _lastAccessedTime = now;
+  }
   // Exposed and used for testing only; used to trigger premature cleaning/disk-swapping
   void touchAt(long time) {_lastAccessedTime = time;}
 
@@ -223,7 +234,9 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
   byte[] loadPersist() {
     assert isPersisted();
     try { 
-      return H2O.getPM().load(backend(), this);
+      byte[] mem = H2O.getPM().load(backend(), this);
+      if( _evicted ) Cleaner.reloaded(this);
+      return mem;
     } catch( IOException ioe ) {
       throw Log.throwErr(ioe);
     }
@@ -0,0 +1,185 @@
+package water;
+
+import water.nbhm.NonBlockingHashMap;
+import water.util.AtomicUtils;
+import water.util.LZ4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Per-message compression of large remote calls: DTasks sent out by
+ *  {@link RPC}, and their answers coming back.
+ *
+ *  <p>With compression on ({@code -wire_compress}, the smallest message to
+ *  compress), a task is serialized once, into a buffer which grows up to a
+ *  block of {@link #BLOCK} bytes (or the smallest message to compress, if
+ *  larger).  A task which fits it - most of them - is then copied into the
+ *  outgoing buffer behind the usual flag, or compressed if it is large
+ *  enough.  A larger one is handed off a block at a time as it serializes:
+ *  the first block is compressed with {@link LZ4} as a probe, and decides
+ *  the mode.  If it shrinks enough the task goes compressed, block by block,
+ *  behind a zip flag; if not - e.g. Values holding chunks, already
+ *  compressed - its blocks are streamed raw into the outgoing buffer.  So
+ *  every message says how it was sent, the receiver needs no settings of its
+ *  own, and no task is serialized twice.
+ *
+ *  <p>Format behind the zip flag: the type id of the task, its serialized
+ *  length, the compressed size in tenths of a percent of it, the block size,
+ *  then the compressed length and bytes of each block.  The first three fit
+ *  the 16 bytes the {@link TimeLine} keeps of each message, which thus shows
+ *  the ratios.  Totals by task class are in {@link water.util.WaterMeterIo}.
+ */
+public final class WireCompression {
+  private WireCompression() {}
+
+  private static final int MAX_PERMILLE = 900; // Send raw if saving less than 10%
+  private static final int INIT = 1<<12;       // Initial serialization buffer
+  /** Bytes of a task compressed at a time */
+  static final int BLOCK = 1<<20;
+
+  // A task serialized into ab: the whole task (call) or its fields only (answer)
+  private static AutoBuffer serialize(AutoBuffer ab, DTask dt, boolean call) {
+    return call ? ab.put(dt) : dt.write(ab);
+  }
+
+  // A write-only buffer taking a serialized task.  It grows up to its limit,
+  // then hands off its bytes a block at a time: undecided, the first block
+  // is compressed to pick the mode; zipping, each block is compressed and the
+  // compressed blocks kept; raw, the blocks go on to the outgoing buffer.
+  private static final class Blocks extends AutoBuffer {
+    private final AutoBuffer _ab;     // Outgoing buffer
+    private final int _flag, _limit;
+    private boolean _raw;             // Streaming raw into _ab
+    ArrayList<byte[]> _zs;            // Compressed blocks, once zipping
+    long _len;                        // Bytes handed off so far
+    long _zlen;                       // Bytes compressed so far
+    private byte[] _z;
+    Blocks(AutoBuffer ab, int flag, int min) {
+      super(INIT);
+      _ab = ab; _flag = flag;
+      _limit = Math.max(BLOCK, min);
+    }
+    @Override boolean flushBlock() {
+      // Grow first, and until a full block can be handed off
+      if( _bb.capacity() < _limit || _bb.position() < BLOCK ) return false;
+      take(false);
+      return true;
+    }
+    boolean decided() { return _raw || _zs != null; }
+    // Hand off the buffered full blocks - and the last, short one if done -
+    // keeping the rest for later
+    Blocks take(boolean done) {
+      int n = _bb.position();
+      byte[] bs = _bb.array();
+      int off = 0;
+      for( ; off < n && (done || n - off >= BLOCK); off += BLOCK ) {
+        int len = Math.min(BLOCK, n - off);
+        if( !_raw && _len + len >= Integer.MAX_VALUE ) unzip(); // Too large for the zip format
+        if( _raw ) { _ab.putA1(bs, off, off + len); _len += len; continue; }
+        if( _z == null ) _z = new byte[LZ4.maxCompressedLength(BLOCK)];
+        int zn = LZ4.compress(bs, off, len, _z, 0);
+        if( _zs == null && (long)zn*1000 > (long)len*MAX_PERMILLE ) {
+          _raw = true;                // Probe does not shrink: raw from here on
+          _ab.put1(_flag).putA1(bs, off, off + len);
+        } else {
+          if( _zs == null ) _zs = new ArrayList<>();
+          _zs.add(Arrays.copyOf(_z, zn));
+          _zlen += zn;
+        }
+        _len += len;
+      }
+      System.arraycopy(bs, off, bs, 0, n - off);
+      _bb.position(n - off);
+      return this;
+    }
+    // Switch from zipping to raw, sending the blocks compressed so far
+    private void unzip() {
+      _ab.put1(_flag);
+      if( _zs != null ) {
+        byte[] bs = new byte[BLOCK];  // All full blocks
+        for( byte[] zs : _zs ) {
+          LZ4.decompress(zs, 0, zs.length, bs, 0, BLOCK);
+          _ab.putA1(bs, BLOCK);
+        }
+      }
+      _zs = null;
+      _raw = true;
+    }
+  }
+
+  // Write flag and dt to ab, uncompressed
+  private static AutoBuffer raw(AutoBuffer ab, int flag, DTask dt, boolean call) {
+    return serialize(ab.put1(flag), dt, call);
+  }
+
+  /** Write flag and dt to ab - the whole task for calls, its fields only for
+   *  answers - or zipFlag and the compressed task if it is large enough and
+   *  compresses well. */
+  static AutoBuffer put(AutoBuffer ab, int flag, int zipFlag, DTask dt, boolean call) {
+    int min = H2O.ARGS.wire_compress;
+    if( min <= 0 ) return raw(ab, flag, dt, call);
+    Blocks blks = (Blocks)serialize(new Blocks(ab, flag, min), dt, call);
+    if( !blks.decided() ) {
+      int n = blks._bb.position();
+      if( n < min )             // Small: as it is
+        return ab.put1(flag).putA1(blks._bb.array(), n);
+    }
+    blks.take(true);
+    long len = blks._len;
+    if( blks._raw ) {           // Sent as it serialized
+      record(dt.getClass(), len, len, false);
+      return ab;
+    }
+    int permille = (int)(blks._zlen*1000/len);
+    record(dt.getClass(), len, blks._zlen, true);
+    ab.put1(zipFlag).put2((short)dt.frozenType()).put4((int)len).put2((short)permille).put4(BLOCK);
+    for( byte[] zs : blks._zs ) ab.put4(zs.length).putA1(zs, zs.length);
+    return ab;
+  }
+
+  /** Read a compressed task, after its zip flag.
+   *  @return a buffer over the task, as it would have been sent raw */
+  static AutoBuffer get(AutoBuffer ab) {
+    ab.get2();                  // Type id, for the timeline
+    int len = ab.get4();
+    ab.get2();                  // Ratio, for the timeline
+    int block = ab.get4();
+    byte[] bs = MemoryManager.malloc1(len);
+    for( int off = 0; off < len; off += block ) {
+      byte[] zs = ab.getA1(ab.get4());
+      LZ4.decompress(zs, 0, zs.length, bs, off, Math.min(block, len - off));
+    }
+    return new AutoBuffer(bs);
+  }
+
+  /** Pretty-print a compressed message, from its first 16 bytes */
+  static String print16(AutoBuffer ab) {
+    return TypeMap.className(ab.get2(8))+" "+ab.get4(10)+"b zipped to "+(ab.get2(14)/10.0)+"%";
+  }
+
+  // Messages, compressed messages, serialized and sent bytes: of the tasks
+  // large enough to compress, by task class
+  private static final NonBlockingHashMap<Class,long[]> STATS = new NonBlockingHashMap<>();
+  private static void record(Class clz, long len, long sent, boolean zipped) {
+    long[] s = STATS.get(clz);
+    if( s == null ) {
+      long[] old = STATS.putIfAbsent(clz, s = new long[4]);
+      if( old != null ) s = old;
+    }
+    AtomicUtils.LongArray.incr(s, 0);
+    if( zipped ) AtomicUtils.LongArray.incr(s, 1);
+    AtomicUtils.LongArray.add(s, 2, len);
+    AtomicUtils.LongArray.add(s, 3, sent);
+  }
+
+  /** @return by task class name: the messages large enough to compress, how
+   *  many of them went compressed, their serialized bytes and bytes sent */
+  public static TreeMap<String,long[]> stats() {
+    TreeMap<String,long[]> res = new TreeMap<>();
+    for( Map.Entry<Class,long[]> e : STATS.entrySet() )
+      res.put(e.getKey().getName(), e.getValue().clone());
+    return res;
+  }
+}
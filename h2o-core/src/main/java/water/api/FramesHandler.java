@@ -5,6 +5,7 @@ import water.*;
 import water.api.ModelsHandler.Models;
 import water.exceptions.*;
 import water.fvec.Frame;
+import water.fvec.FrameSnapshot;
 import water.fvec.Vec;
 import water.persist.PersistManager;
 import water.util.FileUtils;
@@ -20,6 +21,12 @@ import java.util.*;
  * GET /3/Frames/(?<frameid>.*)/export/(?<path>.*)/overwrite/(?<force>.*)
  * <p> export(): Export a Frame to the given path with optional overwrite.
  * <p>
+ * GET /99/Frames.bin/(?<frameid>.*)
+ * <p> saveSnapshot(): Save a binary snapshot of a Frame into the directory at path.
+ * <p>
+ * POST /99/Frames.bin/(?<frameid>.*)
+ * <p> loadSnapshot(): Load a Frame from the binary snapshot in the directory at path.
+ * <p>
  * GET /3/Frames/(?<frameid>.*)/columns/(?<column>.*)/summary
  * <p> columnSummary(): Return the summary metrics for a column, e.g. mins, maxes, mean, sigma, percentiles, etc.
  * <p>
@@ -264,6 +271,20 @@ class FramesHandler<I extends FramesHandler.Frames, S extends FramesBase<I, S>>
     return s;
   }
 
+  /** Save a binary snapshot of a frame (chunks, domains and rollups) into the directory at path. */
+  public FramesV3 saveSnapshot(int version, FramesV3 s) {
+    Frame fr = getFromDKV("key", s.frame_id.key());
+    FrameSnapshot.save(fr, s.path, s.force);
+    return s;
+  }
+
+  /** Load a frame from the binary snapshot in the directory at path. */
+  public FramesV3 loadSnapshot(int version, FramesV3 s) {
+    Frame fr = FrameSnapshot.load(s.path, s.frame_id == null ? null : s.frame_id.key());
+    s.frame_id = new KeyV3.FrameKeyV3(fr._key);
+    return s;
+  }
+
   // companion method to the export method
   private void export(InputStream csv, String path, String frameName, boolean force) {
     PersistManager pm = H2O.getPM();
@@ -40,6 +40,12 @@ public class JobV3<J extends Job, S extends JobV3<J, S>> extends Schema<J, S> {
   @API(help="exception", direction=API.Direction.OUTPUT)
   public String exception;
 
+  @API(help="Job owner, for fair sharing of the cluster", direction=API.Direction.OUTPUT)
+  public String owner;
+
+  @API(help="Share of its node's time used so far while running, msec", direction=API.Direction.OUTPUT)
+  public long share_msec;
+
   //==========================
   // Custom adapters go here
 
@@ -72,6 +78,8 @@ public class JobV3<J extends Job, S extends JobV3<J, S>> extends Schema<J, S> {
     Class<? extends Keyed> dest_class = ReflectionUtils.findActualClassParameter(job.getClass(), 0); // What type do we expect for this Job?
     dest = KeyV3.forKeyedClass(dest_class, dest_key);
     exception = job._exception;
+    owner = job._owner;
+    share_msec = (long)JobScheduler.charged(job._key);
     return (S) this;
   }
 
@@ -4,6 +4,9 @@ import hex.ModelBuilder;
 import water.*;
 import water.exceptions.H2ONotFoundArgumentException;
 
+import java.util.Map;
+import java.util.TreeMap;
+
 public class JobsHandler extends Handler {
   /** Impl class for a collection of jobs; only used in the API to make it easier to cons up the jobs array via the magic of PojoUtils.copyProperties.  */
 
@@ -40,9 +43,29 @@ public class JobsHandler extends Handler {
       }
       i++; // Java does the increment before the function call which throws?!
     }
+    fillQueueDepths(s);
     return s;
   }
 
+  // Fair-share scheduler state of this node
+  private static void fillQueueDepths(JobsV3 s) {
+    TreeMap<String,double[]> depths = JobScheduler.depths();
+    s.owners = new String[depths.size()];
+    s.owners_queued = new int[depths.size()];
+    s.owners_running = new int[depths.size()];
+    s.owners_share_msec = new long[depths.size()];
+    int i = 0;
+    for (Map.Entry<String,double[]> d : depths.entrySet()) {
+      s.owners[i] = d.getKey();
+      s.owners_queued[i] = (int)d.getValue()[0];
+      s.owners_running[i] = (int)d.getValue()[1];
+      s.owners_share_msec[i] = (long)d.getValue()[2];
+      s.queued += s.owners_queued[i];
+      s.running += s.owners_running[i];
+      i++;
+    }
+  }
+
   @SuppressWarnings("unused") // called through reflection by RequestServer
   public Schema fetch(int version, JobsV3 s) {
     Key key = s.job_id.key();
@@ -70,7 +93,7 @@ public class JobsHandler extends Handler {
         s.jobs[0] = new JobV3().fillFromImpl(j);
       }
     }
-
+    fillQueueDepths(s);
     return s;
   }
 
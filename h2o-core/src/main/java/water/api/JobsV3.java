@@ -10,4 +10,22 @@ public class JobsV3 extends RequestSchema<Iced,JobsV3> {
   // Output fields
   @API(help="jobs", direction=API.Direction.OUTPUT)
   public JobV3[] jobs;
+
+  @API(help="Jobs waiting for a slot on this node", direction=API.Direction.OUTPUT)
+  public int queued;
+
+  @API(help="Jobs running on this node", direction=API.Direction.OUTPUT)
+  public int running;
+
+  @API(help="Owners with jobs queued, running or recently run on this node", direction=API.Direction.OUTPUT)
+  public String[] owners;
+
+  @API(help="Per owner: jobs queued", direction=API.Direction.OUTPUT)
+  public int[] owners_queued;
+
+  @API(help="Per owner: jobs running", direction=API.Direction.OUTPUT)
+  public int[] owners_running;
+
+  @API(help="Per owner: recent (decaying) share of the node's time, msec", direction=API.Direction.OUTPUT)
+  public long[] owners_share_msec;
 }
@@ -0,0 +1,11 @@
+package water.api;
+
+import water.util.Metrics;
+
+public class MetricsHandler extends Handler {
+  @SuppressWarnings("unused") // called through reflection by RequestServer
+  public MetricsV3 fetch(int version, MetricsV3 s) {
+    s.text = Metrics.toText();
+    return s;
+  }
+}
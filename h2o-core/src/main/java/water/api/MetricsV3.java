@@ -0,0 +1,8 @@
+package water.api;
+
+import water.Iced;
+
+public class MetricsV3 extends RequestSchema<Iced, MetricsV3> {
+  // Output
+  @API(help="Counters and latency histograms of this node, in the Prometheus text exposition format", direction=API.Direction.OUTPUT) String text;
+}
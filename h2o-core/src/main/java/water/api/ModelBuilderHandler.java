@@ -24,7 +24,7 @@ abstract public class ModelBuilderHandler<B extends ModelBuilder, S extends Mode
       throw H2OModelBuilderIllegalArgumentException.makeFromBuilder(builder);
     }
 
-    Job j = builder.trainModel();
+    Job j = builder.trainModelCV();
     builderSchema.job = (JobV3) Schema.schema(version, Job.class).fillFromImpl(j); // TODO: version
 
     // copy warnings and infos; errors will cause an H2OModelBuilderIllegalArgumentException to be thrown above,
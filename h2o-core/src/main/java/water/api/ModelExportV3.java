@@ -18,4 +18,8 @@ public class ModelExportV3 extends RequestSchema<Iced, ModelExportV3> {
   /** Destination directory to save exported model. */
   @API(help="Overwrite destination directory in case it exists or throw exception if set to false.")
   public boolean force = true;
+
+  /** Export as a single file instead of a directory. */
+  @API(help="Export as a single-file bundle, which loads in parallel and can be memory-mapped, instead of a directory of files.")
+  public boolean bundle = false;
 }
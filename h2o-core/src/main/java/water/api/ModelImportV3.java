@@ -12,7 +12,7 @@ public class ModelImportV3 extends RequestSchema<Iced, ModelImportV3> {
   @API(help="Save imported model under given key into DKV.", json=false)
   public KeyV3.ModelKeyV3 model_id;
 
-  @API(help="Source directory (hdfs, s3, local) containing serialized model")
+  @API(help="Source directory (hdfs, s3, local) containing serialized model, or a single-file model bundle")
   public String dir;
 
   @API(help="Override existing model in case it exists or throw exception if set to false")
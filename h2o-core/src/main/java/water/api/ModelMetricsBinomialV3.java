@@ -22,6 +22,12 @@ public class ModelMetricsBinomialV3<I extends ModelMetricsBinomial, S extends Mo
   @API(help="The Gini score for this scoring run.", direction=API.Direction.OUTPUT)
   public double Gini;
 
+  @API(help="The area under the Precision-Recall curve (average precision) for this scoring run.", direction=API.Direction.OUTPUT)
+  public double pr_auc;
+
+  @API(help="Bound on the error of the AUC, from the binning of the probabilities; 0 if exact.", direction=API.Direction.OUTPUT, level = API.Level.secondary)
+  public double AUC_error;
+
   @API(help="The class labels of the response.", direction=API.Direction.OUTPUT)
   public String[] domain;
 
@@ -45,6 +51,8 @@ public class ModelMetricsBinomialV3<I extends ModelMetricsBinomial, S extends Mo
     if (null != auc) {
       AUC  = auc._auc;
       Gini = auc._gini;
+      pr_auc = auc._pr_auc;
+      AUC_error = auc._auc_err;
 
       // Fill TwoDimTable
       String[] thresholds = new String[auc._nBins];
@@ -36,6 +36,12 @@ public class ModelOutputSchema<O extends Model.Output, S extends ModelOutputSche
   @API(help="Validation data model metrics", direction=API.Direction.OUTPUT, level=API.Level.critical)
   ModelMetricsBase validation_metrics;
 
+  @API(help="Cross-validation metrics, of the holdout predictions", direction=API.Direction.OUTPUT, level=API.Level.critical)
+  ModelMetricsBase cross_validation_metrics;
+
+  @API(help="Cross-validation holdout predictions: each row predicted by the model of its fold", direction=API.Direction.OUTPUT, level=API.Level.secondary)
+  KeyV3.FrameKeyV3 cross_validation_predictions;
+
   @API(help="Help information for output fields", direction=API.Direction.OUTPUT)
   public IcedHashMap.IcedHashMapStringString help;
 
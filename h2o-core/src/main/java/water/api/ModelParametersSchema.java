@@ -20,7 +20,7 @@ public class ModelParametersSchema<P extends Model.Parameters, S extends ModelPa
   // NOTE:
   // Parameters must be ordered for the UI
   ////////////////////////////////////////
-  static public String[] own_fields = new String[] { "model_id", "training_frame", "validation_frame", "ignored_columns", "ignore_const_cols", "score_each_iteration" };
+  static public String[] own_fields = new String[] { "model_id", "training_frame", "validation_frame", "ignored_columns", "ignore_const_cols", "score_each_iteration", "nfolds", "fold_column" };
 
   /** List of fields in the order in which we want them serialized.  This is the order they will be presented in the UI.  */
   private transient String[] __fields_cache = null;
@@ -72,6 +72,12 @@ public class ModelParametersSchema<P extends Model.Parameters, S extends ModelPa
   @API(help="Whether to score during each iteration of model training", direction=API.Direction.INOUT, level = API.Level.secondary)
   public boolean score_each_iteration;
 
+  @API(help="Number of folds for n-fold cross-validation (0 to disable, or >= 2)", direction=API.Direction.INOUT, level = API.Level.secondary)
+  public int nfolds;
+
+  @API(help="Column assigning each row to a cross-validation fold (overrides nfolds)", is_member_of_frames = {"training_frame"}, is_mutually_exclusive_with = {"ignored_columns"}, direction=API.Direction.INOUT, level = API.Level.secondary)
+  public FrameV3.ColSpecifierV3 fold_column;
+
   protected static String[] append_field_arrays(String[] first, String[] second) {
     String[] appended = new String[first.length + second.length];
     System.arraycopy(first, 0, appended, 0, first.length);
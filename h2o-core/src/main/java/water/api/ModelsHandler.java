@@ -5,10 +5,12 @@ import water.*;
 import water.api.FramesHandler.Frames;
 import water.exceptions.*;
 import water.fvec.Frame;
+import water.serial.BundleBinarySerializer;
 import water.serial.ObjectTreeBinarySerializer;
 import water.util.FileUtils;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.*;
 
 class ModelsHandler<I extends ModelsHandler.Models, S extends ModelsBase<I, S>> extends Handler {
@@ -182,7 +184,10 @@ class ModelsHandler<I extends ModelsHandler.Models, S extends ModelsBase<I, S>>
     ModelsV3 s = (ModelsV3) Schema.newInstance(ModelsV3.class);
 
     try {
-      List<Key> importedKeys = new ObjectTreeBinarySerializer().load(FileUtils.getURI(mimport.dir));
+      URI uri = FileUtils.getURI(mimport.dir);
+      List<Key> importedKeys = BundleBinarySerializer.isBundle(uri)
+          ? new BundleBinarySerializer().load(uri)
+          : new ObjectTreeBinarySerializer().load(uri);
       Model model = (Model) importedKeys.get(0).get();
       s.models = new ModelSchema[1];
       s.models[0] = (ModelSchema) Schema.schema(version, model).fillFromImpl(model);
@@ -200,7 +205,9 @@ class ModelsHandler<I extends ModelsHandler.Models, S extends ModelsBase<I, S>>
     keysToExport.addAll(model.getPublishedKeys());
 
     try {
-      new ObjectTreeBinarySerializer().save(keysToExport, FileUtils.getURI(mexport.dir));
+      URI uri = FileUtils.getURI(mexport.dir);
+      if (mexport.bundle) new BundleBinarySerializer(true, true, mexport.force).save(keysToExport, uri);
+      else new ObjectTreeBinarySerializer().save(keysToExport, uri);
     } catch (IOException e) {
       throw new H2OIllegalArgumentException("dir", "exportModel", e);
     }
@@ -146,6 +146,10 @@ public class RequestServer extends NanoHTTPD {
       "Find a value within a Frame.");
     register("/3/Frames/(?<frameid>.*)/export/(?<path>.*)/overwrite/(?<force>.*)" ,"GET", FramesHandler.class, "export",                  new String[] {"frame_id", "path", "force"},
             "Export a Frame to the given path with optional overwrite.");
+    register("/99/Frames.bin/(?<frameid>.*)"                       ,"GET"   ,FramesHandler.class, "saveSnapshot",                       new String[] {"frame_id"},
+            "Save a binary snapshot of a Frame (chunks, domains, rollups) into the directory at path.");
+    register("/99/Frames.bin/(?<frameid>.*)"                       ,"POST"  ,FramesHandler.class, "loadSnapshot",                       new String[] {"frame_id"},
+            "Load a Frame, under the given key, from the binary snapshot in the directory at path.");
     register("/3/Frames/(?<frameid>.*)/columns/(?<column>.*)/summary","GET"   ,FramesHandler.class, "columnSummary", "columnSummaryDocs", new String[] {"frame_id", "column"},
       "Return the summary metrics for a column, e.g. mins, maxes, mean, sigma, percentiles, etc.");
     register("/3/Frames/(?<frameid>.*)/columns/(?<column>.*)/domain" ,"GET"   ,FramesHandler.class, "columnDomain",                       new String[] {"frame_id", "column"},
@@ -217,6 +221,8 @@ public class RequestServer extends NanoHTTPD {
             "Return IO usage snapshot of all nodes in the H2O cluster.");
     register("/3/WaterMeterIo"                                            ,"GET"   ,WaterMeterIoHandler.class, "fetch_all",
             "Return IO usage snapshot of all nodes in the H2O cluster.");
+    register("/3/Metrics"                                                 ,"GET"   ,MetricsHandler.class, "fetch",
+            "Return the counters and latency histograms of this node, in the Prometheus text exposition format.");
 
     // Node persistent storage
     register("/3/NodePersistentStorage/categories/(?<category>.*)/names/(?<name>.*)/exists", "GET", NodePersistentStorageHandler.class, "exists", new String[] {"category", "name"}, "Return true or false.");
@@ -570,6 +576,7 @@ public class RequestServer extends NanoHTTPD {
 
     // Load resources, or dispatch on handled requests
     try {
+      JobScheduler.setRequest(header); // Owner of any Job started
       boolean logged;
       // Handle any URLs that bypass the route approach.  This is stuff that has abnormal non-JSON response payloads.
       if (method.equals("GET") && uri.equals("/")) {
@@ -606,6 +613,9 @@ public class RequestServer extends NanoHTTPD {
       } else if(route._handler_class ==  water.api.DownloadDataHandler.class) {
         // DownloadDataHandler will throw H2ONotFoundException if the resource is not found
         return wrapDownloadData(HTTP_OK, handle(type, route, version, parms));
+      } else if(route._handler_class == water.api.MetricsHandler.class) {
+        // Served as text, for scrapers
+        return new Response(HTTP_OK, MIME_PLAINTEXT, ((MetricsV3)handle(type, route, version, parms)).text);
       } else {
         capturePathParms(parms, versioned_path, route); // get any parameters like /Frames/<key>
         logged = maybeLogRequest(method, uri, route._url_pattern.namedPattern(), parms, header);
@@ -659,6 +669,9 @@ public class RequestServer extends NanoHTTPD {
       // Note: don't use Schema.schema(version, error) because we have to work at bootstrap:
       return wrap(new H2OErrorV3().fillFromImpl(error), type);
     }
+    finally {
+      JobScheduler.clearRequest();
+    }
   }
 
   // Handling ------------------------------------------------------------------
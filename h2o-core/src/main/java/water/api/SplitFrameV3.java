@@ -14,6 +14,9 @@ public class SplitFrameV3 extends JobV3<SplitFrame, SplitFrameV3> {
   @API(help="Destination keys for each output frame split.", direction = API.Direction.INOUT)
   public FrameKeyV3[] destination_frames;
 
+  @API(help="Return views sharing the dataset's chunks instead of copies; the dataset cannot be deleted until the splits are.")
+  public boolean lazy;
+
   @Override public SplitFrame createImpl() {
     return new SplitFrame(Key.make(), "SplitFrame job");
   }
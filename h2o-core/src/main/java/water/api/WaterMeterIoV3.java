@@ -10,6 +10,9 @@ public class WaterMeterIoV3 extends RequestSchema<WaterMeterIo, WaterMeterIoV3>
   @API(help="array of IO info", direction = API.Direction.OUTPUT)
   public WaterMeterIo.IoStatsEntry persist_stats[];
 
+  @API(help="compression of large remote calls, by task", direction = API.Direction.OUTPUT)
+  public WaterMeterIo.WireStatsEntry wire_stats[];
+
   // Version&Schema-specific filling into the implementation object
   public WaterMeterIo createImpl() {
     WaterMeterIo obj = new WaterMeterIo();
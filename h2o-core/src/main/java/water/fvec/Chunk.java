@@ -141,6 +141,12 @@ public abstract class Chunk extends Iced implements Cloneable {
   /** Exposed for internal testing only.  Not a publically visible API. */
   public Chunk chk2() { return _chk2; }
 
+  /** Rollups of this chunk alone, computed and cached by {@link RollupStats}.
+   *  A Chunk in the K/V store is never modified (writes go into a clone, see
+   *  {@link #setWrite}), so the cache never goes stale: after a write only
+   *  the written chunks are rescanned when the Vec rollups are recomputed. */
+  transient volatile RollupStats _rollups;
+
   /** Owning Vec; a read-only field */
   transient Vec _vec;
   /** Owning Vec */
@@ -160,6 +166,20 @@ public abstract class Chunk extends Iced implements Cloneable {
 
   public void setBytes(byte[] mem) { _mem = mem; }
 
+  /** A copy of this chunk's rows to put under another Vec's chunk key: a
+   *  clone with its own memory, not tied to any Vec.  Views without memory
+   *  of their own (e.g. of a {@link RechunkedVec}) compress their rows into a
+   *  real chunk. */
+  Chunk deepCopy() {
+    Chunk c2;
+    if( _mem == null ) c2 = inflate_impl(new NewChunk(_vec, _cidx)).compress();
+    else { c2 = (Chunk)clone(); c2._mem = _mem.clone(); }
+    c2._vec = null;
+    c2._start = -1;
+    c2._cidx = -1;
+    return c2;
+  }
+
   /** Used by a ParseExceptionTest to break the Chunk invariants and trigger an
    *  NPE.  Not intended for public use. */
   public final void crushBytes() { _mem=null; }
@@ -366,6 +386,7 @@ public abstract class Chunk extends Iced implements Cloneable {
     _vec.preWriting();          // One-shot writing-init
     _chk2 = (Chunk)clone();     // Flag this chunk as having been written into
     assert _chk2._chk2 == null; // Clone has NOT been written into
+    _chk2._rollups = null;      // Clone is about to change
   }
 
   /** Write a {@code long} with check-relative indexing.  There is no way to
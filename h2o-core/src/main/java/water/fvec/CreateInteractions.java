@@ -4,8 +4,7 @@ package water.fvec;
 import hex.Interaction;
 import jsr166y.CountedCompleter;
 import water.*;
-import water.util.IcedHashMap;
-import water.util.IcedLong;
+import water.util.IcedLongLongMap;
 
 import java.util.*;
 
@@ -24,81 +23,62 @@ public class CreateInteractions extends H2O.H2OCountedCompleter {
   private Frame _target;
   final private Key _job;
 
-  private Map<Long, Long> _sortedMap = null;
-
-  private static Map<Long, Long> mySort(Map<IcedLong, IcedLong> unsortMap) {
-    List<Map.Entry<IcedLong, IcedLong>> list = new LinkedList<>(unsortMap.entrySet());
-    // Sorting the list based on values
-    Collections.sort(list, new Comparator<Map.Entry<IcedLong, IcedLong>>() {
-      public int compare(Map.Entry<IcedLong, IcedLong> o1, Map.Entry<IcedLong, IcedLong> o2) {
-        return ((Long)o2.getValue()._val).compareTo(o1.getValue()._val);
+  private long[] _sortedKeys = null; // Interaction factors of the domain, most frequent first
+
+  // Sort the keys by decreasing count, then increasing key, in place
+  private static void sortByCount(long[] keys, long[] cnts, int lo, int hi) {
+    while (hi - lo > 16) {
+      int p = (lo + hi) >>> 1;
+      long pk = keys[p], pc = cnts[p];
+      int i = lo, j = hi;
+      while (i <= j) {
+        while (before(keys[i], cnts[i], pk, pc)) i++;
+        while (before(pk, pc, keys[j], cnts[j])) j--;
+        if (i <= j) { swap(keys, cnts, i++, j--); }
       }
-    });
-    // Maintaining insertion order with the help of LinkedList
-    Map sortedMap = new LinkedHashMap<>();
-    for (Map.Entry<IcedLong, IcedLong> entry : list) {
-      sortedMap.put(entry.getKey()._val, entry.getValue()._val);
+      if (j - lo < hi - i) { sortByCount(keys, cnts, lo, j); lo = i; } // recurse on the smaller side
+      else { sortByCount(keys, cnts, i, hi); hi = j; }
     }
-    return sortedMap;
+    for (int i = lo + 1; i <= hi; i++)
+      for (int j = i; j > lo && before(keys[j], cnts[j], keys[j-1], cnts[j-1]); j--)
+        swap(keys, cnts, j - 1, j);
+  }
+  private static boolean before(long k0, long c0, long k1, long c1) { return c0 > c1 || (c0 == c1 && k0 < k1); }
+  private static void swap(long[] keys, long[] cnts, int i, int j) {
+    long k = keys[i]; keys[i] = keys[j]; keys[j] = k;
+    long c = cnts[i]; cnts[i] = cnts[j]; cnts[j] = c;
   }
 
   // Create a combined domain from the enum values that map to domain A and domain B
   // Both enum integers are combined into a long = (int,int), and the unsortedMap keeps the occurrence count for each pair-wise interaction
-  protected String[] makeDomain(Map<IcedLong, IcedLong> unsortedMap, String[] dA, String[] dB) {
-    String[] _domain;
-//    Log.info("Collected hash table");
-//    Log.info(java.util.Arrays.deepToString(unsortedMap.entrySet().toArray()));
-
-//    Log.info("Interaction between " + dA.length + " and " + dB.length + " factor levels => " +
-//            ((long)dA.length * dB.length) + " possible factors.");
-
-    _sortedMap = mySort(unsortedMap);
+  protected String[] makeDomain(IcedLongLongMap unsortedMap, String[] dA, String[] dB) {
+    long[] keys = unsortedMap.keys(), cnts = unsortedMap.values();
+    sortByCount(keys, cnts, 0, keys.length - 1);
 
     // create domain of the most frequent unique factors
-    long factorCount = 0;
-//    Log.info("Found " + _sortedMap.size() + " unique interaction factors (out of " + ((long)dA.length * (long)dB.length) + ").");
-    _domain = new String[_sortedMap.size()]; //TODO: use ArrayList here, then convert to array
-    Iterator it2 = _sortedMap.entrySet().iterator();
+    String[] domain = new String[keys.length];
     int d = 0;
-    while (it2.hasNext()) {
-      Map.Entry kv = (Map.Entry)it2.next();
-      final long ab = (Long)kv.getKey();
-      final long count = (Long)kv.getValue();
-      if (factorCount < _ci._max_factors && count >= _ci._min_occurrence) {
-        factorCount++;
-        // extract the two original factor enums
-        String feature = "";
-        if (dA != dB) {
-          int a = (int)(ab >> 32);
-          final String fA = a != _missing ? dA[a] : "NA";
-          feature = fA + "_";
-        }
-        int b = (int) ab;
-        String fB = b != _missing ? dB[b] : "NA";
-        feature += fB;
-
-//        Log.info("Adding interaction feature " + feature + ", occurrence count: " + count);
-//        Log.info("Total number of interaction factors so far: " + factorCount);
-        _domain[d++] = feature;
-      } else break;
-    }
-    if (d < _sortedMap.size()) {
-//      Log.info("Truncated map to " + _sortedMap.size() + " elements.");
-      String[] copy = new String[d+1];
-      System.arraycopy(_domain, 0, copy, 0, d);
-      copy[d] = _other;
-      _domain = copy;
-
-      Map tm = new LinkedHashMap<>();
-      it2 = _sortedMap.entrySet().iterator();
-      while (--d >= 0) {
-        Map.Entry kv = (Map.Entry) it2.next();
-        tm.put(kv.getKey(), kv.getValue());
+    while (d < keys.length && d < _ci._max_factors && cnts[d] >= _ci._min_occurrence) {
+      final long ab = keys[d];
+      // extract the two original factor enums
+      String feature = "";
+      if (dA != dB) {
+        int a = (int)(ab >> 32);
+        final String fA = a != _missing ? dA[a] : "NA";
+        feature = fA + "_";
       }
-      _sortedMap = tm;
+      int b = (int) ab;
+      String fB = b != _missing ? dB[b] : "NA";
+      feature += fB;
+      domain[d++] = feature;
+    }
+    if (d < keys.length) {
+      domain = Arrays.copyOf(domain, d + 1);
+      domain[d] = _other;
+      keys = Arrays.copyOf(keys, d);
     }
-//    Log.info("Created domain: " + Arrays.deepToString(_domain));
-    return _domain;
+    _sortedKeys = keys;
+    return domain;
   }
 
   private ArrayList<int[]> interactions() {
@@ -169,13 +149,9 @@ public class CreateInteractions extends H2O.H2OCountedCompleter {
         }
         final Vec C = _out.lastVec();
 
-        // Create array of enum pairs, in the same (sorted) order as in the _domain map -> for linear lookup
+        // Enum pairs, in the same (sorted) order as in the _domain
         // Note: "other" is not mapped in keys, so keys.length can be 1 less than domain.length
-        long[] keys = new long[_sortedMap.size()];
-        int pos = 0;
-        for (long k : _sortedMap.keySet()) {
-          keys[pos++] = k;
-        }
+        long[] keys = _sortedKeys;
         assert (C.domain().length == keys.length || C.domain().length == keys.length + 1); // domain might contain _other
 
         // Pass 2: fill Vec values
@@ -213,13 +189,13 @@ public class CreateInteractions extends H2O.H2OCountedCompleter {
     final private boolean _same;
 
     // OUTPUT
-    private IcedHashMap<IcedLong, IcedLong> _unsortedMap = null;
+    private IcedLongLongMap _unsortedMap = null;
 
     public createInteractionDomain(boolean same) { _same = same; }
 
     @Override
     public void map(Chunk A, Chunk B) {
-      _unsortedMap = new IcedHashMap<IcedLong, IcedLong>();
+      _unsortedMap = new IcedLongLongMap();
       // find unique interaction domain
       for (int r = 0; r < A._len; r++) {
         int a = A.isNA(r) ? _missing : (int)A.at8(r);
@@ -237,12 +213,7 @@ public class CreateInteractions extends H2O.H2OCountedCompleter {
         }
 
         // add key to hash map, and count occurrences (for pruning)
-        IcedLong AB = new IcedLong(ab);
-        if (_unsortedMap.containsKey(AB)) {
-          _unsortedMap.get(AB)._val++;
-        } else {
-          _unsortedMap.put(AB, new IcedLong(1));
-        }
+        _unsortedMap.add(ab, 1);
       }
     }
 
@@ -250,14 +221,11 @@ public class CreateInteractions extends H2O.H2OCountedCompleter {
     public void reduce(createInteractionDomain mrt) {
       assert(mrt._unsortedMap != null);
       assert(_unsortedMap != null);
-      for (Map.Entry<IcedLong,IcedLong> e : mrt._unsortedMap.entrySet()) {
-        IcedLong x = _unsortedMap.get(e.getKey());
-        if (x != null) {
-          x._val+=e.getValue()._val;
-        } else {
-          _unsortedMap.put(e.getKey(), e.getValue());
-        }
+      // fold the smaller map into the larger one
+      if (mrt._unsortedMap.size() > _unsortedMap.size()) {
+        IcedLongLongMap m = _unsortedMap; _unsortedMap = mrt._unsortedMap; mrt._unsortedMap = m;
       }
+      _unsortedMap.addAll(mrt._unsortedMap);
 
       mrt._unsortedMap = null;
 //    Log.info("Merged hash tables");
@@ -270,7 +238,7 @@ public class CreateInteractions extends H2O.H2OCountedCompleter {
     // INPUT
     boolean _same;
     final long[] _keys; //minimum information to be sent over the wire
-    transient private java.util.List<java.util.Map.Entry<Long,Integer>> _valToIndex; //node-local shared helper for binary search
+    transient private IcedLongLongMap _valToIndex; //node-local shared lookup: factor level (int,int) to domain index
 
     public fillInteractionEnums(boolean same, long[] keys) {
       _same = same; _keys = keys;
@@ -278,15 +246,10 @@ public class CreateInteractions extends H2O.H2OCountedCompleter {
 
     @Override
     protected void setupLocal() {
-      // turn _keys into a sorted array of pairs
-      _valToIndex = new java.util.ArrayList<>(); // map factor level (int,int) to domain index (long)
-      for (int i=0;i<_keys.length;++i) {
-        _valToIndex.add(new AbstractMap.SimpleEntry<>(_keys[i], i));
-      }
-      // sort by key (the factor level)
-      Collections.sort(_valToIndex, new Comparator<Map.Entry<Long, Integer>>() {
-        @Override public int compare(Map.Entry<Long, Integer> o1, Map.Entry<Long, Integer> o2) { return o1.getKey().compareTo(o2.getKey()); }
-      });
+      // only read from here on, so shared by all map() calls on this node
+      _valToIndex = new IcedLongLongMap(_keys.length);
+      for (int i=0;i<_keys.length;++i)
+        _valToIndex.put(_keys[i], i);
     }
 
     @Override
@@ -306,14 +269,8 @@ public class CreateInteractions extends H2O.H2OCountedCompleter {
           C.setNA(r);
         } else {
           // find _domain index for given factor level ab
-          int level = -1;
-          int pos = Collections.binarySearch(_valToIndex, new AbstractMap.SimpleEntry<Long,Integer>(ab,0), new Comparator<Map.Entry<Long, Integer>>() {
-            @Override public int compare(Map.Entry<Long, Integer> o1, Map.Entry<Long, Integer> o2) { return o1.getKey().compareTo(o2.getKey()); }
-          });
-          if (pos >= 0) {
-            level = _valToIndex.get(pos).getValue();
-            assert _keys[level] == ab; //confirm that binary search in _valToIndex worked
-          }
+          int level = (int)_valToIndex.get(ab, -1);
+          assert level < 0 || _keys[level] == ab;
           if (level < 0) {
             for (int i=0; i<_keys.length; ++i) {
               assert (_keys[i] != ab);
@@ -0,0 +1,69 @@
+package water.fvec;
+
+import water.*;
+import water.parser.ValueString;
+
+/** The training weights of one fold of a cross-validation, as a lazy view
+ *  over the fold-assignment Vec: 0 for the rows held out in the fold, else the
+ *  row's weight - taken from a weights Vec, if any, else 1.
+ *
+ *  <p>Nothing is copied: the training frame of a fold is the Vecs of the full
+ *  training frame, plus one of these as its weights column.  The fold and
+ *  weights Vecs must outlive their views.
+ */
+public class FoldMaskVec extends WrappedVec {
+  /** Fold-assignment value of the held-out rows */
+  final long _fold;
+  /** Row weights; null for all 1s */
+  final Key<Vec> _weightsKey;
+  transient Vec _weights;
+
+  public FoldMaskVec(Key key, Vec folds, long fold, Vec weights) {
+    super(key, folds._espc, folds._key);
+    _masterVec = folds;
+    _fold = fold;
+    _weightsKey = weights == null ? null : weights._key;
+    _weights = weights;
+    DKV.put(this);
+  }
+
+  public Vec weights() { return _weightsKey == null ? null : _weights != null ? _weights : (_weights = _weightsKey.get()); }
+
+  @Override public Chunk chunkForChunkIdx(int cidx) {
+    Vec w = weights();
+    return new FoldMaskChunk(this, masterVec().chunkForChunkIdx(cidx), w == null ? null : w.chunkForChunkIdx(cidx));
+  }
+
+  static class FoldMaskChunk extends Chunk {
+    final Chunk _folds, _weights;
+    final long _fold;
+
+    FoldMaskChunk(FoldMaskVec vec, Chunk folds, Chunk weights) {
+      _vec = vec; _cidx = folds._cidx; _start = folds._start; set_len(folds._len);
+      _folds = folds; _weights = weights; _fold = vec._fold;
+    }
+
+    @Override double atd_impl(int idx) {
+      return _folds.at8_impl(idx) == _fold ? 0 : _weights == null ? 1 : _weights.atd_impl(idx);
+    }
+    @Override long at8_impl(int idx) { return (long)atd_impl(idx); }
+    @Override boolean isNA_impl(int idx) { return false; }
+    @Override ValueString atStr_impl(ValueString vstr, int idx) { throw new IllegalArgumentException("Not a String column"); }
+
+    @Override boolean set_impl(int idx, long l)   { throw new IllegalArgumentException("Fold weights are read-only"); }
+    @Override boolean set_impl(int idx, double d) { throw new IllegalArgumentException("Fold weights are read-only"); }
+    @Override boolean set_impl(int idx, float f)  { throw new IllegalArgumentException("Fold weights are read-only"); }
+    @Override boolean setNA_impl(int idx)         { throw new IllegalArgumentException("Fold weights are read-only"); }
+    @Override boolean set_impl(int idx, String str) { throw new IllegalArgumentException("Fold weights are read-only"); }
+
+    @Override public boolean hasFloat() { return _weights != null && _weights.hasFloat(); }
+    @Override public NewChunk inflate_impl(NewChunk nc) {
+      nc.set_sparseLen(nc.set_len(0));
+      for( int i = 0; i < _len; i++ )
+        nc.addNum(atd_impl(i));
+      return nc;
+    }
+    @Override public AutoBuffer write_impl(AutoBuffer bb) { throw H2O.fail(); }
+    @Override public Chunk read_impl(AutoBuffer bb)       { throw H2O.fail(); }
+  }
+}
@@ -1130,12 +1130,7 @@ public class Frame extends Lockable<Frame> {
     @Override public void map(Chunk[] cs) {
       int i=0;
       for(Chunk c: cs) {
-        Chunk c2 = (Chunk)c.clone();
-        c2._vec=null;
-        c2._start=-1;
-        c2._cidx=-1;
-        c2._mem = c2._mem.clone();
-        DKV.put(_vecs[i++].chunkKey(c.cidx()), c2, _fs);
+        DKV.put(_vecs[i++].chunkKey(c.cidx()), c.deepCopy(), _fs);
       }
     }
     @Override public void postGlobal() { for( Vec _vec : _vecs ) DKV.put(_vec); }
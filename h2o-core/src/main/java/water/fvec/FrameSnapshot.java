@@ -0,0 +1,189 @@
+package water.fvec;
+
+import water.*;
+import water.persist.PersistManager;
+import water.util.FileUtils;
+import water.util.Log;
+
+import java.io.*;
+
+/** Binary snapshot of a parsed Frame: its compressed Chunks, domains and
+ *  rollups, written to (and read back from) a directory on any persist
+ *  backend, so a restarted cloud need not parse the data again.
+ *
+ *  <p>A snapshot directory holds a manifest, written by the caller, and one
+ *  data file per node of the saving cloud.  Every node streams its home
+ *  Chunks into its own data file in parallel; each record is the column, the
+ *  chunk index, the Chunk class name and the raw Chunk bytes - i.e. the
+ *  Value's bytes, as stored in the K/V store.  Class names (not type ids) are
+ *  stored, since type ids are only valid for the life of a cloud.  Chunks of
+ *  wrapped Vecs, which have no bytes of their own, are compressed on the fly.
+ *
+ *  <p>Loading spreads the data files across the nodes of the loading cloud,
+ *  which may have a different size; the bytes go straight back into K/V
+ *  Values under the Vecs of a new VectorGroup.  The directory must be visible
+ *  to all nodes (HDFS, S3, or a shared file system).
+ */
+public class FrameSnapshot {
+  /** Snapshot format version, checked on load. */
+  public static final int VERSION = 1;
+  public static final String MANIFEST = "frame.snap";
+  public static final String DATA = "chunks_";
+
+  private FrameSnapshot() {}
+
+  /** Save the Frame into directory {@code dir}.
+   *  @return total bytes of Chunk data written */
+  public static long save(Frame fr, String dir, boolean overwrite) {
+    PersistManager pm = H2O.getPM();
+    pm.mkdirs(dir);
+    SaveTask st = new SaveTask(dir, overwrite).doAll(fr);
+    // Manifest last: no manifest, no (complete) snapshot
+    AutoBuffer ab = new AutoBufferWithoutTypeIds();
+    ab.put4(VERSION);
+    ab.putStr(fr._key == null ? null : fr._key.toString());
+    ab.put4(H2O.CLOUD.size());
+    ab.putAStr(fr.names());
+    Vec[] vecs = fr.vecs();
+    ab.put4(vecs.length);
+    for( Vec v : vecs ) {
+      ab.put1(v._type);
+      ab.putAStr(v.domain());
+      ab.putA8(v._espc);
+      ab.put(RollupStats.getOrNull(v)); // Null if not computed; recomputed on demand
+    }
+    OutputStream os = null;
+    try {
+      os = pm.create(dir + "/" + MANIFEST, overwrite);
+      os.write(ab.buf());
+    } catch( IOException ioe ) {
+      throw new RuntimeException(ioe);
+    } finally {
+      FileUtils.close(os);
+    }
+    Log.info("Saved frame " + fr._key + ": " + st._chunks + " chunks, " + st._bytes + " bytes, to " + dir);
+    return st._bytes;
+  }
+
+  /** Load the snapshot in directory {@code dir} as a new Frame under {@code
+   *  dstKey}, or under the key it was saved with if {@code dstKey} is null. */
+  public static Frame load(String dir, Key dstKey) {
+    PersistManager pm = H2O.getPM();
+    ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    InputStream is = null;
+    try {
+      is = pm.open(dir + "/" + MANIFEST);
+      FileUtils.copyStream(is, buf, 1<<16);
+    } finally {
+      FileUtils.close(is);
+    }
+    AutoBuffer ab = new AutoBufferWithoutTypeIds(buf.toByteArray());
+    int version = ab.get4();
+    if( version != VERSION )
+      throw new IllegalArgumentException("Frame snapshot in " + dir + " has version " + version + ", expected " + VERSION);
+    String savedKey = ab.getStr();
+    int nfiles = ab.get4();
+    String[] names = ab.getAStr();
+    int ncols = ab.get4();
+    Key[] keys = new Vec.VectorGroup().addVecs(ncols);
+    Vec[] vecs = new Vec[ncols];
+    RollupStats[] rs = new RollupStats[ncols];
+    for( int i = 0; i < ncols; ++i ) {
+      byte type = ab.get1();
+      String[] domain = ab.getAStr();
+      vecs[i] = new Vec(keys[i], ab.getA8(), domain, type);
+      rs[i] = ab.get(RollupStats.class);
+    }
+    if( dstKey == null ) dstKey = Key.make(savedKey == null ? Key.rand() : savedKey);
+    // Chunks first, then rollups and Vecs, then the Frame: whoever can see
+    // the Frame can see all of it
+    LoadTask lt = new LoadTask(dir, nfiles, keys).doAllNodes();
+    Futures fs = new Futures();
+    for( int i = 0; i < ncols; ++i ) {
+      if( rs[i] != null ) DKV.put(vecs[i].rollupStatsKey(), rs[i], fs);
+      DKV.put(vecs[i], fs);
+    }
+    fs.blockForPending();
+    Frame fr = new Frame(dstKey, names, vecs);
+    DKV.put(fr);
+    Log.info("Loaded frame " + dstKey + ": " + lt._chunks + " chunks, " + lt._bytes + " bytes, from " + dir);
+    return fr;
+  }
+
+  static String dataFile(String dir, int idx) { return dir + "/" + DATA + idx; }
+
+  // Each node writes its home chunks, as they come, into its own data file
+  private static class SaveTask extends MRTask<SaveTask> {
+    final String _dir;
+    final boolean _overwrite;
+    long _chunks, _bytes;
+    transient DataOutputStream _out;
+    SaveTask(String dir, boolean overwrite) { _dir = dir; _overwrite = overwrite; }
+
+    @Override protected void setupLocal() {
+      _out = new DataOutputStream(new BufferedOutputStream(H2O.getPM().create(dataFile(_dir, H2O.SELF.index()), _overwrite), 1<<20));
+    }
+    @Override public void map(Chunk[] cs) {
+      int cidx = cs[0].cidx();
+      for( int col = 0; col < cs.length; ++col ) {
+        Chunk c = cs[col];
+        if( c.getBytes() == null ) c = c.inflate_impl(new NewChunk(c)).compress(); // A view
+        byte[] mem = c.getBytes();
+        try {
+          synchronized( _out ) {
+            _out.writeInt(col);
+            _out.writeInt(cidx);
+            _out.writeUTF(c.getClass().getName());
+            _out.writeInt(mem.length);
+            _out.write(mem);
+          }
+        } catch( IOException ioe ) {
+          throw new RuntimeException(ioe);
+        }
+        _chunks++;
+        _bytes += mem.length;
+      }
+    }
+    @Override protected void closeLocal() {
+      try { _out.close(); } catch( IOException ioe ) { throw new RuntimeException(ioe); }
+    }
+    @Override public void reduce(SaveTask st) { _chunks += st._chunks; _bytes += st._bytes; }
+  }
+
+  // Node i of the loading cloud reads data files i, i+N, i+2N, ...
+  private static class LoadTask extends MRTask<LoadTask> {
+    final String _dir;
+    final int _nfiles;
+    final Key[] _vecKeys;
+    long _chunks, _bytes;
+    LoadTask(String dir, int nfiles, Key[] vecKeys) { _dir = dir; _nfiles = nfiles; _vecKeys = vecKeys; }
+
+    @Override protected void setupLocal() {
+      Futures fs = new Futures();
+      for( int f = H2O.SELF.index(); f < _nfiles; f += H2O.CLOUD.size() ) {
+        DataInputStream in = null;
+        try {
+          in = new DataInputStream(new BufferedInputStream(H2O.getPM().open(dataFile(_dir, f)), 1<<20));
+          while( true ) {
+            int col;
+            try { col = in.readInt(); } catch( EOFException eof ) { break; }
+            int cidx = in.readInt();
+            short type = (short)TypeMap.onIce(in.readUTF());
+            byte[] mem = MemoryManager.malloc1(in.readInt());
+            in.readFully(mem);
+            Key ckey = Vec.chunkKey(_vecKeys[col], cidx);
+            DKV.put(ckey, new Value(ckey, mem.length, mem, type, Value.ICE), fs);
+            _chunks++;
+            _bytes += mem.length;
+          }
+        } catch( IOException ioe ) {
+          throw new RuntimeException(ioe);
+        } finally {
+          FileUtils.close(in);
+        }
+      }
+      fs.blockForPending();
+    }
+    @Override public void reduce(LoadTask lt) { _chunks += lt._chunks; _bytes += lt._bytes; }
+  }
+}
@@ -44,6 +44,15 @@ public class NFSFileVec extends FileVec {
 
   private NFSFileVec(Key key, long len) {super(key,len,Value.NFS);}
 
+  /** Also drop the memory mappings of the file, on all nodes. */
+  @Override public Futures remove_impl( Futures fs ) {
+    final Key k = _key;
+    new MRTask() {
+      @Override public void setupLocal() { PersistNFS.unmap(k); }
+    }.doAllNodes();
+    return super.remove_impl(fs);
+  }
+
   @Override public int setChunkSize(Frame fr, int chunkSize) {
     // Clear cached chunks first
     // Peeking into a file before the chunkSize has been set
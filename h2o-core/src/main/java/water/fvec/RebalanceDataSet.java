@@ -1,6 +1,7 @@
 package water.fvec;
 
 import jsr166y.CountedCompleter;
+import water.DKV;
 import water.Futures;
 import water.H2O;
 import water.Key;
@@ -62,28 +63,48 @@ public class RebalanceDataSet extends H2O.H2OCountedCompleter {
     // multiple makeZero calls to create empty vecs and than call RebalanceTask
     // on each one of them.  RebalanceTask will fetch the appropriate training_frame
     // chunks and fetch the data from them.
-    long[] espc;
-    if (_espc != null) espc = _espc;
-    else {
-      int rpc = (int) (_in.numRows() / _nchunks);
-      int rem = (int) (_in.numRows() % _nchunks);
-      espc = new long[_nchunks + 1];
-      Arrays.fill(espc, rpc);
-      for (int i = 0; i < rem; ++i) ++espc[i];
-      long sum = 0;
-      for (int i = 0; i < espc.length; ++i) {
-        long s = espc[i];
-        espc[i] = sum;
-        sum += s;
-      }
-      assert espc[espc.length - 1] == _in.numRows() : "unexpected number of rows, expected " + _in.numRows() + ", got " + espc[espc.length - 1];
-    }
+    long[] espc = _espc != null ? _espc : espc(_in.numRows(), _nchunks);
     final Vec[] srcVecs = _in.vecs();
     _out = new Frame(_okey,_in.names(), new Vec(_vg.addVec(),espc).makeCons(srcVecs.length,0L,_in.domains(),_in.types()));
     _out.delete_and_lock(_jobKey);
     new RebalanceTask(this,srcVecs).asyncExec(_out);
   }
 
+  // Chunk boundaries for nchunks chunks of equal size (+/-1)
+  static long[] espc(long nrows, int nchunks) {
+    int rpc = (int) (nrows / nchunks);
+    int rem = (int) (nrows % nchunks);
+    long[] espc = new long[nchunks + 1];
+    Arrays.fill(espc, rpc);
+    for (int i = 0; i < rem; ++i) ++espc[i];
+    long sum = 0;
+    for (int i = 0; i < espc.length; ++i) {
+      long s = espc[i];
+      espc[i] = sum;
+      sum += s;
+    }
+    assert espc[espc.length - 1] == nrows : "unexpected number of rows, expected " + nrows + ", got " + espc[espc.length - 1];
+    return espc;
+  }
+
+  /** Lazy alternative to running a RebalanceDataSet: a new Frame of {@link
+   *  RechunkedVec}s presenting {@code nchunks} equal chunks over the chunks of
+   *  {@code srcFrame}, without copying any data.  The source Frame must
+   *  outlive the view; deleting the view leaves the source alone. */
+  public static Frame rechunk(Frame srcFrame, Key dstKey, int nchunks) {
+    long[] espc = espc(srcFrame.numRows(), nchunks);
+    Vec[] srcVecs = srcFrame.vecs();
+    Key[] keys = new Vec.VectorGroup().addVecs(srcVecs.length);
+    Vec[] vecs = new Vec[srcVecs.length];
+    Futures fs = new Futures();
+    for( int i = 0; i < vecs.length; ++i )
+      DKV.put(vecs[i] = new RechunkedVec(keys[i], espc, srcVecs[i]), fs);
+    fs.blockForPending();
+    Frame fr = new Frame(dstKey, srcFrame.names(), vecs);
+    DKV.put(fr);
+    return fr;
+  }
+
   @Override public void onCompletion(CountedCompleter caller) {
     assert _out.numRows() == _in.numRows();
     Vec vec = _out.anyVec();
@@ -107,38 +128,7 @@ public class RebalanceDataSet extends H2O.H2OCountedCompleter {
       NewChunk dst = new NewChunk(chk);
       dst.set_len(0);
       dst.set_sparseLen(dst._len);
-      int rem = chk._len;
-      while(rem > 0 && dst._len < chk._len){
-        Chunk srcRaw = srcVec.chunkForRow(chk._start+ dst._len);
-        NewChunk src = new NewChunk((srcRaw));
-        src = srcRaw.inflate_impl(src);
-        assert src._len == srcRaw._len;
-        int srcFrom = (int)(chk._start+ dst._len - src._start);
-        // check if the result is sparse (not exact since we only take subset of training_frame in general)
-        if ((src.sparse() && dst.sparse()) || ((src.sparseLen() + dst.sparseLen()) * NewChunk.MIN_SPARSE_RATIO < (src._len + dst._len))) {
-          src.set_sparse(src.sparseLen());
-          dst.set_sparse(dst.sparseLen());
-        }
-        final int srcTo = srcFrom + rem;
-        int off = srcFrom-1;
-        Iterator<NewChunk.Value> it = src.values(Math.max(0,srcFrom),srcTo);
-        while(it.hasNext()){
-          NewChunk.Value v = it.next();
-          final int rid = v.rowId0();
-          assert  rid < srcTo;
-          int add = rid - off;
-          off = rid;
-          dst.addZeros(add-1);
-          v.add2Chunk(dst);
-          rem -= add;
-          assert rem >= 0;
-        }
-        int trailingZeros = Math.min(rem, src._len - off -1);
-        dst.addZeros(trailingZeros);
-        rem -= trailingZeros;
-      }
-      assert rem == 0:"rem = " + rem;
-      assert dst._len == chk._len :"len = " + dst._len + ", _len = " + chk._len;
+      copyRows(srcVec, chk._start, chk._len, dst);
       dst.close(dst.cidx(),_fs);
     }
     @Override public void map(Chunk [] chks){
@@ -146,4 +136,44 @@ public class RebalanceDataSet extends H2O.H2OCountedCompleter {
         rebalanceChunk(_srcVecs[i],chks[i]);
     }
   }
+
+  /** Append rows {@code [start,start+len)} of {@code srcVec} to the empty
+   *  {@code dst}, inflating the source chunks covering them.  Shared by the
+   *  RebalanceTask copy and the lazy {@link RechunkedVec} views. */
+  static NewChunk copyRows(Vec srcVec, long start, int len, NewChunk dst) {
+    assert dst._len == 0;
+    int rem = len;
+    while(rem > 0 && dst._len < len){
+      Chunk srcRaw = srcVec.chunkForRow(start+ dst._len);
+      NewChunk src = new NewChunk((srcRaw));
+      src = srcRaw.inflate_impl(src);
+      assert src._len == srcRaw._len;
+      int srcFrom = (int)(start+ dst._len - src._start);
+      // check if the result is sparse (not exact since we only take subset of training_frame in general)
+      if ((src.sparse() && dst.sparse()) || ((src.sparseLen() + dst.sparseLen()) * NewChunk.MIN_SPARSE_RATIO < (src._len + dst._len))) {
+        src.set_sparse(src.sparseLen());
+        dst.set_sparse(dst.sparseLen());
+      }
+      final int srcTo = srcFrom + rem;
+      int off = srcFrom-1;
+      Iterator<NewChunk.Value> it = src.values(Math.max(0,srcFrom),srcTo);
+      while(it.hasNext()){
+        NewChunk.Value v = it.next();
+        final int rid = v.rowId0();
+        assert  rid < srcTo;
+        int add = rid - off;
+        off = rid;
+        dst.addZeros(add-1);
+        v.add2Chunk(dst);
+        rem -= add;
+        assert rem >= 0;
+      }
+      int trailingZeros = Math.min(rem, src._len - off -1);
+      dst.addZeros(trailingZeros);
+      rem -= trailingZeros;
+    }
+    assert rem == 0:"rem = " + rem;
+    assert dst._len == len :"len = " + dst._len + ", _len = " + len;
+    return dst;
+  }
 }
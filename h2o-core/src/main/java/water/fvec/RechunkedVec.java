@@ -0,0 +1,124 @@
+package water.fvec;
+
+import water.*;
+import water.parser.ValueString;
+
+/** A lazy re-chunking of another Vec: the same rows - or a contiguous range
+ *  of them, starting at {@code offset} - under new chunk boundaries ({@code
+ *  espc}), without copying the data.
+ *
+ *  <p>Chunks are views which decode the master's chunks on access.  A chunk is
+ *  materialized - compressed and put in the K/V store under this Vec's own
+ *  chunk key - when it is written to, or once it was read {@link #HOT_READS}
+ *  times on its home node; after that, it is read like any other Chunk.  So a
+ *  one-pass algorithm never pays for a copy, and an iterative one only copies
+ *  the chunks it keeps coming back to.
+ *
+ *  <p>The master Vec must outlive its views.  Views can {@link #pin} the Frame
+ *  holding it, which then cannot be deleted until they are.  Removing a view
+ *  only removes its materialized chunks, and its pin.
+ */
+public class RechunkedVec extends WrappedVec {
+  /** Reads of a view chunk on its home node before it is materialized; 0 to
+   *  never materialize on reads. */
+  public static volatile int HOT_READS = 3;
+
+  /** Master row of our row 0 */
+  final long _offset;
+  /** Frame holding the master Vec, read-locked by this view; null if not pinned */
+  Key _pinned;
+  transient int[] _reads;       // Per-chunk reads of the views, on this node
+
+  public RechunkedVec(Key key, long[] espc, Vec masterVec) { this(key, espc, masterVec, 0); }
+  public RechunkedVec(Key key, long[] espc, Vec masterVec, long offset) {
+    super(key, espc, masterVec.domain(), masterVec._key);
+    assert offset >= 0 && offset + espc[espc.length-1] <= masterVec.length();
+    _type = masterVec._type;
+    _masterVec = masterVec;
+    _offset = offset;
+  }
+
+  /** Keep src, the Frame holding the master Vec, from being deleted while
+   *  this view exists: read-lock it by this Vec's key until the view is
+   *  removed.  Call before putting the view in the K/V store. */
+  public RechunkedVec pin(Frame src) {
+    assert src.find(_masterVec) != -1;
+    src.read_lock(_key);
+    _pinned = src._key;
+    return this;
+  }
+
+  @Override public Futures remove_impl(Futures fs) {
+    if( _pinned != null ) {
+      Value val = DKV.get(_pinned);
+      if( val != null ) ((Frame)val.get()).unlock(_key);
+    }
+    return super.remove_impl(fs);
+  }
+
+  @Override public Chunk chunkForChunkIdx(int cidx) {
+    Key ckey = chunkKey(cidx);
+    Value val = DKV.get(ckey);
+    if( val != null ) return chunkForValue(cidx, val); // Materialized
+    RechunkedChunk c = new RechunkedChunk(this, cidx);
+    if( HOT_READS <= 0 || !ckey.home() ) return c;
+    int[] reads = _reads;
+    if( reads == null ) _reads = reads = new int[nChunks()];
+    if( ++reads[cidx] < HOT_READS ) return c; // Racy count; close enough
+    // Hot: compress the rows, unless a writer beat us to it
+    Chunk cc = c.inflate_impl(new NewChunk(this, cidx)).compress();
+    Futures fs = new Futures();
+    Value old = DKV.DputIfMatch(ckey, val = new Value(ckey, cc), null, fs);
+    fs.blockForPending();
+    return chunkForValue(cidx, old == null ? val : old);
+  }
+
+  /** A chunk of the view: reads go to the master chunk covering the row;
+   *  writes inflate the rows into a NewChunk, closed under our own key. */
+  static class RechunkedChunk extends Chunk {
+    final Vec _masterVec;
+    final long _offset;         // Master row of our row 0
+    transient Chunk _src;       // Last master chunk used
+
+    RechunkedChunk(RechunkedVec vec, int cidx) {
+      _vec = vec;
+      _masterVec = vec.masterVec();
+      _offset = vec._offset;
+      _cidx = cidx;
+      _start = vec.chunk2StartElem(cidx);
+      set_len((int)(vec.chunk2StartElem(cidx+1) - _start));
+    }
+
+    // The master chunk holding row idx, and the row's index in it
+    private Chunk src(int idx) {
+      long row = _offset + _start + idx;
+      Chunk c = _src;
+      if( c == null || row < c._start || row >= c._start + c._len )
+        _src = c = _masterVec.chunkForRow(row);
+      return c;
+    }
+    private int off(Chunk c, int idx) { return (int)(_offset + _start + idx - c._start); }
+
+    @Override double atd_impl(int idx) { Chunk c = src(idx); return c.atd_impl(off(c, idx)); }
+    @Override long at8_impl(int idx) { Chunk c = src(idx); return c.at8_impl(off(c, idx)); }
+    @Override boolean isNA_impl(int idx) { Chunk c = src(idx); return c.isNA_impl(off(c, idx)); }
+    @Override long at16l_impl(int idx) { Chunk c = src(idx); return c.at16l_impl(off(c, idx)); }
+    @Override long at16h_impl(int idx) { Chunk c = src(idx); return c.at16h_impl(off(c, idx)); }
+    @Override ValueString atStr_impl(ValueString vstr, int idx) { Chunk c = src(idx); return c.atStr_impl(vstr, off(c, idx)); }
+
+    // Never written in place: Chunk.set inflates and closes a NewChunk
+    @Override boolean set_impl(int idx, long l)   { return false; }
+    @Override boolean set_impl(int idx, double d) { return false; }
+    @Override boolean set_impl(int idx, float f)  { return false; }
+    @Override boolean setNA_impl(int idx)         { return false; }
+    @Override boolean set_impl(int idx, String str) { return false; }
+
+    @Override public boolean hasFloat() { return !_masterVec.isInt(); }
+    @Override public NewChunk inflate_impl(NewChunk nc) {
+      nc.set_sparseLen(nc.set_len(0));
+      return RebalanceDataSet.copyRows(_masterVec, _offset + _start, _len, nc);
+    }
+    @Override public AutoBuffer write_impl(AutoBuffer bb) { throw H2O.fail(); }
+    @Override public Chunk read_impl(AutoBuffer bb)       { throw H2O.fail(); }
+  }
+}
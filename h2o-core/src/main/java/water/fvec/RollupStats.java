@@ -19,6 +19,11 @@ import java.util.Arrays;
  *  cores to ask for the same Vec rollup at once, so it is crucial that it be
  *  computed once across the cluster.
  *
+ *  Rollups (and histograms) of every single chunk are mergeable and cached
+ *  with the chunk itself.  Writing into a Vec replaces only the written
+ *  chunks, so recomputing the Vec rollups after a write rescans only those
+ *  and merges the cached summaries of all the other chunks.
+ *
  *  Rollups are kept in the K/V store, which also controls who manages the
  *  rollup work and final results.  Winner of a DKV CAS/PutIfMatch race gets to
  *  manage the M/R job computing the rollups.  Losers block for the same
@@ -52,6 +57,15 @@ class RollupStats extends Iced {
 
   public boolean hasHisto(){return _bins != null;}
 
+  // Per-chunk histogram, cached with the per-chunk rollups (see Chunk._rollups)
+  // and valid for the binning it was computed with
+  private static final class ChunkHisto {
+    final double _base, _stride;
+    final long[] _bins;
+    ChunkHisto(double base, double stride, long[] bins) { _base = base; _stride = stride; _bins = bins; }
+  }
+  private transient volatile ChunkHisto _chkHisto;
+
   // Check for: Vector is mutating and rollups cannot be asked for
   boolean isMutating() { return _naCnt==-2; }
   // Check for: Rollups currently being computed
@@ -71,6 +85,21 @@ class RollupStats extends Iced {
   private static RollupStats makeComputing() { return new RollupStats(-1); }
   static RollupStats makeMutating () { return new RollupStats(-2); }
 
+  // Rollups of a single chunk; cached on the chunk, a copy is returned since
+  // the result is reduced into.
+  private static RollupStats forChunk( Chunk c ) {
+    RollupStats rs = c._rollups;
+    if( rs == null ) {
+      rs = new RollupStats(0).map(c);
+      if( c.chk2() == null ) c._rollups = rs; // Do not cache for chunks being written into
+    }
+    RollupStats res = (RollupStats)rs.clone();
+    res._mins = rs._mins.clone();
+    res._maxs = rs._maxs.clone();
+    res._chkHisto = null;
+    return res;
+  }
+
   private RollupStats map( Chunk c ) {
     _size = c.byteSize();
     Arrays.fill(_mins, Double.MAX_VALUE);
@@ -238,7 +267,7 @@ class RollupStats extends Iced {
     final Key _rskey;
     RollupStats _rs;
     Roll( H2OCountedCompleter cmp, Key rskey ) { super(cmp); _rskey=rskey; }
-    @Override public void map( Chunk c ) { _rs = new RollupStats(0).map(c); }
+    @Override public void map( Chunk c ) { _rs = forChunk(c); }
     @Override public void reduce( Roll roll ) { _rs.reduce(roll._rs); }
     @Override public void postGlobal() {
       if( _rs == null )
@@ -311,6 +340,12 @@ class RollupStats extends Iced {
     long[] _bins;                // Outputs
     Histo( H2OCountedCompleter cmp, RollupStats rs, int nbins ) { super(cmp);_base = rs.h_base(); _stride = rs.h_stride(nbins); _nbins = nbins; }
     @Override public void map( Chunk c ) {
+      RollupStats crs = c._rollups;
+      ChunkHisto ch = crs == null ? null : crs._chkHisto;
+      if( ch != null && ch._bins.length == _nbins && ch._base == _base && ch._stride == _stride ) {
+        _bins = ch._bins.clone(); // Chunk not written since, same binning
+        return;
+      }
       _bins = new long[_nbins];
       for( int i=c.nextNZ(-1); i< c._len; i=c.nextNZ(i) ) {
         double d = c.atd(i);
@@ -319,6 +354,8 @@ class RollupStats extends Iced {
       // Sparse?  We skipped all the zeros; do them now
       if( c.isSparse() )
         _bins[idx(0.0)] += (c._len - c.sparseLen());
+      if( crs != null && c.chk2() == null )
+        crs._chkHisto = new ChunkHisto(_base,_stride,_bins.clone());
     }
     private int idx( double d ) { int idx = (int)((d-_base)/_stride); return Math.min(idx,_bins.length-1); }
 
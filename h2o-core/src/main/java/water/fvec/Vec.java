@@ -379,12 +379,7 @@ public class Vec extends Keyed<Vec> {
     final Vec v = new Vec(group().addVec(),_espc.clone());
     new MRTask(){
       @Override public void map(Chunk c){
-        Chunk c2 = (Chunk)c.clone();
-        c2._vec=null;
-        c2._start=-1;
-        c2._cidx=-1;
-        c2._mem = c2._mem.clone();
-        DKV.put(v.chunkKey(c.cidx()), c2, _fs);
+        DKV.put(v.chunkKey(c.cidx()), c.deepCopy(), _fs);
       }
     }.doAll(this);
     return v;
@@ -789,8 +784,12 @@ public class Vec extends Keyed<Vec> {
    *  call on every Chunk index on the same node will probably trigger an OOM!
    *  @return Chunk for a chunk# */
   public Chunk chunkForChunkIdx(int cidx) {
+    return chunkForValue(cidx,chunkIdx(cidx)); // Chunk# to chunk data
+  }
+
+  // Chunk data to compression wrapper, for the chunk# it holds
+  final Chunk chunkForValue(int cidx, Value dvec) {
     long start = chunk2StartElem(cidx); // Chunk# to chunk starting element#
-    Value dvec = chunkIdx(cidx);        // Chunk# to chunk data
     Chunk c = dvec.get();               // Chunk data to compression wrapper
     long cstart = c._start;             // Read once, since racily filled in
     Vec v = c._vec;
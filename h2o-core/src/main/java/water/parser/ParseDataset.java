@@ -175,10 +175,6 @@ public final class ParseDataset extends Job<Frame> {
     @Override public void onCompletion(CountedCompleter caller) { _job._mfpt = null; _job.done(); }
   }
 
-  private static class EnumMapping extends Iced {
-    final int [][] map;
-    public EnumMapping(int[][] map){this.map = map;}
-  }
   // --------------------------------------------------------------------------
   // Top-level parser driver
   private static void parseAllKeys(ParseDataset job, Key[] fkeys, ParseSetup setup, boolean deleteOnDone) {
@@ -215,67 +211,67 @@ public final class ParseDataset extends Job<Frame> {
     final int[] ecols = Arrays.copyOf(ecols2, n);
     // If we have any, go gather unified enum domains
     if( n > 0 ) {
-      EnumFetchTask eft = new EnumFetchTask(mfpt._eKey, ecols).doAllNodes();
-      final Categorical[] enums = eft._gEnums;
-      final ValueString[][] ds = new ValueString[ecols.length][];
-      EnumMapping [] emaps = new EnumMapping[H2O.CLOUD.size()];
-      H2OCountedCompleter[] domtasks = new H2OCountedCompleter[ecols.length];
-      // In parallel, compute enum column domains.  Includes expensive sort.
-      for( int k = 0; k<ecols.length; k++ ) {
-        final int fk = k;
-        H2O.submitTask(domtasks[k] = new H2OCountedCompleter() {
-            @Override public void compute2() {
-              int ei = ecols[fk];
-              avs[ei].setDomain(ValueString.toString(ds[fk] = enums[ei].computeColumnDomain()));
-              tryComplete();
-            }
-          });
-      }
-      for( int k = 0; k<ecols.length; k++ ) domtasks[k].join();
-
-      for(int nodeId = 0; nodeId < H2O.CLOUD.size(); ++nodeId) {
-        if(eft._lEnums[nodeId] == null)continue;
-        int[][] emap = new int[ecols.length][];
-        for (int i = 0; i < ecols.length; ++i) {
-          final Categorical e = eft._lEnums[nodeId][ecols[i]];
-          if(e == null) continue;
-          int maxid = e.maxId();
-          emap[i] = MemoryManager.malloc4(maxid + 1);
-          Arrays.fill(emap[i], -1);
-          for (int j = 0; j < ds[i].length; ++j) {
-            ValueString vs = ds[i][j];
-            if (e.containsKey(vs)) {
-              int tokid = e.getTokenId(vs);
-              assert tokid <= maxid : "maxIdx = " + maxid + ", got " + tokid;
-              emap[i][tokid] = j;
-            }
-          }
+      // Range-partition the levels across the nodes, and sort & number every
+      // range on its own node.  Only the final domains come back here.
+      final int nodes = H2O.CLOUD.size();
+      final Key[][] sliceKeys = new Key[nodes][nodes]; // [from][range], homed at the range's node
+      final Key[][] remapKeys = new Key[nodes][nodes]; // [from][range], homed at the from node
+      for( int j = 0; j < nodes; ++j )
+        for( int p = 0; p < nodes; ++p ) {
+          sliceKeys[j][p] = Key.make(H2O.CLOUD._memary[p]);
+          remapKeys[j][p] = Key.make(H2O.CLOUD._memary[j]);
         }
-        emaps[nodeId] = new EnumMapping(emap);
-      }
-      job.update(0,"Compressing data.");
-      fr = new Frame(job.dest(), setup._column_names,AppendableVec.closeAll(avs));
-      Log.trace("Done closing all Vecs.");
-      // Some cols with enums lose their enum status (because they have more
-      // number chunks than enum chunks); these no longer need (or want) enum
-      // updating.
-      job.update(0,"Unifying categoricals across nodes.");
-      Vec[] vecs = fr.vecs();
-      int j=0;
-      for( int i=0; i<ecols.length; i++ ) {
-        if( vecs[ecols[i]].isEnum() ) {
-          ecols[j] = ecols[i];
-          ds[j] = ds[i];
-          for( int l=0; l<emaps.length; l++ ) 
-            if( emaps[l] != null ) 
-              emaps[l].map[j] = emaps[l].map[i];
-          j++;
+      // The slices and remaps are temporary, even if unifying fails
+      try {
+        ValueString[][] samples = new EnumSampleTask(mfpt._eKey, ecols, ENUM_SAMPLES_PER_NODE).doAllNodes()._samples;
+        ValueString[][] splitters = new ValueString[ecols.length][];
+        for( int k = 0; k < ecols.length; ++k )
+          splitters[k] = rangeSplitters(samples[k], nodes);
+        new EnumPartitionTask(mfpt._eKey, ecols, splitters, sliceKeys).doAllNodes();
+        ValueString[][][] ranges = new EnumMergeTask(ecols.length, sliceKeys).doAllNodes()._ranges;
+        final ValueString[][] ds = new ValueString[ecols.length][];
+        int[][] offsets = new int[nodes][ecols.length];
+        for( int k = 0; k < ecols.length; ++k ) {
+          int cnt = 0;
+          for( int p = 0; p < nodes; ++p ) { offsets[p][k] = cnt; cnt += ranges[p][k].length; }
+          if( cnt > Categorical.MAX_ENUM_SIZE )
+            throw new H2OParseException("Column contains over "+Categorical.MAX_ENUM_SIZE
+              +" unique values and exceeds limits.  Consider parsing this column as string values.");
+          ds[k] = new ValueString[cnt];
+          for( int p = 0; p < nodes; ++p )
+            System.arraycopy(ranges[p][k], 0, ds[k], offsets[p][k], ranges[p][k].length);
+          avs[ecols[k]].setDomain(ValueString.toString(ds[k]));
         }
+        ranges = null;
+        new EnumRemapTask(offsets, sliceKeys, remapKeys).doAllNodes();
+        job.update(0,"Compressing data.");
+        fr = new Frame(job.dest(), setup._column_names,AppendableVec.closeAll(avs));
+        Log.trace("Done closing all Vecs.");
+        // Some cols with enums lose their enum status (because they have more
+        // number chunks than enum chunks); these no longer need (or want) enum
+        // updating.
+        job.update(0,"Unifying categoricals across nodes.");
+        Vec[] vecs = fr.vecs();
+        int[] eidx = new int[ecols.length]; // Which of the ecols are still enums
+        int j=0;
+        for( int i=0; i<ecols.length; i++ )
+          if( vecs[ecols[i]].isEnum() )
+            eidx[j++] = i;
+        eidx = Arrays.copyOf(eidx, j);
+        // Update enums to the globally agreed numbering
+        Vec[] evecs = new Vec[j];
+        int[] dsizes = new int[j];  // Domain sizes, -1 for killed columns
+        for( int i = 0; i < evecs.length; ++i ) {
+          evecs[i] = vecs[ecols[eidx[i]]];
+          dsizes[i] = ds[eidx[i]] == null ? -1 : ds[eidx[i]].length;
+        }
+        if( j > 0 ) new EnumUpdateTask(dsizes, eidx, remapKeys, mfpt._chunk2Enum).doAll(evecs);
+      } finally {
+        Futures fs = new Futures();
+        for( Key[] ks : sliceKeys ) for( Key k : ks ) DKV.remove(k, fs);
+        for( Key[] ks : remapKeys ) for( Key k : ks ) DKV.remove(k, fs);
+        fs.blockForPending();
       }
-      // Update enums to the globally agreed numbering
-      Vec[] evecs = new Vec[j];
-      for( int i = 0; i < evecs.length; ++i ) evecs[i] = fr.vecs()[ecols[i]];
-      new EnumUpdateTask(ds, emaps, mfpt._chunk2Enum).doAll(evecs);
       Log.trace("Done unifying categoricals across nodes.");
 
     } else {                    // No enums case
@@ -309,29 +305,59 @@ public final class ParseDataset extends Job<Frame> {
   /** Task to update enum (categorical) values to match the global numbering scheme.
    *  Performs update in place so that values originally numbered using
    *  node-local unordered numbering will be numbered using global numbering.
+   *  Each node only builds the remap arrays of the nodes which parsed its
+   *  chunks (usually just itself).
    *  @author tomasnykodym
    */
   private static class EnumUpdateTask extends MRTask<EnumUpdateTask> {
-    private final ValueString [][] _gDomain;
-    private final EnumMapping [] _emaps;
+    private final int [] _domainSizes;  // Size of each global domain, -1 if killed
+    private final int [] _eidx;         // Index of each updated column in the remaps
+    private final Key [][] _remapKeys;
     private final int  [] _chunk2Enum;
-    private EnumUpdateTask(ValueString [][] gDomain, EnumMapping [] emaps, int [] chunk2Enum) {
-      _gDomain = gDomain; _emaps = emaps; _chunk2Enum = chunk2Enum;
+    private transient int[][][] _emaps; // Per parsing node, per column: local id -> global id
+    private EnumUpdateTask(int[] domainSizes, int[] eidx, Key[][] remapKeys, int [] chunk2Enum) {
+      _domainSizes = domainSizes; _eidx = eidx; _remapKeys = remapKeys; _chunk2Enum = chunk2Enum;
+    }
+    @Override public void setupLocal() {
+      _emaps = new int[_remapKeys.length][][];
+      Vec v0 = _fr.anyVec();
+      for( int cidx = 0; cidx < v0.nChunks(); ++cidx ) {
+        if( !v0.chunkKey(cidx).home() ) continue;
+        int nodeId = _chunk2Enum[cidx];
+        if( _emaps[nodeId] == null ) _emaps[nodeId] = emap(nodeId);
+      }
+    }
+    // Assemble the remap of the given parsing node from its per-range pieces
+    private int[][] emap(int nodeId) {
+      Key[] ks = _remapKeys[nodeId];
+      EnumLevels[] rs = new EnumLevels[ks.length];
+      for( int p = 0; p < ks.length; ++p ) rs[p] = DKV.getGet(ks[p]);
+      int[][] emap = new int[_eidx.length][];
+      for( int i = 0; i < _eidx.length; ++i ) {
+        int k = _eidx[i], maxid = 0;
+        for( EnumLevels r : rs )
+          for( int id : r._ids[k] ) maxid = Math.max(maxid, id);
+        emap[i] = MemoryManager.malloc4(maxid + 1);
+        Arrays.fill(emap[i], -1);
+        for( EnumLevels r : rs )
+          for( int l = 0; l < r._ids[k].length; ++l )
+            emap[i][r._ids[k][l]] = r._gids[k][l];
+      }
+      return emap;
     }
-    private int[][] emap(int nodeId) {return _emaps[nodeId].map;}
     @Override public void map(Chunk [] chks){
-      int[][] emap = emap(_chunk2Enum[chks[0].cidx()]);
+      int[][] emap = _emaps[_chunk2Enum[chks[0].cidx()]];
       final int cidx = chks[0].cidx();
       for(int i = 0; i < chks.length; ++i) {
         Chunk chk = chks[i];
-        if(_gDomain[i] == null) // killed, replace with all NAs
+        if(_domainSizes[i] < 0) // killed, replace with all NAs
           DKV.put(chk.vec().chunkKey(chk.cidx()),new C0DChunk(Double.NaN,chk._len));
         else if (!(chk instanceof CStrChunk)) {
           for( int j = 0; j < chk._len; ++j){
             if( chk.isNA(j) )continue;
             long l = chk.at8(j);
             if (l < 0 || l >= emap[i].length)
-              chk.reportBrokenEnum(i, j, l, emap, _gDomain[i].length);
+              chk.reportBrokenEnum(i, j, l, emap, _domainSizes[i]);
             if(emap[i][(int)l] < 0)
               throw new RuntimeException(H2O.SELF.toString() + ": missing enum at col:" + i + ", line: " + (chk.start() + j) + ", val = " + l + ", chunk=" + chk.getClass().getSimpleName() + ", map = " + Arrays.toString(emap[i]));
             chk.set(j, emap[i][(int) l]);
@@ -343,51 +369,205 @@ public final class ParseDataset extends Job<Frame> {
   }
 
   // --------------------------------------------------------------------------
-  private static class EnumFetchTask extends MRTask<EnumFetchTask> {
+  // Unification of the node-local enum numberings.  Each node parses with its
+  // own Categorical per column, numbering levels as it meets them.  Rather
+  // than collecting every node's levels in one place, the levels are range
+  // partitioned across the nodes (splitters are picked from a sample of every
+  // node), every node sorts & numbers its own range in parallel, and the
+  // sorted ranges in node order make the global domain.  The ids of each
+  // node's levels go back to that node as compact remap arrays.
+
+  private static final int ENUM_SAMPLES_PER_NODE = 1024;
+
+  /** Enum levels of several columns, packed into one byte[]: level l of column
+   *  k is _bytes[_offs[k][l] .. _offs[k][l+1]).  _ids are the levels' ids on
+   *  the parsing node, _gids their global ids. */
+  private static class EnumLevels extends Iced {
+    byte[] _bytes;
+    int[][] _offs, _ids, _gids;
+    ValueString level(int k, int l) { return new ValueString(_bytes, _offs[k][l], _offs[k][l+1] - _offs[k][l]); }
+    int size(int k) { return _ids[k].length; }
+  }
+
+  /** Pick the levels splitting the sorted samples into nodes ranges of about
+   *  the same size; range p holds the levels in [splitter[p-1], splitter[p]). */
+  private static ValueString[] rangeSplitters(ValueString[] samples, int nodes) {
+    if( samples == null || samples.length == 0 ) return new ValueString[0];
+    Arrays.sort(samples);
+    ValueString[] splitters = new ValueString[nodes-1];
+    for( int p = 1; p < nodes; ++p )
+      splitters[p-1] = samples[(int)((long)p*samples.length/nodes)];
+    return splitters;
+  }
+  private static int range(ValueString[] splitters, ValueString vs) {
+    int lo = 0, hi = splitters.length; // Count the splitters <= vs
+    while( lo < hi ) {
+      int mid = (lo+hi) >>> 1;
+      if( splitters[mid].compareTo(vs) <= 0 ) lo = mid+1; else hi = mid;
+    }
+    return lo;
+  }
+
+  /** Sample the levels of each node's enum columns, to pick range splitters. */
+  private static class EnumSampleTask extends MRTask<EnumSampleTask> {
     private final Key _k;
     private final int[] _ecols;
-    private Categorical[] _gEnums;      // global enums per column
-    public Categorical[][] _lEnums;    // local enums per node per column
-    private EnumFetchTask(Key k, int[] ecols){_k = k;_ecols = ecols;}
+    private final int _nsamples;
+    ValueString[][] _samples;   // per enum column
+    private EnumSampleTask(Key k, int[] ecols, int nsamples) { _k = k; _ecols = ecols; _nsamples = nsamples; }
     @Override public void setupLocal() {
-      _lEnums = new Categorical[H2O.CLOUD.size()][];
-      if( !MultiFileParseTask._enums.containsKey(_k) ) return;
-      _lEnums[H2O.SELF.index()] = _gEnums = MultiFileParseTask._enums.get(_k);
-      // Null out any empty Enum structs; no need to ship these around.
-      for( int i=0; i<_gEnums.length; i++ )
-        if( _gEnums[i].size()==0 ) _gEnums[i] = null;
-
-      // if we are the original node (i.e. there will be no sending over wire),
-      // we have to clone the enums not to share the same object (causes
-      // problems when computing column domain and renumbering maps).
-//      if( H2O.SELF.index() == _homeNode ) {
-      // fixme: looks like need to clone even if not on home node in h2o-dev
-        _gEnums = _gEnums.clone();
-        for(int i = 0; i < _gEnums.length; ++i)
-          if( _gEnums[i] != null ) _gEnums[i] = _gEnums[i].deepCopy();
-//      }
-      MultiFileParseTask._enums.remove(_k);
-    }
-
-    @Override public void reduce(EnumFetchTask etk) {
-      if(_gEnums == null) {
-        _gEnums = etk._gEnums;
-        _lEnums = etk._lEnums;
-      } else if (etk._gEnums != null) {
-        for( int i : _ecols ) {
-          if( _gEnums[i] == null ) _gEnums[i] = etk._gEnums[i];
-          else if( etk._gEnums[i] != null ) {
-            _gEnums[i].merge(etk._gEnums[i]);
-            if (_gEnums[i].isMapFull())
-              throw new H2OParseException("Column contains over "+Categorical.MAX_ENUM_SIZE
+      _samples = new ValueString[_ecols.length][];
+      Categorical[] enums = MultiFileParseTask._enums.get(_k);
+      if( enums == null ) return;
+      for( int k = 0; k < _ecols.length; ++k ) {
+        Categorical e = enums[_ecols[k]];
+        if( e == null || e._map == null || e.size() == 0 ) continue;
+        int stride = Math.max(1, e.size() / _nsamples), i = 0;
+        ArrayList<ValueString> s = new ArrayList<>();
+        for( ValueString vs : e._map.keySet() )
+          if( i++ % stride == 0 ) s.add(new ValueString(vs));
+        _samples[k] = s.toArray(new ValueString[s.size()]);
+      }
+    }
+    @Override public void reduce(EnumSampleTask est) {
+      for( int k = 0; k < _samples.length; ++k )
+        if( _samples[k] == null ) _samples[k] = est._samples[k];
+        else if( est._samples[k] != null ) _samples[k] = ArrayUtils.append(_samples[k], est._samples[k]);
+    }
+  }
+
+  /** Send each node's levels (with their node-local ids) to the nodes owning
+   *  their ranges.  Frees the node-local Categoricals. */
+  private static class EnumPartitionTask extends MRTask<EnumPartitionTask> {
+    private final Key _k;
+    private final int[] _ecols;
+    private final ValueString[][] _splitters;
+    private final Key[][] _sliceKeys;
+    private EnumPartitionTask(Key k, int[] ecols, ValueString[][] splitters, Key[][] sliceKeys) {
+      _k = k; _ecols = ecols; _splitters = splitters; _sliceKeys = sliceKeys;
+    }
+    @Override public void setupLocal() {
+      final int nodes = _sliceKeys.length, nk = _ecols.length;
+      Categorical[] enums = MultiFileParseTask._enums.remove(_k);
+      if( enums != null )
+        for( int ecol : _ecols )
+          if( enums[ecol] != null && enums[ecol].isMapFull() )
+            throw new H2OParseException("Column contains over "+Categorical.MAX_ENUM_SIZE
               +" unique values and exceeds limits.  Consider parsing this column as string values.");
-          }
+      // Sizes first, then pack
+      int[][] cnt = new int[nodes][nk];
+      int[] nbytes = new int[nodes];
+      for( int k = 0; k < nk; ++k ) {
+        Categorical e = enums == null ? null : enums[_ecols[k]];
+        if( e == null || e._map == null ) continue;
+        for( ValueString vs : e._map.keySet() ) {
+          int p = range(_splitters[k], vs);
+          cnt[p][k]++;
+          nbytes[p] += vs.length();
+        }
+      }
+      EnumLevels[] slices = new EnumLevels[nodes];
+      for( int p = 0; p < nodes; ++p ) {
+        EnumLevels sl = slices[p] = new EnumLevels();
+        sl._bytes = MemoryManager.malloc1(nbytes[p]);
+        sl._offs = new int[nk][];
+        sl._ids = new int[nk][];
+        for( int k = 0; k < nk; ++k ) { sl._offs[k] = new int[cnt[p][k]+1]; sl._ids[k] = new int[cnt[p][k]]; }
+      }
+      int[][] pos = new int[nodes][nk];
+      int[] bpos = new int[nodes];
+      for( int k = 0; k < nk; ++k ) {
+        Categorical e = enums == null ? null : enums[_ecols[k]];
+        if( e == null || e._map == null ) continue;
+        for( java.util.Map.Entry<ValueString,Integer> en : e._map.entrySet() ) {
+          ValueString vs = en.getKey();
+          int p = range(_splitters[k], vs);
+          EnumLevels sl = slices[p];
+          int l = pos[p][k]++;
+          System.arraycopy(vs.getBuffer(), vs.getOffset(), sl._bytes, bpos[p], vs.length());
+          sl._offs[k][l] = bpos[p];
+          sl._ids[k][l] = en.getValue();
+          bpos[p] += vs.length();
+          sl._offs[k][l+1] = bpos[p];
+        }
+      }
+      final int me = H2O.SELF.index();
+      Futures fs = new Futures();
+      for( int p = 0; p < nodes; ++p ) DKV.put(_sliceKeys[me][p], slices[p], fs);
+      fs.blockForPending();
+    }
+    @Override public void reduce(EnumPartitionTask ept) { }
+  }
+
+  /** Sort & number the levels of the local range, from all nodes' slices.
+   *  Returns the sorted levels of all the ranges. */
+  private static class EnumMergeTask extends MRTask<EnumMergeTask> {
+    private final int _nk;
+    private final Key[][] _sliceKeys;
+    ValueString[][][] _ranges;  // [range][column][level]
+    private EnumMergeTask(int nk, Key[][] sliceKeys) { _nk = nk; _sliceKeys = sliceKeys; }
+    @Override public void setupLocal() {
+      final int nodes = _sliceKeys.length, me = H2O.SELF.index();
+      EnumLevels[] slices = new EnumLevels[nodes];
+      for( int j = 0; j < nodes; ++j ) {
+        slices[j] = DKV.getGet(_sliceKeys[j][me]);
+        slices[j]._gids = new int[_nk][];
+      }
+      ValueString[][] mine = new ValueString[_nk][];
+      for( int k = 0; k < _nk; ++k ) {
+        int n = 0;
+        for( EnumLevels sl : slices ) n += sl.size(k);
+        ValueString[] all = new ValueString[n];
+        n = 0;
+        for( EnumLevels sl : slices )
+          for( int l = 0; l < sl.size(k); ++l ) all[n++] = sl.level(k, l);
+        Arrays.sort(all);
+        int u = 0;              // Unique, compacted copies of the levels
+        for( int i = 0; i < n; ++i )
+          if( u == 0 || all[u-1].compareTo(all[i]) != 0 ) all[u++] = new ValueString(all[i]);
+        mine[k] = Arrays.copyOf(all, u);
+        for( EnumLevels sl : slices ) {
+          int[] gids = sl._gids[k] = new int[sl.size(k)];
+          for( int l = 0; l < gids.length; ++l )
+            gids[l] = Arrays.binarySearch(mine[k], sl.level(k, l));
         }
-        for( int i = 0; i < _lEnums.length; ++i )
-          if( _lEnums[i] == null ) _lEnums[i] = etk._lEnums[i];
-          else assert etk._lEnums[i] == null;
       }
+      Futures fs = new Futures();
+      for( int j = 0; j < nodes; ++j ) DKV.put(_sliceKeys[j][me], slices[j], fs);
+      fs.blockForPending();
+      _ranges = new ValueString[nodes][][];
+      _ranges[me] = mine;
+    }
+    @Override public void reduce(EnumMergeTask emt) {
+      for( int p = 0; p < _ranges.length; ++p )
+        if( _ranges[p] == null ) _ranges[p] = emt._ranges[p];
+    }
+  }
+
+  /** Offset the range-local numbers into global ids, and send each node the
+   *  remap of its levels; the levels themselves are not sent back. */
+  private static class EnumRemapTask extends MRTask<EnumRemapTask> {
+    private final int[][] _offsets;     // [range][column]
+    private final Key[][] _sliceKeys, _remapKeys;
+    private EnumRemapTask(int[][] offsets, Key[][] sliceKeys, Key[][] remapKeys) {
+      _offsets = offsets; _sliceKeys = sliceKeys; _remapKeys = remapKeys;
+    }
+    @Override public void setupLocal() {
+      final int nodes = _sliceKeys.length, me = H2O.SELF.index();
+      Futures fs = new Futures();
+      for( int j = 0; j < nodes; ++j ) {
+        EnumLevels sl = DKV.getGet(_sliceKeys[j][me]);
+        EnumLevels remap = new EnumLevels();
+        remap._ids = sl._ids;
+        remap._gids = sl._gids;
+        for( int k = 0; k < remap._gids.length; ++k )
+          for( int l = 0; l < remap._gids[k].length; ++l ) remap._gids[k][l] += _offsets[me][k];
+        DKV.put(_remapKeys[j][me], remap, fs);
+        DKV.remove(_sliceKeys[j][me], fs);
+      }
+      fs.blockForPending();
     }
+    @Override public void reduce(EnumRemapTask ert) { }
   }
 
   // --------------------------------------------------------------------------
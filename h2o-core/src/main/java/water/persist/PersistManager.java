@@ -6,6 +6,7 @@ import water.Value;
 import water.exceptions.H2OIllegalArgumentException;
 import water.fvec.UploadFileVec;
 import water.util.Log;
+import water.util.Metrics;
 import water.persist.Persist.PersistEntry;
 
 import java.io.*;
@@ -129,7 +130,10 @@ public class PersistManager {
 
   public void store(int backend, Value v) {
     stats[backend].store_count.incrementAndGet();
+    long t0 = System.nanoTime();
     I[backend].store(v);
+    Metrics.PERSIST_STORE_SECONDS.get(backendName(backend)).record(System.nanoTime()-t0);
+    Metrics.PERSIST_STORE_BYTES.get(backendName(backend)).add(v._max);
   }
 
   public void delete(int backend, Value v) {
@@ -139,11 +143,24 @@ public class PersistManager {
 
   public byte[] load(int backend, Value v) throws IOException {
     stats[backend].load_count.incrementAndGet();
+    long t0 = System.nanoTime();
     byte[] arr = I[backend].load(v);
+    Metrics.PERSIST_LOAD_SECONDS.get(backendName(backend)).record(System.nanoTime()-t0);
     stats[backend].load_bytes.addAndGet(arr.length);
+    Metrics.PERSIST_LOAD_BYTES.get(backendName(backend)).add(arr.length);
     return arr;
   }
 
+  private static String backendName(int backend) {
+    switch( backend ) {
+    case Value.ICE : return "ice";
+    case Value.HDFS: return "hdfs";
+    case Value.S3  : return "s3";
+    case Value.NFS : return "nfs";
+    default: return Integer.toString(backend);
+    }
+  }
+
   /** Get the current Persist flavor for user-mode swapping. */
   public Persist getIce() { return I[Value.ICE]; }
 
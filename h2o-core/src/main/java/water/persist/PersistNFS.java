@@ -2,12 +2,17 @@ package water.persist;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import water.*;
 import water.exceptions.H2ONotFoundArgumentException;
 import water.fvec.NFSFileVec;
+import water.nbhm.NonBlockingHashMap;
 import water.util.FileIntegrityChecker;
 import water.util.Log;
 
@@ -31,7 +36,7 @@ public final class PersistNFS extends Persist {
 
   // Returns the file for given key.
   private static File getFileForKey(Key k) {
-    final int off = k._kb[0] == Key.CHK ? water.fvec.Vec.KEY_PREFIX_LEN : 0;
+    final int off = k._kb[0] == Key.CHK || k._kb[0] == Key.VEC ? water.fvec.Vec.KEY_PREFIX_LEN : 0;
     assert new String(k._kb, off, KEY_PREFIX_LENGTH).equals(KEY_PREFIX) : "Not an NFS key: " + k;
     String s = new String(k._kb, KEY_PREFIX_LENGTH + off, k._kb.length - (KEY_PREFIX_LENGTH + off));
     return new File(s);
@@ -52,6 +57,19 @@ public final class PersistNFS extends Persist {
     // Convert a file chunk into a long-offset from the base file.
     Key k = v._key;
     long skip = k.isChunkKey() ? water.fvec.NFSFileVec.chunkOffset(k) : 0;
+    if( MMAP ) {
+      MappedFile mf = null;
+      try {
+        mf = MappedFile.get(getFileForKey(k));
+        byte[] b = mf.read(skip, v._max);
+        if( b != null ) return b;
+      } catch( IOException e ) { // e.g. out of address space; fall back to reading the file
+        Log.debug("[h2o] Problem ignored, mmap failed: "+e.toString());
+      } catch( InternalError e ) { // SIGBUS: the file was truncated under the mapping
+        Log.debug("[h2o] Problem ignored, mmap read faulted: "+e.toString());
+        mf.forget();
+      }
+    }
     try {
       FileInputStream s = null;
       try {
@@ -71,6 +89,138 @@ public final class PersistNFS extends Persist {
     }
   }
 
+  // Memory-mapped loads ------------------------------------------------------
+
+  /** Load file chunks by copying out of memory-mapped segments of the file,
+   *  mapped once per node, rather than opening, seeking and reading the file
+   *  through an AutoBuffer for every chunk. */
+  public static boolean MMAP = true;
+
+  /** Most files kept mapped per node; past that, mappings are dropped. */
+  public static int MAX_MAPPED_FILES = 64;
+
+  /** Drop this node's mapping of the file of the given NFS Vec or chunk Key. */
+  public static void unmap(Key k) {
+    MappedFile.FILES.remove(getFileForKey(k).getAbsolutePath());
+  }
+
+  /** A file mapped in segments of up to SEGMENT bytes (a single mapping is
+   *  limited to 2G).  Segments are mapped as first touched and dropped by GC
+   *  along with the MappedFile: when the file changes on disk, when its Vec
+   *  is removed, or when more than MAX_MAPPED_FILES files are mapped. */
+  private static final class MappedFile {
+    static final int SEGMENT = 1<<30;
+    private static final NonBlockingHashMap<String,MappedFile> FILES = new NonBlockingHashMap<>();
+
+    final File _f;
+    final long _len, _lastModified;
+    private final MappedByteBuffer[] _segs;
+    private final AtomicLong _ahead = new AtomicLong(); // End of the last region asked to read ahead
+
+    private MappedFile(File f) {
+      _f = f;
+      _len = f.length();
+      _lastModified = f.lastModified();
+      _segs = new MappedByteBuffer[(int)((_len + SEGMENT - 1) / SEGMENT)];
+    }
+
+    static MappedFile get(File f) {
+      String path = f.getAbsolutePath();
+      MappedFile mf = FILES.get(path);
+      if( mf == null || mf._len != f.length() || mf._lastModified != f.lastModified() ) {
+        MappedFile nmf = new MappedFile(f);
+        if( mf == null ? FILES.putIfAbsent(path, nmf) == null : FILES.replace(path, mf, nmf) ) mf = nmf;
+        else mf = FILES.get(path);
+        // Over the limit: drop other mappings; readers holding them finish unharmed
+        for( String p : FILES.keySet() ) {
+          if( FILES.size() <= MAX_MAPPED_FILES ) break;
+          if( !p.equals(path) ) FILES.remove(p);
+        }
+      }
+      return mf;
+    }
+
+    /** Drop this mapping, e.g. after it faulted; the next read maps the file again. */
+    void forget() { FILES.remove(_f.getAbsolutePath(), this); }
+
+    private MappedByteBuffer seg(int i) throws IOException {
+      MappedByteBuffer seg = _segs[i];
+      if( seg != null ) return seg;
+      synchronized( this ) {
+        if( (seg = _segs[i]) != null ) return seg;
+        try( RandomAccessFile raf = new RandomAccessFile(_f, "r") ) {
+          long off = (long)i * SEGMENT;
+          seg = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, off, Math.min(SEGMENT, _len - off));
+        }
+        return _segs[i] = seg;
+      }
+    }
+
+    /** Copy len bytes from off, or null if the file is shorter.  Asks for the
+     *  same amount of bytes after them to be read ahead, since chunks of a
+     *  file are mostly loaded in order (e.g. by a parse). */
+    byte[] read(long off, int len) throws IOException {
+      if( off + len > _len ) return null;
+      byte[] b = MemoryManager.malloc1(len);
+      copy(off, b, 0, len);
+      long ahead = _ahead.get(), end = Math.min(off + 2L*len, _len);
+      if( end > ahead && off + len >= ahead && _ahead.compareAndSet(ahead, end) )
+        ReadAhead.request(this, off + len, end);
+      return b;
+    }
+
+    private void copy(long off, byte[] b, int boff, int len) throws IOException {
+      while( len > 0 ) {        // A chunk may span segments
+        int i = (int)(off / SEGMENT), soff = (int)(off % SEGMENT);
+        ByteBuffer bb = seg(i).duplicate(); // Own position, shared mapping
+        int n = Math.min(len, bb.capacity() - soff);
+        bb.position(soff);
+        bb.get(b, boff, n);
+        off += n; boff += n; len -= n;
+      }
+    }
+
+    /** Fault in the pages of [off,end), touching a byte per page. */
+    int touch(long off, long end) throws IOException {
+      int sum = 0;
+      for( long p = off; p < end; p += 4096 )
+        sum += seg((int)(p / SEGMENT)).get((int)(p % SEGMENT));
+      return sum;
+    }
+  }
+
+  /** Reads ahead (faults in pages of) mapped file regions in the background,
+   *  standing in for an madvise(SEQUENTIAL) hint, which java does not have.
+   *  Requests are dropped when it falls behind. */
+  private static final class ReadAhead extends Thread {
+    private static ReadAhead THREAD;
+    private final ArrayBlockingQueue<Object[]> _q = new ArrayBlockingQueue<>(16);
+    static volatile int SINK;   // Keeps the page touches from being optimized away
+
+    private ReadAhead() {
+      super("NFS-ReadAhead");
+      setDaemon(true);
+      setPriority(MIN_PRIORITY);
+    }
+
+    static synchronized void request(MappedFile mf, long off, long end) {
+      if( THREAD == null ) (THREAD = new ReadAhead()).start();
+      THREAD._q.offer(new Object[]{mf, off, end});
+    }
+
+    @Override public void run() {
+      while( true ) {
+        try {
+          Object[] r = _q.take();
+          SINK += ((MappedFile)r[0]).touch((Long)r[1], (Long)r[2]);
+        } catch( InterruptedException ignore ) {
+        } catch( IOException | InternalError e ) { // InternalError: SIGBUS of a truncated file
+          Log.debug("[h2o] Problem ignored, read ahead failed: "+e.toString());
+        }
+      }
+    }
+  }
+
   @Override
   public void store(Value v) {
     // Only the home node does persistence on NFS
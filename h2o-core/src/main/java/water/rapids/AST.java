@@ -34,7 +34,9 @@ abstract public class AST extends Iced {
 
     // First check if we're a top-level node of type astop
     if (this instanceof ASTOp) {
-      if (this instanceof ASTBinOp) {
+      if (Exec.FUSE && Fused.isRoot(this)) {
+        Fused.treeWalk(this, e);
+      } else if (this instanceof ASTBinOp) {
 
         // Exec the right branch
         _asts[1].treeWalk(e);
@@ -204,16 +204,16 @@ import java.util.concurrent.atomic.AtomicInteger;
     T get(T g) { return _g.get(g); }
     int size() { return _g.size(); }
     @Override public AutoBuffer write_impl( AutoBuffer ab ) {
-      if( _g == null ) return ab.put4(0);
-      ab.put4(_g.size());
-      for( T g: _g ) ab.put(g);
-      return ab;
+      if( _g == null || _g.size()==0 ) return ab.put4(0);
+      // One array: a single type id, and the Gs a field at a time
+      Iced[] gs = _g.toArray(new Iced[_g.size()]);
+      return ab.put4(gs.length).putA(gs);
     }
     @Override public IcedNBHS read_impl(AutoBuffer ab) {
       int len = ab.get4();
       if( len == 0 ) return this;
       _g = new NonBlockingHashSet<>();
-      for( int i=0;i<len;++i) _g.add((T)ab.get());
+      for( Iced g : ab.getA(Iced.class) ) if( g != null ) _g.add((T)g);
       return this;
     }
     @Override public Iterator<T> iterator() {return _g.iterator(); }
@@ -232,17 +232,18 @@ import java.util.concurrent.atomic.AtomicInteger;
     G getk(G g) { return _m.getk(g); }
     @Override public AutoBuffer write_impl(AutoBuffer ab) {
       if( _m==null || _m.size()==0 ) return ab.put4(0);
-      else {
-        ab.put4(_m.size());
-        for(G g:_m.keySet()) { ab.put(g); ab.putStr(_m.get(g)); }
-      }
-      return ab;
+      // A column of keys, then one of values
+      Iced[] gs = _m.keySet().toArray(new Iced[_m.size()]);
+      String[] vs = new String[gs.length];
+      for( int i=0;i<gs.length;++i ) if( gs[i]!=null ) vs[i] = _m.get(gs[i]);
+      return ab.put4(gs.length).putA(gs).putAStr(vs);
     }
     @Override public IcedHM read_impl(AutoBuffer ab) {
-      int mLen;
-      if( (mLen=ab.get4())!=0 ) {
+      if( ab.get4()!=0 ) {
         _m = new NonBlockingHashMap<>();
-        for( int i=0;i<mLen;++i ) _m.put((G)ab.get(), ab.getStr());
+        Iced[] gs = ab.getA(Iced.class);
+        String[] vs = ab.getAStr();
+        for( int i=0;i<gs.length;++i ) if( gs[i]!=null ) _m.put((G)gs[i], vs[i]);
       }
       return this;
     }
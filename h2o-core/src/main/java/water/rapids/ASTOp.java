@@ -20,6 +20,7 @@ import water.nbhm.UtilUnsafe;
 import water.parser.ParseTime;
 import water.parser.ValueString;
 import water.util.ArrayUtils;
+import water.util.IcedLongLongMap;
 import water.util.Log;
 import water.util.MathUtils;
 
@@ -242,6 +243,9 @@ public abstract class ASTOp extends AST {
     putPrefix(new ASTToLower());
     putPrefix(new ASTToUpper());
     putPrefix(new ASTTrim());
+    putPrefix(new ASTNChar());
+    putPrefix(new ASTStrHash());
+    putPrefix(new ASTSubstring());
 
     putPrefix(new ASTFilterNACols());
     putPrefix(new ASTSetDomain());
@@ -3655,69 +3659,28 @@ class ASTTable extends ASTUniPrefixOp {
     String[][] d = new String[ncol+1][];
 
     if (ncol == 1 && fr.anyVec().isInt()) {  // fast path for int vecs
-      final int min = (int) fr.anyVec().min();
-      final int max = (int) fr.anyVec().max();
       colnames = new String[]{fr.name(0), "Count"};
       d[0] = fr.anyVec().domain(); // should always be null for all neg values!
       d[1] = null;
-
-      // all pos
-      if (min >= 0) {
-        UniqueColumnCountTask t = new UniqueColumnCountTask(max, false, false, 0).doAll(fr.anyVec());
-        final long[] cts = t._cts;
-        dataLayoutVec = Vec.makeCon(0, cts.length);
-
-        // second pass to build the result frame
-        fr2 = new MRTask() {
-          @Override
-          public void map(Chunk[] c, NewChunk[] cs) {
-            for (int i = 0; i < c[0]._len; ++i) {
-              int idx = (int) (i + c[0].start());
-              if (cts[idx] == 0) continue;
-              cs[0].addNum(idx);
-              cs[1].addNum(cts[idx]);
-            }
-          }
-        }.doAll(2, dataLayoutVec).outputFrame(colnames, d);
-
-        // all neg  -- flip the sign and count...
-      } else if (min <= 0 && max <= 0) {
-        UniqueColumnCountTask t = new UniqueColumnCountTask(-1 * min, true, false, 0).doAll(fr.anyVec());
-        final long[] cts = t._cts;
-        dataLayoutVec = Vec.makeCon(0, cts.length);
-
-        // second pass to build the result frame
-        fr2 = new MRTask() {
-          @Override
-          public void map(Chunk[] c, NewChunk[] cs) {
-            for (int i = 0; i < c[0]._len; ++i) {
-              int idx = (int) (i + c[0].start());
-              if (cts[idx] == 0) continue;
-              cs[0].addNum(idx * -1);
-              cs[1].addNum(cts[idx]);
-            }
-          }
-        }.doAll(2, dataLayoutVec).outputFrame(colnames, d);
-
-        // mixed
-      } else {
-        UniqueColumnCountTask t = new UniqueColumnCountTask(max + -1 * min, false, true, max).doAll(fr.anyVec()); // pivot around max value... vals > max are negative
-        final long[] cts = t._cts;
-        dataLayoutVec = Vec.makeCon(0, cts.length);
-
-        // second pass to build the result frame
-        fr2 = new MRTask() {
-          @Override
-          public void map(Chunk[] c, NewChunk[] cs) {
-            for (int i = 0; i < c[0]._len; ++i) {
-              int idx = (int) (i + c[0].start());
-              if (cts[idx] == 0) continue;
-              cs[0].addNum(idx > max ? (idx - max) * -1 : idx);
-              cs[1].addNum(cts[idx]);
-            }
-          }
-        }.doAll(2, dataLayoutVec).outputFrame(colnames, d);
+      UniqueColumnCountTask t = new UniqueColumnCountTask((long)fr.anyVec().min(), (long)fr.anyVec().max()).doAll(fr.anyVec());
+      fr2 = table(new long[][]{t._vals}, t._cnts, colnames, d);
+      dataLayoutVec = null;
+    } else if (ncol == 2 && intPairs(fr)) { // fast path for two int vecs
+      colnames = new String[]{fr.name(0), fr.name(1), "count"};
+      d[0] = fr.vec(0).domain();
+      d[1] = fr.vec(1).domain();
+      IcedLongLongMap m = new UniquePairCountTask().doAll(fr)._cnts;
+      long[] keys = m.keys();
+      Arrays.sort(keys); // by the first value, then the second; NAs first
+      long[] as = new long[keys.length], bs = new long[keys.length], cnts = new long[keys.length];
+      for (int i = 0; i < keys.length; ++i) {
+        int a = (int)(keys[i] >> 32), b = (int)keys[i] ^ Integer.MIN_VALUE;
+        as[i] = a == NA_INT ? NA_LONG : a;
+        bs[i] = b == NA_INT ? NA_LONG : b;
+        cnts[i] = m.get(keys[i], 0);
       }
+      fr2 = table(new long[][]{as, bs}, cnts, colnames, d);
+      dataLayoutVec = null;
     } else {
       // Build a NBHS of all groups
       // Create a dense array (1 index per group) of counts, updated atomically
@@ -3758,43 +3721,108 @@ class ASTTable extends ASTUniPrefixOp {
         }
       }.doAll(ncol + 1, dataLayoutVec).outputFrame(colnames, d);
     }
-    Keyed.remove(dataLayoutVec._key);
+    if (dataLayoutVec != null) Keyed.remove(dataLayoutVec._key);
     env.pushAry(fr2);
   }
 
+  // Markers for NA: ints in packed pairs, and longs in the table
+  private static final int NA_INT = Integer.MIN_VALUE;
+  private static final long NA_LONG = Long.MIN_VALUE;
+
+  // Two int vecs whose values fit a packed pair (leaving room for NA_INT)
+  private static boolean intPairs(Frame fr) {
+    for (Vec v : fr.vecs())
+      if (!v.isInt() || v.min() <= NA_INT || v.max() > Integer.MAX_VALUE) return false;
+    return true;
+  }
+
+  // The table frame: a row per distinct value (or pair of values) and its count
+  private static Frame table(final long[][] vals, final long[] cnts, String[] colnames, String[][] domains) {
+    Vec layout = Vec.makeCon(0, Math.max(cnts.length, 1));
+    Frame fr = new MRTask() {
+      @Override
+      public void map(Chunk[] c, NewChunk[] cs) {
+        int start = (int)c[0].start();
+        for (int i = 0; i < c[0]._len; ++i) {
+          int row = i + start;
+          if (row >= cnts.length) continue;
+          for (int j = 0; j < vals.length; ++j)
+            if (vals[j][row] == NA_LONG) cs[j].addNA();
+            else cs[j].addNum(vals[j][row], 0);
+          cs[vals.length].addNum(cnts[row], 0);
+        }
+      }
+    }.doAll(vals.length + 1, layout).outputFrame(colnames, domains);
+    Keyed.remove(layout._key);
+    return fr;
+  }
+
   // gets vast majority of cases and is stupidly fast (35x faster than using UniqueTwoColumnTask)
+  // Dense counts when the range of values is small, else a primitive hash map:
+  // wide or sparse ranges no longer allocate a range-sized array per chunk.
   public static class UniqueColumnCountTask extends MRTask<UniqueColumnCountTask> {
-    long[] _cts;
-    final int _max;
-    final boolean _flip;
-    final boolean _mixed;
-    final int _piv;
-    public UniqueColumnCountTask(int max, boolean flip, boolean mixed, int piv) { _max = max; _flip = flip; _mixed = mixed; _piv = piv; }
+    static final int DENSE_MAX = 1<<16; // Max range of values counted in an array
+    final long _min, _max;
+    long[] _cts;                // Dense: counts of the values from _min
+    IcedLongLongMap _map;       // Sparse: counts of the values
+    // out
+    long[] _vals, _cnts;        // Distinct values, sorted, and their counts
+    public UniqueColumnCountTask(long min, long max) { _min = min; _max = max; }
+    private boolean dense() { return (double)_max - _min < DENSE_MAX; }
     @Override public void map( Chunk c ) {
-      _cts = MemoryManager.malloc8(_max+1);
-      // choose the right hot loop
-      if (_flip) {
-        for (int i = 0; i < c._len; ++i) {
-          if (c.isNA(i)) continue;
-          int val = (int) (-1 * c.at8(i));
-          _cts[val]++;
-        }
-      } else if (_mixed) {
-        for (int i = 0; i < c._len; ++i) {
-          if (c.isNA(i)) continue;
-          int val = (int) (c.at8(i));
-          int idx = val < 0 ? -1*val + _piv : val;
-          _cts[idx]++;
-        }
+      if (dense()) {
+        _cts = MemoryManager.malloc8((int)(_max - _min) + 1);
+        for (int i = 0; i < c._len; ++i)
+          if (!c.isNA(i)) _cts[(int)(c.at8(i) - _min)]++;
       } else {
-        for (int i = 0; i < c._len; ++i) {
-          if (c.isNA(i)) continue;
-          int val = (int) (c.at8(i));
-          _cts[val]++;
-        }
+        _map = new IcedLongLongMap();
+        for (int i = 0; i < c._len; ++i)
+          if (!c.isNA(i)) _map.add(c.at8(i), 1);
       }
     }
-    @Override public void reduce(UniqueColumnCountTask t) { ArrayUtils.add(_cts, t._cts); }
+    @Override public void reduce(UniqueColumnCountTask t) {
+      if (_cts != null) ArrayUtils.add(_cts, t._cts);
+      else _map = merge(_map, t._map);
+    }
+    @Override public void postGlobal() {
+      if (_cts != null) {
+        int n = 0;
+        for (long ct : _cts) if (ct != 0) n++;
+        _vals = new long[n]; _cnts = new long[n];
+        for (int i = 0, j = 0; i < _cts.length; ++i)
+          if (_cts[i] != 0) { _vals[j] = _min + i; _cnts[j++] = _cts[i]; }
+        _cts = null;
+      } else {
+        _vals = _map.keys();
+        Arrays.sort(_vals);
+        _cnts = new long[_vals.length];
+        for (int i = 0; i < _vals.length; ++i) _cnts[i] = _map.get(_vals[i], 0);
+        _map = null;
+      }
+    }
+  }
+
+  // Counts of the distinct pairs of values of two int columns, packed in a
+  // long: the first value on top, the second one below it - offset so the
+  // packed longs sort the way the pairs do
+  private static class UniquePairCountTask extends MRTask<UniquePairCountTask> {
+    IcedLongLongMap _cnts;
+    @Override public void map(Chunk a, Chunk b) {
+      _cnts = new IcedLongLongMap();
+      for (int i = 0; i < a._len; ++i) {
+        int x = a.isNA(i) ? NA_INT : (int)a.at8(i);
+        int y = b.isNA(i) ? NA_INT : (int)b.at8(i);
+        _cnts.add(((long)x << 32) | ((y ^ Integer.MIN_VALUE) & 0xFFFFFFFFL), 1);
+      }
+    }
+    @Override public void reduce(UniquePairCountTask t) { _cnts = merge(_cnts, t._cnts); }
+  }
+
+  // Sum two maps of counts, into the larger one
+  private static IcedLongLongMap merge(IcedLongLongMap m0, IcedLongLongMap m1) {
+    if (m0.size() < m1.size()) { IcedLongLongMap m = m0; m0 = m1; m1 = m; }
+    m0.addAll(m1);
+    return m0;
   }
 
   private static class Uniq2ColTsk extends MRTask<Uniq2ColTsk> {
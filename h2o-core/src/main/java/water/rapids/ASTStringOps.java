@@ -5,10 +5,289 @@ import water.MRTask;
 import water.fvec.Chunk;
 import water.fvec.Frame;
 import water.fvec.NewChunk;
+import water.parser.ValueString;
 
+import java.nio.charset.Charset;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Byte-level kernels for string (T_STR) columns.
+ *
+ *  The string mungers below only rewrite the domain of enum columns.  For
+ *  string columns they run these kernels instead: MRTasks working straight on
+ *  the UTF-8 bytes of the CStrChunks, reading rows through a recycled
+ *  ValueString and appending results to NewChunks, so no java String is made
+ *  per row.  Only rows with non-ASCII bytes go through String, for Unicode case
+ *  mapping and for regex matching (where char and byte offsets differ).
+ */
 public class ASTStringOps {
-  //merp
+  static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  static String utf8(byte[] b, int off, int len) { return new String(b, off, len, UTF_8); }
+
+  static boolean isAscii(byte[] b, int off, int len) {
+    for( int i = off; i < off+len; ++i ) if( b[i] < 0 ) return false;
+    return true;
+  }
+
+  /** ASCII case mapping of src into dst.  Returns false (with dst partially
+   *  written) on non-ASCII bytes, which need String's Unicode case mapping. */
+  static boolean caseMap(byte[] src, int off, int len, byte[] dst, boolean upper) {
+    for( int i = 0; i < len; ++i ) {
+      byte b = src[off+i];
+      if( b < 0 ) return false;
+      if( upper ? ('a' <= b && b <= 'z') : ('A' <= b && b <= 'Z') ) b ^= 0x20;
+      dst[i] = b;
+    }
+    return true;
+  }
+
+  /** Byte offset of the n-th char from off (or end), counting UTF-8 lead bytes. */
+  static int charOffset(byte[] b, int off, int end, int n) {
+    if( n <= 0 ) return off;
+    for( int i = off; i < end; ++i )
+      if( (b[i] & 0xC0) != 0x80 && n-- == 0 ) return i;
+    return end;
+  }
+
+  /** Number of chars in the string, counting UTF-8 lead bytes. */
+  static int nchar(ValueString s) {
+    byte[] b = s.getBuffer();
+    int n = 0;
+    for( int i = s.getOffset(); i < s.getOffset()+s.length(); ++i )
+      if( (b[i] & 0xC0) != 0x80 ) n++;
+    return n;
+  }
+
+  /** 32-bit FNV-1a over the bytes of the string. */
+  static int hash(ValueString s) {
+    byte[] b = s.getBuffer();
+    int h = 0x811c9dc5;
+    for( int i = s.getOffset(); i < s.getOffset()+s.length(); ++i ) {
+      h ^= b[i] & 0xFF;
+      h *= 0x01000193;
+    }
+    return h;
+  }
+
+  /** CharSequence view of ASCII bytes, so a Matcher runs on them in place. */
+  static final class AsciiSeq implements CharSequence {
+    private byte[] _b;
+    private int _off, _len;
+    AsciiSeq set(byte[] b, int off, int len) { _b = b; _off = off; _len = len; return this; }
+    @Override public int length() { return _len; }
+    @Override public char charAt(int i) { return (char)_b[_off+i]; }
+    @Override public CharSequence subSequence(int st, int end) { return utf8(_b, _off+st, end-st); }
+    @Override public String toString() { return utf8(_b, _off, _len); }
+  }
+
+  /** Rewrite one string column, row by row, into a new string column. */
+  abstract static class StrMapTask extends MRTask<StrMapTask> {
+    private transient ValueString _res; // Recycled view on the result bytes
+    private transient byte[] _buf;      // Scratch space for the result bytes
+    @Override public void map(Chunk c, NewChunk nc) {
+      ValueString vs = new ValueString();
+      _res = new ValueString();
+      _buf = new byte[64];
+      for( int i = 0; i < c._len; ++i )
+        if( c.isNA(i) ) nc.addStr((ValueString)null);
+        else rewrite(c.atStr(vs, i), nc);
+    }
+    abstract void rewrite(ValueString s, NewChunk nc);
+    final byte[] buf(int len) {
+      if( _buf.length < len ) _buf = Arrays.copyOf(_buf, Math.max(len, _buf.length<<1));
+      return _buf;
+    }
+    final void add(NewChunk nc, byte[] b, int off, int len) { nc.addStr(_res.set(b, off, len)); }
+    final void add(NewChunk nc, String s) { byte[] b = s.getBytes(UTF_8); add(nc, b, 0, b.length); }
+    final Frame doIt(Frame fr) { return doAll(1, fr).outputFrame(fr.names(), null); }
+  }
+
+  static class CaseTask extends StrMapTask {
+    final boolean _upper;
+    CaseTask(boolean upper) { _upper = upper; }
+    @Override void rewrite(ValueString s, NewChunk nc) {
+      byte[] b = buf(s.length());
+      if( caseMap(s.getBuffer(), s.getOffset(), s.length(), b, _upper) ) add(nc, b, 0, s.length());
+      else {
+        String str = utf8(s.getBuffer(), s.getOffset(), s.length());
+        add(nc, _upper ? str.toUpperCase(Locale.ENGLISH) : str.toLowerCase(Locale.ENGLISH));
+      }
+    }
+  }
+
+  /** Same as String.trim: drops leading and trailing bytes <= ' ', which are never part of a multi-byte char. */
+  static class TrimTask extends StrMapTask {
+    @Override void rewrite(ValueString s, NewChunk nc) {
+      byte[] b = s.getBuffer();
+      int st = s.getOffset(), end = st + s.length();
+      while( st < end && (b[st]   & 0xFF) <= ' ' ) st++;
+      while( st < end && (b[end-1]& 0xFF) <= ' ' ) end--;
+      add(nc, b, st, end-st);
+    }
+  }
+
+  /** Chars first..last, 1-based and inclusive as in R's substring. */
+  static class SubstringTask extends StrMapTask {
+    final int _first, _last;
+    SubstringTask(int first, int last) { _first = first; _last = last; }
+    @Override void rewrite(ValueString s, NewChunk nc) {
+      byte[] b = s.getBuffer();
+      int end = s.getOffset() + s.length();
+      int st = charOffset(b, s.getOffset(), end, _first-1);
+      int en = charOffset(b, st, end, _last-Math.max(_first,1)+1);
+      add(nc, b, st, en-st);
+    }
+  }
+
+  /** sub/gsub.  With ignore.case the string is lower-cased first, as for enum columns. */
+  static class ReplaceTask extends StrMapTask {
+    final String _pattern, _replacement;
+    final boolean _all, _ignoreCase;
+    private transient Pattern _p;       // Compiled once per node; Patterns are thread safe
+    private transient byte[] _lit;      // UTF-8 replacement, if it has no group references
+    private transient Matcher _m;       // One per chunk, Matchers are not
+    private transient AsciiSeq _seq;
+    private transient byte[] _lc;
+    ReplaceTask(String pattern, String replacement, boolean all, boolean ignoreCase) {
+      _pattern = pattern; _replacement = replacement; _all = all; _ignoreCase = ignoreCase;
+    }
+    @Override protected void setupLocal() {
+      _p = Pattern.compile(_pattern);
+      _lit = _replacement.indexOf('$') == -1 && _replacement.indexOf('\\') == -1 ? _replacement.getBytes(UTF_8) : null;
+    }
+    @Override public void map(Chunk c, NewChunk nc) {
+      _m = _p.matcher("");
+      _seq = new AsciiSeq();
+      _lc = new byte[64];
+      super.map(c, nc);
+    }
+    @Override void rewrite(ValueString s, NewChunk nc) {
+      byte[] b = s.getBuffer();
+      int off = s.getOffset(), len = s.length();
+      if( _lit == null || !isAscii(b, off, len) ) {
+        String str = utf8(b, off, len);
+        _m.reset(_ignoreCase ? str.toLowerCase(Locale.ENGLISH) : str);
+        add(nc, _all ? _m.replaceAll(_replacement) : _m.replaceFirst(_replacement));
+        return;
+      }
+      if( _ignoreCase ) {
+        if( _lc.length < len ) _lc = new byte[Math.max(len, _lc.length<<1)];
+        caseMap(b, off, len, _lc, false);
+        b = _lc; off = 0;
+      }
+      _m.reset(_seq.set(b, off, len));
+      int n = 0, last = 0;
+      while( _m.find() ) {
+        int st = _m.start();
+        byte[] out = buf(n + st-last + _lit.length);
+        System.arraycopy(b, off+last, out, n, st-last);  n += st-last;
+        System.arraycopy(_lit, 0, out, n, _lit.length); n += _lit.length;
+        last = _m.end();
+        if( !_all ) break;
+      }
+      byte[] out = buf(n + len-last);
+      System.arraycopy(b, off+last, out, n, len-last);  n += len-last;
+      add(nc, out, 0, n);
+    }
+  }
+
+  /** Splits rows as String.split does, into byte ranges of the row (or
+   *  Strings, for rows with non-ASCII bytes). */
+  static final class Splitter {
+    private final Matcher _m;
+    private final AsciiSeq _seq = new AsciiSeq();
+    int[] _st = new int[8], _en = new int[8];
+    String[] _strs;
+    Splitter(Pattern p) { _m = p.matcher(""); }
+    int split(ValueString s) {
+      byte[] b = s.getBuffer();
+      int off = s.getOffset(), len = s.length();
+      if( !isAscii(b, off, len) ) {
+        _strs = _m.pattern().split(utf8(b, off, len));
+        return _strs.length;
+      }
+      _strs = null;
+      _m.reset(_seq.set(b, off, len));
+      int n = 0, idx = 0;
+      while( _m.find() ) {
+        if( _m.end() == 0 ) continue; // No leading empty field for a zero-width match
+        field(n++, off+idx, off+_m.start());
+        idx = _m.end();
+      }
+      field(n++, off+idx, off+len);
+      if( idx == 0 ) return 1;      // No match, the whole row
+      while( n > 0 && _st[n-1] == _en[n-1] ) n--; // Trailing empty fields are dropped
+      return n;
+    }
+    private void field(int i, int st, int en) {
+      if( i == _st.length ) { _st = Arrays.copyOf(_st, i<<1); _en = Arrays.copyOf(_en, i<<1); }
+      _st[i] = st; _en[i] = en;
+    }
+  }
+
+  /** Most fields in any row, i.e. the number of columns strsplit makes. */
+  static class SplitCountTask extends MRTask<SplitCountTask> {
+    final String _regex;
+    int _max;
+    private transient Pattern _p;       // Compiled once per node
+    SplitCountTask(String regex) { _regex = regex; }
+    @Override protected void setupLocal() { _p = Pattern.compile(_regex); }
+    @Override public void map(Chunk c) {
+      Splitter sp = new Splitter(_p);
+      ValueString vs = new ValueString();
+      for( int i = 0; i < c._len; ++i )
+        if( !c.isNA(i) ) _max = Math.max(_max, sp.split(c.atStr(vs, i)));
+    }
+    @Override public void reduce(SplitCountTask sct) { _max = Math.max(_max, sct._max); }
+  }
+
+  static class SplitTask extends MRTask<SplitTask> {
+    final String _regex;
+    private transient Pattern _p;       // Compiled once per node
+    SplitTask(String regex) { _regex = regex; }
+    @Override protected void setupLocal() { _p = Pattern.compile(_regex); }
+    @Override public void map(Chunk[] cs, NewChunk[] ncs) {
+      Splitter sp = new Splitter(_p);
+      ValueString vs = new ValueString(), res = new ValueString();
+      Chunk c = cs[0];
+      for( int i = 0; i < c._len; ++i ) {
+        int n = c.isNA(i) ? 0 : sp.split(c.atStr(vs, i));
+        for( int j = 0; j < ncs.length; ++j )
+          if( j >= n ) ncs[j].addStr((ValueString)null);
+          else if( sp._strs == null ) ncs[j].addStr(res.set(vs.getBuffer(), sp._st[j], sp._en[j]-sp._st[j]));
+          else { byte[] b = sp._strs[j].getBytes(UTF_8); ncs[j].addStr(res.set(b, 0, b.length)); }
+      }
+    }
+  }
+
+  /** Per-row char count, or hash (into buckets, if given), of a string column. */
+  static class StrNumTask extends MRTask<StrNumTask> {
+    final boolean _hash;
+    final int _buckets;
+    StrNumTask(boolean hash, int buckets) { _hash = hash; _buckets = buckets; }
+    @Override public void map(Chunk c, NewChunk nc) {
+      ValueString vs = new ValueString();
+      for( int i = 0; i < c._len; ++i ) {
+        if( c.isNA(i) ) { nc.addNA(); continue; }
+        ValueString s = c.atStr(vs, i);
+        if( !_hash ) nc.addNum(nchar(s), 0);
+        else {
+          int h = hash(s) & 0x7FFFFFFF;
+          nc.addNum(_buckets > 0 ? h % _buckets : h, 0);
+        }
+      }
+    }
+  }
+
+  static Frame strOnly(Env env, String op) {
+    if( !env.isAry() ) throw new IllegalArgumentException(op+" only operates on a single vector!");
+    Frame fr = env.popAry();
+    if( fr.numCols() != 1 || !fr.anyVec().isString() )
+      throw new IllegalArgumentException(op+" requires a single string column.");
+    return fr;
+  }
 }
 
 class ASTStrSplit extends ASTUniPrefixOp {
@@ -27,6 +306,11 @@ class ASTStrSplit extends ASTUniPrefixOp {
   @Override void apply(Env env) {
     Frame fr = env.popAry();
     if (fr.numCols() != 1) throw new IllegalArgumentException("strsplit requires a single column.");
+    if (fr.anyVec().isString()) {
+      int ncols = new ASTStringOps.SplitCountTask(_split).doAll(fr)._max;
+      env.pushAry(new ASTStringOps.SplitTask(_split).doAll(Math.max(ncols,1), fr).outputFrame());
+      return;
+    }
     final String[]   old_domains = fr.anyVec().domain();
     final String[][] new_domains = newDomains(old_domains, _split);
 
@@ -97,6 +381,7 @@ class ASTToLower extends ASTUniPrefixOp {
     if( !env.isAry() ) { throw new IllegalArgumentException("tolower only operates on a single vector!"); }
     Frame fr = env.popAry();
     if (fr.numCols() != 1) throw new IllegalArgumentException("tolower only takes a single column of data. Got "+ fr.numCols()+" columns.");
+    if (fr.anyVec().isString()) { env.pushAry(new ASTStringOps.CaseTask(false).doIt(fr)); return; }
     String[] dom = fr.anyVec().domain();
     for (int i = 0; i < dom.length; ++i)
       dom[i] = dom[i].toLowerCase(Locale.ENGLISH);
@@ -113,6 +398,7 @@ class ASTToUpper extends ASTUniPrefixOp {
     if( !env.isAry() ) { throw new IllegalArgumentException("toupper only operates on a single vector!"); }
     Frame fr = env.popAry();
     if (fr.numCols() != 1) throw new IllegalArgumentException("toupper only takes a single column of data. Got "+ fr.numCols()+" columns.");
+    if (fr.anyVec().isString()) { env.pushAry(new ASTStringOps.CaseTask(true).doIt(fr)); return; }
     String[] dom = fr.anyVec().domain();
     for (int i = 0; i < dom.length; ++i)
       dom[i] = dom[i].toUpperCase(Locale.ENGLISH);
@@ -143,6 +429,7 @@ class ASTStrSub extends ASTUniPrefixOp {
   @Override void apply(Env env) {
     Frame fr = env.popAry();
     if (fr.numCols() != 1) throw new IllegalArgumentException("sub works on a single column at a time.");
+    if (fr.anyVec().isString()) { env.pushAry(new ASTStringOps.ReplaceTask(_pattern, _replacement, false, _ignoreCase).doIt(fr)); return; }
     final String replacement = _replacement;
     final String pattern = _pattern;
     String[] doms = fr.anyVec().domain();
@@ -164,6 +451,7 @@ class ASTGSub extends ASTStrSub {
   @Override void apply(Env env) {
     Frame fr = env.popAry();
     if (fr.numCols() != 1) throw new IllegalArgumentException("sub works on a single column at a time.");
+    if (fr.anyVec().isString()) { env.pushAry(new ASTStringOps.ReplaceTask(_pattern, _replacement, true, _ignoreCase).doIt(fr)); return; }
     final String replacement = _replacement;
     final String pattern = _pattern;
     String[] doms = fr.anyVec().domain();
@@ -185,6 +473,7 @@ class ASTTrim extends ASTUniPrefixOp {
   @Override void apply(Env env) {
     Frame fr = env.popAry();
     if (fr.numCols() != 1) throw new IllegalArgumentException("trim works on a single column at a time.");
+    if (fr.anyVec().isString()) { env.pushAry(new ASTStringOps.TrimTask().doIt(fr)); return; }
     String[] doms = fr.anyVec().domain();
     for (int i = 0; i < doms.length; ++i) doms[i] = doms[i].trim();
     fr.anyVec().setDomain(doms);
@@ -192,6 +481,54 @@ class ASTTrim extends ASTUniPrefixOp {
     env.pushAry(fr);
   }
 }
+class ASTNChar extends ASTUniPrefixOp {
+  ASTNChar() { super(new String[]{"nchar","x"}); }
+  @Override String opStr() { return "nchar"; }
+  @Override ASTOp make() { return new ASTNChar(); }
+  @Override void apply(Env env) {
+    Frame fr = ASTStringOps.strOnly(env, "nchar");
+    env.pushAry(new ASTStringOps.StrNumTask(false, 0).doAll(1, fr).outputFrame(fr.names(), null));
+  }
+}
+
+class ASTStrHash extends ASTUniPrefixOp {
+  int _buckets;
+  ASTStrHash() { super(new String[]{"strhash","x","buckets"}); }
+  @Override String opStr() { return "strhash"; }
+  @Override ASTOp make() { return new ASTStrHash(); }
+  ASTStrHash parse_impl(Exec E) {
+    AST ary = E.parse();
+    _buckets = (int)E.nextDbl();
+    E.eatEnd();
+    ASTStrHash res = (ASTStrHash) clone();
+    res._asts = new AST[]{ary};
+    return res;
+  }
+  @Override void apply(Env env) {
+    Frame fr = ASTStringOps.strOnly(env, "strhash");
+    env.pushAry(new ASTStringOps.StrNumTask(true, _buckets).doAll(1, fr).outputFrame(fr.names(), null));
+  }
+}
+
+class ASTSubstring extends ASTUniPrefixOp {
+  int _first, _last;
+  ASTSubstring() { super(new String[]{"substring","x","first","last"}); }
+  @Override String opStr() { return "substring"; }
+  @Override ASTOp make() { return new ASTSubstring(); }
+  ASTSubstring parse_impl(Exec E) {
+    AST ary = E.parse();
+    _first = (int)E.nextDbl();
+    _last  = (int)E.nextDbl();
+    E.eatEnd();
+    ASTSubstring res = (ASTSubstring) clone();
+    res._asts = new AST[]{ary};
+    return res;
+  }
+  @Override void apply(Env env) {
+    Frame fr = ASTStringOps.strOnly(env, "substring");
+    env.pushAry(new ASTStringOps.SubstringTask(_first, _last).doIt(fr));
+  }
+}
 //
 //class ASTPaste extends ASTUniPrefixOp {
 //  ASTPaste() { super(); }
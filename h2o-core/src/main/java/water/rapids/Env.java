@@ -181,6 +181,17 @@ public class Env extends Iced {
   public void pop(int n) { for (int i = 0; i < n; ++i) pop(); }
   public void poppush(int n, Val v) { pop(n); push(v);}
   public Frame popAry () { return ((ValFrame)pop())._fr; }
+  /** Replace the n values sitting `above` slots below the top of the stack with v,
+   *  as if they were popped and v pushed in their place. */
+  void replace(int above, int n, Val v) {
+    if (v instanceof ValFrame) {
+      ValFrame f = (ValFrame)v;
+      if( !_isGlobal ) _local.put(Key.make().toString(), f._fr, false);
+      addRef(f);
+    }
+    _stack.replace(above, n, v);
+    clean();
+  }
   public double popDbl() { return ((ValNum)pop())._d;    }
   public String popStr() {
     Val v = pop();
@@ -582,6 +593,21 @@ public class Env extends Iced {
       return o;
     }
 
+    /**
+     * Replace `n` Objects, the top-most of which sits `above` slots below the top of the stack, with a single Object.
+     * Frames replaced are tossed, as if popped.
+     */
+    void replace(int above, int n, Val v) {
+      int lo = _head - above - n + 1;
+      assert lo >= 0 && n > 0;
+      for (int i = 0; i < n; ++i) {
+        Val o = _stack.remove(lo);
+        if (o instanceof ValFrame) toss((ValFrame)o);
+      }
+      _stack.add(lo, v);
+      _head -= n - 1;
+    }
+
     /**
      * Pop all of the values off the stack.
      * @return void
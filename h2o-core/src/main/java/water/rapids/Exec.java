@@ -37,6 +37,13 @@ import java.util.HashSet;
  */
 public class Exec extends Iced {
 
+  /** Evaluate chains of element-wise ops in a single pass (see {@link Fused}),
+   *  rather than one pass and one temporary Frame per op. */
+  public static volatile boolean FUSE = true;
+
+  /** Compile fused expressions to bytecode (see {@link FusedKernel}), rather than interpret them. */
+  public static volatile boolean JIT = true;
+
   //parser
   final byte[] _ast;
   final String _str;
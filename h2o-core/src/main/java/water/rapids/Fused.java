@@ -0,0 +1,222 @@
+package water.rapids;
+
+import water.Iced;
+import water.MRTask;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+
+import java.util.*;
+
+/**
+ * Fused evaluation of element-wise expressions.
+ *
+ * A tree of element-wise arithmetic, comparison and logical ops (and the unary math functions) is walked without
+ * applying the ops: only the leaves (Frames, numbers, or any other sub-expression) are evaluated, and stay on the
+ * stack while the ops are gathered into a tree of Nodes.  The whole tree is then run in a single MRTask, a chunk at a
+ * time, so only the final result is compressed into NewChunks - instead of one pass and one temporary Frame per op.
+ *
+ * The per-element semantics are those of ASTUniOp and ASTBinOp: NAs propagate through binary ops (except `|`),
+ * ops on two numbers are folded as they are.  Whenever an op cannot be fused - String, enum or UUID operands, 1x1
+ * Frames (numbers to binary ops, Frames to unary ones), Frames of different shapes - its operands are computed and
+ * the op is applied as usual; its result is then a leaf to the ops above it.
+ *
+ * Each node compiles the expression into a {@link FusedKernel} before running it; the Nodes below are the
+ * interpreter, used when compiling is off ({@link Exec#JIT}) or fails.
+ */
+class Fused {
+  private Fused() {}
+
+  private static final HashSet<Class> FUSABLE = new HashSet<>(Arrays.<Class>asList(
+    ASTPlus.class, ASTSub.class, ASTMul.class, ASTDiv.class, ASTIntDiv.class, ASTPow.class, ASTPow2.class, ASTMod.class,
+    ASTLT.class, ASTLE.class, ASTGT.class, ASTGE.class, ASTEQ.class, ASTNE.class, ASTLA.class, ASTLO.class,
+    ASTNot.class, ASTIsNA.class,
+    ASTCos.class, ASTSin.class, ASTTan.class, ASTACos.class, ASTASin.class, ASTATan.class,
+    ASTCosh.class, ASTSinh.class, ASTTanh.class, ASTACosh.class, ASTASinh.class, ASTATanh.class,
+    ASTCosPi.class, ASTSinPi.class, ASTTanPi.class, ASTAbs.class, ASTSgn.class, ASTSqrt.class,
+    ASTTrun.class, ASTCeil.class, ASTFlr.class, ASTLog.class, ASTLog10.class, ASTLog2.class, ASTLog1p.class,
+    ASTExp.class, ASTExpm1.class, ASTGamma.class, ASTLGamma.class, ASTDiGamma.class, ASTTriGamma.class));
+
+  static boolean fusable(AST ast) { return ast != null && FUSABLE.contains(ast.getClass()); }
+
+  /** Worth fusing: an element-wise op applied to the result of another one. */
+  static boolean isRoot(AST ast) {
+    if( !fusable(ast) ) return false;
+    for( AST a : ast._asts ) if( fusable(a) ) return true;
+    return false;
+  }
+
+  /** Walk the tree rooted at ast, leaving its result on the stack. */
+  static void treeWalk(AST ast, Env e) { materialize(walk(ast, e), e, 0); }
+
+  // Evaluate the leaves and gather the ops above them.  Returns the Node of
+  // the subtree, whose leaves take its _pins top-most slots of the stack, or
+  // null if the subtree's value (on the top of the stack) cannot be fused.
+  private static Node walk(AST ast, Env e) {
+    if( fusable(ast) ) {
+      ASTUniOrBinOp op = (ASTUniOrBinOp)((ASTOp)ast).make();
+      if( ast instanceof ASTBinOp ) {
+        Node r = walk(ast._asts[1], e); // Right first, as in AST.treeWalk
+        Node l = walk(ast._asts[0], e);
+        if( l != null && r != null && (l._fr == null || r._fr == null ||
+            (l._fr.numCols() == r._fr.numCols() && l._fr.numRows() == r._fr.numRows())) )
+          return l instanceof Const && r instanceof Const
+            ? new Const(op.op(((Const)l)._d, ((Const)r)._d), l._pins + r._pins, false)
+            : new Bin(op, l, r);
+        materialize(r, e, pins(l));
+        materialize(l, e, 0);
+        ((ASTBinOp)ast).apply(e);
+      } else {
+        Node x = walk(ast._asts[0], e);
+        if( x != null )
+          return x instanceof Const ? new Const(op.op(((Const)x)._d), x._pins, false) : new Uni(op, x);
+        ((ASTUniOp)ast).apply(e);
+      }
+    } else ast.treeWalk(e);
+    return leaf(e);
+  }
+
+  private static int pins(Node n) { return n == null ? 1 : n._pins; }
+
+  // The value on the top of the stack, as a leaf
+  private static Node leaf(Env e) {
+    if( e.isNum() ) return new Const(e.peekDbl(), 1, true);
+    if( !e.isAry() ) return null;
+    Frame fr = e.peekAry();
+    if( fr.numCols() == 1 && fr.numRows() == 1 ) return null;
+    for( Vec v : fr.vecs() )
+      if( v.isEnum() || v.isUUID() || v.isString() ) return null;
+    return new Cols(fr);
+  }
+
+  // Replace the leaves of n, sitting `above` slots below the top of the stack,
+  // with n's value.  Leaves and unfusable values are values already.
+  private static void materialize(Node n, Env e, int above) {
+    if( n == null || n.isLeaf() ) return;
+    e.replace(above, n._pins, n._fr == null ? new ValNum(((Const)n)._d) : new ValFrame(compute(n)));
+  }
+
+  private static Frame compute(Node n) {
+    ArrayList<Vec> vecs = new ArrayList<>();
+    n.bind(new IdentityHashMap<Frame, Integer>(), vecs);
+    String[] names = new String[vecs.size()];
+    for( int i = 0; i < names.length; ++i ) names[i] = "C" + (i + 1);
+    Frame fr = new Frame(names, vecs.toArray(new Vec[vecs.size()]));
+    return new FusedTask(n).doAll(n._fr.numCols(), fr).outputFrame(n._fr._names, null);
+  }
+
+  private static class FusedTask extends MRTask<FusedTask> {
+    final Node _root;
+    transient FusedKernel _kernel; // Compiled _root, if any
+    transient int[] _offs;         // Leaf columns of the kernel
+    transient double[] _ks;        // Numbers of the kernel
+    FusedTask(Node root) { _root = root; }
+    @Override protected void setupLocal() {
+      if( !Exec.JIT ) return;
+      FusedKernel.Gen g = new FusedKernel.Gen();
+      String src = g.src(_root.gen(g));
+      if( (_kernel = FusedKernel.get(src)) == null ) return;
+      _offs = new int[g._offs.size()];
+      for( int i = 0; i < _offs.length; ++i ) _offs[i] = g._offs.get(i);
+      _ks = new double[g._ks.size()];
+      for( int i = 0; i < _ks.length; ++i ) _ks[i] = g._ks.get(i);
+    }
+    @Override public void map(Chunk[] cs, NewChunk[] ncs) {
+      double[] res = new double[cs[0]._len];
+      Chunk[] lcs = _kernel == null ? null : new Chunk[_offs.length];
+      for( int col = 0; col < ncs.length; ++col ) {
+        if( lcs != null ) {
+          for( int i = 0; i < lcs.length; ++i ) lcs[i] = cs[_offs[i] + col];
+          _kernel.eval(lcs, _ks, res);
+        } else _root.eval(cs, col, res);
+        NewChunk nc = ncs[col];
+        for( double d : res ) nc.addNum(d);
+      }
+    }
+  }
+
+  /** An expression over the columns of the leaf Frames, evaluated a chunk column at a time. */
+  abstract static class Node extends Iced {
+    transient Frame _fr;        // Shape and names of the result; null for numbers
+    transient int _pins;        // Stack slots taken by the leaves
+    boolean isLeaf() { return false; }
+    // Offsets of the leaves' columns in the fused Frame
+    void bind(IdentityHashMap<Frame, Integer> offs, ArrayList<Vec> vecs) { }
+    // Result rows of column col into res
+    abstract void eval(Chunk[] cs, int col, double[] res);
+    // Kernel code computing the result of a row; returns the variable holding it
+    abstract String gen(FusedKernel.Gen g);
+  }
+
+  static class Const extends Node {
+    final double _d;
+    final transient boolean _leaf;
+    Const(double d, int pins, boolean leaf) { _d = d; _pins = pins; _leaf = leaf; }
+    @Override boolean isLeaf() { return _leaf; }
+    @Override void eval(Chunk[] cs, int col, double[] res) { Arrays.fill(res, _d); }
+    @Override String gen(FusedKernel.Gen g) { return g.num(_d); }
+  }
+
+  static class Cols extends Node {
+    int _off;
+    Cols(Frame fr) { _fr = fr; _pins = 1; }
+    @Override boolean isLeaf() { return true; }
+    @Override void bind(IdentityHashMap<Frame, Integer> offs, ArrayList<Vec> vecs) {
+      Integer off = offs.get(_fr);
+      if( off == null ) {
+        offs.put(_fr, off = vecs.size());
+        vecs.addAll(Arrays.asList(_fr.vecs()));
+      }
+      _off = off;
+    }
+    @Override void eval(Chunk[] cs, int col, double[] res) {
+      Chunk c = cs[_off + col];
+      for( int r = 0; r < res.length; ++r ) res[r] = c.atd(r);
+    }
+    @Override String gen(FusedKernel.Gen g) { return g.col(_off); }
+  }
+
+  static class Uni extends Node {
+    final ASTUniOrBinOp _op;
+    final Node _x;
+    Uni(ASTUniOrBinOp op, Node x) { _op = op; _x = x; _fr = x._fr; _pins = x._pins; }
+    @Override void bind(IdentityHashMap<Frame, Integer> offs, ArrayList<Vec> vecs) { _x.bind(offs, vecs); }
+    @Override void eval(Chunk[] cs, int col, double[] res) {
+      _x.eval(cs, col, res);
+      for( int r = 0; r < res.length; ++r ) res[r] = _op.op(res[r]);
+    }
+    @Override String gen(FusedKernel.Gen g) { return g.op(_op, _x.gen(g)); }
+  }
+
+  static class Bin extends Node {
+    final ASTUniOrBinOp _op;
+    final Node _l, _r;
+    final boolean _naOK;        // `|` may be true with an NA operand
+    Bin(ASTUniOrBinOp op, Node l, Node r) {
+      _op = op; _l = l; _r = r;
+      _naOK = op instanceof ASTLO;
+      _fr = l._fr != null ? l._fr : r._fr;
+      _pins = l._pins + r._pins;
+    }
+    @Override void bind(IdentityHashMap<Frame, Integer> offs, ArrayList<Vec> vecs) { _r.bind(offs, vecs); _l.bind(offs, vecs); }
+    @Override void eval(Chunk[] cs, int col, double[] res) {
+      _l.eval(cs, col, res);
+      if( _r instanceof Const ) {
+        double d = ((Const)_r)._d;
+        for( int r = 0; r < res.length; ++r ) res[r] = op(res[r], d);
+      } else {
+        double[] rs = new double[res.length];
+        _r.eval(cs, col, rs);
+        for( int r = 0; r < res.length; ++r ) res[r] = op(res[r], rs[r]);
+      }
+    }
+    @Override String gen(FusedKernel.Gen g) {
+      String l = _l.gen(g), r = _r.gen(g);
+      return g.op(_op, l, r, _naOK);
+    }
+    private double op(double l, double r) {
+      return !_naOK && (Double.isNaN(l) || Double.isNaN(r)) ? Double.NaN : _op.op(l, r);
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package water.rapids;
+
+import javassist.*;
+import water.H2O;
+import water.fvec.Chunk;
+import water.util.Log;
+import water.util.SB;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fused expression (see {@link Fused}) compiled to bytecode: the ops are inlined into a single loop over the rows
+ * of a chunk column, with no virtual op() calls and no intermediate arrays.
+ *
+ * Kernels are generated with Javassist, as the Icers are by {@link water.Weaver}.  The generated source only depends
+ * on the shape of the expression - the ops and where the leaves go - with the numbers passed in as an array; so a
+ * kernel serves every expression of the same shape, and is cached by its source (the {@link #MAX_KERNELS} most
+ * recently used).  Kernels are never sent over the wire: the expression is, and each node compiles it (once) for
+ * itself.
+ */
+public abstract class FusedKernel {
+
+  /** Rows of one column of the result into res, given the chunks of the leaf
+   *  columns (in leaf order) and the numbers of the expression. */
+  public abstract void eval(Chunk[] cs, double[] k, double[] res);
+
+  // Per-element code of the ops: $0 and $1 are the operands.  Same semantics
+  // as the op() methods of the ASTOps.
+  private static final HashMap<Class, String> CODE = new HashMap<>();
+  static {
+    CODE.put(ASTPlus.class, "$0 + $1");
+    CODE.put(ASTSub.class, "$0 - $1");
+    CODE.put(ASTMul.class, "$0 * $1");
+    CODE.put(ASTDiv.class, "$0 / $1");
+    CODE.put(ASTIntDiv.class, "(double)((int)$0 / (int)$1)");
+    CODE.put(ASTPow.class, "Math.pow($0, $1)");
+    CODE.put(ASTPow2.class, "Math.pow($0, $1)");
+    CODE.put(ASTMod.class, "$0 % $1");
+    CODE.put(ASTLT.class, "$0 < $1 && !water.util.MathUtils.equalsWithinOneSmallUlp($0, $1) ? 1.0 : 0.0");
+    CODE.put(ASTLE.class, "$0 < $1 || water.util.MathUtils.equalsWithinOneSmallUlp($0, $1) ? 1.0 : 0.0");
+    CODE.put(ASTGT.class, "$0 > $1 && !water.util.MathUtils.equalsWithinOneSmallUlp($0, $1) ? 1.0 : 0.0");
+    CODE.put(ASTGE.class, "$0 > $1 || water.util.MathUtils.equalsWithinOneSmallUlp($0, $1) ? 1.0 : 0.0");
+    CODE.put(ASTEQ.class, "water.util.MathUtils.equalsWithinOneSmallUlp($0, $1) ? 1.0 : 0.0");
+    CODE.put(ASTNE.class, "water.util.MathUtils.equalsWithinOneSmallUlp($0, $1) ? 0.0 : 1.0");
+    CODE.put(ASTLA.class, "water.rapids.FusedKernel.and($0, $1)");
+    CODE.put(ASTLO.class, "water.rapids.FusedKernel.or($0, $1)");
+    CODE.put(ASTNot.class, "Double.isNaN($0) ? Double.NaN : ($0 == 0 ? 1.0 : 0.0)");
+    CODE.put(ASTIsNA.class, "Double.isNaN($0) ? 1.0 : 0.0");
+    CODE.put(ASTCos.class, "Math.cos($0)");
+    CODE.put(ASTSin.class, "Math.sin($0)");
+    CODE.put(ASTTan.class, "Math.tan($0)");
+    CODE.put(ASTACos.class, "Math.acos($0)");
+    CODE.put(ASTASin.class, "Math.asin($0)");
+    CODE.put(ASTATan.class, "Math.atan($0)");
+    CODE.put(ASTCosh.class, "Math.cosh($0)");
+    CODE.put(ASTSinh.class, "Math.sinh($0)");
+    CODE.put(ASTTanh.class, "Math.tanh($0)");
+    CODE.put(ASTACosh.class, "org.apache.commons.math3.util.FastMath.acosh($0)");
+    CODE.put(ASTASinh.class, "org.apache.commons.math3.util.FastMath.asinh($0)");
+    CODE.put(ASTATanh.class, "org.apache.commons.math3.util.FastMath.atanh($0)");
+    CODE.put(ASTCosPi.class, "Math.cos(Math.PI * $0)");
+    CODE.put(ASTSinPi.class, "Math.sin(Math.PI * $0)");
+    CODE.put(ASTTanPi.class, "Math.tan(Math.PI * $0)");
+    CODE.put(ASTAbs.class, "Math.abs($0)");
+    CODE.put(ASTSgn.class, "Math.signum($0)");
+    CODE.put(ASTSqrt.class, "Math.sqrt($0)");
+    CODE.put(ASTTrun.class, "$0 >= 0 ? Math.floor($0) : Math.ceil($0)");
+    CODE.put(ASTCeil.class, "Math.ceil($0)");
+    CODE.put(ASTFlr.class, "Math.floor($0)");
+    CODE.put(ASTLog.class, "Math.log($0)");
+    CODE.put(ASTLog10.class, "Math.log10($0)");
+    CODE.put(ASTLog2.class, "Math.log($0) / Math.log(2)");
+    CODE.put(ASTLog1p.class, "Math.log1p($0)");
+    CODE.put(ASTExp.class, "Math.exp($0)");
+    CODE.put(ASTExpm1.class, "Math.expm1($0)");
+    CODE.put(ASTGamma.class, "org.apache.commons.math3.special.Gamma.gamma($0)");
+    CODE.put(ASTLGamma.class, "org.apache.commons.math3.special.Gamma.logGamma($0)");
+    CODE.put(ASTDiGamma.class, "org.apache.commons.math3.special.Gamma.digamma($0)");
+    CODE.put(ASTTriGamma.class, "org.apache.commons.math3.special.Gamma.trigamma($0)");
+  }
+
+  // See ASTLA and ASTLO
+  public static double and(double d0, double d1) { return (d0!=0 && d1!=0) ? (Double.isNaN(d0) || Double.isNaN(d1)?Double.NaN:1) :0; }
+  public static double or(double d0, double d1) {
+    if (d0 == 0 && Double.isNaN(d1)) { return Double.NaN; }
+    if (d1 == 0 && Double.isNaN(d0)) { return Double.NaN; }
+    if (Double.isNaN(d0) && Double.isNaN(d1)) { return Double.NaN; }
+    if (d0 == 0 && d1 == 0) { return 0; }
+    return 1;
+  }
+
+  /** Source of a kernel, built by the Nodes of an expression as they are walked. */
+  static class Gen {
+    final SB _hoist = new SB(), _body = new SB();
+    final ArrayList<Integer> _offs = new ArrayList<>(); // Leaf columns, in the fused Frame
+    final ArrayList<Double> _ks = new ArrayList<>();    // Numbers
+    int _ntmps;
+
+    String col(int off) {
+      int c = _offs.size();
+      _offs.add(off);
+      _hoist.p("  water.fvec.Chunk c").p(c).p(" = cs[").p(c).p("];\n");
+      return tmp("c" + c + ".atd(r)");
+    }
+    String num(double d) {
+      _ks.add(d);
+      return "k[" + (_ks.size()-1) + "]";
+    }
+    String op(ASTUniOrBinOp op, String x) { return tmp(code(op).replace("$0", x)); }
+    String op(ASTUniOrBinOp op, String l, String r, boolean naOK) {
+      String c = code(op).replace("$0", l).replace("$1", r);
+      return tmp(naOK ? c : "Double.isNaN(" + l + ") || Double.isNaN(" + r + ") ? Double.NaN : (" + c + ")");
+    }
+    private String code(ASTUniOrBinOp op) {
+      String c = CODE.get(op.getClass());
+      if( c == null ) throw new IllegalArgumentException("No code for op " + op.opStr());
+      return c;
+    }
+    private String tmp(String expr) {
+      String t = "t" + _ntmps++;
+      _body.p("    double ").p(t).p(" = ").p(expr).p(";\n");
+      return t;
+    }
+    String src(String res) {
+      return "public void eval(water.fvec.Chunk[] cs, double[] k, double[] res) {\n" + _hoist +
+        "  for (int r = 0; r < res.length; r++) {\n" + _body +
+        "    res[r] = " + res + ";\n" +
+        "  }\n}";
+    }
+  }
+
+  /** Most kernels kept; past that the least recently used are dropped, along
+   *  with their classes (each has a class loader of its own). */
+  static volatile int MAX_KERNELS = 256;
+  // By source, least recently used first
+  private static final LinkedHashMap<String, FusedKernel> KERNELS = new LinkedHashMap<>(16, 0.75f, true);
+  private static final AtomicInteger IDS = new AtomicInteger();
+  private static final ClassPool _pool = ClassPool.getDefault();
+  static { _pool.insertClassPath(new ClassClassPath(FusedKernel.class)); }
+  private static volatile String _lastSrc;
+
+  // Marks the sources which do not compile
+  private static final FusedKernel NONE = new FusedKernel() {
+    @Override public void eval(Chunk[] cs, double[] k, double[] res) { throw H2O.fail(); }
+  };
+
+  /** The kernel for this source, compiled on first use; null if it does not compile. */
+  static FusedKernel get(String src) {
+    _lastSrc = src;
+    synchronized( KERNELS ) {
+      FusedKernel k = KERNELS.get(src);
+      if( k != null ) return k == NONE ? null : k;
+      CtClass cc = _pool.makeClass(FusedKernel.class.getName() + "$K" + IDS.getAndIncrement());
+      try {
+        cc.setSuperclass(_pool.get(FusedKernel.class.getName()));
+        cc.setModifiers(javassist.Modifier.PUBLIC);
+        cc.addConstructor(CtNewConstructor.defaultConstructor(cc));
+        cc.addMethod(CtNewMethod.make(src, cc));
+        ClassLoader loader = new ClassLoader(FusedKernel.class.getClassLoader()) { };
+        k = (FusedKernel)cc.toClass(loader, null).newInstance();
+      } catch( Exception e ) {
+        Log.warn("Cannot compile fused kernel, interpreting it: " + e + "\n" + src);
+        keep(src, NONE);
+        return null;
+      } finally {
+        cc.detach();
+      }
+      keep(src, k);
+      return k;
+    }
+  }
+
+  // Cache a kernel, dropping the least recently used ones beyond the bound
+  private static void keep(String src, FusedKernel k) {
+    KERNELS.put(src, k);
+    for( Iterator<String> it = KERNELS.keySet().iterator(); KERNELS.size() > MAX_KERNELS; ) {
+      it.next();
+      it.remove();
+    }
+  }
+
+  /** Source of the last kernel asked for; exposed for testing only. */
+  static String lastSource() { return _lastSrc; }
+
+  /** Number of kernels kept. */
+  static int cached() { synchronized( KERNELS ) { return KERNELS.size(); } }
+}
@@ -0,0 +1,239 @@
+package water.serial;
+
+import com.google.common.io.ByteStreams;
+import water.*;
+import water.H2O.H2OCountedCompleter;
+import water.persist.Persist;
+import water.persist.PersistManager.Schemes;
+import water.util.FileUtils;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Object tree serializer into a single file, a bundle.
+ *
+ * It dumps the same list of keys as {@link ObjectTreeBinarySerializer}, but
+ * into one contiguous file: a header, the length of each object and then the
+ * objects, each serialized as {@link KeyedBinarySerializer} does.  Loading
+ * reads the file once - local files are memory-mapped rather than read - and
+ * deserializes all the objects in parallel, so a model of thousands of trees
+ * loads in about the time of its largest part rather than of all of them.
+ *
+ * After load, the objects are put into DKV with the first one (e.g. the
+ * model) last, once all the objects it refers to are in.  The loaded list
+ * holds the keys in the saved order, null-Keys included.
+ *
+ * Header: magic number, format version, number of objects, and the length
+ * of each serialized object, -1 for a null-Key.  Objects are limited to 2GB
+ * each, not in total.
+ */
+public class BundleBinarySerializer implements Serializer<List<Key>, URI> {
+  /** Magic number starting every bundle: "H2OB" */
+  public static final int MAGIC = 0x48324F42;
+  /** Version of the bundle format */
+  public static final int VERSION = 1;
+
+  /** Do DKV after load put on loaded objects if they have defined keys. */
+  final boolean dkvPutAfterLoad;
+  /** Do DKV put after load even the object already exists in DKV */
+  final boolean overrideInDkv;
+  /* During save override the destination file. */
+  final boolean overrideFile;
+
+  public BundleBinarySerializer() {
+    this(true, true, true);
+  }
+  public BundleBinarySerializer(boolean dkvPutAfterLoad, boolean overrideInDkv, boolean overrideFile) {
+    this.dkvPutAfterLoad = dkvPutAfterLoad;
+    this.overrideInDkv = overrideInDkv;
+    this.overrideFile = overrideFile;
+  }
+
+  @Override
+  public void save(List<Key> objectTree, URI outputFile) throws IOException {
+    assert outputFile.getQuery() == null : "Query parameters are not allowed in URI.";
+    final Key[] keys = objectTree.toArray(new Key[objectTree.size()]);
+    final byte[][] objs = new byte[keys.length][];
+    final KeyedBinarySerializer serial = new KeyedBinarySerializer();
+    // Fetch and serialize all the objects in parallel
+    // NOTE: this will fetch remote objects to the caller node!
+    Futures fs = new Futures();
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] == null) continue;
+      final int idx = i;
+      fs.add(H2O.submitTask(new H2OCountedCompleter() {
+        @Override protected void compute2() {
+          Keyed k = keys[idx].get();
+          assert k != null : "Object to save cannot be null!";
+          AutoBuffer ab = serial.saveHeader(k, new AutoBufferWithoutTypeIds());
+          k.getBinarySerializer().save(k, ab);
+          objs[idx] = ab.buf();
+          tryComplete();
+        }
+      }));
+    }
+    fs.blockForPending();
+    AutoBuffer hdr = new AutoBuffer().put4(MAGIC).put4(VERSION).put4(objs.length);
+    for (byte[] obj : objs) hdr.put4(obj == null ? -1 : obj.length);
+    // Dump the header and the objects
+    Persist persist = H2O.getPM().getPersistForURI(outputFile);
+    OutputStream os = null;
+    try {
+      os = persist.create(outputFile.toString(), overrideFile);
+      os.write(hdr.buf());
+      for (byte[] obj : objs)
+        if (obj != null) os.write(obj);
+    } finally {
+      FileUtils.close(os);
+    }
+  }
+
+  @Override
+  public List<Key> load(List<Key> l, URI inputFile) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public List<Key> load(URI inputFile) throws IOException {
+    final ByteBuffer[] bbs = isLocal(inputFile) ? map(toFile(inputFile)) : read(inputFile);
+    final Keyed[] objs = new Keyed[bbs.length];
+    final KeyedBinarySerializer serial = new KeyedBinarySerializer();
+    // Deserialize all the objects in parallel
+    Futures fs = new Futures();
+    for (int i = 0; i < bbs.length; i++) {
+      if (bbs[i] == null) continue;
+      final int idx = i;
+      fs.add(H2O.submitTask(new H2OCountedCompleter() {
+        @Override protected void compute2() {
+          AutoBuffer ab = new AutoBufferWithoutTypeIds(bbs[idx]);
+          Keyed k = serial.loadHeader(ab);
+          k.getBinarySerializer().load(k, ab);
+          objs[idx] = k;
+          tryComplete();
+        }
+      }));
+    }
+    fs.blockForPending();
+    if (dkvPutAfterLoad) {
+      // The parts first, then the object referring to them
+      for (int i = objs.length - 1; i > 0; i--) put(objs[i], fs);
+      fs.blockForPending();
+      if (objs.length > 0) put(objs[0], fs);
+      fs.blockForPending();
+    }
+    List<Key> objectTree = new ArrayList<>(objs.length);
+    for (Keyed k : objs) objectTree.add(k == null ? null : k._key);
+    return objectTree;
+  }
+
+  private void put(Keyed k, Futures fs) throws IOException {
+    if (k == null || k._key == null) return;
+    if (overrideInDkv) {
+      DKV.put(k._key, k, fs);
+    } else if (DKV.get(k._key) != null) {
+      throw new IOException("The object with " + k._key + " key already exists in DKV!");
+    }
+  }
+
+  /** Is the given URI a bundle, rather than e.g. an object tree directory? */
+  public static boolean isBundle(URI uri) {
+    if (isLocal(uri)) return toFile(uri).isFile();
+    Persist.PersistEntry[] entries = H2O.getPM().getPersistForURI(uri).list(uri.toString());
+    // An object tree directory holds at least its metafile and one object
+    return entries.length == 1;
+  }
+
+  private static boolean isLocal(URI uri) {
+    return uri.getScheme() == null || Schemes.FILE.equals(uri.getScheme());
+  }
+  private static File toFile(URI uri) {
+    return uri.getScheme() == null ? new File(uri.getPath()) : new File(uri);
+  }
+
+  /** Memory-map a local bundle and slice it into its objects: one mapping
+   *  for the whole file, unless it is over the 2GB a mapping can hold, then
+   *  one per object.  The mappings outlive the file channel, and are released
+   *  once the buffers are collected. */
+  private static ByteBuffer[] map(File f) throws IOException {
+    FileInputStream fi = null;
+    try {
+      fi = new FileInputStream(f);
+      FileChannel fc = fi.getChannel();
+      long size = fc.size();
+      ByteBuffer all = size <= Integer.MAX_VALUE ? fc.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+      int n = count(new AutoBuffer(all != null ? all : fc.map(FileChannel.MapMode.READ_ONLY, 0, 12)), size, f);
+      ByteBuffer hdr = all != null ? slice(all, 12, 4*n) : fc.map(FileChannel.MapMode.READ_ONLY, 12, 4L*n);
+      int[] lens = lengths(new AutoBuffer(hdr), n);
+      ByteBuffer[] bbs = new ByteBuffer[n];
+      long off = 12 + 4L*n;
+      for (int i = 0; i < n; i++) {
+        if (lens[i] < 0) continue;
+        if (off + lens[i] > size) throw new IOException("Truncated bundle: " + f);
+        bbs[i] = all != null ? slice(all, (int) off, lens[i]) : fc.map(FileChannel.MapMode.READ_ONLY, off, lens[i]);
+        off += lens[i];
+      }
+      return bbs;
+    } finally {
+      FileUtils.close(fi);
+    }
+  }
+
+  /** The len bytes of bb at off, as a buffer of their own. */
+  private static ByteBuffer slice(ByteBuffer bb, int off, int len) {
+    ByteBuffer dup = bb.duplicate();
+    dup.limit(off + len).position(off);
+    return dup.slice();
+  }
+
+  /** Read a bundle from any other media into memory, then slice it into its objects. */
+  private static ByteBuffer[] read(URI uri) throws IOException {
+    Persist persist = H2O.getPM().getPersistForURI(uri);
+    Persist.PersistEntry[] entries = persist.list(uri.toString());
+    if (entries.length == 0)
+      throw new FileNotFoundException(uri.toString());
+    if (entries.length > 1)
+      throw new IOException("Found more files matching given URI");
+    byte buf[] = MemoryManager.malloc1((int) entries[0]._size);
+    InputStream fi = null;
+    try {
+      fi = persist.open(uri.toString());
+      ByteStreams.readFully(fi, buf);
+    } finally {
+      FileUtils.close(fi);
+    }
+    AutoBuffer ab = new AutoBuffer(buf);
+    int[] lens = lengths(ab, count(ab, buf.length, uri));
+    ByteBuffer[] bbs = new ByteBuffer[lens.length];
+    int off = 12 + 4*lens.length;
+    for (int i = 0; i < lens.length; i++) {
+      if (lens[i] < 0) continue;
+      if ((long)off + lens[i] > buf.length) throw new IOException("Truncated bundle: " + uri);
+      bbs[i] = ByteBuffer.wrap(buf, off, lens[i]);
+      off += lens[i];
+    }
+    return bbs;
+  }
+
+  /** Check the header of a bundle of the given size.
+   *  @return the number of objects */
+  private static int count(AutoBuffer ab, long size, Object src) throws IOException {
+    if (size < 12 || ab.get4() != MAGIC) throw new IOException("Not a bundle: " + src);
+    int version = ab.get4();
+    if (version != VERSION) throw new IOException("Unsupported bundle version " + version + ": " + src);
+    int n = ab.get4();
+    if (n < 0 || 12 + 4L*n > size) throw new IOException("Not a bundle: " + src);
+    return n;
+  }
+
+  /** @return the lengths of the n objects of a bundle, after its header */
+  private static int[] lengths(AutoBuffer ab, int n) {
+    int[] lens = new int[n];
+    for (int i = 0; i < n; i++) lens[i] = ab.get4();
+    return lens;
+  }
+}
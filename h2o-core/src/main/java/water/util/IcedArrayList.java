@@ -13,14 +13,18 @@ public class IcedArrayList<T extends Iced> extends ArrayList<T> implements Freez
   private final ArrayList<T> _aList;
   public IcedArrayList() {_aList = new ArrayList<T>();}
 
+  // -1, then the elements as one array: one type id for all, and plain Iced
+  // a field at a time (see AutoBuffer.putA(Freezable[])).  A size instead of
+  // the -1 is followed by the elements one by one.
   @Override public AutoBuffer write(AutoBuffer ab) {
-    ab.put4(size());
-    for(T t:this)
-      ab.put(t);
-    return ab;
+    return ab.put4(-1).putA(toArray(new Iced[size()]));
   }
   @Override public IcedArrayList<T> read(AutoBuffer ab) {
     int n = ab.get4();
+    if( n == -1 ) {
+      for( Iced t : ab.getA(Iced.class) ) add((T)t);
+      return this;
+    }
     for(int i = 0; i < n; ++i)
       add(ab.<T>get());
     return this;
@@ -7,6 +7,7 @@ import water.Iced;
 import water.util.DocGen.HTML;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
@@ -54,14 +55,22 @@ public abstract class IcedHashMapBase<K, V> extends Iced implements Map<K, V>, C
       if( val instanceof String ) {      mode = 3; }
       else { assert val instanceof Iced; mode = 4; }
     }
-    ab.put1(mode);              // Type of hashmap being serialized
+    // Modes 5-8 are modes 1-4 sent as a column of keys, then a column of
+    // values: Iced columns carry their type id once, and plain Iced go a
+    // field at a time (see AutoBuffer.putA(Freezable[]))
+    ab.put1(mode+4);            // Type of hashmap being serialized
+    int n = map().size(), i = 0;
+    Object[] keys = mode==1 || mode==2 ? new String[n] : new Iced[n];
+    Object[] vals = mode==1 || mode==3 ? new String[n] : new Iced[n];
     for( Entry<K, V> e : map().entrySet() ) {
-      key = e.getKey();   assert key != null;
-      val = e.getValue(); assert val != null;
-      if( mode==1 || mode ==2 ) ab.putStr((String)key); else ab.put((Iced)key);
-      if( mode==1 || mode ==3 ) ab.putStr((String)val); else ab.put((Iced)val);
+      if( i == n ) break;       // Grown while we were at it
+      keys[i] = e.getKey();   assert keys[i] != null;
+      vals[i] = e.getValue(); assert vals[i] != null;
+      i++;
     }
-    return (mode==1 || mode==2) ? ab.putStr(null) : ab.put(null);
+    if( i < n ) { keys = Arrays.copyOf(keys, i); vals = Arrays.copyOf(vals, i); }
+    if( mode==1 || mode==2 ) ab.putAStr((String[])keys); else ab.putA((Iced[])keys);
+    return (mode==1 || mode==3) ? ab.putAStr((String[])vals) : ab.putA((Iced[])vals);
   }
 
   abstract protected Map<K,V> init();
@@ -75,6 +84,14 @@ public abstract class IcedHashMapBase<K, V> extends Iced implements Map<K, V>, C
     Map<K,V> map = init();
     int mode = ab.get1();
     if (mode == 0) return this;
+    if (mode > 4) {             // A column of keys, then one of values
+      mode -= 4;
+      Object[] keys = (mode == 1 || mode == 2) ? ab.getAStr() : ab.getA(Iced.class);
+      Object[] vals = (mode == 1 || mode == 3) ? ab.getAStr() : ab.getA(Iced.class);
+      for (int i = 0; i < keys.length; i++)
+        map.put((K) keys[i], (V) vals[i]);
+      return this;
+    }
     K key;
     V val;
     while ((key = ((mode == 1 || mode == 2) ? (K) ab.getStr() : (K) ab.get())) != null) {
@@ -0,0 +1,133 @@
+package water.util;
+
+import water.AutoBuffer;
+import water.Iced;
+import water.MemoryManager;
+
+/** Iced hash map from primitive longs to primitive longs.
+ *
+ *  <p>Open addressing with linear probing, over two long arrays: no boxed
+ *  keys or values, no entry objects, and 16 bytes per slot at a load of at
+ *  most 1/2.  Serialized in bulk, as the arrays of its keys and values.
+ *
+ *  <p>Unlike {@link water.nbhm.NonBlockingHashMapLong}, this map is not
+ *  thread-safe: it is meant to be filled by one thread - e.g. counting in a
+ *  map() call - and combined with {@link #addAll} in reduce().  A map no
+ *  longer written to can be read by many threads.
+ */
+public class IcedLongLongMap extends Iced {
+  private long[] _keys, _vals;  // Slots; key 0 marks a free slot
+  private int _size;            // Keys in the slots
+  private boolean _hasZero;     // Key 0 is kept out of the slots
+  private long _zeroVal;
+
+  public IcedLongLongMap() { this(8); }
+  /** @param expected number of keys the map can hold without resizing */
+  public IcedLongLongMap(int expected) { alloc(expected); }
+
+  // Slots for the expected keys, at most half full
+  private void alloc(int expected) {
+    int cap = 16;
+    while( cap < expected<<1 && cap < 1<<30 ) cap <<= 1;
+    _keys = MemoryManager.malloc8(cap);
+    _vals = MemoryManager.malloc8(cap);
+  }
+
+  public int size() { return _size + (_hasZero ? 1 : 0); }
+  public boolean isEmpty() { return size() == 0; }
+
+  public boolean containsKey(long key) { return key == 0 ? _hasZero : find(key) >= 0; }
+
+  /** @return the value of key, or dflt if it is not in the map */
+  public long get(long key, long dflt) {
+    if( key == 0 ) return _hasZero ? _zeroVal : dflt;
+    int i = find(key);
+    return i >= 0 ? _vals[i] : dflt;
+  }
+
+  public void put(long key, long val) {
+    if( key == 0 ) { _hasZero = true; _zeroVal = val; return; }
+    int i = find(key);
+    if( i >= 0 ) _vals[i] = val;
+    else insert(-1-i, key, val);
+  }
+
+  /** Add delta to the value of key, which starts at 0 if key is not in the map.
+   *  @return the new value */
+  public long add(long key, long delta) {
+    if( key == 0 ) {
+      if( !_hasZero ) { _hasZero = true; _zeroVal = 0; }
+      return _zeroVal += delta;
+    }
+    int i = find(key);
+    if( i >= 0 ) return _vals[i] += delta;
+    insert(-1-i, key, delta);
+    return delta;
+  }
+
+  /** Add all the values of m to ours, key by key; i.e. sum two maps of counts. */
+  public void addAll(IcedLongLongMap m) {
+    if( m._hasZero ) add(0, m._zeroVal);
+    long[] ks = m._keys, vs = m._vals;
+    for( int i = 0; i < ks.length; i++ )
+      if( ks[i] != 0 ) add(ks[i], vs[i]);
+  }
+
+  /** @return the keys, in no particular order */
+  public long[] keys() {
+    long[] res = new long[size()];
+    int j = 0;
+    if( _hasZero ) res[j++] = 0;
+    for( long k : _keys ) if( k != 0 ) res[j++] = k;
+    return res;
+  }
+
+  /** @return the values, in the order of {@link #keys()} */
+  public long[] values() {
+    long[] res = new long[size()];
+    int j = 0;
+    if( _hasZero ) res[j++] = _zeroVal;
+    for( int i = 0; i < _keys.length; i++ ) if( _keys[i] != 0 ) res[j++] = _vals[i];
+    return res;
+  }
+
+  // Slot holding key, or -1-(the free slot ending its probe sequence)
+  private int find(long key) {
+    int mask = _keys.length-1;
+    long h = key * 0x9E3779B97F4A7C15L; // Fibonacci hashing: spread sequential keys
+    for( int i = (int)(h ^ (h >>> 32)) & mask; ; i = (i+1) & mask ) {
+      long k = _keys[i];
+      if( k == key ) return i;
+      if( k == 0 ) return -1-i;
+    }
+  }
+
+  private void insert(int i, long key, long val) {
+    _keys[i] = key;
+    _vals[i] = val;
+    if( ++_size > _keys.length>>1 ) rehash(_keys.length<<1);
+  }
+
+  private void rehash(int cap) {
+    long[] ks = _keys, vs = _vals;
+    _keys = MemoryManager.malloc8(cap);
+    _vals = MemoryManager.malloc8(cap);
+    for( int i = 0; i < ks.length; i++ )
+      if( ks[i] != 0 ) {
+        int j = find(ks[i]);
+        _keys[-1-j] = ks[i];
+        _vals[-1-j] = vs[i];
+      }
+  }
+
+  // Bulk: the keys, then the values; small counts go as bytes or shorts
+  @Override public AutoBuffer write_impl(AutoBuffer ab) {
+    return ab.putA8(keys()).putA8(values());
+  }
+  @Override public IcedLongLongMap read_impl(AutoBuffer ab) {
+    long[] ks = ab.getA8(), vs = ab.getA8();
+    alloc(ks.length);
+    for( int i = 0; i < ks.length; i++ ) put(ks[i], vs[i]);
+    return this;
+  }
+}
@@ -0,0 +1,125 @@
+package water.util;
+
+/** LZ4 block compression, in pure Java.
+ *
+ *  <p>Greedy matching against a single hash table of recent 4-byte prefixes,
+ *  as the reference "fast" LZ4 compressor does: a few hundred MB/sec per core
+ *  each way, for ratios well short of deflate's - the right trade for data
+ *  about to cross a fast network.  Runs without matches are skipped over at
+ *  a growing stride, so incompressible input costs little.
+ *
+ *  <p>The output is a standard LZ4 block (no frame: no magic, no checksum),
+ *  so the caller must carry the uncompressed length.  Decompression checks
+ *  every length and offset against its buffers, and throws on bad input
+ *  rather than reading or writing out of bounds.
+ */
+public final class LZ4 {
+  private LZ4() {}
+
+  private static final int MIN_MATCH = 4;
+  private static final int MFLIMIT = 12;      // No match starts in the last 12 bytes...
+  private static final int LAST_LITERALS = 5; // ...and the last 5 are always literals
+  private static final int MAX_OFFSET = 65535;
+  private static final int HASH_LOG = 14;
+  private static final int SKIP_TRIGGER = 6;  // Stride grows by 1 every 64 bytes without a match
+
+  /** @return the largest compressed size of len bytes */
+  public static int maxCompressedLength(int len) { return len + len/255 + 16; }
+
+  /** Compress src[soff,soff+len) into dst from doff, which must have room
+   *  for {@link #maxCompressedLength}(len) bytes.
+   *  @return the compressed length */
+  public static int compress(byte[] src, int soff, int len, byte[] dst, int doff) {
+    int end = soff+len, anchor = soff, dp = doff;
+    if( len > MFLIMIT ) {
+      int mflimit = end - MFLIMIT, matchLimit = end - LAST_LITERALS;
+      int[] table = new int[1<<HASH_LOG]; // Position+1 of the last prefix with each hash; 0 for none
+      int ip = soff;
+      while( ip < mflimit ) {
+        int h = hash(UnsafeUtils.get4(src, ip));
+        int ref = table[h] - 1 + soff;
+        table[h] = ip - soff + 1;
+        if( ref < soff || ip - ref > MAX_OFFSET || UnsafeUtils.get4(src, ref) != UnsafeUtils.get4(src, ip) ) {
+          ip += 1 + ((ip - anchor) >>> SKIP_TRIGGER);
+          continue;
+        }
+        while( ip > anchor && ref > soff && src[ip-1] == src[ref-1] ) { ip--; ref--; } // Extend backwards
+        int ml = MIN_MATCH;
+        while( ip+ml < matchLimit && src[ip+ml] == src[ref+ml] ) ml++;
+        dp = sequence(src, anchor, ip - anchor, ip - ref, ml, dst, dp);
+        ip += ml;
+        anchor = ip;
+      }
+    }
+    return sequence(src, anchor, end - anchor, 0, 0, dst, dp) - doff;
+  }
+
+  // A token, the literals, and - unless this is the last sequence - the match
+  private static int sequence(byte[] src, int lit, int nlit, int offset, int ml, byte[] dst, int dp) {
+    int tok = dp++;
+    int m = ml - MIN_MATCH;
+    dst[tok] = (byte)(Math.min(nlit, 15) << 4 | (offset == 0 ? 0 : Math.min(m, 15)));
+    if( nlit >= 15 ) dp = length(nlit - 15, dst, dp);
+    System.arraycopy(src, lit, dst, dp, nlit);
+    dp += nlit;
+    if( offset == 0 ) return dp;
+    dst[dp++] = (byte)offset;
+    dst[dp++] = (byte)(offset >>> 8);
+    if( m >= 15 ) dp = length(m - 15, dst, dp);
+    return dp;
+  }
+  private static int length(int x, byte[] dst, int dp) {
+    for( ; x >= 255; x -= 255 ) dst[dp++] = (byte)255;
+    dst[dp++] = (byte)x;
+    return dp;
+  }
+  private static int hash(int x) { return (x * -1640531535) >>> (32 - HASH_LOG); }
+
+  /** Decompress the LZ4 block src[soff,soff+slen) into exactly dlen bytes of
+   *  dst from doff.
+   *  @throws IllegalArgumentException if the block is malformed, or does not
+   *  decompress to dlen bytes */
+  public static void decompress(byte[] src, int soff, int slen, byte[] dst, int doff, int dlen) {
+    int sp = soff, send = soff + slen, dp = doff, dend = doff + dlen;
+    while( true ) {
+      if( sp >= send ) throw bad(sp - soff);
+      int tok = src[sp++] & 0xFF;
+      int nlit = tok >>> 4;
+      if( nlit == 15 ) {
+        int b;
+        do {
+          if( sp >= send ) throw bad(sp - soff);
+          nlit += b = src[sp++] & 0xFF;
+        } while( b == 255 );
+      }
+      if( nlit < 0 || nlit > send - sp || nlit > dend - dp ) throw bad(sp - soff);
+      System.arraycopy(src, sp, dst, dp, nlit);
+      sp += nlit;
+      dp += nlit;
+      if( sp == send ) break;   // The last sequence has no match
+      if( send - sp < 2 ) throw bad(sp - soff);
+      int offset = (src[sp] & 0xFF) | (src[sp+1] & 0xFF) << 8;
+      sp += 2;
+      int ml = tok & 15;
+      if( ml == 15 ) {
+        int b;
+        do {
+          if( sp >= send ) throw bad(sp - soff);
+          ml += b = src[sp++] & 0xFF;
+        } while( b == 255 );
+      }
+      ml += MIN_MATCH;
+      int ref = dp - offset;
+      if( offset == 0 || ref < doff || ml < 0 || ml > dend - dp ) throw bad(sp - soff);
+      if( offset >= ml ) System.arraycopy(dst, ref, dst, dp, ml);
+      else                      // Overlapping: the pattern repeats, so copy it in doubling strides
+        for( int i = 0, c; i < ml; i += c )
+          System.arraycopy(dst, ref, dst, dp+i, c = Math.min(dp+i-ref, ml-i));
+      dp += ml;
+    }
+    if( dp != dend ) throw new IllegalArgumentException("LZ4 block decompresses to "+(dp - doff)+" bytes, expected "+dlen);
+  }
+  private static IllegalArgumentException bad(int at) {
+    return new IllegalArgumentException("Malformed LZ4 block at byte "+at);
+  }
+}
@@ -0,0 +1,153 @@
+package water.util;
+
+import water.H2O;
+import water.nbhm.NonBlockingHashMap;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Node-local counters and latency histograms, served as text (Prometheus
+ *  exposition format) by the /3/Metrics route.
+ *  <p>
+ *  Updates are lock-free: every metric keeps its cells in a primitive long[]
+ *  striped by thread (each stripe on its own cache lines), updated with CAS.
+ *  Histograms are HDR-style, with log-linear buckets of 3 significant bits
+ *  (so quantiles are good to about 12%); they are reported as quantiles, sum
+ *  and count.  Metrics are looked up by label - usually a task's Class - in a
+ *  NonBlockingHashMap, and made on first use.
+ */
+public final class Metrics {
+  private Metrics() {}
+
+  private static final int STRIPES = Math.min(4, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+  private static int stripe() { return (int)Thread.currentThread().getId() & (STRIPES-1); }
+  private static int padded(int n) { return (n + 7) & ~7; } // Whole 64-byte lines per stripe
+
+  // All the families, in registration order
+  private static final ArrayList<Family> FAMILIES = new ArrayList<>();
+
+  public static final Family RPC_SECONDS = histogram("h2o_rpc_seconds", "task", "Remote call round trip time, by DTask class", 1e-9);
+  public static final Family MAP_SECONDS = histogram("h2o_mrtask_map_seconds", "task", "Time in map() per chunk, by MRTask class", 1e-9);
+  public static final Family REDUCE_SECONDS = histogram("h2o_mrtask_reduce_seconds", "task", "Time in reduce() per call, by MRTask class", 1e-9);
+  public static final Family PERSIST_LOAD_SECONDS = histogram("h2o_persist_load_seconds", "backend", "Persist load time, by backend", 1e-9);
+  public static final Family PERSIST_STORE_SECONDS = histogram("h2o_persist_store_seconds", "backend", "Persist store time, by backend", 1e-9);
+  public static final Family PERSIST_LOAD_BYTES = counter("h2o_persist_load_bytes_total", "backend", "Bytes loaded, by backend");
+  public static final Family PERSIST_STORE_BYTES = counter("h2o_persist_store_bytes_total", "backend", "Bytes stored, by backend");
+  public static final Family ALLOC_STALL_SECONDS = histogram("h2o_memory_stall_seconds", "cause", "Time blocked waiting for memory", 1e-9);
+
+  public static Family histogram(String name, String label, String help, double scale) { return register(new Family(name, label, help, scale, true)); }
+  public static Family counter(String name, String label, String help) { return register(new Family(name, label, help, 1, false)); }
+  private static Family register(Family f) {
+    synchronized( FAMILIES ) { FAMILIES.add(f); }
+    return f;
+  }
+
+  /** A named set of metrics of one kind, one metric per label value. */
+  public static final class Family {
+    final String _name, _label, _help;
+    final double _scale;        // Raw values to reported units
+    final boolean _histo;
+    private final NonBlockingHashMap<Object,Metric> _metrics = new NonBlockingHashMap<>();
+    private Family(String name, String label, String help, double scale, boolean histo) {
+      _name = name; _label = label; _help = help; _scale = scale; _histo = histo;
+    }
+    /** The metric for the given Class (labelled with its name) or label String. */
+    public Metric get(Object key) {
+      Metric m = _metrics.get(key);
+      if( m != null ) return m;
+      String label = key instanceof Class ? ((Class)key).getName() : key.toString();
+      m = _histo ? new Histogram(label) : new Metric(label, 1);
+      Metric old = _metrics.putIfAbsent(key, m);
+      return old == null ? m : old;
+    }
+  }
+
+  /** A counter: cell 0 of every stripe. */
+  public static class Metric {
+    final String _label;
+    final int _stride;
+    final long[] _cells;
+    Metric(String label, int cells) {
+      _label = label;
+      _stride = padded(cells);
+      _cells = new long[_stride * STRIPES];
+    }
+    public void add(long x) { AtomicUtils.LongArray.add(_cells, stripe()*_stride, x); }
+    /** Record one observation (histograms), or add it (counters). */
+    public void record(long x) { add(x); }
+    long sum(int cell) {
+      long s = 0;
+      for( int i = 0; i < STRIPES; ++i ) s += _cells[i*_stride + cell];
+      return s;
+    }
+  }
+
+  /** Cell 0 is the sum, cell 1 the count, then the buckets. */
+  public static final class Histogram extends Metric {
+    static final int SUB_BITS = 3, SUB = 1<<SUB_BITS, MAX_EXP = 45; // 2^45 nanos is ~10 hours
+    static final int NBUCKETS = (MAX_EXP-SUB_BITS+2)*SUB;
+    Histogram(String label) { super(label, 2 + NBUCKETS); }
+
+    static int bucket(long x) {
+      if( x < SUB ) return x < 0 ? 0 : (int)x;
+      int e = Math.min(63 - Long.numberOfLeadingZeros(x), MAX_EXP);
+      if( e == MAX_EXP && (x >>> MAX_EXP) > 1 ) return NBUCKETS-1; // Clamp the (very) large ones
+      return (e-SUB_BITS+1)*SUB + (int)((x >>> (e-SUB_BITS)) & (SUB-1));
+    }
+    /** Smallest value of the bucket */
+    static long low(int b) {
+      if( b < SUB ) return b;
+      int e = b/SUB + SUB_BITS - 1;
+      return (long)(SUB + b%SUB) << (e-SUB_BITS);
+    }
+
+    @Override public void record(long x) {
+      int base = stripe()*_stride;
+      AtomicUtils.LongArray.add(_cells, base, x);
+      AtomicUtils.LongArray.incr(_cells, base+1);
+      AtomicUtils.LongArray.incr(_cells, base+2+bucket(x));
+    }
+    /** Value at quantile q: middle of the bucket holding it. */
+    double quantile(double q, long[] buckets, long count) {
+      long rank = (long)Math.ceil(q*count), n = 0;
+      for( int b = 0; b < buckets.length; ++b )
+        if( (n += buckets[b]) >= rank && buckets[b] > 0 )
+          return b < SUB ? b : (low(b) + low(b+1)) / 2.0;
+      return 0;
+    }
+  }
+
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+  /** All the metrics, in Prometheus text exposition format. */
+  public static String toText() {
+    Family[] fams;
+    synchronized( FAMILIES ) { fams = FAMILIES.toArray(new Family[FAMILIES.size()]); }
+    String node = H2O.SELF == null ? "" : H2O.SELF.toString();
+    SB sb = new SB();
+    for( Family f : fams ) {
+      TreeMap<String,Metric> ms = new TreeMap<>();
+      for( Metric m : f._metrics.values() ) ms.put(m._label, m);
+      sb.p("# HELP ").p(f._name).p(' ').p(f._help).nl();
+      sb.p("# TYPE ").p(f._name).p(f._histo ? " summary" : " counter").nl();
+      for( Map.Entry<String,Metric> e : ms.entrySet() ) {
+        String labels = "node=\"" + node + "\"," + f._label + "=\"" + e.getKey() + "\"";
+        Metric m = e.getValue();
+        if( !f._histo ) {
+          sb.p(f._name).p('{').p(labels).p("} ").p(m.sum(0)).nl();
+          continue;
+        }
+        Histogram h = (Histogram)m;
+        long[] buckets = new long[Histogram.NBUCKETS];
+        for( int b = 0; b < buckets.length; ++b ) buckets[b] = h.sum(2+b);
+        long count = h.sum(1);
+        for( double q : QUANTILES )
+          sb.p(f._name).p('{').p(labels).p(",quantile=\"").p(q).p("\"} ").p(h.quantile(q, buckets, count)*f._scale).nl();
+        sb.p(f._name).p("_sum{").p(labels).p("} ").p(h.sum(0)*f._scale).nl();
+        sb.p(f._name).p("_count{").p(labels).p("} ").p(count).nl();
+      }
+    }
+    return sb.toString();
+  }
+}
@@ -5,6 +5,9 @@ import water.api.API;
 import water.api.Schema;
 import water.persist.PersistManager;
 
+import java.util.Map;
+import java.util.TreeMap;
+
 public class WaterMeterIo extends Iced {
   public static class IoStatsEntry extends Schema<Iced, IoStatsEntry> {
     @API(help="Back end type", direction = API.Direction.OUTPUT)
@@ -26,11 +29,32 @@ public class WaterMeterIo extends Iced {
     public long load_bytes;
   }
 
+  public static class WireStatsEntry extends Schema<Iced, WireStatsEntry> {
+    @API(help="Remote task class", direction = API.Direction.OUTPUT)
+    public String task;
+
+    @API(help="Number of messages large enough to compress", direction = API.Direction.OUTPUT)
+    public long messages;
+
+    @API(help="Number of them sent compressed", direction = API.Direction.OUTPUT)
+    public long compressed;
+
+    @API(help="Cumulative serialized bytes", direction = API.Direction.OUTPUT)
+    public long raw_bytes;
+
+    @API(help="Cumulative bytes sent", direction = API.Direction.OUTPUT)
+    public long sent_bytes;
+
+    @API(help="Bytes sent per serialized byte", direction = API.Direction.OUTPUT)
+    public double ratio;
+  }
+
   // Input
   public int nodeidx;
 
   // Output
   public IoStatsEntry persist_stats[];
+  public WireStatsEntry wire_stats[];
 
   public void doIt(boolean aggregateAllNodes) {
     if (! aggregateAllNodes) {
@@ -38,6 +62,7 @@ public class WaterMeterIo extends Iced {
       return;
     }
 
+    TreeMap<String, WireStatsEntry> wire = new TreeMap<>();
     for (int i = 0; i < H2O.CLOUD.size(); i++) {
       WaterMeterIo io = new WaterMeterIo();
       io.doIt(i);
@@ -56,7 +81,17 @@ public class WaterMeterIo extends Iced {
         persist_stats[j].load_count += io.persist_stats[j].load_count;
         persist_stats[j].load_bytes += io.persist_stats[j].load_bytes;
       }
+      for (WireStatsEntry e : io.wire_stats) {
+        WireStatsEntry sum = wire.get(e.task);
+        if (sum == null) { wire.put(e.task, e); continue; }
+        sum.messages += e.messages;
+        sum.compressed += e.compressed;
+        sum.raw_bytes += e.raw_bytes;
+        sum.sent_bytes += e.sent_bytes;
+        sum.ratio = (double)sum.sent_bytes / sum.raw_bytes;
+      }
     }
+    wire_stats = wire.values().toArray(new WireStatsEntry[wire.size()]);
   }
 
   private void doIt(int idx) {
@@ -67,10 +102,12 @@ public class WaterMeterIo extends Iced {
     new RPC<>(node, t).call().get();
     Log.trace("IO GetTask completed to node " + idx);
     persist_stats = t._persist_stats;
+    wire_stats = t._wire_stats;
   }
 
   private static class GetTask extends DTask<GetTask> {
     private IoStatsEntry _persist_stats[];
+    private WireStatsEntry _wire_stats[];
 
     public GetTask() {
       _persist_stats = null;
@@ -119,6 +156,20 @@ public class WaterMeterIo extends Iced {
         assert(src_e.load_bytes.get() == 0);
       }
 
+      TreeMap<String, long[]> wire = WireCompression.stats();
+      _wire_stats = new WireStatsEntry[wire.size()];
+      int k = 0;
+      for (Map.Entry<String, long[]> e : wire.entrySet()) {
+        WireStatsEntry w = _wire_stats[k++] = new WireStatsEntry();
+        long[] ws = e.getValue();
+        w.task = e.getKey();
+        w.messages = ws[0];
+        w.compressed = ws[1];
+        w.raw_bytes = ws[2];
+        w.sent_bytes = ws[3];
+        w.ratio = (double)w.sent_bytes / w.raw_bytes;
+      }
+
       tryComplete();
     }
 
@@ -88,6 +88,69 @@ public class AUCTest extends TestUtil {
     fr.remove();
   }
 
+  @Test public void testExactAUC() {
+    Frame fr = parse_test_file("smalldata/junit/auc.csv.gz");
+    try {
+      double aucp = AUC2.perfectAUC(fr.vec("V1"), fr.vec("V2"));
+      // Enough bins for every probability: exact
+      AUC2 auc = AUC2.exact((int)fr.numRows(), fr.vec("V1"), fr.vec("V2"));
+      Assert.assertEquals(aucp, auc._auc, 1e-10);
+      Assert.assertEquals(0, auc._auc_err, 0);
+      Assert.assertEquals(fr.numRows(), auc._p+auc._n, 0);
+      // Precision at the rows of the top thresholds
+      for( int i=0; i<10; i++ )
+        Assert.assertEquals(auc.tp(i)/(auc.tp(i)+auc.fp(i)), auc.precisionAtK(auc.tp(i)+auc.fp(i)), 1e-10);
+      // Too few bins: within the error bound, and the CMs are still exact
+      for( int nBins : new int[]{400,50} ) {
+        AUC2 auc2 = AUC2.exact(nBins, fr.vec("V1"), fr.vec("V2"));
+        Assert.assertTrue(auc2._nBins <= nBins);
+        Assert.assertEquals(aucp, auc2._auc, auc2._auc_err+1e-10);
+        Assert.assertEquals(fr.numRows(), auc2._p+auc2._n, 0);
+        for( int i=0; i<auc2._nBins; i++ ) {
+          int idx = Arrays.binarySearch(neg(auc._ths), -auc2._ths[i]);
+          Assert.assertTrue(idx >= 0);
+          Assert.assertEquals(auc.tp(idx), auc2.tp(i), 1e-10);
+          Assert.assertEquals(auc.fp(idx), auc2.fp(i), 1e-10);
+        }
+      }
+    } finally {
+      fr.remove();
+    }
+
+    // Ties are real ties; AUCPR and precision@k on a small case
+    AUC2.SketchBuilder bldr = new AUC2.SketchBuilder(10);
+    double probs[] = new double[]{0,0.5,0.5,1}, actls[] = new double[]{0,0,1,1};
+    for( int i=0; i<probs.length; i++ ) bldr.perRow(probs[i],(int)actls[i],1);
+    AUC2 auc = new AUC2(bldr);
+    Assert.assertEquals(0.875, auc._auc, 1e-10);
+    Assert.assertEquals(0, auc._auc_err, 0);
+    Assert.assertEquals((1.0+2.0/3)/2, auc._pr_auc, 1e-10);
+    Assert.assertEquals(1.0, auc.precisionAtK(1), 1e-10);
+    Assert.assertEquals(0.75, auc.precisionAtK(2), 1e-10);
+    Assert.assertEquals(0.5, auc.precisionAtK(4), 1e-10);
+  }
+
+  // Builders of nodes started with different -auc_bins do not merge
+  @Test public void testMixedBuilders() {
+    AUC2.AUCBuilder hist = new AUC2.AUCBuilder(AUC2.NBINS);
+    AUC2.AUCBuilder sketch = new AUC2.SketchBuilder(1000);
+    hist.perRow(0.3,1,1);
+    sketch.perRow(0.7,0,1);
+    try { hist.reduce(sketch); Assert.fail(); }
+    catch( IllegalStateException e ) { Assert.assertTrue(e.getMessage().contains("-auc_bins")); }
+    try { sketch.reduce(hist); Assert.fail(); }
+    catch( IllegalStateException e ) { Assert.assertTrue(e.getMessage().contains("-auc_bins")); }
+    try { sketch.reduce(new AUC2.SketchBuilder(10)); Assert.fail(); }
+    catch( IllegalStateException e ) { Assert.assertTrue(e.getMessage().contains("-auc_bins")); }
+  }
+
+  // Thresholds are descending; negated, for binary search
+  private static double[] neg(double[] ds) {
+    double[] ns = new double[ds.length];
+    for( int i=0; i<ds.length; i++ ) ns[i] = -ds[i];
+    return ns;
+  }
+
   private static double doAUC(double probs[], double actls[]) {
     double rows[][] = new double[probs.length][];
     for( int i=0; i<probs.length; i++ )
@@ -8,6 +8,7 @@ import water.H2O;
 import water.Key;
 import water.TestUtil;
 import water.fvec.Frame;
+import water.fvec.RechunkedVec;
 import water.util.ArrayUtils;
 
 import static water.fvec.FrameTestUtil.assertValues;
@@ -68,8 +69,43 @@ public class FrameSplitterTest extends TestUtil {
     testScenario(fname, chunkLayout, data);
   }
 
+  /** Lazy splits: views over the row ranges of the source chunks. */
+  @Test public void splitStringFrameLazy() {
+    testScenario("test5.hex", ar(2L, 2L, 3L), ar(ar("A", "B"), ar(null, "C"), ar("D", "E", "F")), true);
+    testScenario("test6.hex", ar(3L, 3L), ar(ar("A", null, "B"), ar("C", "D", "E")), true);
+  }
+
+  /** Lazy splits pin their source: deleting it right after the split fails,
+   *  and the splits still read; once they are gone it can be deleted. */
+  @Test public void lazySplitPinsSource() {
+    Frame f = createFrame("test7.hex", ar(2L, 2L, 3L), ar(ar("A", "B"), ar(null, "C"), ar("D", "E", "F")));
+    Frame[] splits = null;
+    try {
+      FrameSplitter fs = new FrameSplitter(null, f, ard(0.5f), generateNumKeys(f._key, 2), null, true);
+      H2O.submitTask(fs).join();
+      splits = fs.getResult();
+      try {
+        f.delete();
+        Assert.fail("Source of lazy splits deleted");
+      } catch (RuntimeException expected) { }
+      Assert.assertNotNull(DKV.get(f._key));
+      assertValues(splits[0], ar("A", "B", null));
+      assertValues(splits[1], ar("C", "D", "E", "F"));
+      for (Frame sf : splits) sf.delete();
+      splits = null;
+      f.delete();
+      Assert.assertNull(DKV.get(f._key));
+      f = null;
+    } finally {
+      if (splits!=null)
+        for(Frame sf : splits) if (sf!=null) sf.delete();
+      if (f != null) f.delete();
+    }
+  }
+
+  static void testScenario(String fname, long[] chunkLayout, String[][] data) { testScenario(fname, chunkLayout, data, false); }
   /** Test scenario for splitting 1-vec frame of strings. */
-  static void testScenario(String fname, long[] chunkLayout, String[][] data) {
+  static void testScenario(String fname, long[] chunkLayout, String[][] data, boolean lazy) {
     Frame f = createFrame(fname, chunkLayout, data);
     double[] ratios  = ard(0.5f);
     Frame[] splits  = null;
@@ -86,15 +122,16 @@ public class FrameSplitterTest extends TestUtil {
     }
 
     try {
-      FrameSplitter fs = new FrameSplitter(f, ratios, generateNumKeys(f._key, ratios.length+1), null);
+      FrameSplitter fs = new FrameSplitter(null, f, ratios, generateNumKeys(f._key, ratios.length+1), null, lazy);
       H2O.submitTask(fs).join();
       splits = fs.getResult();
+      if (lazy) Assert.assertTrue(splits[1].anyVec() instanceof RechunkedVec);
       assertValues(splits[0], split0);
       assertValues(splits[1], split1);
     } finally {
-      f.delete();
       if (splits!=null)
         for(Frame sf : splits) if (sf!=null) sf.delete();
+      f.delete();
     }
   }
 
@@ -268,4 +268,38 @@ public class AutoSerialTest extends Iced {
     Assert.assertTrue(((IcedSerTest)_aaa[0][0][0]).x == Math.PI);
     _aaa = null;
   }
+
+  private static class IcedColTest extends Iced {
+    boolean _b; char _c; int _i; long _l; float _f; double _d;
+    int[] _is; double[] _ds;
+    IcedColTest(int i) {
+      _b = i%2==0; _c = (char)('a'+i); _i = -i; _l = (long)i<<40; _f = i/3f; _d = Math.PI*i;
+      _is = i%4==0 ? null : new int[i%4]; if( _is != null ) _is[0] = i;
+      _ds = new double[]{i, Double.NaN};
+    }
+    void check(IcedColTest t) {
+      Assert.assertEquals(_b, t._b);   Assert.assertEquals(_c, t._c);
+      Assert.assertEquals(_i, t._i);   Assert.assertEquals(_l, t._l);
+      Assert.assertEquals(_f, t._f, 0);Assert.assertEquals(_d, t._d, 0);
+      Assert.assertArrayEquals(_is, t._is);
+      Assert.assertArrayEquals(_ds, t._ds, 0);
+    }
+  }
+  // Arrays of one Iced class go columnar: one type id, then a field at a time
+  @Test public void testColumnarIcedArray() {
+    IcedColTest[] exp = new IcedColTest[37];
+    for( int i=0; i<exp.length; i++ )
+      exp[i] = i%5==2 ? null : new IcedColTest(i);
+    AutoBuffer ab = new AutoBuffer();
+    ab.putA(exp).putA(new Freezable[]{exp[0], new IcedSerTest(1), exp[1], exp[3], exp[4]});
+    ab.flipForReading();
+    IcedColTest[] res = ab.getA(IcedColTest.class);
+    Assert.assertEquals(exp.length, res.length);
+    for( int i=0; i<exp.length; i++ )
+      if( exp[i] == null ) Assert.assertNull(res[i]);
+      else exp[i].check(res[i]);
+    Freezable[] mixed = ab.getA(Freezable.class); // Mixed classes go one by one
+    Assert.assertEquals(1, ((IcedSerTest)mixed[1]).x, 0);
+    exp[4].check((IcedColTest)mixed[4]);
+  }
 }
@@ -0,0 +1,114 @@
+package water;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.util.IcedInt;
+
+import java.util.Arrays;
+
+public class CleanerTest extends TestUtil {
+  @BeforeClass public static void setup() { stall_till_cloudsize(1); }
+
+  // Probation Values go first, unless a hot one is much older
+  @Test public void testEvictionOrder() {
+    long now = System.currentTimeMillis();
+    Value hot = new Value(Key.make(), new IcedInt(0));
+    hot._hits = Value.HOT;
+    hot.touchAt(now - 10000);
+    Value scanned = new Value(Key.make(), new IcedInt(1));
+    scanned.touchAt(now - 5000);
+    Value fresh = new Value(Key.make(), new IcedInt(2));
+    fresh.touchAt(now - 1000);
+    Value ancient = new Value(Key.make(), new IcedInt(3));
+    ancient._hits = Value.HOT;
+    ancient.touchAt(now - 60000);
+    // Scores: 10s, 5s*4, 1s*4, 60s
+    Integer[] order = Cleaner.evictionOrder(Arrays.asList(hot, scanned, fresh, ancient), now);
+    Assert.assertArrayEquals(new Integer[]{3, 1, 0, 2}, order);
+  }
+
+  // A Value turns hot once touched in a second access window
+  @Test public void testHits() {
+    Value val = new Value(Key.make(), new IcedInt(0));
+    Assert.assertEquals(0, val._hits);
+    val.get();                  // Same window as the creation
+    Assert.assertEquals(0, val._hits);
+    val.touchAt(System.currentTimeMillis() - 2*Value.HOT_WINDOW);
+    val.get();
+    Assert.assertEquals(1, val._hits);
+    val.touchAt(System.currentTimeMillis() - 2*Value.HOT_WINDOW);
+    val.get();
+    Assert.assertEquals(Value.HOT, val._hits);
+    val.touchAt(System.currentTimeMillis() - 2*Value.HOT_WINDOW);
+    val.get();
+    Assert.assertEquals(Value.HOT, val._hits); // Saturated
+  }
+
+  // Spilled and evicted Chunks read back the same, and come back hot
+  @Test public void testSpillAndReload() {
+    Vec vec = Vec.makeSeq(1000, false);
+    try {
+      Value val = vec.chunkIdx(0);
+      Assert.assertTrue(val._hits < Value.HOT);
+      new Cleaner.Spill(new Value[]{val}, true).run();
+      Assert.assertTrue(val.isPersisted());
+      Assert.assertTrue(val._evicted);
+      Assert.assertNull(val.rawMem());
+      Assert.assertNull(val.rawPOJO());
+      for( int i = 0; i < vec.length(); i++ )
+        Assert.assertEquals(i+1, vec.at(i), 0);
+      Assert.assertFalse(val._evicted);
+      Assert.assertEquals(Value.HOT, val._hits);
+    } finally {
+      vec.remove();
+    }
+  }
+
+  // A Chunk removed while its spill is queued is not written
+  @Test public void testSpillOfRemoved() {
+    Vec vec = Vec.makeSeq(1000, false);
+    Key k = vec.chunkKey(0);
+    Value val = vec.chunkIdx(0);
+    vec.remove();
+    Assert.assertNull(H2O.STORE.get(k));
+    new Cleaner.Spill(new Value[]{val}, true).run();
+    Assert.assertFalse(val.isPersisted());
+    Assert.assertFalse(val._evicted);
+  }
+
+  // With -swap, a forced sweep spills old Chunks in batches and evicts them
+  @Test public void testSweep() throws InterruptedException {
+    boolean swap = H2O.ARGS.swap;
+    Vec con = Vec.makeCon(0, 1<<16, 10);
+    Vec vec = con.makeRand(0x123456L);
+    Vec copy = vec.makeCopy(null);
+    con.remove();
+    try {
+      H2O.ARGS.swap = true;
+      long ago = System.currentTimeMillis() - 1000L*1000L;
+      Value[] vals = new Value[vec.nChunks()];
+      for( int i = 0; i < vals.length; i++ ) {
+        vals[i] = vec.chunkIdx(i);
+        vals[i].touchAt(ago);
+      }
+      synchronized( Cleaner.THE_CLEANER ) {
+        Cleaner.DESIRED = -1;   // Test mode: evict all
+        Cleaner.dirty_store(ago);
+        Cleaner.kick_store_cleaner();
+        Cleaner.block_for_test();
+      }
+      for( Value val : vals ) {
+        Assert.assertTrue(val.isPersisted());
+        Assert.assertNull(val.rawMem());
+      }
+      Assert.assertTrue(isBitIdentical(new Frame(vec), new Frame(copy)));
+    } finally {
+      H2O.ARGS.swap = swap;
+      vec.remove();
+      copy.remove();
+    }
+  }
+}
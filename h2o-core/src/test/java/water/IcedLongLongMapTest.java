@@ -0,0 +1,48 @@
+package water;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.util.IcedLongLongMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class IcedLongLongMapTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  static void check(HashMap<Long,Long> expected, IcedLongLongMap m) {
+    Assert.assertEquals(expected.size(), m.size());
+    for (Map.Entry<Long,Long> e : expected.entrySet()) {
+      Assert.assertTrue(m.containsKey(e.getKey()));
+      Assert.assertEquals((long)e.getValue(), m.get(e.getKey(), -1));
+    }
+    long[] keys = m.keys(), vals = m.values();
+    for (int i = 0; i < keys.length; ++i)
+      Assert.assertEquals((long)expected.get(keys[i]), vals[i]);
+  }
+
+  @Test public void testCounts() {
+    Random rng = new Random(0xDECAF);
+    HashMap<Long,Long> expected = new HashMap<>();
+    IcedLongLongMap m0 = new IcedLongLongMap(), m1 = new IcedLongLongMap();
+    for (int i = 0; i < 100000; ++i) {
+      // Include the special keys: 0 marks a free slot, MIN_VALUE a missing pair of enums
+      long key = i % 97 == 0 ? 0 : i % 89 == 0 ? Long.MIN_VALUE : (long)rng.nextInt(20000) << rng.nextInt(40);
+      (i % 2 == 0 ? m0 : m1).add(key, 1);
+      Long cnt = expected.get(key);
+      expected.put(key, cnt == null ? 1 : cnt + 1);
+    }
+    m0.addAll(m1);
+    check(expected, m0);
+    Assert.assertFalse(m0.containsKey(-1));
+    Assert.assertEquals(-7, m0.get(-1, -7));
+
+    // Round trip over the wire
+    AutoBuffer ab = new AutoBuffer();
+    ab.put(m0);
+    IcedLongLongMap m2 = ab.flipForReading().get();
+    check(expected, m2);
+  }
+}
@@ -0,0 +1,91 @@
+package water;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.H2O.H2OCountedCompleter;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+public class JobSchedulerTest extends TestUtil {
+  @BeforeClass public static void setup() { stall_till_cloudsize(1); }
+
+  // Task blocking until released, so jobs stay running as long as we need
+  private static class Blocker extends H2OCountedCompleter {
+    final transient CountDownLatch _latch = new CountDownLatch(1);
+    @Override protected void compute2() {
+      try { _latch.await(); } catch( InterruptedException ignore ) { }
+      tryComplete();
+    }
+  }
+
+  @Test public void testCapAndFairShare() {
+    int cap = JobScheduler.MAX_RUNNING;
+    Job j0 = null, j1 = null, j2 = null;
+    try {
+      JobScheduler.MAX_RUNNING = 1;
+      j0 = new Job(Key.make(), "busy");
+      j0._owner = "busy";
+      Blocker b0 = new Blocker();
+      j0.start(b0, 1);
+      // Wait so that "busy" is charged for some time
+      try { Thread.sleep(50); } catch( InterruptedException ignore ) { }
+      j1 = new Job(Key.make(), "busy again");
+      j1._owner = "busy";
+      j1.start(new Blocker(), 1);
+      j2 = new Job(Key.make(), "idle");
+      j2._owner = "idle";
+      Blocker b2 = new Blocker();
+      j2.start(b2, 1);
+      Assert.assertTrue(JobScheduler.isQueued(j1._key));
+      Assert.assertTrue(JobScheduler.isQueued(j2._key));
+      Assert.assertEquals("Queued", j2.progress_msg());
+      // Owner "idle" has no charge, so goes ahead of the earlier "busy" job
+      b0._latch.countDown();
+      j0._barrier.join();
+      Assert.assertFalse(JobScheduler.isQueued(j2._key));
+      Assert.assertTrue(JobScheduler.isQueued(j1._key));
+      // Then the remaining "busy" job
+      b2._latch.countDown();
+      j2._barrier.join();
+      Assert.assertFalse(JobScheduler.isQueued(j1._key));
+    } finally {
+      JobScheduler.MAX_RUNNING = cap;
+      for( Job j : new Job[]{j0, j1, j2} )
+        if( j != null ) {
+          if( j._fjtask instanceof Blocker ) ((Blocker)j._fjtask)._latch.countDown();
+          j._barrier.join();
+          j.remove();
+        }
+    }
+  }
+
+  // Jobs created while serving a request belong to its owner, or its session
+  @Test public void testRequestOwner() {
+    try {
+      Properties header = new Properties();
+      header.setProperty(JobScheduler.SESSION_HEADER, "_sid1");
+      JobScheduler.setRequest(header);
+      Job j = new Job(Key.make(), "session");
+      Assert.assertEquals("_sid1", j._owner);
+      Assert.assertEquals(1, j._weight, 0);
+      header.setProperty(JobScheduler.OWNER_HEADER, "alice");
+      header.setProperty(JobScheduler.WEIGHT_HEADER, "2.5");
+      JobScheduler.setRequest(header);
+      j = new Job(Key.make(), "owner");
+      Assert.assertEquals("alice", j._owner);
+      Assert.assertEquals(2.5, j._weight, 0);
+      header.setProperty(JobScheduler.WEIGHT_HEADER, "0");
+      try {
+        JobScheduler.setRequest(header);
+        Assert.fail("Expected a bad weight to be refused");
+      } catch( IllegalArgumentException ignore ) { }
+    } finally {
+      JobScheduler.clearRequest();
+    }
+    Job j = new Job(Key.make(), "no request");
+    Assert.assertEquals("", j._owner);
+    Assert.assertEquals(1, j._weight, 0);
+  }
+}
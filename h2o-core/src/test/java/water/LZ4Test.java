@@ -0,0 +1,104 @@
+package water;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.util.LZ4;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class LZ4Test extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  // Round trip, at offsets into larger buffers; returns the compressed length
+  static int roundTrip(byte[] src) {
+    byte[] z = new byte[3 + LZ4.maxCompressedLength(src.length)];
+    int zlen = LZ4.compress(src, 0, src.length, z, 3);
+    Assert.assertTrue(zlen <= LZ4.maxCompressedLength(src.length));
+    byte[] res = new byte[src.length + 2];
+    LZ4.decompress(z, 3, zlen, res, 1, src.length);
+    Assert.assertArrayEquals(src, Arrays.copyOfRange(res, 1, 1 + src.length));
+    return zlen;
+  }
+
+  @Test public void testRoundTrips() {
+    Random rng = new Random(0xC0FFEE);
+    for( int n = 0; n < 64; n++ ) {      // Too short for matches, or just long enough
+      byte[] bs = new byte[n];
+      rng.nextBytes(bs);
+      roundTrip(bs);
+    }
+    for( int i = 0; i < 200; i++ ) {     // Few symbols: long and overlapping matches
+      byte[] bs = new byte[rng.nextInt(5000)];
+      int k = 1 + rng.nextInt(4);
+      for( int j = 0; j < bs.length; j++ ) bs[j] = (byte)rng.nextInt(k);
+      roundTrip(bs);
+    }
+    byte[] rnd = new byte[1<<20];
+    rng.nextBytes(rnd);
+    Assert.assertTrue(roundTrip(rnd) <= LZ4.maxCompressedLength(rnd.length));
+    Assert.assertTrue(roundTrip(new byte[1<<20]) < 1<<13);
+    StringBuilder sb = new StringBuilder();
+    for( int i = 0; i < 20000; i++ ) sb.append("row").append(i % 100).append(",level").append(rng.nextInt(5)).append('\n');
+    byte[] text = sb.toString().getBytes();
+    Assert.assertTrue(roundTrip(text) < text.length / 2);
+  }
+
+  @Test public void testMalformed() {
+    Random rng = new Random(42);
+    byte[] dst = new byte[100];
+    for( int i = 0; i < 1000; i++ ) {
+      byte[] bs = new byte[rng.nextInt(40)];
+      rng.nextBytes(bs);
+      try {
+        LZ4.decompress(bs, 0, bs.length, dst, 0, dst.length);
+        Assert.fail("Garbage decompressed to exactly "+dst.length+" bytes");
+      } catch( IllegalArgumentException expected ) { }
+    }
+  }
+
+  // A remote call carrying a large array
+  private static class Payload extends DTask<Payload> {
+    double[] _ds;
+    Payload() { }
+    Payload(int n) { _ds = new double[n]; for( int i = 0; i < n; i++ ) _ds[i] = i % 100; }
+    Payload(int n, Random rng) { _ds = new double[n]; for( int i = 0; i < n; i++ ) _ds[i] = rng.nextDouble(); }
+    @Override protected void compute2() { tryComplete(); }
+  }
+
+  // Small calls go raw; large ones compressed over several blocks, unless
+  // they do not shrink
+  @Test public void testWireCompression() {
+    int min = H2O.ARGS.wire_compress;
+    try {
+      H2O.ARGS.wire_compress = 1<<10;
+      AutoBuffer ab = WireCompression.put(new AutoBuffer(), 1, 2, new Payload(10), true);
+      AutoBuffer rd = new AutoBuffer(ab.buf());
+      Assert.assertEquals(1, rd.get1());
+      Assert.assertEquals(10, ((Payload)rd.get())._ds.length);
+
+      Payload big = new Payload(3*WireCompression.BLOCK/8 + 123);
+      ab = WireCompression.put(new AutoBuffer(), 1, 2, big, true);
+      byte[] bs = ab.buf();
+      Assert.assertTrue(bs.length < big._ds.length);
+      rd = new AutoBuffer(bs);
+      Assert.assertEquals(2, rd.get1());
+      Assert.assertArrayEquals(big._ds, ((Payload)WireCompression.get(rd).get())._ds, 0);
+
+      // Several blocks, and a short last one
+      big = new Payload(5*WireCompression.BLOCK/8 + 7);
+      rd = new AutoBuffer(WireCompression.put(new AutoBuffer(), 1, 2, big, true).buf());
+      Assert.assertEquals(2, rd.get1());
+      Assert.assertArrayEquals(big._ds, ((Payload)WireCompression.get(rd).get())._ds, 0);
+
+      // Random doubles do not shrink: streamed raw after the first block
+      Payload rnd = new Payload(3*WireCompression.BLOCK/8 + 5, new Random(0xFEED));
+      rd = new AutoBuffer(WireCompression.put(new AutoBuffer(), 1, 2, rnd, true).buf());
+      Assert.assertEquals(1, rd.get1());
+      Assert.assertArrayEquals(rnd._ds, ((Payload)rd.get())._ds, 0);
+    } finally {
+      H2O.ARGS.wire_compress = min;
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package water;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.fvec.Chunk;
+import water.fvec.Vec;
+import water.util.Metrics;
+
+public class MetricsTest extends TestUtil {
+  @BeforeClass public static void setup() { stall_till_cloudsize(1); }
+
+  private static class Touch extends MRTask<Touch> {
+    @Override public void map(Chunk c) { }
+  }
+
+  @Test public void testHistogramQuantiles() {
+    Metrics.Family f = Metrics.histogram("h2o_test_metric", "case", "Test histogram", 1);
+    Metrics.Metric m = f.get("uniform");
+    for( int i = 1; i <= 1000; ++i ) m.record(i);
+    String text = Metrics.toText();
+    Assert.assertTrue(text.contains("h2o_test_metric_count{"));
+    Assert.assertTrue(text.contains("case=\"uniform\"} 1000\n"));
+    Assert.assertTrue(text.contains("h2o_test_metric_sum{"));
+    // Buckets have 3 significant bits: the median is good to ~12%
+    double median = Double.NaN;
+    for( String line : text.split("\n") )
+      if( line.startsWith("h2o_test_metric{") && line.contains("quantile=\"0.5\"") )
+        median = Double.parseDouble(line.substring(line.lastIndexOf(' ')+1));
+    Assert.assertEquals(500, median, 500*0.125);
+  }
+
+  @Test public void testMRTaskTimed() {
+    Vec v = Vec.makeZero(1000);
+    try {
+      new Touch().doAll(v);
+      Assert.assertTrue(Metrics.toText().contains("task=\"" + Touch.class.getName() + "\""));
+    } finally {
+      v.remove();
+    }
+  }
+}
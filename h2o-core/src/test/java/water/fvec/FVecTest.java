@@ -44,6 +44,26 @@ public class FVecTest extends TestUtil {
     nfs.remove();
   }
 
+  // Chunks copied out of the memory-mapped file match chunks read through streams
+  @Test public void testMappedLoad() {
+    File file = find_test_file("./smalldata/junit/cars.csv");
+    boolean mmap = water.persist.PersistNFS.MMAP;
+    try {
+      water.persist.PersistNFS.MMAP = false;
+      NFSFileVec nfs = NFSFileVec.make(file);
+      byte[] streamed = nfs.getFirstBytes().clone();
+      int[] histo = new ByteHisto().doAll(nfs)._x;
+      nfs.remove();
+      water.persist.PersistNFS.MMAP = true;
+      nfs = NFSFileVec.make(file);
+      assertArrayEquals(streamed, nfs.getFirstBytes());
+      assertArrayEquals(histo, new ByteHisto().doAll(nfs)._x);
+      nfs.remove();
+    } finally {
+      water.persist.PersistNFS.MMAP = mmap;
+    }
+  }
+
   private static class ByteHisto extends MRTask<ByteHisto> {
     public int[] _x;
     // Count occurrences of bytes
@@ -250,4 +270,30 @@ public class FVecTest extends TestUtil {
       if( vec != null ) vec.remove();
     }
   }
+
+  @Test public void testSnapshot() throws java.io.IOException {
+    Frame fr = null, fr2 = null;
+    File dir = java.nio.file.Files.createTempDirectory("h2o-snap").toFile();
+    try {
+      fr = parse_test_file("smalldata/junit/cars.csv");
+      for( Vec v : fr.vecs() ) v.mean(); // Compute the rollups, so they get saved
+      long bytes = FrameSnapshot.save(fr, dir.getAbsolutePath(), true);
+      assertTrue(bytes > 0);
+      fr2 = FrameSnapshot.load(dir.getAbsolutePath(), Key.make("cars.snap"));
+      assertEquals(fr.numRows(), fr2.numRows());
+      assertArrayEquals(fr.names(), fr2.names());
+      for( int i = 0; i < fr.numCols(); ++i ) {
+        assertArrayEquals(fr.vecs()[i].domain(), fr2.vecs()[i].domain());
+        assertEquals(fr.vecs()[i].nChunks(), fr2.vecs()[i].nChunks());
+        assertEquals(fr.vecs()[i].mean(), fr2.vecs()[i].mean(), 0);
+      }
+      assertTrue(isBitIdentical(fr, fr2));
+    } finally {
+      if( fr  != null ) fr .delete();
+      if( fr2 != null ) fr2.delete();
+      File[] files = dir.listFiles();
+      if( files != null ) for( File f : files ) f.delete();
+      dir.delete();
+    }
+  }
 }
@@ -40,4 +40,62 @@ public class RebalanceDatasetTest extends TestUtil {
       }
     }
   }
+
+  @Test public void testLazyRechunk(){
+    int hot = RechunkedVec.HOT_READS;
+    Frame fr = null, view = null;
+    try {
+      NFSFileVec nfs = NFSFileVec.make(find_test_file("smalldata/logreg/prostate.csv"));
+      fr = ParseDataset.parse(Key.make(), nfs._key);
+      RechunkedVec.HOT_READS = 2;
+      view = RebalanceDataSet.rechunk(fr, Key.make("rechunked"), 13);
+      assertEquals(fr.numRows(), view.numRows());
+      assertEquals(13, view.anyVec().nChunks());
+      assertTrue(view.anyVec() instanceof RechunkedVec);
+      assertTrue(isBitIdentical(view, fr)); // Read through the views
+      assertTrue(isBitIdentical(view, fr)); // Now hot: materialized chunks
+      assertNotNull(DKV.get(view.anyVec().chunkKey(0)));
+      // Writes land in the view only
+      Vec v = view.vecs()[1];
+      double x = fr.vecs()[1].at(5);
+      v.set(5, x+1);
+      assertEquals(x+1, v.at(5), 0);
+      assertEquals(x, fr.vecs()[1].at(5), 0);
+    } finally {
+      RechunkedVec.HOT_READS = hot;
+      if (view != null) view.delete();
+      if (fr != null) fr.delete();
+    }
+  }
+
+  // Copies of views get the rows, as real chunks which outlive the source
+  @Test public void testDeepCopyRechunked(){
+    int hot = RechunkedVec.HOT_READS;
+    Frame fr = null, view = null, copy = null;
+    Vec vcopy = null;
+    try {
+      NFSFileVec nfs = NFSFileVec.make(find_test_file("smalldata/logreg/prostate.csv"));
+      fr = ParseDataset.parse(Key.make(), nfs._key);
+      RechunkedVec.HOT_READS = 0; // Views only
+      view = RebalanceDataSet.rechunk(fr, Key.make("rechunked"), 7);
+      copy = view.deepCopy("rechunked_copy");
+      vcopy = view.vecs()[2].makeCopy(view.vecs()[2].domain());
+      assertFalse(copy.anyVec() instanceof RechunkedVec);
+      assertTrue(isBitIdentical(copy, fr));
+      double[] expected = new double[(int)fr.numRows()];
+      for (int i = 0; i < expected.length; i++) expected[i] = fr.vecs()[2].at(i);
+      view.delete();
+      view = null;
+      fr.delete();
+      fr = null;
+      for (int i = 0; i < expected.length; i++) assertEquals(expected[i], vcopy.at(i), 0);
+      assertEquals(expected.length, copy.numRows());
+    } finally {
+      RechunkedVec.HOT_READS = hot;
+      if (view != null) view.delete();
+      if (fr != null) fr.delete();
+      if (copy != null) copy.delete();
+      if (vcopy != null) vcopy.remove();
+    }
+  }
 }
@@ -56,6 +56,34 @@ public class VecStatsTest extends TestUtil {
     }
   }
 
+  @Test public void testRollupsAfterWrite() {
+    Vec v = null;
+    try {
+      Futures fs = new Futures();
+      AppendableVec av = new AppendableVec(Vec.newKey());
+      for( int i = 0; i < 2; i++ ) {
+        NewChunk chunk = new NewChunk(av, i);
+        for( int r = 0; r < 1000; r++ )
+          chunk.addNum(r);
+        chunk.close(i, fs);
+      }
+      v = av.close(fs);
+      fs.blockForPending();
+      assertEquals(999, v.max(), 0);
+      assertEquals(499.5, v.mean(), 1e-9);
+      RollupStats rs0 = v.chunkForChunkIdx(0)._rollups;
+      assertNotNull(rs0);
+      // write into the 2nd chunk only
+      v.set(1500, 5000);
+      assertEquals(5000, v.max(), 0);
+      assertEquals(499.5 + (5000 - 500) / 2000.0, v.mean(), 1e-9);
+      // the 1st chunk was not rescanned
+      assertSame(rs0, v.chunkForChunkIdx(0)._rollups);
+    } finally {
+      if( v != null ) v.remove();
+    }
+  }
+
   @Test public void testPCTiles() {
     // Simplified version of tests in runit_quantile_1_golden.R. There we test probs=seq(0,1,by=0.01)
     Vec vec = vec(5 , 8 ,  9 , 12 , 13 , 16 , 18 , 23 , 27 , 28 , 30 , 31 , 33 , 34 , 43,  45,  48, 161);
@@ -786,6 +786,28 @@ public class ParserTest extends TestUtil {
     }
   }
 
+  // The fast path for all-numeric lines must parse exactly like the state machine
+  @Test public void testNumericLineFastPath() {
+    String[] data = new String[] {
+      "1,2,3\n-1.5,+2.25,.5\n,,\n7,8,9\r\n",
+      "10,20,30\n1e3,\"4\",5\n123456789012345678,1234567890123456789,0.000001\n",
+      "-0,007,1.\n3,4",          // Last line runs into the next chunk
+      ",5\n1,$2,3%\n11,12,13\n",
+    };
+    Frame fast = null, slow = null;
+    try {
+      fast = ParseDataset.parse(Key.make("fast.hex"), makeByteVec(data));
+      CsvParser.FAST_NUMERIC_LINES = false;
+      slow = ParseDataset.parse(Key.make("slow.hex"), makeByteVec(data));
+      Assert.assertEquals(11, fast.numRows());
+      Assert.assertTrue(isBitIdentical(fast, slow));
+    } finally {
+      CsvParser.FAST_NUMERIC_LINES = true;
+      if( fast != null ) fast.delete();
+      if( slow != null ) slow.delete();
+    }
+  }
+
   @Ignore //PUBDEV-1384 fails for cloudsize > 1
   @Test public void parseMNIST() {
     File train = find_test_file("bigdata/laptop/mnist/train.csv.gz");
@@ -64,6 +64,24 @@ public class ParserTest2 extends TestUtil {
   }
 
   
+  // Levels first seen in different chunks, in no particular order, must end
+  // up in one sorted domain with every row renumbered to it.
+  @Test public void testEnumDomainMerge() {
+    String[] data = new String[]{
+      "zeta,b\nalpha,a\n",
+      "mu,c\nalpha,b\n",
+      "beta,a\nzeta,c\nomega,a\n",
+    };
+    String[][] expected = new String[][]{
+      {"zeta","b"},{"alpha","a"},{"mu","c"},{"alpha","b"},{"beta","a"},{"zeta","c"},{"omega","a"},
+    };
+    Key k = ParserTest.makeByteVec(data);
+    Frame fr = ParseDataset.parse(Key.make(), k);
+    Assert.assertArrayEquals(new String[]{"alpha","beta","mu","omega","zeta"}, fr.vecs()[0].domain());
+    Assert.assertArrayEquals(new String[]{"a","b","c"}, fr.vecs()[1].domain());
+    testParsed(fr, expected);
+  }
+
  @Test public void testSingleQuotes(){
     String[] data  = new String[]{"'Tomass,test,first,line'\n'Tomas''s,test2',test2\nlast,'line''","s, trailing, piece'"};
     String[][] expectFalse = new String[][] { ar("'Tomass"  ,"test"  ,"first","line'"),
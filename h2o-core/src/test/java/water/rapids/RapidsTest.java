@@ -7,6 +7,7 @@ import water.DKV;
 import water.Key;
 import water.TestUtil;
 import water.fvec.Frame;
+import water.parser.ValueString;
 
 public class RapidsTest extends TestUtil {
   @BeforeClass public static void setup() { stall_till_cloudsize(1); }
@@ -81,6 +82,90 @@ public class RapidsTest extends TestUtil {
     fr.delete();
   }
 
+  @Test public void testFused() {
+    // `(hex*2 + hex) > hex & !is.na(hex)`, and the same with NAs and a scalar-only subtree
+    checkFused("(& (g (+ (* %a.hex #2) %a.hex) %a.hex) (! (is.na %a.hex)))", new double[]{-1,1,2,3,4,5,6,254});
+    checkFused("(| (l (- (abs %a.hex) (* #2 #3)) #0) (is.na (sqrt %a.hex)))", new double[]{-1,Double.NaN,2,36,Double.NaN,0});
+  }
+
+  @Test public void testKernelCache() {
+    int max = FusedKernel.MAX_KERNELS;
+    try {
+      FusedKernel.MAX_KERNELS = 2;
+      for( int i = 0; i < 3; ++i )
+        Assert.assertNotNull(FusedKernel.get("public void eval(water.fvec.Chunk[] cs, double[] k, double[] res) { res[0] = " + i + "; }"));
+      Assert.assertEquals(2, FusedKernel.cached());
+    } finally {
+      FusedKernel.MAX_KERNELS = max;
+    }
+  }
+
+  @Test public void testTable() {
+    double NA = Double.NaN;
+    // One column, dense counts: negative values
+    checkTable(ear(-3, -1, -3, -2, -1, -3), ear(-3, -2, -1), ar(3L, 1L, 2L));
+    // Mixed signs, zero and an NA (not counted)
+    checkTable(ear(5, -2, 0, NA, 5, -2, 3), ear(-2, 0, 3, 5), ar(2L, 1L, 1L, 2L));
+    // Range too wide for dense counts: hashed
+    checkTable(ear(1, 1e12, -5e11, 1, 1e12, 7), ear(-5e11, 1, 7, 1e12), ar(1L, 2L, 1L, 2L));
+    // Two columns: packed pairs, NAs first
+    checkTable(ard(ard(1, NA), ard(NA, 2), ard(1, NA), ard(-1, 2), ard(1, 3), ard(NA, NA), ard(-1, 2)),
+               ard(ard(NA, NA), ard(NA, 2), ard(-1, 2), ard(1, NA), ard(1, 3)), ar(1L, 1L, 2L, 2L, 1L));
+  }
+
+  // `table` of the rows: its distinct rows, ascending (NA first), and their counts
+  private static void checkTable(double[][] rows, double[][] vals, long[] cnts) {
+    Frame r = frame(rows);
+    Key ahex = Key.make("a.hex");
+    Frame fr = new Frame(ahex, null, r.vecs());
+    DKV.put(ahex, fr);
+    Frame res = null;
+    try {
+      res = Exec.exec("(table %a.hex ())").popAry();
+      int ncol = rows[0].length;
+      Assert.assertEquals(ncol + 1, res.numCols());
+      Assert.assertEquals(cnts.length, res.numRows());
+      for( int i = 0; i < cnts.length; ++i ) {
+        for( int c = 0; c < ncol; ++c )
+          if( Double.isNaN(vals[i][c]) ) Assert.assertTrue("row " + i, res.vecs()[c].isNA(i));
+          else Assert.assertEquals("row " + i, vals[i][c], res.vecs()[c].at(i), 0);
+        Assert.assertEquals("row " + i, cnts[i], res.vecs()[ncol].at8(i));
+      }
+    } finally {
+      if( res != null ) res.delete();
+      fr.delete();
+      r.delete();
+    }
+  }
+
+  private static void checkFused(String tree, double[] data) {
+    Frame r = frame(ear(data));
+    Key ahex = Key.make("a.hex");
+    Frame fr = new Frame(ahex, null, r.vecs());
+    DKV.put(ahex, fr);
+    Frame fused = null, interp = null, plain = null;
+    try {
+      fused = Exec.exec(tree).popAry();
+      Assert.assertNotNull("Kernel compiled", FusedKernel.get(FusedKernel.lastSource()));
+      Exec.JIT = false;
+      interp = Exec.exec(tree).popAry();
+      Exec.FUSE = false;
+      plain = Exec.exec(tree).popAry();
+      Assert.assertEquals(plain.numRows(), fused.numRows());
+      for( int i = 0; i < data.length; ++i ) {
+        Assert.assertEquals("row " + i, plain.vecs()[0].at(i), fused.vecs()[0].at(i), 0);
+        Assert.assertEquals("row " + i, plain.vecs()[0].at(i), interp.vecs()[0].at(i), 0);
+      }
+    } finally {
+      Exec.FUSE = Exec.JIT = true;
+      if( fused != null ) fused.delete();
+      if( interp != null ) interp.delete();
+      if( plain != null ) plain.delete();
+      fr.delete();
+      r.delete();
+    }
+  }
+
   private static void checkTree(String tree) {
     Frame r = frame(new double[]{-1,1,2,3,4,5,6,254});
     Key ahex = Key.make("a.hex");
@@ -157,4 +242,46 @@ public class RapidsTest extends TestUtil {
       if( f != null ) f.delete();
     }
   }
+
+  @Test public void testStringColumnOps() {
+    Frame fr = water.fvec.FrameTestUtil.createFrame("s.hex", new long[]{3,2},
+        new String[][]{{"  Hello World ", null, "a,b,,c"}, {"", "Banana"}});
+    try {
+      checkStrings("(toupper %s.hex)", "  HELLO WORLD ", null, "A,B,,C", "", "BANANA");
+      checkStrings("(trim %s.hex)", "Hello World", null, "a,b,,c", "", "Banana");
+      checkStrings("(gsub \"an\" \"AN\" %s.hex #0)", "  Hello World ", null, "a,b,,c", "", "BANANa");
+      checkStrings("(sub \"o\" \"0\" %s.hex #0)", "  Hell0 World ", null, "a,b,,c", "", "Banana");
+      checkStrings("(substring %s.hex #3 #7)", "Hello", null, "b,,c", "", "nana");
+      Env env = Exec.exec("(nchar %s.hex)");
+      Frame f = env.popAry();
+      try {
+        Assert.assertEquals(14, f.vec(0).at8(0));
+        Assert.assertTrue(f.vec(0).isNA(1));
+        Assert.assertEquals(6, f.vec(0).at8(4));
+      } finally { f.delete(); }
+      env = Exec.exec("(strsplit %s.hex \",\")");
+      f = env.popAry();
+      try {
+        Assert.assertEquals(4, f.numCols());
+        Assert.assertEquals("b", f.vec(1).atStr(new ValueString(), 2).toString());
+        Assert.assertEquals("", f.vec(2).atStr(new ValueString(), 2).toString());
+        Assert.assertTrue(f.vec(1).isNA(0));
+      } finally { f.delete(); }
+    } finally {
+      fr.delete();
+    }
+  }
+
+  private static void checkStrings(String tree, String... expected) {
+    Frame f = Exec.exec(tree).popAry();
+    try {
+      Assert.assertTrue(f.vec(0).isString());
+      ValueString vs = new ValueString();
+      for( int i = 0; i < expected.length; ++i )
+        if( expected[i] == null ) Assert.assertTrue(tree, f.vec(0).isNA(i));
+        else Assert.assertEquals(tree, expected[i], f.vec(0).atStr(vs, i).toString());
+    } finally {
+      f.delete();
+    }
+  }
 }
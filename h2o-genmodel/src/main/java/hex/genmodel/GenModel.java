@@ -127,6 +127,15 @@ public abstract class GenModel implements IGenModel, IGeneratedModel, Serializab
    *  GenModel class. */
   abstract public double[] score0( double[] data, double[] preds );
 
+  /** Score for the main prediction only: the predicted class for classifiers,
+   *  the value for regression.  Same result as preds[0] of score0, but
+   *  generated models able to decide the class from a partial score (e.g.
+   *  binomial tree ensembles) override this and stop early.  The preds array
+   *  is a re-used temp array, as in score0. */
+  public double predictLabel( double[] data, double[] preds ) {
+    return score0(data, preds)[0];
+  }
+
   // Does the mapping lookup for every row, no allocation.
   // data and preds arrays are pre-allocated and can be re-used for every row.
   public double[] score0( Map<String, Double> row, double data[], double preds[] ) {
@@ -4,7 +4,7 @@ import java.io.*;
 import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.util.concurrent.Callable;
-import java.util.ArrayList;
+import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -92,34 +92,12 @@ public final class PersistHdfs extends Persist {
 
   @Override public byte[] load(final Value v) {
     //
-    // !!! WARNING !!!
-    //
-    // tomk: Sun Apr 19 13:11:51 PDT 2015
-    //
-    //
-    // This load implementation behaved *HORRIBLY* with S3 when the libraries were updated.
-    //    Behaves well (and is the same set of libraries as H2O-1):
-    //        org.apache.hadoop:hadoop-client:2.0.0-cdh4.3.0
-    //        net.java.dev.jets3t:jets3t:0.6.1
-    //
-    //    Behaves abysmally:
-    //        org.apache.hadoop:hadoop-client:2.5.0-cdh5.2.0
-    //        net.java.dev.jets3t:jets3t:0.9.2
-    //
-    //
-    // I did some debugging.
-    //
-    // What happens in the new libraries is the connection type is a streaming connection, and
-    // the entire file gets read on close() even if you only wanted to read a chunk.  The result
-    // is the same data gets read over and over again by the underlying transport layer even
-    // though H2O only thinks it's asking for (and receiving) each piece of data once.
-    //
-    // I suspect this has something to do with the 'Range' HTTP header on the GET, but I'm not
-    // entirely sure.  Many layers of library need to be fought through to really figure it out.
-    //
-    // Anyway, this will need to be rewritten from the perspective of how to properly use the
-    // new library version.  Might make sense to go to straight to 's3a' which is a replacement
-    // for 's3n'.
+    // Chunks of a file are read through pooled streams (see StreamPool): the
+    // chunks a node loads are mostly consecutive, and re-opening a stream per
+    // chunk - then skipping to its offset - made the S3 transports re-read
+    // the file over and over (streaming connections read the whole object on
+    // close, and skip by reading).  HDFS and local files use positional reads
+    // on a shared stream instead.
     //
     long end, start = System.currentTimeMillis();
     final byte[] b = MemoryManager.malloc1(v._max);
@@ -127,31 +105,21 @@ public final class PersistHdfs extends Persist {
     long skip = k.isChunkKey() ? water.fvec.NFSFileVec.chunkOffset(k) : 0;
     final Path p = _iceRoot == null?new Path(getPathForKey(k)):new Path(_iceRoot, getIceName(v));
     final long skip_ = skip;
+    final boolean pooled = _iceRoot == null; // Ice files come and go
     run(new Callable() {
       @Override public Object call() throws Exception {
-        FileSystem fs = FileSystem.get(p.toUri(), CONF);
-        FSDataInputStream s = null;
-        try {
-          s = fs.open(p);
-          if (p.toString().toLowerCase().startsWith("maprfs:")) {
-            // MapR behaves really horribly with the google ByteStreams code below.
-            // Instead of skipping by seeking, it skips by reading and dropping.  Very bad.
-            // Use the HDFS API here directly instead.
-            s.seek(skip_);
-            s.readFully(b);
-          }
-          else {
-            // NOTE:
-            // The following line degrades performance of HDFS load from S3 API: s.readFully(skip,b,0,b.length);
-            // Google API's simple seek has better performance
-            // Load of 300MB file via Google API ~ 14sec, via s.readFully ~ 5min (under the same condition)
-            ByteStreams.skipFully(s, skip_);
-            ByteStreams.readFully(s, b);
+        if( pooled ) StreamPool.read(p, skip_, b);
+        else {
+          FileSystem fs = FileSystem.get(p.toUri(), CONF);
+          FSDataInputStream s = null;
+          try {
+            s = fs.open(p);
+            s.readFully(0, b);
+          } finally {
+            FileUtils.close(s);
           }
-          assert v.isPersisted();
-        } finally {
-          FileUtils.close(s);
         }
+        assert v.isPersisted();
         return null;
       }
     }, true, v._max);
@@ -162,6 +130,166 @@ public final class PersistHdfs extends Persist {
     return b;
   }
 
+  /** Per-node pool of open input streams, by path.
+   *  <p>
+   *  Object stores (s3, s3n, s3a) and MapR are read sequentially: a chunk is
+   *  read with an idle stream already positioned at (or, on object stores, a
+   *  little before) its offset, if any - so consecutive chunks stream on with
+   *  no new request - else with a stream seeked to it.  Each such stream has
+   *  one reader at a time.  Other file systems (HDFS, local) read with
+   *  positional reads, which do not move the stream: one stream, counting its
+   *  readers, serves all the reads of a file.  Streams stay in the pool while
+   *  read, so that deleting the path drops them all; a stream in use is then
+   *  closed by its last reader.  A timer closes the streams idle for
+   *  {@link #IDLE_MSEC}.
+   */
+  static final class StreamPool {
+    /** Most bytes to read and drop to reach a chunk of an object store, rather than seek */
+    static final long READ_AHEAD = 16L << 20;
+    /** Streams kept per path */
+    static final int MAX_STREAMS = 4;
+    static final long IDLE_MSEC = 60 * 1000;
+    static final int BUFFER_SIZE = 1 << 20;
+
+    static final class PooledStream {
+      final FSDataInputStream _s;
+      long _pos;                // Offset of the next sequential read
+      long _lastUse;
+      int _readers;             // Reads in progress; at most 1 unless positional
+      boolean _dropped;         // Out of the pool: closed by its last reader
+      PooledStream(FSDataInputStream s) { _s = s; }
+    }
+
+    // Pooled streams per path, idle or in use
+    private static final HashMap<String, ArrayList<PooledStream>> POOL = new HashMap<>();
+
+    static {
+      new Timer("HDFS-StreamPool", true).schedule(new TimerTask() {
+        @Override public void run() { sweep(System.currentTimeMillis()); }
+      }, IDLE_MSEC, IDLE_MSEC / 2);
+    }
+
+    static boolean positional(Path p) {
+      String scheme = p.toUri().getScheme();
+      return scheme == null || !(scheme.startsWith("s3") || scheme.equals("maprfs"));
+    }
+
+    // Object stores skip by reading, and seek by re-opening: reading on a
+    // little is cheaper.  MapR seeks in place.
+    static boolean streamsOn(Path p) {
+      String scheme = p.toUri().getScheme();
+      return scheme != null && scheme.startsWith("s3");
+    }
+
+    /** Read b.length bytes of p at offset off. */
+    static void read(Path p, long off, byte[] b) throws IOException {
+      String key = p.toString();
+      boolean pread = positional(p);
+      PooledStream ps = borrow(key, pread ? -1 : off);
+      boolean ok = false;
+      try {
+        if( ps == null ) {
+          ps = new PooledStream(FileSystem.get(p.toUri(), CONF).open(p, BUFFER_SIZE));
+          share(key, ps);
+        }
+        if( pread ) ps._s.readFully(off, b);
+        else {
+          if( off != ps._pos ) {
+            if( streamsOn(p) && off > ps._pos && off - ps._pos <= READ_AHEAD )
+              ByteStreams.skipFully(ps._s, off - ps._pos); // Stream on
+            else ps._s.seek(off);
+          }
+          ps._s.readFully(b);
+          ps._pos = off + b.length;
+        }
+        ok = true;
+      } finally {
+        if( ps != null ) giveBack(key, ps, ok);
+      }
+    }
+
+    // A pooled stream for the path, now in use, or null if none.  Positional
+    // reads share the least used stream.  Sequential reads take an idle one,
+    // preferring the closest at or a little before the offset.
+    static synchronized PooledStream borrow(String key, long off) {
+      ArrayList<PooledStream> pool = POOL.get(key);
+      if( pool == null ) return null;
+      PooledStream best = null;
+      for( PooledStream ps : pool ) {
+        if( off < 0 ) {
+          if( best == null || ps._readers < best._readers ) best = ps;
+        } else if( ps._readers == 0 ) {
+          long gap = off - ps._pos;
+          boolean near = gap >= 0 && gap <= READ_AHEAD;
+          if( best == null || (near && (off < best._pos || off - best._pos > READ_AHEAD || gap < off - best._pos)) )
+            best = ps;
+        }
+      }
+      if( best != null ) best._readers++;
+      return best;
+    }
+
+    // Put a newly opened stream in the pool, as in use - unless the pool of
+    // the path is full, then its reader closes it
+    static synchronized void share(String key, PooledStream ps) {
+      ps._readers = 1;
+      ArrayList<PooledStream> pool = POOL.get(key);
+      if( pool == null ) POOL.put(key, pool = new ArrayList<>());
+      if( pool.size() < MAX_STREAMS ) pool.add(ps);
+      else ps._dropped = true;
+    }
+
+    // Done reading: the stream is idle again, unless the read failed (its
+    // state is unknown) - then it is dropped, and closed once its other
+    // readers are done.
+    static synchronized void giveBack(String key, PooledStream ps, boolean ok) {
+      ps._lastUse = System.currentTimeMillis();
+      ps._readers--;
+      if( !ok && !ps._dropped ) {
+        ps._dropped = true;
+        ArrayList<PooledStream> pool = POOL.get(key);
+        if( pool != null ) {
+          pool.remove(ps);
+          if( pool.isEmpty() ) POOL.remove(key);
+        }
+      }
+      if( ps._dropped && ps._readers == 0 ) FileUtils.close(ps._s);
+    }
+
+    // Close the streams idle since before now - IDLE_MSEC
+    static synchronized void sweep(long now) {
+      for( Iterator<ArrayList<PooledStream>> it = POOL.values().iterator(); it.hasNext(); ) {
+        ArrayList<PooledStream> pool = it.next();
+        for( Iterator<PooledStream> jt = pool.iterator(); jt.hasNext(); ) {
+          PooledStream ps = jt.next();
+          if( ps._readers == 0 && now - ps._lastUse > IDLE_MSEC ) {
+            ps._dropped = true;
+            FileUtils.close(ps._s);
+            jt.remove();
+          }
+        }
+        if( pool.isEmpty() ) it.remove();
+      }
+    }
+
+    /** Close the pooled streams of a path, e.g. once it is deleted.  Streams
+     *  still being read are closed by their last reader. */
+    static synchronized void close(String key) {
+      ArrayList<PooledStream> pool = POOL.remove(key);
+      if( pool != null )
+        for( PooledStream ps : pool ) {
+          ps._dropped = true;
+          if( ps._readers == 0 ) FileUtils.close(ps._s);
+        }
+    }
+
+    /** @return the number of pooled streams of a path; exposed for testing only */
+    static synchronized int pooled(String key) {
+      ArrayList<PooledStream> pool = POOL.get(key);
+      return pool == null ? 0 : pool.size();
+    }
+  }
+
   @Override public void store(Value v) {
     // Should be used only if ice goes to HDFS
     assert this == H2O.getPM().getIce();
@@ -486,6 +614,7 @@ public final class PersistHdfs extends Persist {
   public boolean delete(String path) {
     Path p = new Path(path);
     URI uri = p.toUri();
+    StreamPool.close(p.toString());
     try {
       FileSystem fs = FileSystem.get(uri, CONF);
       return fs.delete(p, true);
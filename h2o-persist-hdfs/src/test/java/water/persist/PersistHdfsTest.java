@@ -0,0 +1,175 @@
+package water.persist;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.TestUtil;
+import water.persist.PersistHdfs.StreamPool;
+import water.persist.PersistHdfs.StreamPool.PooledStream;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PersistHdfsTest extends TestUtil {
+  static final int CHUNK = 1000;
+  static byte[] DATA;
+  static File FILE;
+
+  // Local files under an object store scheme, to read them sequentially
+  public static class S3LocalFileSystem extends RawLocalFileSystem {
+    @Override public URI getUri() { return URI.create("s3local:///"); }
+  }
+
+  @BeforeClass public static void setup() throws IOException {
+    stall_till_cloudsize(1);
+    PersistHdfs.CONF.set("fs.s3local.impl", S3LocalFileSystem.class.getName());
+    DATA = new byte[64*CHUNK];
+    new Random(0xCAFE).nextBytes(DATA);
+    FILE = file(DATA);
+  }
+  @AfterClass public static void cleanup() { FILE.delete(); }
+
+  private static File file(byte[] data) throws IOException {
+    File f = File.createTempFile("stream-pool", ".bin");
+    f.deleteOnExit();
+    FileOutputStream os = new FileOutputStream(f);
+    try { os.write(data); } finally { os.close(); }
+    return f;
+  }
+
+  private static Path path(String scheme, File f) { return new Path(scheme + ":" + f.getAbsolutePath()); }
+
+  // Read chunk c of p, checking its bytes
+  private static void readChunk(Path p, int c) throws IOException {
+    byte[] b = new byte[CHUNK];
+    StreamPool.read(p, (long)c*CHUNK, b);
+    Assert.assertArrayEquals("chunk " + c, Arrays.copyOfRange(DATA, c*CHUNK, (c+1)*CHUNK), b);
+  }
+
+  private static boolean isClosed(PooledStream ps) {
+    try { ps._s.readFully(0, new byte[1]); return false; }
+    catch( IOException e ) { return true; }
+  }
+
+  // Consecutive chunks stream on with one stream; others seek it, back or on
+  @Test public void testSequentialReads() throws IOException {
+    Path p = path("s3local", FILE);
+    Assert.assertFalse(StreamPool.positional(p));
+    try {
+      for( int c = 0; c < 4; c++ ) readChunk(p, c);
+      Assert.assertEquals(1, StreamPool.pooled(p.toString()));
+      for( int c : new int[]{40, 2, 63, 3, 4, 0} ) readChunk(p, c);
+      Assert.assertEquals(1, StreamPool.pooled(p.toString()));
+    } finally {
+      StreamPool.close(p.toString());
+    }
+    Assert.assertEquals(0, StreamPool.pooled(p.toString()));
+  }
+
+  // Concurrent positional reads of a file share its stream
+  @Test public void testSharedReads() throws Exception {
+    final Path p = path("file", FILE);
+    Assert.assertTrue(StreamPool.positional(p));
+    try {
+      readChunk(p, 0);
+      PooledStream ps = StreamPool.borrow(p.toString(), -1);
+      Assert.assertEquals(1, ps._readers);
+      final AtomicReference<Throwable> err = new AtomicReference<>();
+      Thread[] ts = new Thread[8];
+      for( int t = 0; t < ts.length; t++ ) {
+        final int seed = t;
+        ts[t] = new Thread() {
+          @Override public void run() {
+            Random rng = new Random(seed);
+            try {
+              for( int i = 0; i < 200; i++ ) readChunk(p, rng.nextInt(DATA.length/CHUNK));
+            } catch( Throwable e ) { err.compareAndSet(null, e); }
+          }
+        };
+        ts[t].start();
+      }
+      for( Thread t : ts ) t.join();
+      if( err.get() != null ) throw new AssertionError(err.get());
+      Assert.assertEquals(1, StreamPool.pooled(p.toString()));
+      Assert.assertSame(ps, StreamPool.borrow(p.toString(), -1));
+      Assert.assertEquals(2, ps._readers);
+      StreamPool.giveBack(p.toString(), ps, true);
+      StreamPool.giveBack(p.toString(), ps, true);
+      Assert.assertEquals(0, ps._readers);
+      Assert.assertFalse(isClosed(ps));
+    } finally {
+      StreamPool.close(p.toString());
+    }
+  }
+
+  // A failed read drops its stream rather than pooling it again
+  @Test public void testFailedRead() throws IOException {
+    for( String scheme : new String[]{"file", "s3local"} ) {
+      Path p = path(scheme, FILE);
+      String key = p.toString();
+      try {
+        readChunk(p, 1);
+        PooledStream ps = StreamPool.borrow(key, StreamPool.positional(p) ? -1 : 2*CHUNK);
+        StreamPool.giveBack(key, ps, true);
+        try {
+          StreamPool.read(p, DATA.length - CHUNK/2, new byte[CHUNK]);
+          Assert.fail("Read past the end of " + p);
+        } catch( EOFException expected ) { }
+        Assert.assertEquals(0, StreamPool.pooled(key));
+        Assert.assertTrue(ps._dropped);
+        Assert.assertTrue(isClosed(ps));
+        readChunk(p, 1);          // A new stream
+        Assert.assertEquals(1, StreamPool.pooled(key));
+      } finally {
+        StreamPool.close(key);
+      }
+    }
+  }
+
+  // A borrowed stream survives the sweep, and the deletion of its file until
+  // its read is done; an idle one is swept
+  @Test public void testDeleteAndSweepWhileBorrowed() throws IOException {
+    File f = file(DATA);
+    for( String scheme : new String[]{"file", "s3local"} ) {
+      Path p = path(scheme, FILE);
+      String key = p.toString();
+      try {
+        readChunk(p, 0);
+        StreamPool.sweep(System.currentTimeMillis() + 2*StreamPool.IDLE_MSEC);
+        Assert.assertEquals(0, StreamPool.pooled(key));
+        readChunk(p, 0);
+        PooledStream ps = StreamPool.borrow(key, StreamPool.positional(p) ? -1 : CHUNK);
+        StreamPool.sweep(System.currentTimeMillis() + 2*StreamPool.IDLE_MSEC);
+        Assert.assertEquals(1, StreamPool.pooled(key));
+        Assert.assertFalse(isClosed(ps));
+        StreamPool.close(key);
+        Assert.assertEquals(0, StreamPool.pooled(key));
+        Assert.assertFalse(isClosed(ps));
+        StreamPool.giveBack(key, ps, true);
+        Assert.assertTrue(isClosed(ps));
+        Assert.assertEquals(0, StreamPool.pooled(key));
+      } finally {
+        StreamPool.close(key);
+      }
+    }
+    // Through the persist layer, deleting the file
+    Path p = path("file", f);
+    readChunk(p, 3);
+    PooledStream ps = StreamPool.borrow(p.toString(), -1);
+    Assert.assertTrue(new PersistHdfs().delete(p.toString()));
+    Assert.assertFalse(f.exists());
+    Assert.assertFalse(isClosed(ps));
+    StreamPool.giveBack(p.toString(), ps, true);
+    Assert.assertTrue(isClosed(ps));
+    Assert.assertEquals(0, StreamPool.pooled(p.toString()));
+  }
+}